@@ -0,0 +1,176 @@
+package com.example.edicleanarch.common.adapter.in.file;
+
+import com.example.edicleanarch.common.model.FileFingerprint;
+import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.common.parser.AsciiCharSequence;
+import com.example.edicleanarch.common.port.in.ProcessEdiContentUseCase;
+import com.example.edicleanarch.config.EdiProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Abstract File Drop Adapter
+ * Base class for the landing-directory pollers (edi.file-drop).
+ *
+ * Layout: {directory}/{subdirectory}/{partnerId}/{file}; files directly in the subdirectory
+ * belong to partner UNKNOWN. Each file is memory-mapped and handed to the use case as an
+ * ASCII view of the mapping, so it is parsed in place without reading it into the heap.
+ * Afterwards it is moved to processed/ or, if it is invalid, to failed/ next to it; a name
+ * that is taken there gets a counter (name.1.txt). A file that could not be read or failed
+ * with an error (e.g. database unavailable) stays in place and is retried on the next polls,
+ * up to edi.file-drop.max-attempts, before it is moved to failed/.
+ *
+ * Files modified within edi.file-drop.min-age, hidden files and *.part / *.tmp files are
+ * left alone until the sender has finished writing them.
+ */
+@Slf4j
+public abstract class AbstractFileDropAdapter {
+
+    private static final String PROCESSED_DIR = "processed";
+    private static final String FAILED_DIR = "failed";
+    private static final String UNKNOWN_PARTNER = "UNKNOWN";
+
+    private final Map<Path, Integer> attempts = new ConcurrentHashMap<>();
+
+    protected abstract ProcessEdiContentUseCase getUseCase();
+
+    protected abstract String getMessageType();
+
+    /**
+     * Directory under edi.file-drop.directory polled by this adapter.
+     */
+    protected abstract String getSubdirectory();
+
+    protected abstract EdiProperties getProperties();
+
+    /**
+     * Process every file that is ready, in path order. Subclasses schedule this method.
+     */
+    protected void poll() {
+        EdiProperties.FileDropProperties config = getProperties().getFileDrop();
+        Path root = Path.of(config.getDirectory(), getSubdirectory());
+        if (!Files.isDirectory(root)) return;
+
+        Instant readyBefore = Instant.now().minus(config.getMinAge());
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root, 2)) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(file -> isReady(root, file, readyBefore))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.error("Failed to list {} landing directory {}", getMessageType(), root, e);
+            return;
+        }
+
+        attempts.keySet().retainAll(files);   // Files removed by someone else
+        for (Path file : files) {
+            processFile(file, partnerId(root, file));
+        }
+    }
+
+    private void processFile(Path file, String partnerId) {
+        String fileName = file.getFileName().toString();
+        log.info("Picked up {} file {} for partner {}", getMessageType(), file, partnerId);
+
+        ProcessingResult result;
+        try {
+            AsciiCharSequence content = AsciiCharSequence.map(file);
+            String contentHash = FileFingerprint.sha256(content.bytes());
+            result = getUseCase().processContent(content, contentHash, partnerId, fileName);
+        } catch (Exception e) {
+            log.error("Failed to read {} file {}", getMessageType(), file, e);
+            retryOrFail(file);
+            return;
+        }
+
+        if (result.isSuccess()) {
+            log.info("Processed {} file {}: {} records", getMessageType(), fileName, result.getRecordCount());
+            attempts.remove(file);
+            moveTo(file, PROCESSED_DIR);
+        } else {
+            log.warn("Failed to process {} file {}: {} {}", getMessageType(), fileName,
+                    result.getStatus(), result.getErrorMessage() != null
+                            ? result.getErrorMessage() : result.getValidationErrors());
+            if (result.getStatus() == ProcessingResult.Status.ERROR) {
+                retryOrFail(file);
+            } else {
+                attempts.remove(file);
+                moveTo(file, FAILED_DIR);
+            }
+        }
+    }
+
+    /**
+     * Leave a file that failed with an error in place for the next poll, or move it to failed/
+     * once edi.file-drop.max-attempts polls have failed.
+     */
+    private void retryOrFail(Path file) {
+        int attempt = attempts.merge(file, 1, Integer::sum);
+        int maxAttempts = Math.max(1, getProperties().getFileDrop().getMaxAttempts());
+        if (attempt < maxAttempts) {
+            log.info("Leaving {} file {} in place, attempt {} of {}", getMessageType(), file, attempt, maxAttempts);
+        } else {
+            attempts.remove(file);
+            moveTo(file, FAILED_DIR);
+        }
+    }
+
+    private boolean isReady(Path root, Path file, Instant readyBefore) {
+        Path relative = root.relativize(file);
+        for (Path element : relative) {
+            String name = element.toString();
+            if (name.startsWith(".") || name.equals(PROCESSED_DIR) || name.equals(FAILED_DIR)) return false;
+        }
+        String name = file.getFileName().toString();
+        if (name.endsWith(".part") || name.endsWith(".tmp")) return false;
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(readyBefore);
+        } catch (IOException e) {
+            return false;   // Removed or renamed while listing
+        }
+    }
+
+    private static String partnerId(Path root, Path file) {
+        Path relative = root.relativize(file);
+        return relative.getNameCount() > 1 ? relative.getName(0).toString() : UNKNOWN_PARTNER;
+    }
+
+    private void moveTo(Path file, String directory) {
+        try {
+            Path target = file.resolveSibling(directory);
+            Files.createDirectories(target);
+            String fileName = file.getFileName().toString();
+            for (int copy = 0; ; copy++) {
+                try {
+                    Files.move(file, target.resolve(copyName(fileName, copy)));
+                    return;
+                } catch (FileAlreadyExistsException e) {
+                    // Same name delivered before: keep both files
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to move {} file {} to {}/", getMessageType(), file, directory, e);
+        }
+    }
+
+    /**
+     * Name of the n-th file with the same name in a directory: name.txt, name.1.txt, name.2.txt, ...
+     */
+    static String copyName(String fileName, int copy) {
+        if (copy == 0) return fileName;
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0
+                ? fileName.substring(0, dot) + "." + copy + fileName.substring(dot)
+                : fileName + "." + copy;
+    }
+}
@@ -1,27 +1,99 @@
 package com.example.edicleanarch.common.adapter.in.kafka;
 
 import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.common.port.in.ProcessEdiBatchUseCase;
 import com.example.edicleanarch.common.port.in.ProcessEdiFileCommand;
 import com.example.edicleanarch.common.port.in.ProcessEdiFileUseCase;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
 import org.springframework.kafka.support.Acknowledgment;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Abstract Kafka Consumer Adapter
  * Base class for all EDI Kafka consumers.
+ * Subclasses expose {@link #handleMessage} as record listener and, optionally,
+ * {@link #handleBatch} as batch listener (ediBatchKafkaListenerContainerFactory).
+ * Record listeners can hand records to an {@link OrderedParallelDispatcher}.
  *
  * @param <C> Command type
  */
 @Slf4j
 public abstract class AbstractKafkaConsumerAdapter<C extends ProcessEdiFileCommand> {
 
+    /**
+     * Outcome of processing one message.
+     */
+    private enum Outcome {
+        PROCESSED,  // success or partial success
+        REJECTED,   // validation failed: redelivery cannot help
+        FAILED      // error or exception: may succeed on redelivery
+    }
+
+    /**
+     * Failed message being redelivered, per partition (only the first failed offset of a batch is retried).
+     */
+    private record FailedOffset(long offset, int attempts) {
+    }
+
+    private final Map<TopicPartition, FailedOffset> failedOffsets = new ConcurrentHashMap<>();
+
     protected abstract ProcessEdiFileUseCase<C> getUseCase();
 
     protected abstract C parseMessage(ConsumerRecord<String, String> record);
 
     protected abstract String getMessageType();
 
+    /**
+     * Dispatcher for ordered-parallel mode, or null to process records on the listener thread.
+     */
+    protected OrderedParallelDispatcher getParallelDispatcher() {
+        return null;
+    }
+
+    /**
+     * Id of the record listener container, paused by the dispatcher when too many records are in flight.
+     */
+    protected String getListenerId() {
+        return null;
+    }
+
+    /**
+     * Pause before the records of a batch from the first failed one on are redelivered.
+     */
+    protected Duration getNackSleep() {
+        return Duration.ofSeconds(1);
+    }
+
+    /**
+     * Deliveries of a failed batch message before it is reported and skipped.
+     */
+    protected int getMaxAttempts() {
+        return 3;
+    }
+
+    /**
+     * Whether a record can join the combined write of a batch. Records that cannot are processed
+     * by {@link #processMessage}, and a poll containing one is processed one by one.
+     */
+    protected boolean isBatchable(ConsumerRecord<String, String> record) {
+        return true;
+    }
+
+    /**
+     * Process one message. Override to process some messages other than through
+     * {@link #parseMessage} and the use case (e.g. streamed claim checks).
+     */
+    protected ProcessingResult processMessage(ConsumerRecord<String, String> record) {
+        return getUseCase().processFile(parseMessage(record));
+    }
+
     /**
      * Common message handling logic.
      */
@@ -29,11 +101,121 @@ public abstract class AbstractKafkaConsumerAdapter<C extends ProcessEdiFileComma
         log.info("Received {} message: topic={}, partition={}, offset={}, key={}",
                 getMessageType(), record.topic(), record.partition(), record.offset(), record.key());
 
+        OrderedParallelDispatcher dispatcher = getParallelDispatcher();
+        if (dispatcher != null) {
+            dispatcher.dispatch(getListenerId(), record, acknowledgment, this::processRecord);
+        } else if (processRecord(record)) {
+            acknowledgment.acknowledge();
+        }
+    }
+
+    /**
+     * Batch handling logic: all messages of a poll are processed with one combined write
+     * and acknowledged together. If the use case cannot process batches, a message is not
+     * {@link #isBatchable batchable}, or the batch fails
+     * (nothing of it is committed), its messages are processed one by one, in offset order:
+     * at the first message that fails with an error, the messages before it are acknowledged
+     * and it and the rest are redelivered (nack) after {@link #getNackSleep()}, up to
+     * {@link #getMaxAttempts()} deliveries. Then it is skipped like in record mode.
+     * Messages that cannot be parsed or fail validation are reported and skipped.
+     */
+    protected void handleBatch(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        if (records.isEmpty()) return;
+        ConsumerRecord<String, String> first = records.get(0);
+        log.info("Received {} batch: {} messages, topic={}, partition={}, offset={}",
+                getMessageType(), records.size(), first.topic(), first.partition(), first.offset());
+
+        long startTime = System.currentTimeMillis();
+        List<ConsumerRecord<String, String>> batch = new ArrayList<>(records.size());
+        List<Integer> positions = new ArrayList<>(records.size());   // Index of each batch record in records
+        List<C> commands = new ArrayList<>(records.size());
+        boolean combinable = true;
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            if (!isBatchable(record)) {
+                combinable = false;
+                batch.add(record);
+                positions.add(i);
+                continue;
+            }
+            try {
+                commands.add(parseMessage(record));
+                batch.add(record);
+                positions.add(i);
+            } catch (Exception e) {
+                log.error("Error parsing {} message: key={}", getMessageType(), record.key(), e);
+                handleException(record, e);
+            }
+        }
+
+        if (combinable && !commands.isEmpty() && getUseCase() instanceof ProcessEdiBatchUseCase<C> batchUseCase) {
+            try {
+                List<ProcessingResult> results = batchUseCase.processFiles(commands);
+                if (results.stream().allMatch(ProcessingResult::isSuccess)) {
+                    log.info("Processed {} batch: messages={}, records={}, duration={}ms",
+                            getMessageType(), batch.size(),
+                            results.stream().mapToInt(ProcessingResult::getRecordCount).sum(),
+                            System.currentTimeMillis() - startTime);
+                    acknowledgment.acknowledge();
+                    return;
+                }
+                log.warn("{} batch of {} messages rolled back, processing them one by one",
+                        getMessageType(), batch.size());
+            } catch (Exception e) {
+                log.warn("Error processing {} batch of {} messages, processing them one by one",
+                        getMessageType(), batch.size(), e);
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            ConsumerRecord<String, String> record = batch.get(i);
+            if (process(record) != Outcome.FAILED) continue;
+
+            int attempts = recordFailure(record);
+            if (attempts < getMaxAttempts()) {
+                log.warn("{} message at offset {} failed (attempt {} of {}), redelivering it and the {} messages"
+                                + " after it", getMessageType(), record.offset(), attempts, getMaxAttempts(),
+                        records.size() - positions.get(i) - 1);
+                acknowledgment.nack(positions.get(i), getNackSleep());
+                return;
+            }
+            log.error("{} message at offset {} failed {} times, skipping it: key={}",
+                    getMessageType(), record.offset(), attempts, record.key());
+        }
+        for (ConsumerRecord<String, String> record : records) {
+            failedOffsets.remove(new TopicPartition(record.topic(), record.partition()));
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Count a delivery of a failed message.
+     *
+     * @return deliveries of the message that failed so far
+     */
+    private int recordFailure(ConsumerRecord<String, String> record) {
+        FailedOffset failed = failedOffsets.merge(new TopicPartition(record.topic(), record.partition()),
+                new FailedOffset(record.offset(), 1),
+                (previous, next) -> previous.offset() == next.offset()
+                        ? new FailedOffset(previous.offset(), previous.attempts() + 1) : next);
+        return failed.attempts();
+    }
+
+    /**
+     * Process one message.
+     *
+     * @return true if the message was processed and can be acknowledged
+     */
+    private boolean processRecord(ConsumerRecord<String, String> record) {
+        return process(record) == Outcome.PROCESSED;
+    }
+
+    private Outcome process(ConsumerRecord<String, String> record) {
         long startTime = System.currentTimeMillis();
 
         try {
-            C command = parseMessage(record);
-            ProcessingResult result = getUseCase().processFile(command);
+            ProcessingResult result = processMessage(record);
 
             if (result.isSuccess() || result.isPartialSuccess()) {
                 log.info("Processed {} message: key={}, records={}, success={}, failed={}, duration={}ms",
@@ -43,18 +225,21 @@ public abstract class AbstractKafkaConsumerAdapter<C extends ProcessEdiFileComma
                         result.getSuccessCount(),
                         result.getFailedCount(),
                         System.currentTimeMillis() - startTime);
-                acknowledgment.acknowledge();
-            } else {
-                log.error("Failed to process {} message: key={}, error={}",
-                        getMessageType(), record.key(), result.getErrorMessage());
-                handleProcessingFailure(record, result);
+                return Outcome.PROCESSED;
             }
+            log.error("Failed to process {} message: key={}, error={}",
+                    getMessageType(), record.key(), result.getErrorMessage());
+            handleProcessingFailure(record, result);
+            return result.getStatus() == ProcessingResult.Status.VALIDATION_FAILED
+                    ? Outcome.REJECTED : Outcome.FAILED;
 
         } catch (Exception e) {
             log.error("Error processing {} message: key={}", getMessageType(), record.key(), e);
             handleException(record, e);
+            return Outcome.FAILED;
         }
     }
+
     /**
      * Handle processing failure. Override to customize behavior.
      */
@@ -0,0 +1,164 @@
+package com.example.edicleanarch.common.adapter.in.kafka;
+
+import com.example.edicleanarch.config.EdiProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Claim-Check Store (edi.kafka.claim-check)
+ * Resolves the payload of a claim-check message: the Kafka record carries a reference into
+ * a local store directory (shared volume) and the SHA-256 of the file instead of the content.
+ *
+ * The file is streamed once, verifying size and checksum while it is read, so the payload never
+ * passes through the broker or a JSON tree. {@link #open} hands the stream to a streaming use
+ * case, which then never holds the whole file; {@link #read} loads it for the others.
+ * References are resolved with symbolic links followed, so a link inside the store cannot
+ * point outside it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClaimCheckStore {
+
+    private final EdiProperties properties;
+
+    /**
+     * Read a referenced payload into memory.
+     *
+     * @param reference Path of the file, relative to the store directory
+     * @param sha256    Expected SHA-256 of the file as hex (required)
+     * @return The file content
+     * @throws IllegalArgumentException if the payload cannot be opened (see {@link #open}), cannot
+     *                                  be read or the checksum does not match
+     */
+    public String read(String reference, String sha256) {
+        try (InputStream in = open(reference, sha256)) {
+            String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            log.debug("Read claim-check payload {} ({} chars)", reference, content.length());
+            return content;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read claim-check payload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Open a referenced payload for streaming. The stream verifies the file as it is read:
+     * reading past the expected size, or to the end with another checksum, throws an IOException,
+     * so a consumer that reads to the end before committing never commits a bad payload.
+     *
+     * @param reference Path of the file, relative to the store directory
+     * @param sha256    Expected SHA-256 of the file as hex (required)
+     * @return The file content, to be closed by the caller
+     * @throws IllegalArgumentException if claim-check is disabled, the checksum is missing, the
+     *                                  reference leaves the store, the file is too large or
+     *                                  cannot be opened
+     */
+    public InputStream open(String reference, String sha256) {
+        EdiProperties.KafkaProperties.ClaimCheckProperties config = properties.getKafka().getClaimCheck();
+        if (!config.isEnabled()) {
+            throw new IllegalArgumentException("Claim-check message received but edi.kafka.claim-check is disabled");
+        }
+
+        if (sha256 == null || sha256.isBlank()) {
+            throw new IllegalArgumentException("Claim-check message without sha256: " + reference);
+        }
+
+        Path file = resolve(Path.of(config.getStoreDir()), reference);
+        try {
+            long size = Files.size(file);
+            if (size > config.getMaxBytes()) {
+                throw new IllegalArgumentException("Claim-check payload too large: " + reference + " (" + size + " bytes)");
+            }
+            return new VerifyingInputStream(Files.newInputStream(file, LinkOption.NOFOLLOW_LINKS),
+                    reference, size, sha256);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read claim-check payload: " + reference, e);
+        }
+    }
+
+    /**
+     * Real path of the referenced file (links resolved), which must be inside the real store directory.
+     */
+    private static Path resolve(Path storeDir, String reference) {
+        Path store;
+        Path file;
+        try {
+            store = storeDir.toRealPath();
+            file = store.resolve(reference).toRealPath();
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot read claim-check payload: " + reference, e);
+        }
+        if (!file.startsWith(store) || file.equals(store)) {
+            throw new IllegalArgumentException("Claim-check reference outside the store: " + reference);
+        }
+        return file;
+    }
+
+    /**
+     * Payload stream that checks the size while it is read and the checksum at its end.
+     */
+    private static final class VerifyingInputStream extends DigestInputStream {
+        private final String reference;
+        private final long size;
+        private final String sha256;
+        private long count;
+        private boolean verified;
+
+        private VerifyingInputStream(InputStream in, String reference, long size, String sha256) {
+            super(in, sha256Digest());
+            this.reference = reference;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            count(b < 0 ? -1 : 1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n != 0) count(n);
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            if (n > 0) {
+                count += n;
+                if (count > size) throw new IOException(reference + " grew while reading");
+                return;
+            }
+            if (verified) return;
+            if (count != size) throw new IOException(reference + " shrank while reading");
+            String actual = HexFormat.of().formatHex(getMessageDigest().digest());
+            if (!sha256.equalsIgnoreCase(actual)) {
+                throw new IOException("Checksum mismatch for " + reference
+                        + ": expected " + sha256 + ", got " + actual);
+            }
+            verified = true;
+        }
+    }
+
+    private static MessageDigest sha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -5,14 +5,22 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.header.Header;
 import org.springframework.stereotype.Component;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 /**
  * Common Kafka Message Parser
  * Parses Kafka messages into content, partnerId, fileName.
+ *
+ * JSON messages carry the EDI file inline ({@code content}) or as a claim check
+ * ({@code contentRef} plus {@code sha256}) resolved through {@link ClaimCheckStore}.
+ * JSON is read with a streaming parser: only the top-level fields are extracted, no tree is built.
+ * Malformed JSON is reported as "Invalid JSON message format"; missing fields and claim-check
+ * failures keep their own message.
  */
 @Slf4j
 @Component
@@ -20,6 +28,7 @@ import java.nio.charset.StandardCharsets;
 public class KafkaMessageParser {
 
     private final ObjectMapper objectMapper;
+    private final ClaimCheckStore claimCheckStore;
 
     /**
      * Parse a Kafka record into ParsedMessage.
@@ -38,32 +47,91 @@ public class KafkaMessageParser {
         return value != null && value.trim().startsWith("{");
     }
 
-    private ParsedMessage parseJsonFormat(String value, String messageType) {
-        try {
-            JsonNode json = objectMapper.readTree(value);
+    /**
+     * Claim-check reference of a record, for consumers that stream the payload
+     * ({@link ClaimCheckStore#open}) instead of parsing it into a String.
+     *
+     * @return The reference, or null if the record carries its content inline
+     */
+    public ClaimCheck parseClaimCheck(ConsumerRecord<String, String> record, String messageType) {
+        String value = record.value();
+        if (!isJsonFormat(value)) return null;
 
-            String content = getJsonField(json, "content");
-            String partnerId = getJsonField(json, "partnerId");
-            String fileName = getJsonField(json, "fileName");
+        JsonFields json = readJson(value);
+        if (json.contentRef() == null || (json.content() != null && !json.content().isEmpty())) {
+            return null;
+        }
+        String partnerId = requirePartnerId(json.partnerId());
+        return new ClaimCheck(json.contentRef(), json.sha256(), partnerId,
+                fileNameOrGenerated(json.fileName(), partnerId, messageType));
+    }
 
-            if (content == null || content.isEmpty()) {
-                throw new IllegalArgumentException("Missing required field: content");
-            }
-            if (partnerId == null || partnerId.isEmpty()) {
-                throw new IllegalArgumentException("Missing required field: partnerId");
-            }
-            if (fileName == null || fileName.isEmpty()) {
-                fileName = generateFileName(partnerId, messageType);
-            }
+    private ParsedMessage parseJsonFormat(String value, String messageType) {
+        JsonFields json = readJson(value);
+
+        String content = json.content();
+        if ((content == null || content.isEmpty()) && json.contentRef() == null) {
+            throw new IllegalArgumentException("Missing required field: content");
+        }
+        String partnerId = requirePartnerId(json.partnerId());
+        if (content == null || content.isEmpty()) {
+            content = claimCheckStore.read(json.contentRef(), json.sha256());
+        }
 
-            return new ParsedMessage(content, partnerId, fileName);
+        return new ParsedMessage(content, partnerId, fileNameOrGenerated(json.fileName(), partnerId, messageType));
+    }
 
+    private JsonFields readJson(String value) {
+        try {
+            return readJsonFields(value);
         } catch (Exception e) {
             log.error("Error parsing JSON message: {}", e.getMessage());
             throw new IllegalArgumentException("Invalid JSON message format", e);
         }
     }
 
+    private String requirePartnerId(String partnerId) {
+        if (partnerId == null || partnerId.isEmpty()) {
+            throw new IllegalArgumentException("Missing required field: partnerId");
+        }
+        return partnerId;
+    }
+
+    private String fileNameOrGenerated(String fileName, String partnerId, String messageType) {
+        return fileName == null || fileName.isEmpty() ? generateFileName(partnerId, messageType) : fileName;
+    }
+
+    /**
+     * Pull the known top-level fields; nested values of other fields are skipped.
+     */
+    private JsonFields readJsonFields(String value) throws IOException {
+        String content = null, partnerId = null, fileName = null, contentRef = null, sha256 = null;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(value)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("JSON message is not an object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (token.isStructStart()) {
+                    parser.skipChildren();
+                    continue;
+                }
+                String text = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                switch (field) {
+                    case "content" -> content = text;
+                    case "partnerId" -> partnerId = text;
+                    case "fileName" -> fileName = text;
+                    case "contentRef" -> contentRef = text;
+                    case "sha256" -> sha256 = text;
+                    default -> { }
+                }
+            }
+        }
+        return new JsonFields(content, partnerId, fileName, contentRef, sha256);
+    }
+
     private ParsedMessage parseSimpleFormat(ConsumerRecord<String, String> record, String messageType) {
         String content = record.value();
         String partnerId = record.key();
@@ -86,11 +154,6 @@ public class KafkaMessageParser {
         return new ParsedMessage(content, partnerId, fileName);
     }
 
-    private String getJsonField(JsonNode json, String fieldName) {
-        JsonNode node = json.get(fieldName);
-        return node != null && !node.isNull() ? node.asText() : null;
-    }
-
     private String getHeader(ConsumerRecord<String, String> record, String headerName) {
         Header header = record.headers().lastHeader(headerName);
         if (header != null && header.value() != null) {
@@ -114,4 +177,17 @@ public class KafkaMessageParser {
             String partnerId,
             String fileName
     ) {}
+
+    /**
+     * Claim-check message data: the payload is read from the store.
+     */
+    public record ClaimCheck(
+            String contentRef,
+            String sha256,
+            String partnerId,
+            String fileName
+    ) {}
+
+    private record JsonFields(String content, String partnerId, String fileName,
+                              String contentRef, String sha256) {}
 }
@@ -0,0 +1,270 @@
+package com.example.edicleanarch.common.adapter.in.kafka;
+
+import com.example.edicleanarch.common.port.out.DatabasePermitPort;
+import com.example.edicleanarch.config.EdiProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Ordered-parallel record processing for Kafka listeners (edi.kafka.parallel).
+ *
+ * The listener thread only dispatches: records are sharded by message key (partnerId) and each
+ * shard runs its records one after another on virtual threads, so records of one partner keep
+ * their order while different partners of the same partition are processed concurrently.
+ * Keyless records are sharded by partition and keep partition order. A failing record does not
+ * hold up its shard. Records run at most as many at a time as the database has permits for
+ * writer transactions ({@link DatabasePermitPort#transactionPermits()}), whatever the shard count.
+ *
+ * Offsets are acknowledged per partition only up to the lowest record that is not finished yet,
+ * so a crash never skips an unfinished record; finished records after it are redelivered and
+ * processed again unless the use case checks the processed-file ledger (the 315 and Railinc
+ * file services do). The listener container is paused while more than max-in-flight records
+ * are unfinished and resumed below half of it.
+ *
+ * As the container's rebalance listener, revoked partitions are drained: the records already
+ * dispatched get edi.kafka.parallel.revoke-timeout to finish and be acknowledged before the
+ * partition is handed over; records still queued after that are skipped and not acknowledged,
+ * the new owner receives them again. Lost partitions are skipped at once.
+ *
+ * Requires a MANUAL ack mode container (ediKafkaListenerContainerFactory).
+ */
+@Slf4j
+@Component
+public class OrderedParallelDispatcher implements ConsumerAwareRebalanceListener {
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final EdiProperties properties;
+    private final Semaphore running;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, ListenerState> listeners = new ConcurrentHashMap<>();
+
+    public OrderedParallelDispatcher(KafkaListenerEndpointRegistry registry, EdiProperties properties,
+                                     DatabasePermitPort databasePermits) {
+        this.registry = registry;
+        this.properties = properties;
+        int shards = Math.max(1, properties.getKafka().getParallel().getShards());
+        this.running = new Semaphore(Math.min(shards, Math.max(1, databasePermits.transactionPermits())), true);
+    }
+
+    /**
+     * Queue a record behind the unfinished records of its key and return immediately.
+     *
+     * @param listenerId     Id of the listener container (for pause/resume)
+     * @param record         Record to process
+     * @param acknowledgment Acknowledgment of the record
+     * @param processor      Processes the record; failures are handled and reported by the processor
+     */
+    public void dispatch(String listenerId, ConsumerRecord<String, String> record, Acknowledgment acknowledgment,
+                         Predicate<ConsumerRecord<String, String>> processor) {
+        ListenerState listener = listeners.computeIfAbsent(listenerId,
+                id -> new ListenerState(id, properties.getKafka().getParallel()));
+
+        PartitionProgress progress = listener.progress(new TopicPartition(record.topic(), record.partition()));
+        InFlight inFlight = progress.add(record.offset(), acknowledgment);
+        listener.started();
+
+        Object key = record.key() != null ? record.key() : record.partition();
+        listener.submit(key, () -> {
+            try {
+                if (progress.isRevoked()) {
+                    log.debug("Skipping record of revoked partition: partition={}, offset={}",
+                            record.partition(), record.offset());
+                    return;
+                }
+                running.acquireUninterruptibly();
+                try {
+                    processor.test(record);
+                } finally {
+                    running.release();
+                }
+            } catch (Exception e) {
+                log.error("Unexpected error processing record: partition={}, offset={}",
+                        record.partition(), record.offset(), e);
+            } finally {
+                progress.complete(inFlight);
+                listener.finished();
+            }
+        });
+    }
+
+    /**
+     * Let the dispatched records of the revoked partitions finish (up to revoke-timeout), so their
+     * offsets are committed before the partitions move; skip the rest.
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoke(partitions, System.nanoTime() + properties.getKafka().getParallel().getRevokeTimeout().toNanos());
+    }
+
+    /**
+     * Offsets of lost partitions can no longer be committed: skip their queued records at once.
+     */
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revoke(partitions, System.nanoTime());
+    }
+
+    private void revoke(Collection<TopicPartition> partitions, long deadline) {
+        for (ListenerState listener : listeners.values()) {
+            for (TopicPartition partition : partitions) {
+                PartitionProgress progress = listener.partitions.remove(partition);
+                if (progress != null && !progress.drain(deadline)) {
+                    log.warn("Partition {} revoked with unfinished records; they are redelivered to its new owner",
+                            partition);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Ordered-parallel records still running at shutdown; they will be redelivered");
+        }
+    }
+
+    /**
+     * Shards, partitions and in-flight count of one listener container.
+     */
+    private final class ListenerState {
+        private final String listenerId;
+        private final CompletableFuture<?>[] shards;
+        private final Map<TopicPartition, PartitionProgress> partitions = new ConcurrentHashMap<>();
+        private final int maxInFlight;
+        private int inFlight;
+        private boolean paused;
+
+        ListenerState(String listenerId, EdiProperties.KafkaProperties.ParallelProperties config) {
+            this.listenerId = listenerId;
+            this.shards = new CompletableFuture<?>[Math.max(1, config.getShards())];
+            this.maxInFlight = Math.max(1, config.getMaxInFlight());
+            for (int i = 0; i < shards.length; i++) {
+                shards[i] = CompletableFuture.completedFuture(null);
+            }
+        }
+
+        PartitionProgress progress(TopicPartition partition) {
+            return partitions.computeIfAbsent(partition, p -> new PartitionProgress());
+        }
+
+        /**
+         * Run the task after the earlier tasks of the same shard.
+         */
+        void submit(Object key, Runnable task) {
+            int shard = Math.floorMod(key.hashCode(), shards.length);
+            synchronized (shards) {
+                // handle: a task that failed must not stop the tasks queued behind it
+                shards[shard] = shards[shard].handle((result, failure) -> null).thenRunAsync(task, executor);
+            }
+        }
+
+        synchronized void started() {
+            if (++inFlight > maxInFlight && !paused) {
+                MessageListenerContainer container = registry.getListenerContainer(listenerId);
+                if (container != null) {
+                    paused = true;
+                    container.pause();
+                    log.debug("Paused {}: {} records in flight", listenerId, inFlight);
+                }
+            }
+        }
+
+        synchronized void finished() {
+            if (--inFlight <= maxInFlight / 2 && paused) {
+                MessageListenerContainer container = registry.getListenerContainer(listenerId);
+                if (container != null) {
+                    paused = false;
+                    container.resume();
+                    log.debug("Resumed {}: {} records in flight", listenerId, inFlight);
+                }
+            }
+        }
+    }
+
+    /**
+     * Dispatched records of one partition that are not acknowledged yet, in offset order.
+     */
+    private static final class PartitionProgress {
+        private final TreeMap<Long, InFlight> pending = new TreeMap<>();
+        private boolean revoked;
+
+        synchronized InFlight add(long offset, Acknowledgment acknowledgment) {
+            if (!pending.isEmpty() && offset <= pending.lastKey()) {
+                // Redelivered after a seek or rebalance: the earlier records are delivered again
+                pending.clear();
+            }
+            InFlight inFlight = new InFlight(acknowledgment);
+            pending.put(offset, inFlight);
+            return inFlight;
+        }
+
+        /**
+         * Mark a record finished and acknowledge the finished prefix of the partition.
+         */
+        synchronized void complete(InFlight inFlight) {
+            inFlight.done = true;
+            Acknowledgment last = null;
+            while (!pending.isEmpty() && pending.firstEntry().getValue().done) {
+                last = pending.pollFirstEntry().getValue().acknowledgment;
+            }
+            if (last != null && !revoked) {
+                // Commits the offset after the last record of the finished prefix
+                last.acknowledge();
+            }
+            notifyAll();
+        }
+
+        synchronized boolean isRevoked() {
+            return revoked;
+        }
+
+        /**
+         * Wait until every dispatched record finished or the deadline passed, then revoke:
+         * records that have not started yet are skipped, none is acknowledged any more.
+         *
+         * @return true if every record finished
+         */
+        synchronized boolean drain(long deadline) {
+            try {
+                long remaining;
+                while (!pending.isEmpty() && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            revoked = true;
+            return pending.isEmpty();
+        }
+    }
+
+    private static final class InFlight {
+        private final Acknowledgment acknowledgment;
+        private boolean done;
+
+        InFlight(Acknowledgment acknowledgment) {
+            this.acknowledgment = acknowledgment;
+        }
+    }
+}
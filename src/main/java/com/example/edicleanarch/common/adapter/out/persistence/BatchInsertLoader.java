@@ -0,0 +1,79 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.example.edicleanarch.common.adapter.out.persistence.InsertStatementRegistry.InsertStatement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batched INSERT: one executeBatch per column layout in the chunk. Works on every database.
+ *
+ * Records are grouped by their ordered key list, so records with different columns
+ * each get a matching statement instead of losing or mis-binding columns. Values are
+ * bound positionally in key order.
+ */
+@RequiredArgsConstructor
+class BatchInsertLoader implements ChunkLoader {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InsertStatementRegistry statements = new InsertStatementRegistry();
+
+    @Override
+    public int load(String tableName, List<Map<String, Object>> chunk) {
+        int rows = 0;
+        for (Map.Entry<InsertStatement, List<Map<String, Object>>> group : groupByColumns(tableName, chunk).entrySet()) {
+            rows += jdbcTemplate.batchUpdate(group.getKey().sql(), new RecordSetter(group.getValue())).length;
+        }
+        return rows;
+    }
+
+    /**
+     * Records per statement, in first-seen order. Consecutive records with the same
+     * layout (the usual case) are matched against the previous statement only.
+     */
+    private Map<InsertStatement, List<Map<String, Object>>> groupByColumns(String tableName,
+                                                                          List<Map<String, Object>> chunk) {
+        Map<InsertStatement, List<Map<String, Object>>> groups = new LinkedHashMap<>();
+        InsertStatement current = null;
+        List<Map<String, Object>> currentRecords = null;
+
+        for (Map<String, Object> record : chunk) {
+            if (current == null || !current.matches(record)) {
+                current = statements.get(tableName, new ArrayList<>(record.keySet()));
+                currentRecords = groups.computeIfAbsent(current, s -> new ArrayList<>());
+            }
+            currentRecords.add(record);
+        }
+        return groups;
+    }
+
+    /**
+     * Binds each record's values in key order, which matches the statement's column order.
+     */
+    @RequiredArgsConstructor
+    private static final class RecordSetter implements BatchPreparedStatementSetter {
+        private final List<Map<String, Object>> records;
+
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            int index = 1;
+            for (Object value : records.get(i).values()) {
+                StatementCreatorUtils.setParameterValue(ps, index++, SqlTypeValue.TYPE_UNKNOWN, value);
+            }
+        }
+
+        @Override
+        public int getBatchSize() {
+            return records.size();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes one chunk of records into a table.
+ *
+ * Called on the writer thread of {@link ChunkedBatchWriter}, inside its transaction,
+ * so implementations must use the transaction-bound connection (JdbcTemplate does).
+ */
+interface ChunkLoader {
+
+    /**
+     * @param tableName Target table
+     * @param chunk     Records where keys are column names
+     * @return Number of rows written
+     */
+    int load(String tableName, List<Map<String, Object>> chunk);
+
+    /**
+     * Union of the column names of all records, in first-seen order.
+     * Records without a column get NULL for it.
+     */
+    static List<String> columnsOf(List<Map<String, Object>> chunk) {
+        Set<String> columns = new LinkedHashSet<>(chunk.get(0).keySet());
+        for (Map<String, Object> record : chunk) {
+            columns.addAll(record.keySet());
+        }
+        return new ArrayList<>(columns);
+    }
+}
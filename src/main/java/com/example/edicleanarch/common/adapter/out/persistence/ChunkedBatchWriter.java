@@ -0,0 +1,547 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.example.edicleanarch.common.mapping.TargetTableConfig;
+import com.example.edicleanarch.common.port.out.DatabasePermitPort;
+import com.example.edicleanarch.common.port.out.RecordWriter;
+import com.example.edicleanarch.config.EdiProperties;
+import com.example.edicleanarch.config.EdiProperties.WriteMode;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Chunked, pipelined writer for the mapped records of one file, over every target table.
+ *
+ * Tables are grouped into lanes. HEADER tables and the DETAIL tables that inherit their
+ * parent keys share a lane and are written in that order on one connection, so header
+ * rows always reach the database before their detail rows. Every other table gets a lane
+ * of its own. Lanes run in parallel, each on its own writer thread, connection and transaction.
+ *
+ * Within a lane, records are collected into chunks of edi.persistence.batch-size rows; each
+ * chunk is one executeBatch per table, or one bulk load in BULK write mode (SQL Server bulk
+ * copy, PostgreSQL COPY; other databases fall back to batched INSERT). The caller maps the
+ * next chunk while the previous one is in flight (per lane at most one chunk in flight, one filling).
+ *
+ * In dedup mode (edi.persistence.dedup), tables with a natural key skip records whose key
+ * was committed recently (in memory) and insert the rest with a set-based NOT EXISTS backed
+ * by a unique index on the natural key (see {@link DedupInsertLoader}), whatever the write mode.
+ *
+ * Each lane owns its transaction: with edi.persistence.commit-every = M it commits after
+ * every M chunks, with 0 (default) all lanes commit in {@link RecordWriter#finish()}.
+ * Finishing is two-phase: the last chunks of all lanes are written first, and only when every
+ * lane succeeded are the lanes committed, one after the other; a failure before that rolls back
+ * every lane. A commit that fails itself (e.g. the connection drops) rolls back the lanes not
+ * committed yet, but cannot undo the lanes committed before it. With
+ * edi.persistence.parallel-lanes=false all tables share one lane and one transaction, so a file
+ * is committed atomically at the cost of writing its tables one after the other.
+ * The callback of {@link RecordWriter#finish(Consumer)} runs in the transaction of the lane
+ * committed last, so e.g. a ledger row only commits when every lane has committed.
+ * {@link RecordWriter#abort()} rolls back what is not committed in any lane.
+ * The writer does not join a transaction of the calling thread.
+ *
+ * Writer threads are virtual with edi.execution.virtual-threads. An open lane transaction
+ * holds one of the {@link DatabasePermits} reserved for writer transactions, so lookups of the
+ * files being mapped still get a connection.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChunkedBatchWriter {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final EdiProperties properties;
+    private final DatabasePermitPort databasePermits;
+
+    private volatile DatabaseDialect dialect;   // Detected on first BULK writer or dedup insert
+    private ChunkLoader batchInsert;
+    private ChunkLoader sqlServerBulkCopy;
+    private ChunkLoader postgresCopy;
+    private DuplicateFilter duplicateFilter;    // null unless edi.persistence.dedup.enabled
+    private ChunkLoader dedupInsert;
+
+    @PostConstruct
+    void init() {
+        batchInsert = new BatchInsertLoader(jdbcTemplate.getJdbcTemplate());
+        sqlServerBulkCopy = new SqlServerBulkCopyLoader(jdbcTemplate.getJdbcTemplate());
+        postgresCopy = new PostgresCopyLoader(jdbcTemplate.getJdbcTemplate());
+
+        EdiProperties.PersistenceProperties.DedupProperties dedup = properties.getPersistence().getDedup();
+        if (dedup.isEnabled()) {
+            duplicateFilter = new DuplicateFilter(dedup);
+            dedupInsert = new DedupInsertLoader(jdbcTemplate.getJdbcTemplate(), duplicateFilter::naturalKey,
+                    this::dialect);
+            log.info("Dedup mode on for natural keys {}", dedup.getNaturalKeys());
+        }
+    }
+
+    /**
+     * Open a writer for the records of one file, written to a single table.
+     *
+     * @param tableName Target table
+     * @param fileName  Source file name for logging
+     */
+    public RecordWriter open(String tableName, String fileName) {
+        return open(tableName, fileName, WriteMode.BATCH);
+    }
+
+    /**
+     * Open a writer for the records of one file, written to a single table.
+     *
+     * @param tableName Target table
+     * @param fileName  Source file name for logging
+     * @param writeMode BULK uses bulk copy / COPY where the database supports it
+     */
+    public RecordWriter open(String tableName, String fileName, WriteMode writeMode) {
+        TargetTableConfig target = new TargetTableConfig();
+        target.setTable(tableName);
+        target.setType("DETAIL");
+        return open(List.of(target), fileName, writeMode);
+    }
+
+    /**
+     * Open a writer for the records of one file.
+     *
+     * @param targets   Target tables of the mapping config (tables written and their order)
+     * @param fileName  Source file name for logging
+     * @param writeMode BULK uses bulk copy / COPY where the database supports it
+     */
+    public RecordWriter open(List<TargetTableConfig> targets, String fileName, WriteMode writeMode) {
+        EdiProperties.PersistenceProperties config = properties.getPersistence();
+        List<List<String>> lanes = lanes(targets != null ? targets : List.of());
+        if (!config.isParallelLanes() && lanes.size() > 1) {
+            lanes = List.of(lanes.stream().flatMap(List::stream).toList());
+        }
+        return new FileWriter(lanes, fileName, loaderFor(writeMode), !config.isParallelLanes(),
+                Math.max(1, config.getBatchSize()), config.getCommitEvery());
+    }
+
+    /**
+     * Tables per lane, in write order: HEADER tables followed by the DETAIL tables with
+     * parent keys, then one lane per remaining table.
+     */
+    static List<List<String>> lanes(List<TargetTableConfig> targets) {
+        boolean hasHeader = targets.stream().anyMatch(target -> "HEADER".equals(target.getType()));
+        List<String> parentLane = new ArrayList<>();
+        List<List<String>> lanes = new ArrayList<>();
+        Set<String> placed = new HashSet<>();
+
+        for (TargetTableConfig target : targets) {
+            if ("HEADER".equals(target.getType()) && placed.add(target.getTable())) {
+                parentLane.add(target.getTable());
+            }
+        }
+        for (TargetTableConfig target : targets) {
+            if ("HEADER".equals(target.getType()) || !placed.add(target.getTable())) continue;
+
+            boolean child = hasHeader && target.getParentKeys() != null && !target.getParentKeys().isEmpty();
+            if (child) {
+                parentLane.add(target.getTable());
+            } else {
+                lanes.add(List.of(target.getTable()));
+            }
+        }
+        if (!parentLane.isEmpty()) {
+            lanes.add(0, List.copyOf(parentLane));
+        }
+        return lanes;
+    }
+
+    private ChunkLoader loaderFor(WriteMode writeMode) {
+        if (writeMode != WriteMode.BULK) return batchInsert;
+
+        return switch (dialect()) {
+            case SQL_SERVER -> sqlServerBulkCopy;
+            case POSTGRESQL -> postgresCopy;
+            case OTHER -> batchInsert;   // H2 etc.: no bulk API, fall back to batched INSERT
+        };
+    }
+
+    private DatabaseDialect dialect() {
+        DatabaseDialect current = dialect;
+        if (current == null) {
+            String productName = jdbcTemplate.getJdbcTemplate().execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            current = DatabaseDialect.of(productName);
+            log.info("Database {}: bulk and dedup writes use {}", productName, current);
+            dialect = current;
+        }
+        return current;
+    }
+
+    private record Chunk(int rows, long millis) {
+    }
+
+    /**
+     * Writer for one file: routes records to their lane.
+     */
+    private final class FileWriter implements RecordWriter {
+        private final String fileName;
+        private final ChunkLoader loader;
+        private final boolean singleLane;   // Tables not in the targets join the first lane
+        private final int batchSize;
+        private final int commitEvery;
+        private final List<Lane> lanes = new ArrayList<>();
+        private final Map<String, Lane> laneByTable = new HashMap<>();
+        private boolean closed;
+
+        FileWriter(List<List<String>> tablesByLane, String fileName, ChunkLoader loader, boolean singleLane,
+                   int batchSize, int commitEvery) {
+            this.fileName = fileName;
+            this.loader = loader;
+            this.singleLane = singleLane;
+            this.batchSize = batchSize;
+            this.commitEvery = commitEvery;
+            tablesByLane.forEach(this::addLane);
+        }
+
+        @Override
+        public void write(Map<String, List<Map<String, Object>>> recordsByTable) {
+            if (closed) throw new IllegalStateException("Writer for " + fileName + " is closed");
+
+            recordsByTable.forEach((table, records) -> {
+                if (!records.isEmpty()) {
+                    Lane lane = laneByTable.get(table);
+                    if (lane == null) {
+                        lane = singleLane && !lanes.isEmpty() ? lanes.get(0).addTable(table) : addLane(List.of(table));
+                        laneByTable.put(table, lane);
+                    }
+                    lane.write(table, records);
+                }
+            });
+        }
+
+        @Override
+        public Map<String, Integer> finish(Consumer<Map<String, Integer>> beforeCommit) {
+            if (closed) throw new IllegalStateException("Writer for " + fileName + " is closed");
+
+            // Phase 1: last chunks of all lanes, in parallel, then the callback in the lane committed
+            // last; any failure rolls back every lane
+            Map<String, Integer> insertCounts = new LinkedHashMap<>();
+            try {
+                lanes.forEach(Lane::flush);
+                lanes.forEach(Lane::await);
+                lanes.forEach(lane -> lane.count(insertCounts));
+                if (lanes.isEmpty()) {
+                    addLane(List.of());
+                }
+                lanes.get(lanes.size() - 1).runInTransaction(() -> beforeCommit.accept(insertCounts));
+            } catch (RuntimeException e) {
+                abort();
+                throw e;
+            }
+
+            // Phase 2: commit lane by lane; a failed commit rolls back the lanes after it
+            closed = true;
+            for (int i = 0; i < lanes.size(); i++) {
+                try {
+                    lanes.get(i).commitNow();
+                } catch (RuntimeException e) {
+                    lanes.subList(i, lanes.size()).forEach(Lane::abort);
+                    if (i > 0) {
+                        log.error("Commit of {} failed for {}, {} of {} lanes were already committed",
+                                lanes.get(i).tables, fileName, i, lanes.size());
+                    }
+                    throw e;
+                }
+                lanes.get(i).shutdown();
+            }
+
+            lanes.forEach(Lane::report);
+            return insertCounts;
+        }
+
+        @Override
+        public void abort() {
+            if (closed) return;
+            closed = true;
+
+            lanes.forEach(Lane::abort);
+            log.warn("Aborted writing {}, uncommitted chunks rolled back", fileName);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                abort();
+            }
+        }
+
+        private Lane addLane(List<String> tables) {
+            Lane lane = new Lane(tables);
+            lanes.add(lane);
+            tables.forEach(table -> laneByTable.put(table, lane));
+            return lane;
+        }
+
+        /**
+         * Tables written in order on one writer thread, connection and transaction.
+         */
+        private final class Lane {
+            private final List<String> tables;
+            private final ExecutorService executor;
+
+            // Caller thread
+            private Map<String, List<Map<String, Object>>> buffer;
+            private int buffered;
+            private Future<?> inFlight;
+
+            // Writer thread; read by the caller only after waiting for inFlight
+            private final Map<String, List<Chunk>> chunksByTable = new LinkedHashMap<>();
+            private final Map<String, Integer> duplicatesByTable = new HashMap<>();
+            private final Set<List<Object>> pendingKeys = new HashSet<>();   // Natural keys in the open transaction
+            private TransactionStatus transaction;
+            private DatabasePermitPort.Permit permit;   // Held while the transaction is open
+            private int chunksInTransaction;
+
+            Lane(List<String> tables) {
+                this.tables = new ArrayList<>(tables);
+                this.buffer = newBuffer();
+                String threadName = "edi-writer-" + String.join("+", tables);
+                this.executor = Executors.newSingleThreadExecutor(properties.getExecution().isVirtualThreads()
+                        ? Thread.ofVirtual().name(threadName).factory()
+                        : Thread.ofPlatform().name(threadName).daemon().factory());
+                tables.forEach(table -> chunksByTable.put(table, new ArrayList<>()));
+            }
+
+            void write(String table, List<Map<String, Object>> records) {
+                List<Map<String, Object>> rows = buffer.get(table);
+                for (Map<String, Object> record : records) {
+                    rows.add(record);
+                    if (++buffered >= batchSize) {
+                        dispatch();
+                        rows = buffer.get(table);
+                    }
+                }
+            }
+
+            void flush() {
+                if (buffered > 0) {
+                    dispatch();
+                }
+            }
+
+            /**
+             * Add a table that is not in the targets (single-lane mode); it is written after the others.
+             */
+            Lane addTable(String table) {
+                tables.add(table);
+                buffer.put(table, new ArrayList<>());
+                return this;
+            }
+
+            /**
+             * Run work on the writer thread inside the lane transaction (opened if none is open).
+             */
+            void runInTransaction(Runnable work) {
+                inFlight = executor.submit(() -> {
+                    begin();
+                    try {
+                        work.run();
+                    } catch (RuntimeException e) {
+                        rollback();
+                        throw e;
+                    }
+                });
+                await();
+            }
+
+            void commitNow() {
+                inFlight = executor.submit(this::commit);
+                await();
+            }
+
+            void shutdown() {
+                executor.shutdown();
+            }
+
+            void abort() {
+                buffer = newBuffer();
+                buffered = 0;
+                try {
+                    if (inFlight != null) {
+                        inFlight.get();
+                    }
+                } catch (ExecutionException e) {
+                    // Failed chunk already rolled back its transaction
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                try {
+                    executor.submit(this::rollback).get(30, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    log.error("Error rolling back {} of {}: {}", tables, fileName, e.getMessage(), e);
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            /**
+             * Put the insert count of each table.
+             */
+            void count(Map<String, Integer> insertCounts) {
+                chunksByTable.forEach((table, chunks) ->
+                        insertCounts.put(table, chunks.stream().mapToInt(Chunk::rows).sum()));
+            }
+
+            /**
+             * Log rows, chunks and write time per table (each chunk at debug level, see writeChunk).
+             */
+            void report() {
+                chunksByTable.forEach((table, chunks) -> {
+                    int totalInserted = chunks.stream().mapToInt(Chunk::rows).sum();
+                    long totalMillis = chunks.stream().mapToLong(Chunk::millis).sum();
+                    if (duplicatesByTable.containsKey(table)) {
+                        log.info("Inserted {} records into {} from {} in {} chunks ({} ms), skipped {} duplicates",
+                                totalInserted, table, fileName, chunks.size(), totalMillis,
+                                duplicatesByTable.get(table));
+                    } else {
+                        log.info("Inserted {} records into {} from {} in {} chunks ({} ms)",
+                                totalInserted, table, fileName, chunks.size(), totalMillis);
+                    }
+                });
+            }
+
+            /**
+             * Hand the filled buffer to the writer thread once the previous chunk is done.
+             */
+            private void dispatch() {
+                Map<String, List<Map<String, Object>>> chunk = buffer;
+                buffer = newBuffer();
+                buffered = 0;
+                await();
+                inFlight = executor.submit(() -> writeChunk(chunk));
+            }
+
+            private void await() {
+                if (inFlight == null) return;
+                try {
+                    inFlight.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    log.error("Error saving records to {}: {}", tables, cause.getMessage(), cause);
+                    throw new RuntimeException("Failed to save records: " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while saving records to " + tables, e);
+                } finally {
+                    inFlight = null;
+                }
+            }
+
+            private Map<String, List<Map<String, Object>>> newBuffer() {
+                Map<String, List<Map<String, Object>>> tableBuffers = new LinkedHashMap<>();
+                for (String table : tables) {
+                    tableBuffers.put(table, new ArrayList<>());
+                }
+                return tableBuffers;
+            }
+
+            /**
+             * Write the chunk table by table, in lane order.
+             */
+            private void writeChunk(Map<String, List<Map<String, Object>>> chunk) {
+                begin();
+                try {
+                    for (Map.Entry<String, List<Map<String, Object>>> entry : chunk.entrySet()) {
+                        if (entry.getValue().isEmpty()) continue;
+
+                        String table = entry.getKey();
+                        List<Map<String, Object>> records = entry.getValue();
+                        ChunkLoader tableLoader = loader;
+                        List<String> naturalKey = duplicateFilter != null ? duplicateFilter.naturalKey(table) : null;
+                        if (naturalKey != null) {
+                            records = duplicateFilter.filter(table, naturalKey, records, pendingKeys);
+                            tableLoader = dedupInsert;
+                        }
+
+                        long start = System.nanoTime();
+                        int rows = records.isEmpty() ? 0 : tableLoader.load(table, records);
+                        long millis = (System.nanoTime() - start) / 1_000_000;
+                        chunksByTable.computeIfAbsent(table, key -> new ArrayList<>()).add(new Chunk(rows, millis));
+                        if (naturalKey != null) {
+                            duplicatesByTable.merge(table, entry.getValue().size() - rows, Integer::sum);
+                        }
+                        log.debug("Wrote chunk of {} for {} ({} rows) in {} ms", table, fileName, rows, millis);
+                    }
+                } catch (RuntimeException e) {
+                    rollback();
+                    throw e;
+                }
+
+                chunksInTransaction++;
+                if (commitEvery > 0 && chunksInTransaction >= commitEvery) {
+                    commit();
+                }
+            }
+
+            private void begin() {
+                if (transaction == null) {
+                    permit = databasePermits.acquire();
+                    try {
+                        transaction = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+                    } catch (RuntimeException e) {
+                        releasePermit();
+                        throw e;
+                    }
+                }
+            }
+
+            private void commit() {
+                if (transaction != null) {
+                    try {
+                        transactionManager.commit(transaction);
+                    } finally {
+                        transaction = null;
+                        chunksInTransaction = 0;
+                        releasePermit();
+                    }
+                    if (duplicateFilter != null) {
+                        duplicateFilter.remember(pendingKeys);
+                    }
+                    pendingKeys.clear();
+                }
+            }
+
+            private void rollback() {
+                if (transaction != null) {
+                    try {
+                        transactionManager.rollback(transaction);
+                    } finally {
+                        transaction = null;
+                        chunksInTransaction = 0;
+                        pendingKeys.clear();
+                        releasePermit();
+                    }
+                }
+            }
+
+            private void releasePermit() {
+                if (permit != null) {
+                    permit.close();
+                    permit = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+/**
+ * Database family, for picking a bulk load API.
+ */
+enum DatabaseDialect {
+    SQL_SERVER,
+    POSTGRESQL,
+    OTHER;
+
+    /**
+     * @param productName DatabaseMetaData.getDatabaseProductName()
+     */
+    static DatabaseDialect of(String productName) {
+        if (productName == null) return OTHER;
+        if (productName.startsWith("Microsoft SQL Server")) return SQL_SERVER;
+        if (productName.equalsIgnoreCase("PostgreSQL")) return POSTGRESQL;
+        return OTHER;
+    }
+}
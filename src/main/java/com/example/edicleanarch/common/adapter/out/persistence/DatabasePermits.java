@@ -0,0 +1,101 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.example.edicleanarch.common.port.out.DatabasePermitPort;
+import com.example.edicleanarch.config.EdiProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds concurrent database work (edi.execution).
+ *
+ * Threads are cheap (virtual threads, writer lanes, ordered-parallel shards), connections are
+ * not: without a bound every waiting file would queue inside the connection pool and fail after
+ * its connection timeout. A permit is held for a single query ({@link #call}) or for the
+ * lifetime of a writer transaction ({@link #acquire}). Permits default to the connection pool
+ * size and are enforced on virtual and platform threads alike.
+ *
+ * Writer transactions hold their permit while the caller keeps mapping and looking up, so
+ * they may only take permits up to edi.execution.db-query-permits below the total: the rest
+ * stays free for queries, and a full set of open transactions cannot starve the lookups their
+ * own files are waiting for. Work on a thread that is already in a transaction uses that
+ * transaction's connection and takes no permit.
+ */
+@Slf4j
+@Component
+public class DatabasePermits implements DatabasePermitPort {
+
+    private final Semaphore semaphore;              // All permits
+    private final Semaphore transactionSemaphore;   // Share writer transactions may hold
+    private final int transactionPermits;
+    private final Duration timeout;
+
+    public DatabasePermits(EdiProperties properties,
+                           @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        EdiProperties.ExecutionProperties config = properties.getExecution();
+        int permits = config.getDbPermits() > 0 ? config.getDbPermits() : poolSize;
+        int queryPermits = config.getDbQueryPermits() > 0 ? config.getDbQueryPermits() : Math.max(1, permits / 4);
+        this.transactionPermits = Math.max(1, permits - queryPermits);
+        this.semaphore = new Semaphore(permits, true);
+        this.transactionSemaphore = new Semaphore(transactionPermits, true);
+        this.timeout = config.getDbPermitTimeout();
+        log.info("Database work bounded to {} permits ({} for writer transactions)", permits, transactionPermits);
+    }
+
+    @Override
+    public <T> T call(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        tryAcquire(semaphore, deadline);
+        try {
+            return work.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * Take a writer transaction permit until the returned handle is closed.
+     *
+     * @throws RuntimeException if no permit is free within edi.execution.db-permit-timeout
+     */
+    @Override
+    public Permit acquire() {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        tryAcquire(transactionSemaphore, deadline);
+        try {
+            tryAcquire(semaphore, deadline);
+        } catch (RuntimeException e) {
+            transactionSemaphore.release();
+            throw e;
+        }
+        return () -> {
+            semaphore.release();
+            transactionSemaphore.release();
+        };
+    }
+
+    @Override
+    public int transactionPermits() {
+        return transactionPermits;
+    }
+
+    private void tryAcquire(Semaphore permits, long deadline) {
+        try {
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new RuntimeException("No database permit available within " + timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a database permit", e);
+        }
+    }
+}
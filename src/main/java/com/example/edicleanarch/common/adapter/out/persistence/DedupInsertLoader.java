@@ -0,0 +1,202 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Set-based duplicate-suppressing INSERT for tables with a natural key.
+ *
+ * Each statement carries a batch of rows as a VALUES table and inserts only those
+ * whose natural key is not in the table yet:
+ * <pre>
+ * INSERT INTO CDB_EVENT (C1, C2, ...) SELECT v.C1, v.C2, ...
+ * FROM (VALUES (?, ?, ...), (?, ?, ...)) AS v (C1, C2, ...)
+ * WHERE NOT EXISTS (SELECT 1 FROM CDB_EVENT t WHERE t.K1 = v.K1 AND ...)
+ * </pre>
+ * so the database checks existence once per batch, never row by row. Key columns
+ * compare NULL-safe. Duplicates inside a batch are removed beforehand by {@link DuplicateFilter}.
+ *
+ * NOT EXISTS alone does not stop two transactions inserting the same new key, so the table
+ * needs a unique index on the natural key, e.g.
+ * <pre>
+ * CREATE UNIQUE INDEX UX_CDB_EVENT_NATURAL_KEY ON CDB_EVENT (CNTR_NO, PRTNR_EVENT_CD, EVENT_DATE, EVENT_LOC)
+ * </pre>
+ * and per database:
+ * <ul>
+ *   <li>SQL Server reads the table WITH (UPDLOCK, HOLDLOCK): the key range stays locked until
+ *       commit, so a concurrent insert of the same key waits and then finds it.</li>
+ *   <li>PostgreSQL adds ON CONFLICT DO NOTHING: a concurrent insert of the same key waits for
+ *       the first transaction and is skipped. Every placeholder is cast to its column type, as
+ *       an untyped NULL (or a string bound to a numeric column) in VALUES is not assignable.</li>
+ *   <li>Other databases rely on the unique index alone: the losing transaction fails with a
+ *       duplicate key and the file is retried.</li>
+ * </ul>
+ */
+@RequiredArgsConstructor
+class DedupInsertLoader implements ChunkLoader {
+
+    private static final int MAX_PARAMETERS = 2000;   // SQL Server allows 2100 per statement
+    private static final int MAX_ROWS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Function<String, List<String>> naturalKeys;
+    private final Supplier<DatabaseDialect> dialect;
+    private final Map<StatementKey, String> statements = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> columnTypes = new ConcurrentHashMap<>();   // table -> column -> type
+
+    @Override
+    public int load(String tableName, List<Map<String, Object>> chunk) {
+        List<String> keyColumns = naturalKeys.apply(tableName);
+        int rows = 0;
+
+        for (Map.Entry<List<String>, List<Map<String, Object>>> group : groupByColumns(chunk).entrySet()) {
+            List<String> columns = group.getKey();
+            List<Map<String, Object>> records = group.getValue();
+            int rowsPerStatement = Math.max(1, Math.min(MAX_ROWS, MAX_PARAMETERS / columns.size()));
+
+            for (int from = 0; from < records.size(); from += rowsPerStatement) {
+                List<Map<String, Object>> batch = records.subList(from, Math.min(records.size(), from + rowsPerStatement));
+                String sql = statements.computeIfAbsent(
+                        new StatementKey(tableName, columns, keyColumns, batch.size()),
+                        key -> buildSql(key.tableName(), key.columns(), key.keyColumns(), key.rows(), dialect.get(),
+                                castTypes(key.tableName(), key.columns())));
+
+                rows += jdbcTemplate.update(sql, ps -> {
+                    int index = 1;
+                    for (Map<String, Object> record : batch) {
+                        for (Object value : record.values()) {
+                            StatementCreatorUtils.setParameterValue(ps, index++, SqlTypeValue.TYPE_UNKNOWN, value);
+                        }
+                    }
+                });
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Records per ordered key list, so values bind positionally.
+     */
+    private static Map<List<String>, List<Map<String, Object>>> groupByColumns(List<Map<String, Object>> chunk) {
+        Map<List<String>, List<Map<String, Object>>> groups = new LinkedHashMap<>();
+        for (Map<String, Object> record : chunk) {
+            groups.computeIfAbsent(new ArrayList<>(record.keySet()), k -> new ArrayList<>()).add(record);
+        }
+        return groups;
+    }
+
+    /**
+     * Type to cast each column's placeholder to (PostgreSQL only), null where no cast is needed.
+     */
+    private List<String> castTypes(String tableName, List<String> columns) {
+        List<String> types = new ArrayList<>(columns.size());
+        Map<String, String> tableTypes = dialect.get() == DatabaseDialect.POSTGRESQL
+                ? columnTypes.computeIfAbsent(tableName.toUpperCase(Locale.ROOT), key -> readColumnTypes(tableName))
+                : Map.of();
+        for (String column : columns) {
+            types.add(tableTypes.get(column.toUpperCase(Locale.ROOT)));
+        }
+        return types;
+    }
+
+    /**
+     * Column type names from the database metadata (unquoted PostgreSQL names are lower case).
+     */
+    private Map<String, String> readColumnTypes(String tableName) {
+        int dot = tableName.lastIndexOf('.');
+        String schema = dot > 0 ? tableName.substring(0, dot).toLowerCase(Locale.ROOT) : null;
+        String table = tableName.substring(dot + 1).toLowerCase(Locale.ROOT);
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<String, String>>) connection -> {
+            Map<String, String> types = new HashMap<>();
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet rs = metaData.getColumns(null, schema, table, null)) {
+                while (rs.next()) {
+                    types.put(rs.getString("COLUMN_NAME").toUpperCase(Locale.ROOT), castType(rs.getString("TYPE_NAME")));
+                }
+            }
+            return types;
+        });
+    }
+
+    /**
+     * Serial columns report their pseudo-type, which is not a cast target.
+     */
+    private static String castType(String typeName) {
+        return switch (typeName) {
+            case "serial" -> "int4";
+            case "bigserial" -> "int8";
+            case "smallserial" -> "int2";
+            default -> typeName;
+        };
+    }
+
+    static String buildSql(String tableName, List<String> columns, List<String> keyColumns, int rows,
+                           DatabaseDialect dialect, List<String> castTypes) {
+        String columnList = String.join(", ", columns);
+        StringBuilder sql = new StringBuilder(256 + rows * columns.size() * 3);
+
+        sql.append("INSERT INTO ").append(tableName).append(" (").append(columnList).append(") SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("v.").append(columns.get(i));
+        }
+
+        sql.append(" FROM (VALUES ");
+        for (int row = 0; row < rows; row++) {
+            if (row > 0) sql.append(", ");
+            sql.append('(');
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) sql.append(", ");
+                String type = castTypes.get(i);
+                if (type != null) {
+                    sql.append("CAST(? AS ").append(type).append(')');
+                } else {
+                    sql.append('?');
+                }
+            }
+            sql.append(')');
+        }
+        sql.append(") AS v (").append(columnList).append(')');
+
+        sql.append(" WHERE NOT EXISTS (SELECT 1 FROM ").append(tableName).append(" t");
+        if (dialect == DatabaseDialect.SQL_SERVER) {
+            sql.append(" WITH (UPDLOCK, HOLDLOCK)");
+        }
+        sql.append(" WHERE ");
+        for (int i = 0; i < keyColumns.size(); i++) {
+            String key = keyColumns.get(i);
+            if (i > 0) sql.append(" AND ");
+            if (columns.contains(key)) {
+                sql.append("(t.").append(key).append(" = v.").append(key)
+                        .append(" OR (t.").append(key).append(" IS NULL AND v.").append(key).append(" IS NULL))");
+            } else {
+                // Not mapped: inserted as NULL
+                sql.append("t.").append(key).append(" IS NULL");
+            }
+        }
+        sql.append(')');
+        if (dialect == DatabaseDialect.POSTGRESQL) {
+            sql.append(" ON CONFLICT DO NOTHING");
+        }
+        return sql.toString();
+    }
+
+    private record StatementKey(String tableName, List<String> columns, List<String> keyColumns, int rows) {
+    }
+}
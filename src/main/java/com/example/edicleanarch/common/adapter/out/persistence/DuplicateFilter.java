@@ -0,0 +1,83 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.example.edicleanarch.config.EdiProperties.PersistenceProperties.DedupProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory side of dedup mode (edi.persistence.dedup).
+ *
+ * Drops records whose natural key was committed recently, or that repeat a key
+ * already written in the same transaction. Only committed keys enter the shared cache
+ * (see {@link #remember}), so a rolled back file never suppresses its own resend.
+ * The cache is exact rather than a bloom filter: a false positive would silently drop
+ * a new event. Keys it does not know are checked set-based by {@link DedupInsertLoader}.
+ */
+class DuplicateFilter {
+
+    private final Map<String, List<String>> naturalKeys = new HashMap<>();   // upper-cased table -> key columns
+    private final Cache<List<Object>, Boolean> recentKeys;
+
+    DuplicateFilter(DedupProperties config) {
+        config.getNaturalKeys().forEach((table, columns) -> {
+            if (columns != null && !columns.isEmpty()) {
+                naturalKeys.put(table.trim().toUpperCase(Locale.ROOT), List.copyOf(columns));
+            }
+        });
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(config.getRecentKeys())
+                .expireAfterWrite(config.getRecentKeyTtl())
+                .build();
+    }
+
+    /**
+     * Natural key columns of a table, or null if the table is not deduplicated.
+     */
+    List<String> naturalKey(String tableName) {
+        return naturalKeys.get(tableName.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Records not known to be duplicates; their keys are added to pending.
+     *
+     * @param pending Keys written in the current transaction, remembered on commit
+     */
+    List<Map<String, Object>> filter(String tableName, List<String> keyColumns,
+                                     List<Map<String, Object>> records, Set<List<Object>> pending) {
+        List<Map<String, Object>> kept = new ArrayList<>(records.size());
+        for (Map<String, Object> record : records) {
+            List<Object> key = keyOf(tableName, keyColumns, record);
+            if (recentKeys.getIfPresent(key) == null && pending.add(key)) {
+                kept.add(record);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Remember committed keys.
+     */
+    void remember(Collection<List<Object>> keys) {
+        for (List<Object> key : keys) {
+            recentKeys.put(key, Boolean.TRUE);
+        }
+    }
+
+    private static List<Object> keyOf(String tableName, List<String> keyColumns, Map<String, Object> record) {
+        Object[] values = new Object[keyColumns.size() + 1];
+        values[0] = tableName;
+        for (int i = 0; i < keyColumns.size(); i++) {
+            values[i + 1] = record.get(keyColumns.get(i));
+        }
+        return Arrays.asList(values);
+    }
+}
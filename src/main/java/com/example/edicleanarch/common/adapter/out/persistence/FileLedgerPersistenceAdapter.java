@@ -0,0 +1,184 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.example.edicleanarch.common.annotation.PersistenceAdapter;
+import com.example.edicleanarch.common.model.FileFingerprint;
+import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.common.port.out.DatabasePermitPort;
+import com.example.edicleanarch.common.port.out.FileLedgerPort;
+import com.example.edicleanarch.config.EdiProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Outbound Adapter: Processed-File Ledger (edi.ledger)
+ *
+ * One row per committed file in EDI_FILE_LEDGER, fronted by a bounded in-memory cache,
+ * so a redelivered payload costs a hash and a cache hit (or one primary-key read).
+ * Only found entries are cached: another instance may commit the file at any time.
+ *
+ * <pre>
+ * CREATE TABLE EDI_FILE_LEDGER (
+ *     MESSAGE_TYPE  VARCHAR(20)   NOT NULL,
+ *     CONTENT_HASH  CHAR(64)      NOT NULL,
+ *     CONTROL_NO    VARCHAR(100)  NOT NULL,
+ *     FILE_NAME     VARCHAR(255),
+ *     PARTNER_ID    VARCHAR(50),
+ *     RECORD_COUNT  INT,
+ *     INSERT_COUNTS VARCHAR(MAX),
+ *     DURATION_MS   BIGINT,
+ *     PROCESSED_AT  DATETIME2,
+ *     PRIMARY KEY (MESSAGE_TYPE, CONTENT_HASH, CONTROL_NO)
+ * )
+ * CREATE INDEX IX_EDI_FILE_LEDGER_CONTROL_NO ON EDI_FILE_LEDGER (MESSAGE_TYPE, CONTROL_NO)
+ * </pre>
+ *
+ * Entries are written in the transaction of the file's records and cached once it commits.
+ * A failed insert (including a duplicate key: another consumer committed the same file
+ * concurrently) is thrown and rolls the file back; the redelivery then finds the committed
+ * entry. Failed lookups are logged and the file is processed: the insert still guards it.
+ */
+@Slf4j
+@PersistenceAdapter
+@RequiredArgsConstructor
+class FileLedgerPersistenceAdapter implements FileLedgerPort {
+
+    private static final String TABLE_NAME = "EDI_FILE_LEDGER";
+
+    private static final String KEY_CONDITION =
+            " WHERE MESSAGE_TYPE = :messageType AND CONTENT_HASH = :contentHash AND CONTROL_NO = :controlNo";
+
+    private static final TypeReference<Map<String, Integer>> COUNTS_TYPE = new TypeReference<>() {};
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EdiProperties properties;
+    private final DatabasePermitPort databasePermits;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Cache<FileFingerprint, ProcessingResult> processed;
+
+    @PostConstruct
+    void init() {
+        EdiProperties.LedgerProperties config = properties.getLedger();
+        this.processed = Caffeine.newBuilder()
+                .maximumSize(config.getCacheSize())
+                .expireAfterWrite(config.getCacheTtl())
+                .build();
+    }
+
+    @Override
+    public Optional<ProcessingResult> findProcessed(FileFingerprint fingerprint) {
+        if (!properties.getLedger().isEnabled()) return Optional.empty();
+
+        ProcessingResult cached = processed.getIfPresent(fingerprint);
+        if (cached != null) return Optional.of(cached);
+
+        try {
+            List<Map<String, Object>> rows = databasePermits.call(() -> jdbcTemplate.queryForList(
+                    "SELECT FILE_NAME, PARTNER_ID, RECORD_COUNT, INSERT_COUNTS, DURATION_MS FROM "
+                            + TABLE_NAME + KEY_CONDITION,
+                    keyParameters(fingerprint)));
+            if (rows.isEmpty()) return Optional.empty();
+
+            ProcessingResult result = toResult(fingerprint, rows.get(0));
+            processed.put(fingerprint, result);
+            return Optional.of(result);
+        } catch (Exception e) {
+            log.warn("Ledger lookup failed for {} {}, processing file: {}",
+                    fingerprint.messageType(), fingerprint.contentHash(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public boolean hasControlNumber(String messageType, String controlNumber) {
+        if (!properties.getLedger().isEnabled() || controlNumber == null || controlNumber.isEmpty()) return false;
+
+        try {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("messageType", messageType)
+                    .addValue("controlNo", controlNumber);
+            List<Map<String, Object>> rows = databasePermits.call(() -> jdbcTemplate.queryForList(
+                    "SELECT CONTENT_HASH FROM " + TABLE_NAME
+                            + " WHERE MESSAGE_TYPE = :messageType AND CONTROL_NO = :controlNo",
+                    parameters));
+            return !rows.isEmpty();
+        } catch (Exception e) {
+            log.warn("Ledger lookup failed for {} control number {}, processing file: {}",
+                    messageType, controlNumber, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void recordProcessed(FileFingerprint fingerprint, ProcessingResult result) {
+        if (!properties.getLedger().isEnabled() || !result.isSuccess()) return;
+
+        MapSqlParameterSource parameters = keyParameters(fingerprint)
+                .addValue("fileName", result.getFileName())
+                .addValue("partnerId", result.getPartnerId())
+                .addValue("recordCount", result.getRecordCount())
+                .addValue("insertCounts", toJson(result.getInsertCounts()))
+                .addValue("durationMs", result.getDurationMs())
+                .addValue("processedAt", Timestamp.valueOf(LocalDateTime.now()));
+        databasePermits.call(() -> jdbcTemplate.update("INSERT INTO " + TABLE_NAME
+                + " (MESSAGE_TYPE, CONTENT_HASH, CONTROL_NO, FILE_NAME, PARTNER_ID, RECORD_COUNT,"
+                + " INSERT_COUNTS, DURATION_MS, PROCESSED_AT)"
+                + " VALUES (:messageType, :contentHash, :controlNo, :fileName, :partnerId, :recordCount,"
+                + " :insertCounts, :durationMs, :processedAt)", parameters));
+
+        // Cache only what is committed: the transaction may still roll back
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    processed.put(fingerprint, result);
+                }
+            });
+        } else {
+            processed.put(fingerprint, result);
+        }
+    }
+
+    private String toJson(Map<String, Integer> insertCounts) {
+        try {
+            return objectMapper.writeValueAsString(insertCounts);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize insert counts", e);
+        }
+    }
+
+    private static MapSqlParameterSource keyParameters(FileFingerprint fingerprint) {
+        return new MapSqlParameterSource()
+                .addValue("messageType", fingerprint.messageType())
+                .addValue("contentHash", fingerprint.contentHash())
+                .addValue("controlNo", fingerprint.controlNumber());
+    }
+
+    private ProcessingResult toResult(FileFingerprint fingerprint, Map<String, Object> row) throws Exception {
+        Object counts = row.get("INSERT_COUNTS");
+        Object recordCount = row.get("RECORD_COUNT");
+        Object durationMs = row.get("DURATION_MS");
+
+        return ProcessingResult.success(fingerprint.messageType(),
+                (String) row.get("FILE_NAME"),
+                (String) row.get("PARTNER_ID"),
+                recordCount != null ? ((Number) recordCount).intValue() : 0,
+                counts != null ? objectMapper.readValue(counts.toString(), COUNTS_TYPE) : Map.of(),
+                durationMs != null ? ((Number) durationMs).longValue() : 0);
+    }
+}
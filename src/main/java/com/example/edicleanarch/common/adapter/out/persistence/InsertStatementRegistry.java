@@ -0,0 +1,62 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * INSERT statements keyed by table and ordered column list, built once.
+ *
+ * Statements use positional ? placeholders in column order, so records whose keys come
+ * in the same order (the mapping engine emits fields in YAML order) bind their values
+ * positionally, without named-parameter parsing or per-column map lookups.
+ */
+class InsertStatementRegistry {
+
+    private final Map<Key, InsertStatement> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Statement for the table and columns, in the given column order.
+     */
+    InsertStatement get(String tableName, List<String> columns) {
+        return statements.computeIfAbsent(new Key(tableName, columns),
+                key -> InsertStatement.build(key.tableName(), List.copyOf(key.columns())));
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private record Key(String tableName, List<String> columns) {
+    }
+
+    /**
+     * INSERT INTO table (c1, c2, ...) VALUES (?, ?, ...)
+     */
+    record InsertStatement(String tableName, List<String> columns, String sql) {
+
+        static InsertStatement build(String tableName, List<String> columns) {
+            StringBuilder sql = new StringBuilder(64 + columns.size() * 16);
+            sql.append("INSERT INTO ").append(tableName).append(" (");
+            sql.append(String.join(", ", columns));
+            sql.append(") VALUES (");
+            for (int i = 0; i < columns.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(')');
+            return new InsertStatement(tableName, columns, sql.toString());
+        }
+
+        /**
+         * True if the record has exactly these columns in this order.
+         */
+        boolean matches(Map<String, Object> record) {
+            if (record.size() != columns.size()) return false;
+            int i = 0;
+            for (String column : record.keySet()) {
+                if (!column.equals(columns.get(i++))) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+
+import java.io.Serial;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk copy source reading mapped records directly, one row at a time.
+ *
+ * Source column types are inferred from the values of the chunk (String, LocalDateTime,
+ * BigDecimal, ...); SQL Server converts them to the destination column types.
+ */
+final class MapBulkData implements ISQLServerBulkData {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> columns;
+    private final int[] types;
+    private final int[] precisions;
+    private final int[] scales;
+    private final transient Iterator<Map<String, Object>> rows;
+    private transient Map<String, Object> current;
+
+    MapBulkData(List<String> columns, List<Map<String, Object>> chunk) {
+        this.columns = columns;
+        this.types = new int[columns.size()];
+        this.precisions = new int[columns.size()];
+        this.scales = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            describe(i, chunk);
+        }
+        this.rows = chunk.iterator();
+    }
+
+    @Override
+    public Set<Integer> getColumnOrdinals() {
+        Set<Integer> ordinals = new LinkedHashSet<>();
+        for (int i = 1; i <= columns.size(); i++) {
+            ordinals.add(i);
+        }
+        return ordinals;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column - 1);
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return types[column - 1];
+    }
+
+    @Override
+    public int getPrecision(int column) {
+        return precisions[column - 1];
+    }
+
+    @Override
+    public int getScale(int column) {
+        return scales[column - 1];
+    }
+
+    @Override
+    public boolean next() {
+        if (!rows.hasNext()) return false;
+        current = rows.next();
+        return true;
+    }
+
+    @Override
+    public Object[] getRowData() {
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = convert(current.get(columns.get(i)), types[i]);
+        }
+        return values;
+    }
+
+    /**
+     * JDBC type, precision and scale of a column from the non-null values of the chunk.
+     * Columns with mixed value types are sent as strings.
+     */
+    private void describe(int index, List<Map<String, Object>> chunk) {
+        String column = columns.get(index);
+        Class<?> valueType = null;
+        int maxLength = 1;
+        int maxScale = 0;
+
+        for (Map<String, Object> record : chunk) {
+            Object value = record.get(column);
+            if (value == null) continue;
+
+            if (valueType == null) {
+                valueType = value.getClass();
+            } else if (valueType != value.getClass()) {
+                valueType = String.class;
+            }
+            maxLength = Math.max(maxLength, value.toString().length());
+            if (value instanceof BigDecimal decimal) {
+                maxScale = Math.max(maxScale, decimal.scale());
+            }
+        }
+
+        if (valueType == LocalDateTime.class || valueType == Timestamp.class) {
+            set(index, Types.TIMESTAMP, 27, 7);
+        } else if (valueType == LocalDate.class) {
+            set(index, Types.DATE, 10, 0);
+        } else if (valueType == BigDecimal.class) {
+            set(index, Types.DECIMAL, 38, Math.min(maxScale, 38));
+        } else if (valueType == Integer.class || valueType == Short.class) {
+            set(index, Types.INTEGER, 10, 0);
+        } else if (valueType == Long.class) {
+            set(index, Types.BIGINT, 19, 0);
+        } else if (valueType == Boolean.class) {
+            set(index, Types.BIT, 1, 0);
+        } else {
+            set(index, Types.NVARCHAR, maxLength, 0);
+        }
+    }
+
+    private void set(int index, int type, int precision, int scale) {
+        types[index] = type;
+        precisions[index] = precision;
+        scales[index] = scale;
+    }
+
+    private static Object convert(Object value, int type) {
+        if (value == null) return null;
+        return switch (type) {
+            case Types.TIMESTAMP -> value instanceof LocalDateTime dateTime ? Timestamp.valueOf(dateTime) : value;
+            case Types.DATE -> java.sql.Date.valueOf((LocalDate) value);
+            case Types.NVARCHAR -> value.toString();
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerConnection;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL Server bulk copy (TDS bulk load) of a chunk through {@link MapBulkData}.
+ *
+ * Runs on the writer's transaction-bound connection without an internal transaction,
+ * so chunks commit and roll back like batched INSERTs. Constraints are checked and
+ * triggers fire, as they would for INSERT.
+ */
+@RequiredArgsConstructor
+class SqlServerBulkCopyLoader implements ChunkLoader {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int load(String tableName, List<Map<String, Object>> chunk) {
+        List<String> columns = ChunkLoader.columnsOf(chunk);
+
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            // Unwrap the pooled connection; bulk copy needs the driver's own connection
+            try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(connection.unwrap(ISQLServerConnection.class))) {
+                bulkCopy.setBulkCopyOptions(options(chunk.size()));
+                bulkCopy.setDestinationTableName(tableName);
+                for (String column : columns) {
+                    bulkCopy.addColumnMapping(column, column);
+                }
+                bulkCopy.writeToServer(new MapBulkData(columns, chunk));
+            }
+            return chunk.size();
+        });
+    }
+
+    /**
+     * One batch per chunk, in the caller's transaction, checking constraints and firing triggers.
+     */
+    static SQLServerBulkCopyOptions options(int batchSize) throws SQLServerException {
+        SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+        options.setBatchSize(batchSize);
+        options.setUseInternalTransaction(false);
+        options.setCheckConstraints(true);
+        options.setFireTriggers(true);
+        options.setBulkCopyTimeout(0);
+        return options;
+    }
+}
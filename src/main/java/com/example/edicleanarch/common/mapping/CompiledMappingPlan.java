@@ -0,0 +1,166 @@
+package com.example.edicleanarch.common.mapping;
+
+import com.example.edicleanarch.common.transform.CompiledField;
+import com.example.edicleanarch.common.transform.FieldScope;
+import com.example.edicleanarch.common.transform.LookupCondition;
+import com.example.edicleanarch.common.transform.LookupGroup;
+import com.example.edicleanarch.common.transform.Template;
+import com.example.edicleanarch.common.transform.TransformFunctions;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Executable form of a MappingConfig, built once when the YAML is loaded.
+ *
+ * Every FieldMapping is compiled into a {@link CompiledField} (resolved transform,
+ * parsed source paths, templates and formatters), so EdiMappingEngine can run the
+ * plan per record without string parsing or registry lookups. LOOKUP fields that share
+ * table and condition are compiled into a {@link LookupGroup} and fetched as one row.
+ *
+ * Each field is also classified by {@link FieldScope}: fields that do not depend on
+ * the loop element (directly or through earlier fields) are evaluated once per
+ * transaction and copied into every DETAIL record.
+ *
+ * Immutable and safe to share across threads.
+ */
+@Getter
+public final class CompiledMappingPlan {
+
+    private final MappingConfig config;
+    private final List<CompiledTarget> targets;
+
+    private CompiledMappingPlan(MappingConfig config, List<CompiledTarget> targets) {
+        this.config = config;
+        this.targets = targets;
+    }
+
+    /**
+     * Compile a mapping configuration against the transform registry.
+     */
+    public static CompiledMappingPlan compile(MappingConfig config, TransformFunctions functions) {
+        return compile(config, functions, true);
+    }
+
+    /**
+     * Compile with or without hoisting; without it every field is evaluated per record
+     * (reference behaviour for the hoisting tests).
+     */
+    static CompiledMappingPlan compile(MappingConfig config, TransformFunctions functions, boolean hoist) {
+        List<CompiledTarget> targets = new ArrayList<>();
+        if (config.getTargets() != null) {
+            for (TargetTableConfig target : config.getTargets()) {
+                targets.add(new CompiledTarget(target, compileFields(target.getFields(), functions), hoist));
+            }
+        }
+        return new CompiledMappingPlan(config, List.copyOf(targets));
+    }
+
+    private static List<CompiledField> compileFields(List<FieldMapping> fields, TransformFunctions functions) {
+        if (fields == null) return List.of();
+
+        Map<FieldMapping, LookupGroup> lookupGroups = groupLookups(fields);
+        List<CompiledField> compiled = new ArrayList<>(fields.size());
+        for (FieldMapping field : fields) {
+            compiled.add(CompiledField.compile(field, functions, lookupGroups.get(field)));
+        }
+        return List.copyOf(compiled);
+    }
+
+    /**
+     * Condition LOOKUPs with the same table, condition and fallback condition are fetched
+     * as one row; groups of a single field are left as plain lookups.
+     */
+    private static Map<FieldMapping, LookupGroup> groupLookups(List<FieldMapping> fields) {
+        Map<List<String>, List<FieldMapping>> members = new LinkedHashMap<>();
+        for (FieldMapping field : fields) {
+            if (!"LOOKUP".equals(field.getTransform())
+                    || field.getLookupCondition() == null || field.getLookupCondition().isEmpty()
+                    || field.getLookupTable() == null || field.getLookupColumn() == null) {
+                continue;
+            }
+            List<String> key = Arrays.asList(field.getLookupTable(), field.getLookupCondition(),
+                    field.getLookupFallbackCondition());
+            members.computeIfAbsent(key, k -> new ArrayList<>()).add(field);
+        }
+
+        Map<FieldMapping, LookupGroup> groups = new IdentityHashMap<>();
+        for (List<FieldMapping> group : members.values()) {
+            if (group.size() < 2) continue;
+
+            FieldMapping first = group.get(0);
+            List<String> columns = new ArrayList<>();
+            for (FieldMapping field : group) {
+                if (!columns.contains(field.getLookupColumn())) columns.add(field.getLookupColumn());
+            }
+            LookupGroup lookupGroup = new LookupGroup(first.getLookupTable(),
+                    LookupCondition.of(first.getLookupCondition()),
+                    LookupCondition.of(first.getLookupFallbackCondition()),
+                    columns);
+            for (FieldMapping field : group) {
+                groups.put(field, lookupGroup);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Final scope per field: a field is at least as wide as every earlier field it may
+     * reference by name (TransformContext falls back to the output record, case-insensitive).
+     */
+    private static List<FieldScope> resolveScopes(List<CompiledField> fields) {
+        List<FieldScope> scopes = new ArrayList<>(fields.size());
+        Map<String, FieldScope> earlier = new HashMap<>();
+
+        for (CompiledField field : fields) {
+            FieldScope scope = field.getSourceScope();
+            for (String reference : field.getFieldReferences()) {
+                FieldScope referenced = earlier.get(reference);
+                if (referenced != null) scope = scope.max(referenced);
+            }
+            scopes.add(scope);
+            if (field.getName() != null) {
+                earlier.merge(field.getName().toUpperCase(Locale.ROOT), scope, FieldScope::max);
+            }
+        }
+        return List.copyOf(scopes);
+    }
+
+    /**
+     * Target table with compiled fields.
+     */
+    @Getter
+    public static final class CompiledTarget {
+        private final TargetTableConfig target;
+        private final List<CompiledField> fields;
+        private final Template condition;
+        private final List<FieldScope> scopes;   // parallel to fields
+        private final boolean hoisted;           // any field evaluated once per transaction
+
+        CompiledTarget(TargetTableConfig target, List<CompiledField> fields, boolean hoist) {
+            this.target = target;
+            this.fields = fields;
+            this.condition = CompiledField.condition(target.getCondition());
+            this.scopes = hoist
+                    ? resolveScopes(fields)
+                    : List.copyOf(Collections.nCopies(fields.size(), FieldScope.RECORD));
+            this.hoisted = scopes.stream().anyMatch(FieldScope::isRecordInvariant);
+        }
+
+        public String getTable() {
+            return target.getTable();
+        }
+
+        public String getType() {
+            return target.getType();
+        }
+    }
+}
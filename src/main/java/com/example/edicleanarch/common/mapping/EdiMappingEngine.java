@@ -1,39 +1,82 @@
 package com.example.edicleanarch.common.mapping;
 
+import com.example.edicleanarch.common.parser.X12InterchangeReader.X12TransactionSet;
+import com.example.edicleanarch.common.transform.CompiledField;
+import com.example.edicleanarch.common.transform.FieldScope;
 import com.example.edicleanarch.common.transform.LookupService;
+import com.example.edicleanarch.common.transform.SegmentIndex;
+import com.example.edicleanarch.common.transform.Template;
 import com.example.edicleanarch.common.transform.TransformContext;
-import com.example.edicleanarch.common.transform.TransformFunction;
 import com.example.edicleanarch.common.transform.TransformFunctions;
+import com.example.edicleanarch.config.EdiProperties;
 import com.fasterxml.jackson.databind.JsonNode;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Config-driven mapping engine.
  * Transforms JsonNode (from X12 or FixedWidth) to database records based on configuration.
+ *
+ * With edi.mapping.parallel, files of at least parallel-threshold transactions or records are
+ * mapped in partitions of partition-size on the {@link ParallelMappingExecutor}; partition
+ * results are merged in file order, so the records are the same as with sequential mapping.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class EdiMappingEngine {
 
     private final TransformFunctions transformFunctions;
     private final LookupService lookupService;
+    private final ParallelMappingExecutor mappingExecutor;   // null = sequential mapping
+    private final int parallelThreshold;
+    private final int partitionSize;
+
+    /**
+     * Sequential engine.
+     */
+    public EdiMappingEngine(TransformFunctions transformFunctions, LookupService lookupService) {
+        this.transformFunctions = transformFunctions;
+        this.lookupService = lookupService;
+        this.mappingExecutor = null;
+        this.parallelThreshold = Integer.MAX_VALUE;
+        this.partitionSize = Integer.MAX_VALUE;
+    }
+
+    @Autowired
+    public EdiMappingEngine(TransformFunctions transformFunctions, LookupService lookupService,
+                            EdiProperties properties, ParallelMappingExecutor mappingExecutor) {
+        EdiProperties.MappingProperties config = properties.getMapping();
+        this.transformFunctions = transformFunctions;
+        this.lookupService = lookupService;
+        this.mappingExecutor = config.isParallel() ? mappingExecutor : null;
+        this.parallelThreshold = Math.max(1, config.getParallelThreshold());
+        this.partitionSize = Math.max(1, config.getPartitionSize());
+        if (this.mappingExecutor != null) {
+            log.info("Parallel mapping on {} threads from {} transactions/records",
+                    mappingExecutor.getParallelism(), parallelThreshold);
+        }
+    }
+
+    /**
+     * Compile a mapping configuration into an executable plan.
+     * Config loaders call this once and reuse the plan for every file.
+     */
+    public CompiledMappingPlan compile(MappingConfig config) {
+        return CompiledMappingPlan.compile(config, transformFunctions);
+    }
 
     /**
      * Transform EDI JsonNode to output records based on mapping configuration.
+     * Compiles the configuration on every call; prefer the CompiledMappingPlan overload.
      *
      * @param ediJson   Parsed EDI as JsonNode (from X12ToJsonConverter or FixedWidthToJsonConverter)
      * @param config    Mapping configuration
@@ -43,8 +86,23 @@ public class EdiMappingEngine {
      */
     public MappingResult transform(JsonNode ediJson, MappingConfig config,
                                    String partnerId, ProcessingContext context) {
+        return transform(ediJson, compile(config), partnerId, context);
+    }
+
+    /**
+     * Transform EDI JsonNode to output records using a compiled mapping plan.
+     *
+     * @param ediJson   Parsed EDI as JsonNode (from X12ToJsonConverter or FixedWidthToJsonConverter)
+     * @param plan      Compiled mapping plan
+     * @param partnerId Partner ID for override lookup
+     * @param context   Processing context
+     * @return Mapping result with records by table
+     */
+    public MappingResult transform(JsonNode ediJson, CompiledMappingPlan plan,
+                                   String partnerId, ProcessingContext context) {
         // 1. Apply partner overrides
-        MappingConfig effectiveConfig = applyPartnerOverrides(config, partnerId);
+        CompiledMappingPlan effectivePlan = applyPartnerOverrides(plan, partnerId);
+        MappingConfig effectiveConfig = effectivePlan.getConfig();
 
         // 2. Validate input
         List<String> validationErrors = validate(ediJson, effectiveConfig);
@@ -56,51 +114,127 @@ public class EdiMappingEngine {
         MappingResult result = new MappingResult();
 
         if ("X12".equals(effectiveConfig.getSourceFormat())) {
-            processX12Transactions(ediJson, effectiveConfig, context, result);
+            processX12Transactions(ediJson, effectivePlan, context, result);
         } else if ("FIXED_WIDTH".equals(effectiveConfig.getSourceFormat())) {
-            processFixedWidthRecords(ediJson, effectiveConfig, context, result);
+            processFixedWidthRecords(ediJson, effectivePlan, context, result, 0);
+        }
+
+        return result;
+    }
+
+    /**
+     * Transform a chunk of fixed-width records read by FixedWidthRecordReader.
+     * File-level validations (header, trailer, record count) are not applied here;
+     * run {@link #validate(JsonNode, CompiledMappingPlan)} on the file summary at the end.
+     *
+     * @param chunk      {"header": ..., "records": [...]} with the records of this chunk
+     * @param plan       Compiled mapping plan with the partner's overrides ({@link #applyPartnerOverrides})
+     * @param context    Processing context
+     * @param firstIndex Index of the chunk's first record in the file
+     * @return Mapping result with records by table for this chunk only
+     */
+    public MappingResult transformRecords(JsonNode chunk, CompiledMappingPlan plan,
+                                          ProcessingContext context, int firstIndex) {
+        MappingResult result = new MappingResult();
+        processFixedWidthRecords(chunk, plan, context, result, firstIndex);
+        return result;
+    }
+
+    /**
+     * Apply the file-level validations of the mapping to a parsed file or a file summary
+     * ({"header", "trailer", "_metadata": {"recordCount"}} without records).
+     *
+     * @param plan Compiled mapping plan with the partner's overrides ({@link #applyPartnerOverrides})
+     * @return Validation errors, empty if valid
+     */
+    public List<String> validate(JsonNode ediJson, CompiledMappingPlan plan) {
+        return validate(ediJson, plan.getConfig());
+    }
+
+    /**
+     * Transform a single X12 transaction set read by X12InterchangeReader.
+     * Lets callers map and persist one transaction before the next one is parsed.
+     *
+     * @param transactionSet Transaction with its shared interchange (envelope) node
+     * @param plan           Compiled mapping plan with the partner's overrides ({@link #applyPartnerOverrides})
+     * @param context        Processing context
+     * @return Mapping result with records by table for this transaction only
+     */
+    public MappingResult transformTransaction(X12TransactionSet transactionSet, CompiledMappingPlan plan,
+                                              ProcessingContext context) {
+        List<String> validationErrors = new ArrayList<>();
+        validateTransaction(transactionSet.transaction(), plan.getConfig(), validationErrors);
+        if (!validationErrors.isEmpty()) {
+            return MappingResult.failed(validationErrors);
         }
 
+        MappingResult result = new MappingResult();
+        processTargets(transactionSet.transaction(), transactionSet.interchange(),
+                plan, context, result);
         return result;
     }
 
     /**
      * Process X12 transactions.
      */
-    private void processX12Transactions(JsonNode ediJson, MappingConfig config,
+    private void processX12Transactions(JsonNode ediJson, CompiledMappingPlan plan,
                                         ProcessingContext context, MappingResult result) {
         JsonNode transactions = ediJson.get("transactions");
         if (transactions == null || !transactions.isArray()) return;
 
+        if (isParallel(transactions.size())) {
+            mapPartitions(transactions.size(), (from, to, partition) -> {
+                for (int i = from; i < to; i++) {
+                    processTargets(transactions.get(i), ediJson, plan, context, partition);
+                }
+            }, result);
+            return;
+        }
+
         for (JsonNode transaction : transactions) {
-            processTargets(transaction, ediJson, config, context, result);
+            processTargets(transaction, ediJson, plan, context, result);
         }
     }
 
     /**
      * Process fixed-width records.
      */
-    private void processFixedWidthRecords(JsonNode ediJson, MappingConfig config,
-                                          ProcessingContext context, MappingResult result) {
+    private void processFixedWidthRecords(JsonNode ediJson, CompiledMappingPlan plan,
+                                          ProcessingContext context, MappingResult result, int firstIndex) {
         JsonNode records = ediJson.get("records");
         if (records == null || !records.isArray()) return;
 
-        for (TargetTableConfig target : config.getTargets()) {
+        if (isParallel(records.size())) {
+            mapPartitions(records.size(), (from, to, partition) ->
+                    processFixedWidthRange(records, from, to, ediJson, plan, context, partition, firstIndex), result);
+            return;
+        }
+        processFixedWidthRange(records, 0, records.size(), ediJson, plan, context, result, firstIndex);
+    }
+
+    /**
+     * Map records [from, to) for every target.
+     */
+    private void processFixedWidthRange(JsonNode records, int from, int to, JsonNode ediJson,
+                                        CompiledMappingPlan plan, ProcessingContext context,
+                                        MappingResult result, int firstIndex) {
+        for (CompiledMappingPlan.CompiledTarget target : plan.getTargets()) {
+            Template condition = target.getCondition();
             List<Map<String, Object>> targetRecords = new ArrayList<>();
 
-            for (int i = 0; i < records.size(); i++) {
+            for (int i = from; i < to; i++) {
                 JsonNode record = records.get(i);
 
                 // Check condition
-                if (target.getCondition() != null) {
-                    if (!evaluateCondition(target.getCondition(), record)) {
+                if (condition != null) {
+                    if (!evaluateCondition(condition, record)) {
                         continue;
                     }
                 }
 
                 // For fixed-width, record and transaction are the same (no loop structure)
                 Map<String, Object> mappedRecord = mapFields(record, null, target.getFields(),
-                        ediJson, context, i);
+                        ediJson, context, firstIndex + i, null);
                 targetRecords.add(mappedRecord);
             }
 
@@ -108,23 +242,54 @@ public class EdiMappingEngine {
         }
     }
 
+    private boolean isParallel(int size) {
+        return mappingExecutor != null && size >= parallelThreshold;
+    }
+
+    /**
+     * Map [0, size) in partitions on the mapping executor and merge the partition results in order.
+     * A failing partition cancels the ones not yet merged.
+     */
+    private void mapPartitions(int size, RangeMapper mapper, MappingResult result) {
+        List<int[]> ranges = new ArrayList<>((size + partitionSize - 1) / partitionSize);
+        for (int from = 0; from < size; from += partitionSize) {
+            ranges.add(new int[]{from, Math.min(size, from + partitionSize)});
+        }
+        mappingExecutor.mapInOrder(ranges, range -> {
+            MappingResult partition = new MappingResult();
+            mapper.map(range[0], range[1], partition);
+            return partition;
+        }, partition -> partition.getRecordsByTable().forEach(result::addRecords));
+    }
+
+    /**
+     * Maps the transactions or records [from, to) into a partition result.
+     */
+    @FunctionalInterface
+    private interface RangeMapper {
+        void map(int from, int to, MappingResult partition);
+    }
+
     /**
      * Process targets for a transaction.
      */
     private void processTargets(JsonNode transaction, JsonNode ediJson,
-                                MappingConfig config, ProcessingContext context,
+                                CompiledMappingPlan plan, ProcessingContext context,
                                 MappingResult result) {
         Map<String, Object> headerRecord = null;
+        // Built lazily on the first qualified lookup, shared by all records of this transaction
+        SegmentIndex segmentIndex = new SegmentIndex(transaction);
 
-        for (TargetTableConfig target : config.getTargets()) {
+        for (CompiledMappingPlan.CompiledTarget target : plan.getTargets()) {
             if ("HEADER".equals(target.getType())) {
                 // For HEADER, record and transaction are the same
-                headerRecord = mapFields(transaction, null, target.getFields(), ediJson, context, -1);
+                headerRecord = mapFields(transaction, null, target.getFields(), ediJson, context, -1,
+                        segmentIndex);
                 result.addRecords(target.getTable(), List.of(headerRecord));
 
             } else if ("DETAIL".equals(target.getType())) {
                 List<Map<String, Object>> detailRecords = mapDetailRecords(
-                        transaction, target, ediJson, context, headerRecord);
+                        transaction, target, ediJson, context, headerRecord, segmentIndex);
                 result.addRecords(target.getTable(), detailRecords);
             }
         }
@@ -133,63 +298,131 @@ public class EdiMappingEngine {
     /**
      * Map detail records from a loop.
      */
-    private List<Map<String, Object>> mapDetailRecords(JsonNode transaction, TargetTableConfig target,
+    private List<Map<String, Object>> mapDetailRecords(JsonNode transaction,
+                                                       CompiledMappingPlan.CompiledTarget target,
                                                        JsonNode ediJson, ProcessingContext context,
-                                                       Map<String, Object> headerRecord) {
+                                                       Map<String, Object> headerRecord,
+                                                       SegmentIndex segmentIndex) {
         List<Map<String, Object>> records = new ArrayList<>();
 
-        String loopPath = target.getLoopPath();
+        String loopPath = target.getTarget().getLoopPath();
+        List<String> parentKeys = target.getTarget().getParentKeys();
         JsonNode loopSegments = transaction.get(loopPath);
 
         if (loopSegments == null) return records;
 
         if (loopSegments.isArray()) {
+            if (loopSegments.isEmpty()) return records;
+
+            // Transaction-invariant fields are evaluated once and copied into every loop record
+            Object[] invariants = target.isHoisted()
+                    ? mapInvariantFields(loopSegments.get(0), transaction, target, ediJson, context, segmentIndex)
+                    : null;
+
             for (int i = 0; i < loopSegments.size(); i++) {
                 Map<String, Object> record = mapFields(loopSegments.get(i), transaction, target.getFields(),
-                        ediJson, context, i);
+                        ediJson, context, i, segmentIndex, target.getScopes(), invariants);
 
                 // Add parent keys
-                addParentKeys(record, headerRecord, target.getParentKeys());
+                addParentKeys(record, headerRecord, parentKeys);
                 records.add(record);
             }
         } else {
             Map<String, Object> record = mapFields(loopSegments, transaction, target.getFields(),
-                    ediJson, context, 0);
-            addParentKeys(record, headerRecord, target.getParentKeys());
+                    ediJson, context, 0, segmentIndex);
+            addParentKeys(record, headerRecord, parentKeys);
             records.add(record);
         }
 
         return records;
     }
 
+    /**
+     * Evaluate the record-invariant fields of a DETAIL target for one transaction.
+     *
+     * Uses the first loop element as record; by classification these fields never read it,
+     * and the values are exactly what mapping that element field by field would produce.
+     *
+     * @return values by field index (only record-invariant positions are set)
+     */
+    private Object[] mapInvariantFields(JsonNode firstRecord, JsonNode transaction,
+                                        CompiledMappingPlan.CompiledTarget target, JsonNode fullJson,
+                                        ProcessingContext context, SegmentIndex segmentIndex) {
+        List<CompiledField> fields = target.getFields();
+        List<FieldScope> scopes = target.getScopes();
+        Object[] values = new Object[fields.size()];
+        Map<String, Object> invariantRecord = new LinkedHashMap<>();
+
+        TransformContext txContext = new TransformContext(
+                firstRecord, transaction, fullJson, context, lookupService, 0, invariantRecord, segmentIndex);
+
+        for (int i = 0; i < fields.size(); i++) {
+            if (!scopes.get(i).isRecordInvariant()) continue;
+
+            CompiledField field = fields.get(i);
+            txContext.setCompiledField(field);
+            Object value = convertType(field.getFunction().apply(txContext), field);
+
+            invariantRecord.put(field.getName(), value);
+            values[i] = value;
+        }
+        return values;
+    }
+
     /**
      * Map fields for a single record.
      *
      * @param record      Current record (loop element for DETAIL, transaction for HEADER)
      * @param transaction Current transaction (null for fixed-width or when record IS the transaction)
-     * @param fields      Field mappings to apply
+     * @param fields      Compiled field mappings to apply
      * @param fullJson    Full EDI JSON (envelope + transactions)
      * @param context     Processing context
      * @param loopIndex   Current loop index (-1 if not in a loop)
+     * @param segmentIndex Qualified segment index of the transaction (null for fixed-width)
      */
-    private Map<String, Object> mapFields(JsonNode record, JsonNode transaction, List<FieldMapping> fields,
-                                          JsonNode fullJson, ProcessingContext context, int loopIndex) {
+    private Map<String, Object> mapFields(JsonNode record, JsonNode transaction, List<CompiledField> fields,
+                                          JsonNode fullJson, ProcessingContext context, int loopIndex,
+                                          SegmentIndex segmentIndex) {
+        return mapFields(record, transaction, fields, fullJson, context, loopIndex, segmentIndex, null, null);
+    }
+
+    /**
+     * Map fields for a single record, copying precomputed values for record-invariant fields.
+     *
+     * @param scopes     Field scopes, parallel to fields (null to evaluate every field)
+     * @param invariants Values from {@link #mapInvariantFields} (null to evaluate every field)
+     */
+    private Map<String, Object> mapFields(JsonNode record, JsonNode transaction, List<CompiledField> fields,
+                                          JsonNode fullJson, ProcessingContext context, int loopIndex,
+                                          SegmentIndex segmentIndex, List<FieldScope> scopes, Object[] invariants) {
         Map<String, Object> result = new LinkedHashMap<>();
 
         // If transaction is null, use record as transaction (for HEADER type or fixed-width)
         JsonNode effectiveTransaction = transaction != null ? transaction : record;
 
-        for (FieldMapping field : fields) {
+        // One context per record; the current result lets fields reference previously mapped ones
+        TransformContext txContext = new TransformContext(
+                record, effectiveTransaction, fullJson, context, lookupService, loopIndex, result, segmentIndex);
+
+        for (int i = 0; i < fields.size(); i++) {
+            CompiledField field = fields.get(i);
+
+            // Already evaluated for this transaction
+            if (invariants != null && scopes.get(i).isRecordInvariant()) {
+                result.put(field.getName(), invariants[i]);
+                continue;
+            }
+
             // Check condition
             if (field.getCondition() != null && !evaluateCondition(field.getCondition(), record)) {
                 continue;
             }
 
-            // Pass the current result so previously mapped fields can be referenced
-            Object value = processField(record, effectiveTransaction, field, fullJson, context, loopIndex, result);
+            txContext.setCompiledField(field);
+            Object value = field.getFunction().apply(txContext);
 
             // Convert type
-            value = convertType(value, field.getType(), field.getFormat());
+            value = convertType(value, field);
 
             result.put(field.getName(), value);
         }
@@ -197,62 +430,38 @@ public class EdiMappingEngine {
         return result;
     }
 
-    /**
-     * Process a single field.
-     */
-    private Object processField(JsonNode record, JsonNode transaction, FieldMapping field, JsonNode fullJson,
-                                ProcessingContext context, int loopIndex, Map<String, Object> outputRecord) {
-        String transform = field.getTransform();
-
-        // Default to DIRECT if no transform specified
-        if (transform == null || transform.isEmpty()) {
-            transform = "DIRECT";
-        }
-
-        TransformFunction function = transformFunctions.get(transform);
-        if (function == null) {
-            log.warn("Unknown transform: {}, using DIRECT", transform);
-            function = transformFunctions.get("DIRECT");
-        }
-
-        TransformContext txContext = new TransformContext(
-                record, transaction, field, fullJson, context, lookupService, loopIndex, outputRecord);
-
-        return function.apply(txContext);
-    }
-
     /**
      * Convert value to target type.
      */
-    private Object convertType(Object value, String type, String format) {
-        if (value == null || type == null) return value;
+    private Object convertType(Object value, CompiledField field) {
+        if (value == null) return value;
 
         try {
-            return switch (type.toUpperCase()) {
-                case "STRING" -> value.toString();
-                case "INTEGER" -> {
+            return switch (field.getType()) {
+                case NONE, OTHER -> value;
+                case STRING -> value.toString();
+                case INTEGER -> {
                     if (value instanceof Number n) yield n.intValue();
                     yield Integer.parseInt(value.toString().trim());
                 }
-                case "DECIMAL" -> {
+                case DECIMAL -> {
                     if (value instanceof BigDecimal bd) yield bd;
                     yield new BigDecimal(value.toString().trim());
                 }
-                case "DATE" -> {
+                case DATE -> {
                     if (value instanceof LocalDate ld) yield ld;
                     if (value instanceof LocalDateTime ldt) yield ldt.toLocalDate();
-                    String dateFormat = format != null ? format : "yyyyMMdd";
-                    yield LocalDate.parse(value.toString(), DateTimeFormatter.ofPattern(dateFormat));
+                    if (field.getDateFormatter() == null) yield value;
+                    yield LocalDate.parse(value.toString(), field.getDateFormatter());
                 }
-                case "DATETIME", "TIMESTAMP" -> {
+                case DATETIME -> {
                     if (value instanceof LocalDateTime ldt) yield ldt;
-                    String dateFormat = format != null ? format : "yyyyMMddHHmm";
-                    yield LocalDateTime.parse(value.toString(), DateTimeFormatter.ofPattern(dateFormat));
+                    if (field.getDateTimeFormatter() == null) yield value;
+                    yield LocalDateTime.parse(value.toString(), field.getDateTimeFormatter());
                 }
-                default -> value;
             };
         } catch (Exception e) {
-            log.debug("Type conversion failed for value: {}, type: {}", value, type);
+            log.debug("Type conversion failed for value: {}, type: {}", value, field.getField().getType());
             return value;
         }
     }
@@ -273,39 +482,17 @@ public class EdiMappingEngine {
 
     /**
      * Evaluate a condition expression.
+     * Simple expression resolution: ${field} != '' && ${field} != null
      */
-    private boolean evaluateCondition(String condition, JsonNode record) {
-        if (condition == null || condition.isEmpty()) return true;
+    private boolean evaluateCondition(Template condition, JsonNode record) {
+        if (condition == null) return true;
 
-        // Simple expression resolution: ${field} != '' && ${field} != null
-        String resolved = resolveExpression(condition, record);
+        String resolved = condition.renderFields(record);
 
         // Basic evaluation
         return !resolved.contains("null") && !resolved.contains("''") && !resolved.isEmpty();
     }
 
-    /**
-     * Resolve ${fieldName} expressions.
-     */
-    private String resolveExpression(String expr, JsonNode record) {
-        Pattern pattern = Pattern.compile("\\$\\{(\\w+)\\}");
-        Matcher matcher = pattern.matcher(expr);
-        StringBuffer result = new StringBuffer();
-
-        while (matcher.find()) {
-            String fieldName = matcher.group(1);
-            String value = "";
-            if (record.has(fieldName)) {
-                JsonNode node = record.get(fieldName);
-                value = node.isNull() ? "null" : node.asText();
-            }
-            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
-        }
-        matcher.appendTail(result);
-
-        return result.toString();
-    }
-
     /**
      * Validate input against configuration.
      */
@@ -345,11 +532,7 @@ public class EdiMappingEngine {
                     JsonNode transactions = ediJson.get("transactions");
                     if (transactions != null && transactions.isArray()) {
                         for (JsonNode tx : transactions) {
-                            for (String seg : rule.getSegments()) {
-                                if (!tx.has(seg)) {
-                                    errors.add("Missing required segment: " + seg);
-                                }
-                            }
+                            checkRequiredSegments(tx, rule, errors);
                         }
                     }
                 }
@@ -359,6 +542,39 @@ public class EdiMappingEngine {
         return errors;
     }
 
+    /**
+     * Validate a single X12 transaction (per-transaction rules only).
+     */
+    private void validateTransaction(JsonNode transaction, MappingConfig config, List<String> errors) {
+        if (config.getValidations() == null) return;
+
+        for (MappingConfig.ValidationRule rule : config.getValidations()) {
+            if ("REQUIRED_SEGMENT".equals(rule.getRule())) {
+                checkRequiredSegments(transaction, rule, errors);
+            }
+        }
+    }
+
+    private void checkRequiredSegments(JsonNode transaction, MappingConfig.ValidationRule rule,
+                                       List<String> errors) {
+        for (String seg : rule.getSegments()) {
+            if (!transaction.has(seg)) {
+                errors.add("Missing required segment: " + seg);
+            }
+        }
+    }
+
+    /**
+     * Apply partner-specific overrides to the plan.
+     * Callers mapping a file in parts resolve this once per file and pass the result to
+     * {@link #transformTransaction}, {@link #transformRecords} and {@link #validate(JsonNode, CompiledMappingPlan)}.
+     */
+    public CompiledMappingPlan applyPartnerOverrides(CompiledMappingPlan plan, String partnerId) {
+        MappingConfig config = plan.getConfig();
+        MappingConfig effectiveConfig = applyPartnerOverrides(config, partnerId);
+        return effectiveConfig == config ? plan : compile(effectiveConfig);
+    }
+
     /**
      * Apply partner-specific overrides to configuration.
      */
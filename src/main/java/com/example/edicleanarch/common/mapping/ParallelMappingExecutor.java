@@ -0,0 +1,110 @@
+package com.example.edicleanarch.common.mapping;
+
+import com.example.edicleanarch.config.EdiProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Maps the parts of a large file on several cores and hands the results back in file order.
+ *
+ * Mapping is CPU work (parsing, transforms, cached lookups), so it runs on a fixed pool of
+ * platform threads sized to the cores (edi.file-drop.parallelism). At most one result per
+ * thread waits to be consumed, so memory stays bounded by the part size; the consumer (the
+ * single RecordWriter of the file) runs on the calling thread.
+ *
+ * The pool is shared by file parts and the partitions of {@link EdiMappingEngine}
+ * (edi.mapping.parallel). A call from one of the pool's own threads (partitions of a part)
+ * maps on that thread, so tasks never wait for tasks queued behind them.
+ */
+@Slf4j
+@Component
+public class ParallelMappingExecutor {
+
+    private final ExecutorService executor;
+    private final ThreadLocal<Boolean> poolThread = ThreadLocal.withInitial(() -> false);
+    private final int parallelism;
+    private final int partSize;
+
+    public ParallelMappingExecutor(EdiProperties properties) {
+        EdiProperties.FileDropProperties config = properties.getFileDrop();
+        this.parallelism = config.getParallelism() > 0
+                ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        this.partSize = Math.max(1, config.getPartSize());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(() -> {
+                poolThread.set(true);
+                task.run();
+            }, "edi-map-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Number of parts for content of the given length: one per edi.file-drop.part-size.
+     */
+    public int partsFor(int length) {
+        return Math.max(1, (int) Math.min(Integer.MAX_VALUE, ((long) length + partSize - 1) / partSize));
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Map every part and pass the results to the consumer in the order of the parts.
+     * A failing mapper stops the run; parts not yet consumed are cancelled.
+     * Called on a pool thread, the parts are mapped one after the other on that thread.
+     */
+    public <P> void mapInOrder(List<P> parts, Function<P, MappingResult> mapper, Consumer<MappingResult> consumer) {
+        if (parts.size() == 1 || poolThread.get()) {
+            for (P part : parts) {
+                consumer.accept(mapper.apply(part));
+            }
+            return;
+        }
+
+        Deque<Future<MappingResult>> pending = new ArrayDeque<>(parallelism);
+        int next = 0;
+        try {
+            while (next < parts.size() && pending.size() < parallelism) {
+                P part = parts.get(next++);
+                pending.add(executor.submit(() -> mapper.apply(part)));
+            }
+            while (!pending.isEmpty()) {
+                MappingResult result = pending.poll().get();
+                if (next < parts.size()) {
+                    P part = parts.get(next++);
+                    pending.add(executor.submit(() -> mapper.apply(part)));
+                }
+                consumer.accept(result);
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Mapping failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while mapping", e);
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
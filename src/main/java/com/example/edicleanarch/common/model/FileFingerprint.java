@@ -0,0 +1,60 @@
+package com.example.edicleanarch.common.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Value Object: Identity of an inbound payload in the processed-file ledger.
+ *
+ * Two deliveries are the same file when message type, SHA-256 of the content and
+ * control number (ISA13 for X12, the CLM header for Railinc) all match.
+ *
+ * @param messageType   "315", "RAILINC_CLM", ...
+ * @param contentHash   SHA-256 of the UTF-8 content, lower-case hex
+ * @param controlNumber Interchange control number, "" if the payload has none
+ */
+public record FileFingerprint(String messageType, String contentHash, String controlNumber) {
+
+    public static FileFingerprint of(String messageType, String content, String controlNumber) {
+        return new FileFingerprint(messageType, sha256(content), controlNumber != null ? controlNumber : "");
+    }
+
+    /**
+     * Fingerprint of streamed content, hashed by a {@link #newDigest()} digest while it was read.
+     */
+    public static FileFingerprint of(String messageType, MessageDigest contentDigest, String controlNumber) {
+        return new FileFingerprint(messageType, HexFormat.of().formatHex(contentDigest.digest()),
+                controlNumber != null ? controlNumber : "");
+    }
+
+    /**
+     * Fingerprint of content hashed by the caller ({@link #sha256(ByteBuffer)}).
+     */
+    public static FileFingerprint ofHash(String messageType, String contentHash, String controlNumber) {
+        return new FileFingerprint(messageType, contentHash, controlNumber != null ? controlNumber : "");
+    }
+
+    /**
+     * SHA-256 of the remaining bytes of the buffer, e.g. a memory-mapped file (position is advanced).
+     */
+    public static String sha256(ByteBuffer content) {
+        MessageDigest digest = newDigest();
+        digest.update(content);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String sha256(String content) {
+        return HexFormat.of().formatHex(newDigest().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.edicleanarch.common.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CharSequence view of single-byte (ASCII) content in a ByteBuffer, e.g. a memory-mapped file.
+ *
+ * X12Tokenizer and FixedWidthSlicer read the bytes in place; only the element and field
+ * values they extract become Strings. Sub-sequences are views of the same buffer.
+ * Bytes are read as ISO-8859-1, so non-ASCII text is not decoded as UTF-8.
+ *
+ * Immutable and safe to share across threads (absolute reads only).
+ */
+public final class AsciiCharSequence implements CharSequence {
+
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    public AsciiCharSequence(ByteBuffer bytes) {
+        this(bytes, 0, bytes.limit());
+    }
+
+    private AsciiCharSequence(ByteBuffer bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Map a file read-only. The mapping is released when the view is garbage collected.
+     *
+     * @throws IllegalArgumentException if the file is 2 GB or larger
+     */
+    public static AsciiCharSequence map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("File too large to map: " + file + " (" + size + " bytes)");
+            }
+            return new AsciiCharSequence(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * The viewed bytes (read-only, independent position), e.g. to hash the content.
+     */
+    public ByteBuffer bytes() {
+        return bytes.asReadOnlyBuffer().position(offset).limit(offset + length).slice();
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (char) (bytes.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public AsciiCharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new AsciiCharSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] copy = new byte[length];
+        bytes.get(offset, copy);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.edicleanarch.common.parser;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming fixed-width reader.
+ *
+ * Reads the input in chunks of characters and yields data records a batch at a time, so
+ * memory stays flat regardless of file size: only the current chunk and the current batch
+ * are held. Lines are sliced in place by {@link FixedWidthSlicer}; a line split across two
+ * chunks is carried over to the next one.
+ *
+ * Header (CLM) and trailer (EOM) records are kept as they pass. After the reader is
+ * exhausted, {@link #summary()} has the shape of a converted file without records
+ * ({"header", "trailer", "_metadata": {"recordCount"}}) for the file-level validations.
+ *
+ * Not thread-safe. Closing the reader closes the underlying input.
+ */
+public class FixedWidthRecordReader implements AutoCloseable {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final FixedWidthToJsonConverter converter;
+    private final FixedWidthSlicer slicer;
+    private final Reader in;
+
+    private char[] buffer = new char[CHUNK_SIZE];
+    private int filled;         // Characters in the buffer
+    private int linesEnd;       // End of the complete lines handed to the cursor
+    private boolean endOfInput;
+    private FixedWidthSlicer.Cursor cursor;
+
+    private ObjectNode header;
+    private String headerLine;
+    private ObjectNode trailer;
+    private int recordCount;
+
+    FixedWidthRecordReader(FixedWidthToJsonConverter converter, FixedWidthSlicer slicer, Reader in) {
+        this.converter = converter;
+        this.slicer = slicer;
+        this.in = in;
+    }
+
+    /**
+     * Reader for a window of content already in memory (see FixedWidthToJsonConverter#split).
+     *
+     * @param header Header of the file, for windows that do not start with it
+     */
+    FixedWidthRecordReader(FixedWidthToJsonConverter converter, FixedWidthSlicer slicer, CharSequence window,
+                           ObjectNode header) {
+        this.converter = converter;
+        this.slicer = slicer;
+        this.in = null;
+        this.cursor = slicer.cursor(window);
+        this.endOfInput = true;
+        this.header = header;
+    }
+
+    /**
+     * Read up to {@code max} data records.
+     *
+     * @return The records, empty when the input is exhausted
+     */
+    public ArrayNode readRecords(int max) throws IOException {
+        ArrayNode records = converter.createArrayNode();
+        while (records.size() < max && nextLine()) {
+            switch (cursor.kind()) {
+                case HEADER -> {
+                    header = converter.toNode(cursor);
+                    if (headerLine == null) headerLine = cursor.line().trim();
+                }
+                case TRAILER -> trailer = converter.toNode(cursor);
+                case DATA -> {
+                    records.add(converter.toNode(cursor));
+                    recordCount++;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Records wrapped with the header read so far, the shape the mapping engine expects.
+     */
+    public ObjectNode chunk(ArrayNode records) {
+        ObjectNode chunk = converter.createObjectNode();
+        if (header != null) chunk.set("header", header);
+        chunk.set("records", records);
+        return chunk;
+    }
+
+    /**
+     * Header, trailer and record count of the file (complete once the reader is exhausted).
+     * A missing header or trailer is left out, so HEADER_REQUIRED/TRAILER_REQUIRED report it.
+     */
+    public ObjectNode summary() {
+        ObjectNode summary = converter.createObjectNode();
+        if (header != null) summary.set("header", header);
+        if (trailer != null) summary.set("trailer", trailer);
+        summary.set("_metadata", converter.createObjectNode().put("recordCount", recordCount));
+        return summary;
+    }
+
+    /**
+     * Summary of a file read by several readers: header of the first, trailer of the last,
+     * total record count.
+     */
+    public static ObjectNode summaryOf(List<FixedWidthRecordReader> readers) {
+        FixedWidthRecordReader combined = readers.get(0);
+        ObjectNode summary = combined.summary();
+        int recordCount = 0;
+        for (FixedWidthRecordReader reader : readers) {
+            recordCount += reader.recordCount;
+            if (reader.trailer != null) summary.set("trailer", reader.trailer);
+        }
+        ((ObjectNode) summary.get("_metadata")).put("recordCount", recordCount);
+        return summary;
+    }
+
+    /**
+     * Raw CLM header line (trimmed) of the first header record, null if none was read yet.
+     */
+    public String getHeaderLine() {
+        return headerLine;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) in.close();
+    }
+
+    private boolean nextLine() throws IOException {
+        while (cursor == null || !cursor.next()) {
+            if (!fill()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Move the incomplete last line to the front of the buffer, read until the buffer holds at
+     * least one complete line (or the input ends) and open a cursor over the complete lines.
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput) return false;
+
+        int carried = filled - linesEnd;
+        System.arraycopy(buffer, linesEnd, buffer, 0, carried);
+        filled = carried;
+        linesEnd = 0;
+
+        while (linesEnd == 0) {
+            if (filled == buffer.length) {
+                // Line longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                // Last line without a line break
+                endOfInput = true;
+                linesEnd = filled;
+                break;
+            }
+            int searchFrom = filled;
+            filled += read;
+            for (int i = filled - 1; i >= searchFrom; i--) {
+                if (buffer[i] == '\n') {
+                    linesEnd = i + 1;
+                    break;
+                }
+            }
+        }
+
+        cursor = slicer.cursor(CharBuffer.wrap(buffer, 0, linesEnd));
+        return true;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.edicleanarch.common.parser;
+
+import com.example.edicleanarch.common.schema.FieldDefinition;
+import com.example.edicleanarch.common.schema.FixedWidthSchema;
+
+import java.nio.CharBuffer;
+import java.util.List;
+
+/**
+ * Fixed-width column slicer, compiled once per {@link FixedWidthSchema}.
+ *
+ * Field positions are held as start/end/trim arrays per record type (header, data, trailer).
+ * Lines are read as windows of the content: no line Strings, no regex, and a field is only
+ * copied out of the content when its value is asked for.
+ *
+ * Usage:
+ * <pre>
+ * FixedWidthSlicer slicer = FixedWidthSlicer.compile(schema);   // once, immutable and shareable
+ * FixedWidthSlicer.Cursor line = slicer.cursor(content);
+ * while (line.next()) {
+ *     if (line.kind() == RecordKind.DATA) {
+ *         String equipment = line.value(0);
+ *     }
+ * }
+ * </pre>
+ */
+public final class FixedWidthSlicer {
+
+    static final String HEADER_TAG = "CLM";
+    static final String TRAILER_TAG = "EOM";
+
+    /**
+     * Record type of a line, chosen by its leading tag.
+     */
+    public enum RecordKind { HEADER, DATA, TRAILER }
+
+    private final Layout header;
+    private final Layout data;
+    private final Layout trailer;
+
+    private FixedWidthSlicer(Layout header, Layout data, Layout trailer) {
+        this.header = header;
+        this.data = data;
+        this.trailer = trailer;
+    }
+
+    public static FixedWidthSlicer compile(FixedWidthSchema schema) {
+        return new FixedWidthSlicer(
+                new Layout(schema.getHeaderFields()),
+                new Layout(schema.getDataFields()),
+                new Layout(schema.getTrailerFields()));
+    }
+
+    /**
+     * Field names of a record type, in schema order (the indexes of {@link Cursor#value(int)}).
+     */
+    public List<String> fieldNames(RecordKind kind) {
+        Layout layout = switch (kind) {
+            case HEADER -> header;
+            case DATA -> data;
+            case TRAILER -> trailer;
+        };
+        return List.of(layout.names);
+    }
+
+    /**
+     * CLM header line of the content (trimmed), the control number of the file: the same value
+     * {@link FixedWidthRecordReader#getHeaderLine()} reads. Null if no line starts with the header tag.
+     */
+    public static String headerLine(CharSequence content) {
+        int length = content.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && content.charAt(end) != '\n') end++;
+            if (end - start >= HEADER_TAG.length()
+                    && HEADER_TAG.contentEquals(content.subSequence(start, start + HEADER_TAG.length()))) {
+                return content.subSequence(start, end).toString().trim();
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    /**
+     * Line cursor over the content. Not thread-safe; one per conversion.
+     */
+    public Cursor cursor(CharSequence content) {
+        return new Cursor(content);
+    }
+
+    /**
+     * Column positions of one record type.
+     */
+    private static final class Layout {
+        private final String[] names;
+        private final int[] starts;
+        private final int[] ends;
+        private final boolean[] trims;
+
+        private Layout(List<FieldDefinition> fields) {
+            int count = fields != null ? fields.size() : 0;
+            names = new String[count];
+            starts = new int[count];
+            ends = new int[count];
+            trims = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                FieldDefinition field = fields.get(i);
+                names[i] = field.getName();
+                starts[i] = field.getStart();
+                ends[i] = field.getEnd();
+                trims[i] = field.isTrim();
+            }
+        }
+    }
+
+    /**
+     * Current-line view: field values are only valid until the next call to {@link #next()}.
+     */
+    public final class Cursor {
+        private final CharSequence content;
+        private final int length;
+        private int position;
+        private int lineStart;
+        private int lineEnd;
+        private RecordKind kind;
+        private Layout layout;
+
+        private Cursor(CharSequence content) {
+            this.content = content;
+            this.length = content.length();
+        }
+
+        /**
+         * Advance to the next non-blank line.
+         *
+         * @return false when the content is exhausted
+         */
+        public boolean next() {
+            while (position < length) {
+                int start = position;
+                int end = start;
+                while (end < length && content.charAt(end) != '\n') end++;
+                position = end + 1;
+                // "\r\n" line break: the CR is not part of the line
+                int stop = end < length && end > start && content.charAt(end - 1) == '\r' ? end - 1 : end;
+
+                if (!isBlank(start, stop)) {
+                    lineStart = start;
+                    lineEnd = stop;
+                    if (startsWith(HEADER_TAG)) {
+                        kind = RecordKind.HEADER;
+                        layout = header;
+                    } else if (startsWith(TRAILER_TAG)) {
+                        kind = RecordKind.TRAILER;
+                        layout = trailer;
+                    } else {
+                        kind = RecordKind.DATA;
+                        layout = data;
+                    }
+                    return true;
+                }
+            }
+            kind = null;
+            layout = null;
+            return false;
+        }
+
+        public RecordKind kind() {
+            return kind;
+        }
+
+        /**
+         * Number of fields defined for the current record type.
+         */
+        public int fieldCount() {
+            return layout.names.length;
+        }
+
+        public String name(int index) {
+            return layout.names[index];
+        }
+
+        /**
+         * Field as a view of the content (trimmed if the field says so); nothing is copied
+         * until the view is turned into a String.
+         */
+        public CharSequence field(int index) {
+            int start = start(index);
+            int end = end(index, start);
+            return start == end ? "" : CharBuffer.wrap(content, start, end);
+        }
+
+        /**
+         * Field value as a String (trimmed if the field says so).
+         */
+        public String value(int index) {
+            int start = start(index);
+            int end = end(index, start);
+            return start == end ? "" : content.subSequence(start, end).toString();
+        }
+
+        /**
+         * Whole current line, e.g. for error messages.
+         */
+        public String line() {
+            return content.subSequence(lineStart, lineEnd).toString();
+        }
+
+        private int start(int index) {
+            int start = lineStart + layout.starts[index];
+            if (start >= lineEnd) return lineEnd;
+            if (layout.trims[index]) {
+                int end = Math.min(lineStart + layout.ends[index], lineEnd);
+                while (start < end && content.charAt(start) <= ' ') start++;
+            }
+            return start;
+        }
+
+        private int end(int index, int start) {
+            int end = Math.max(start, Math.min(lineStart + layout.ends[index], lineEnd));
+            if (layout.trims[index]) {
+                while (end > start && content.charAt(end - 1) <= ' ') end--;
+            }
+            return end;
+        }
+
+        private boolean startsWith(String tag) {
+            if (lineEnd - lineStart < tag.length()) return false;
+            for (int i = 0; i < tag.length(); i++) {
+                if (content.charAt(lineStart + i) != tag.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        private boolean isBlank(int start, int stop) {
+            for (int i = start; i < stop; i++) {
+                if (!Character.isWhitespace(content.charAt(i))) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.edicleanarch.common.parser;
 
-import com.example.edicleanarch.common.schema.FieldDefinition;
 import com.example.edicleanarch.common.schema.FixedWidthSchema;
 import org.springframework.stereotype.Component;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -8,34 +7,49 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
 public class FixedWidthToJsonConverter {
     private final ObjectMapper mapper = new ObjectMapper();
 
+    /**
+     * Compile the schema's column positions; cache the result alongside the schema.
+     */
+    public FixedWidthSlicer compile(FixedWidthSchema schema) {
+        return FixedWidthSlicer.compile(schema);
+    }
+
     /**
      * Convert fixed-width content to JsonNode using provided schema.
      */
     public JsonNode convert(String content, FixedWidthSchema schema) {
+        return convert(content, compile(schema));
+    }
+
+    /**
+     * Convert fixed-width content to JsonNode using a compiled schema.
+     */
+    public JsonNode convert(String content, FixedWidthSlicer slicer) {
         ObjectNode root = mapper.createObjectNode();
-        String[] lines = content.split("\\r?\\n");
 
         ObjectNode header = null;
         ArrayNode records = mapper.createArrayNode();
         ObjectNode trailer = null;
 
-        for (String line : lines) {
-            if (line.isBlank()) continue;
-
-            if (line.startsWith("CLM")) {
-                header = parseFixedWidthLine(line, schema.getHeaderFields());
-            } else if (line.startsWith("EOM")) {
-                trailer = parseFixedWidthLine(line, schema.getTrailerFields());
-            } else {
-                ObjectNode record = parseFixedWidthLine(line, schema.getDataFields());
-                records.add(record);
+        FixedWidthSlicer.Cursor line = slicer.cursor(content);
+        while (line.next()) {
+            switch (line.kind()) {
+                case HEADER -> header = toNode(line);
+                case TRAILER -> trailer = toNode(line);
+                case DATA -> records.add(toNode(line));
             }
         }
 
@@ -51,32 +65,63 @@ public class FixedWidthToJsonConverter {
 
         return root;
     }
+
     /**
-     * Parse a single fixed-width line into JsonNode.
+     * Stream fixed-width content in record batches instead of converting the whole file.
+     * Use for large files; the caller closes the reader.
      */
-    private ObjectNode parseFixedWidthLine(String line, List<FieldDefinition> fields) {
-        ObjectNode node = mapper.createObjectNode();
-
-        if (fields == null) return node;
+    public FixedWidthRecordReader stream(InputStream content, FixedWidthSlicer slicer) {
+        return stream(new InputStreamReader(content, StandardCharsets.UTF_8), slicer);
+    }
 
-        for (FieldDefinition field : fields) {
-            String value = extractField(line, field.getStart(), field.getEnd());
+    public FixedWidthRecordReader stream(Reader content, FixedWidthSlicer slicer) {
+        return new FixedWidthRecordReader(this, slicer, content);
+    }
 
-            if (field.isTrim()) {
-                value = value.trim();
-            }
+    /**
+     * Split fixed-width content into up to {@code parts} readers of about equal size, cut at line
+     * breaks, so records can be mapped in parallel. Every reader carries the file header from the
+     * start; record counts are per reader ({@link FixedWidthRecordReader#summaryOf}).
+     */
+    public List<FixedWidthRecordReader> split(CharSequence content, FixedWidthSlicer slicer, int parts) {
+        ObjectNode header = null;
+        FixedWidthSlicer.Cursor first = slicer.cursor(content);
+        if (first.next() && first.kind() == FixedWidthSlicer.RecordKind.HEADER) {
+            header = toNode(first);
+        }
 
-            node.put(field.getName(), value);
+        int length = content.length();
+        int partSize = Math.max(1, length / Math.max(1, parts));
+        List<FixedWidthRecordReader> readers = new ArrayList<>(Math.max(1, parts));
+        int start = 0;
+        while (start < length) {
+            int end = Math.min(length, start + partSize);
+            while (end < length && content.charAt(end - 1) != '\n') end++;
+            readers.add(new FixedWidthRecordReader(this, slicer, CharBuffer.wrap(content, start, end), header));
+            start = end;
+        }
+        if (readers.isEmpty()) {
+            readers.add(new FixedWidthRecordReader(this, slicer, content, header));
         }
+        return readers;
+    }
 
-        return node;
+    ObjectNode createObjectNode() {
+        return mapper.createObjectNode();
+    }
+
+    ArrayNode createArrayNode() {
+        return mapper.createArrayNode();
     }
+
     /**
-     * Extract field value from line by position.
+     * Materialize the fields of the current line into a JsonNode.
      */
-    private String extractField(String line, int start, int end) {
-        if (start >= line.length()) return "";
-        int actualEnd = Math.min(end, line.length());
-        return line.substring(start, actualEnd);
+    ObjectNode toNode(FixedWidthSlicer.Cursor line) {
+        ObjectNode node = mapper.createObjectNode();
+        for (int i = 0; i < line.fieldCount(); i++) {
+            node.put(line.name(i), line.value(i));
+        }
+        return node;
     }
 }
@@ -0,0 +1,173 @@
+package com.example.edicleanarch.common.parser;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming X12 interchange reader.
+ *
+ * Yields one ST..SE transaction set at a time instead of building the whole
+ * interchange as a single tree, so memory stays flat regardless of how many
+ * transactions the file holds. Each transaction carries a reference to the
+ * shared interchange node ({"envelope": {ISA, GS}}), which has the same
+ * shape the mapping engine expects for envelope paths like envelope.ISA.06.
+ *
+ * GE/IEA are added to the envelope once they are read, i.e. after the last
+ * transaction of their group has been returned.
+ *
+ * A reader can also cover a window of the interchange ({@link X12ToJsonConverter#split}):
+ * it starts at an ST segment with the ISA and GS segments in effect already in its envelope.
+ */
+public class X12InterchangeReader implements Iterator<X12InterchangeReader.X12TransactionSet> {
+
+    private final X12ToJsonConverter converter;
+    private final X12Tokenizer tokenizer;
+
+    private ObjectNode interchange;
+    private ObjectNode envelope;
+    private boolean transactionsEmitted;
+
+    private X12TransactionSet next;
+    private int transactionIndex;
+
+    X12InterchangeReader(X12ToJsonConverter converter, CharSequence content) {
+        this(converter, content, 0, content.length(), -1, -1);
+    }
+
+    /**
+     * Reader for the window [start, end) of the content, which starts at an ST segment.
+     *
+     * @param isaStart   Offset of the ISA segment in effect at start, -1 if none
+     * @param groupStart Offset of the GS segment in effect at start, -1 if none
+     */
+    X12InterchangeReader(X12ToJsonConverter converter, CharSequence content, int start, int end,
+                         int isaStart, int groupStart) {
+        this.converter = converter;
+        this.tokenizer = new X12Tokenizer(content, start, end);
+        this.interchange = converter.createInterchangeNode();
+        this.envelope = (ObjectNode) interchange.get("envelope");
+        if (isaStart >= 0) {
+            readEnvelopeSegment(content, isaStart, "ISA");
+        }
+        if (groupStart >= 0) {
+            readEnvelopeSegment(content, groupStart, "GS");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readTransaction();
+        }
+        return next != null;
+    }
+
+    @Override
+    public X12TransactionSet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        X12TransactionSet current = next;
+        next = null;
+        return current;
+    }
+
+    /**
+     * Interchange node with the envelope segments read so far.
+     * After the reader is exhausted it also holds GE/IEA.
+     */
+    public ObjectNode getInterchange() {
+        return interchange;
+    }
+
+    /**
+     * Number of transactions returned so far.
+     */
+    public int getTransactionCount() {
+        return transactionIndex;
+    }
+
+    private X12TransactionSet readTransaction() {
+        ObjectNode currentTransaction = null;
+
+        while (tokenizer.next()) {
+            String segmentId = tokenizer.segmentId();
+            ObjectNode segmentNode = converter.createSegmentNode(tokenizer);
+
+            switch (segmentId) {
+                case "ISA" -> {
+                    if (transactionsEmitted) {
+                        startNewEnvelope(null);
+                    }
+                    envelope.set("ISA", segmentNode);
+                }
+                case "GS" -> {
+                    if (transactionsEmitted) {
+                        startNewEnvelope(envelope.get("ISA"));
+                    }
+                    envelope.set("GS", segmentNode);
+                }
+                case "ST" -> {
+                    currentTransaction = converter.createTransactionNode();
+                    currentTransaction.set("ST", segmentNode);
+                }
+                case "SE" -> {
+                    if (currentTransaction != null) {
+                        currentTransaction.set("SE", segmentNode);
+                        transactionsEmitted = true;
+                        return new X12TransactionSet(interchange, currentTransaction, transactionIndex++);
+                    }
+                }
+                case "GE" -> envelope.set("GE", segmentNode);
+                case "IEA" -> envelope.set("IEA", segmentNode);
+                default -> {
+                    if (currentTransaction != null) {
+                        converter.addSegmentToTransaction(currentTransaction, segmentId, segmentNode);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void readEnvelopeSegment(CharSequence content, int start, String segmentId) {
+        X12Tokenizer segment = new X12Tokenizer(content, start, content.length());
+        if (segment.next() && segmentId.equals(segment.segmentId())) {
+            envelope.set(segmentId, converter.createSegmentNode(segment));
+        }
+    }
+
+    /**
+     * A new interchange or functional group must not change the envelope seen by
+     * transactions that were already handed out, so start a fresh node (with the ISA
+     * still in effect for a new group).
+     */
+    private void startNewEnvelope(JsonNode isa) {
+        interchange = converter.createInterchangeNode();
+        envelope = (ObjectNode) interchange.get("envelope");
+        if (isa != null) {
+            envelope.set("ISA", isa);
+        }
+        transactionsEmitted = false;
+    }
+
+    /**
+     * One ST..SE transaction set with its shared interchange node.
+     *
+     * @param interchange Shared {"envelope": {...}} node (use as fullJson for mapping)
+     * @param transaction Transaction segments keyed by segment id
+     * @param index       Zero-based position of the transaction in the file
+     */
+    public record X12TransactionSet(
+            ObjectNode interchange,
+            ObjectNode transaction,
+            int index
+    ) {
+        public JsonNode envelope() {
+            return interchange.get("envelope");
+        }
+    }
+}
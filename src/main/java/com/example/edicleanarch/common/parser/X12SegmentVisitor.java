@@ -0,0 +1,15 @@
+package com.example.edicleanarch.common.parser;
+
+/**
+ * Callback for {@link X12Tokenizer#tokenize(X12SegmentVisitor)}.
+ * Lets callers consume segments without building a JsonNode tree.
+ */
+@FunctionalInterface
+public interface X12SegmentVisitor {
+
+    /**
+     * Visit the current segment. The tokenizer is only valid for the
+     * duration of the call - copy element values out if they are kept.
+     */
+    void visitSegment(X12Tokenizer segment);
+}
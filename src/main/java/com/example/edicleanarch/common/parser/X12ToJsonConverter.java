@@ -6,11 +6,23 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class X12ToJsonConverter {
 
+    /**
+     * Positional element keys "00".."99", precomputed to avoid String.format per element.
+     */
+    private static final String[] POSITION_KEYS = new String[100];
+
+    static {
+        for (int i = 0; i < POSITION_KEYS.length; i++) {
+            POSITION_KEYS[i] = (i < 10 ? "0" : "") + i;
+        }
+    }
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     /**
@@ -18,53 +30,40 @@ public class X12ToJsonConverter {
      */
     public JsonNode convert(String ediContent) {
         ObjectNode root = mapper.createObjectNode();
-
-        // Parse delimiters from ISA segment
-        EdiDelimiters delimiters = parseDelimiters(ediContent);
-
-        // Normalize content
-        String normalized = ediContent.replace("\r", "").replace("\n", "");
-
-        // Split into segments
-        String[] segments = normalized.split(Pattern.quote(delimiters.getSegmentTerminator()));
+        X12Tokenizer tokenizer = new X12Tokenizer(ediContent);
 
         // Build JSON structure
         ObjectNode envelope = mapper.createObjectNode();
         ArrayNode transactions = mapper.createArrayNode();
+        ObjectNode[] currentTransaction = new ObjectNode[1];
 
-        ObjectNode currentTransaction = null;
-
-        for (String segment : segments) {
-            if (segment.isBlank()) continue;
-
-            String[] elements = segment.split(Pattern.quote(delimiters.getElementSeparator()), -1);
-            String segmentId = elements[0].trim();
-
-            ObjectNode segmentNode = createSegmentNode(elements);
+        tokenizer.tokenize(segment -> {
+            String segmentId = segment.segmentId();
+            ObjectNode segmentNode = createSegmentNode(segment);
 
             switch (segmentId) {
                 case "ISA" -> envelope.set("ISA", segmentNode);
                 case "GS" -> envelope.set("GS", segmentNode);
                 case "ST" -> {
-                    currentTransaction = mapper.createObjectNode();
-                    currentTransaction.set("ST", segmentNode);
+                    currentTransaction[0] = mapper.createObjectNode();
+                    currentTransaction[0].set("ST", segmentNode);
                 }
                 case "SE" -> {
-                    if (currentTransaction != null) {
-                        currentTransaction.set("SE", segmentNode);
-                        transactions.add(currentTransaction);
-                        currentTransaction = null;
+                    if (currentTransaction[0] != null) {
+                        currentTransaction[0].set("SE", segmentNode);
+                        transactions.add(currentTransaction[0]);
+                        currentTransaction[0] = null;
                     }
                 }
                 case "GE" -> envelope.set("GE", segmentNode);
                 case "IEA" -> envelope.set("IEA", segmentNode);
                 default -> {
-                    if (currentTransaction != null) {
-                        addSegmentToTransaction(currentTransaction, segmentId, segmentNode);
+                    if (currentTransaction[0] != null) {
+                        addSegmentToTransaction(currentTransaction[0], segmentId, segmentNode);
                     }
                 }
             }
-        }
+        });
 
         root.set("envelope", envelope);
         root.set("transactions", transactions);
@@ -72,37 +71,104 @@ public class X12ToJsonConverter {
         // Add metadata
         ObjectNode metadata = mapper.createObjectNode();
         metadata.put("transactionCount", transactions.size());
-        metadata.put("elementSeparator", delimiters.getElementSeparator());
-        metadata.put("segmentTerminator", delimiters.getSegmentTerminator());
+        metadata.put("elementSeparator", String.valueOf(tokenizer.elementSeparator()));
+        metadata.put("segmentTerminator", String.valueOf(tokenizer.segmentTerminator()));
         root.set("_metadata", metadata);
 
         return root;
     }
 
     /**
-     * Parse ISA segment to extract delimiters.
+     * Stream X12 content one ST..SE transaction set at a time.
+     * Use instead of {@link #convert(String)} when the whole tree is not needed at once.
      */
-    private EdiDelimiters parseDelimiters(String content) {
-        // Element separator is at position 3
-        String elementSeparator = String.valueOf(content.charAt(3));
-
-        // Segment terminator is at position 105 (after ISA16)
-        String segmentTerminator = "~"; // Default
-        if (content.length() > 105) {
-            segmentTerminator = String.valueOf(content.charAt(105));
+    public X12InterchangeReader stream(CharSequence ediContent) {
+        return new X12InterchangeReader(this, ediContent);
+    }
+
+    /**
+     * Split X12 content into up to {@code parts} readers of about equal size, cut before ST
+     * segments, so transaction sets can be mapped in parallel. Together the readers yield the
+     * same transactions as {@link #stream}, in order, each with the ISA and GS of its own
+     * interchange and group; transaction indexes restart in every reader.
+     */
+    public List<X12InterchangeReader> split(CharSequence ediContent, int parts) {
+        X12Tokenizer separators = new X12Tokenizer(ediContent);
+        char elementSeparator = separators.elementSeparator();
+        char segmentTerminator = separators.segmentTerminator();
+        int length = ediContent.length();
+        int partSize = Math.max(1, length / Math.max(1, parts));
+
+        List<X12InterchangeReader> readers = new ArrayList<>(Math.max(1, parts));
+        int windowStart = 0;
+        int windowInterchange = -1;
+        int windowGroup = -1;
+        int isaStart = 0;
+        int groupStart = -1;
+        int nextCut = partSize;
+
+        for (int i = 0; i < length; i++) {
+            if (ediContent.charAt(i) != segmentTerminator) continue;
+
+            int segmentStart = i + 1;
+            while (segmentStart < length && isLineBreak(ediContent.charAt(segmentStart))) segmentStart++;
+
+            if (startsSegment(ediContent, segmentStart, "ISA", elementSeparator)) {
+                isaStart = segmentStart;
+                groupStart = -1;
+            } else if (startsSegment(ediContent, segmentStart, "GS", elementSeparator)) {
+                groupStart = segmentStart;
+            } else if (segmentStart >= nextCut && startsSegment(ediContent, segmentStart, "ST", elementSeparator)) {
+                readers.add(new X12InterchangeReader(this, ediContent, windowStart, segmentStart,
+                        windowInterchange, windowGroup));
+                windowStart = segmentStart;
+                windowInterchange = isaStart;
+                windowGroup = groupStart;
+                nextCut = segmentStart + partSize;
+            }
         }
+        readers.add(new X12InterchangeReader(this, ediContent, windowStart, length, windowInterchange, windowGroup));
+        return readers;
+    }
 
-        return new EdiDelimiters(elementSeparator, segmentTerminator);
+    private static boolean isLineBreak(char c) {
+        return c == '\r' || c == '\n';
+    }
+
+    private static boolean startsSegment(CharSequence content, int start, String segmentId, char elementSeparator) {
+        int idLength = segmentId.length();
+        if (start + idLength >= content.length()) return false;
+        for (int i = 0; i < idLength; i++) {
+            if (content.charAt(start + i) != segmentId.charAt(i)) return false;
+        }
+        return content.charAt(start + idLength) == elementSeparator;
+    }
+
+    /**
+     * Walk X12 content segment by segment without building a JSON tree.
+     */
+    public void tokenize(CharSequence ediContent, X12SegmentVisitor visitor) {
+        new X12Tokenizer(ediContent).tokenize(visitor);
+    }
+
+    ObjectNode createInterchangeNode() {
+        ObjectNode interchange = mapper.createObjectNode();
+        interchange.set("envelope", mapper.createObjectNode());
+        return interchange;
+    }
+
+    ObjectNode createTransactionNode() {
+        return mapper.createObjectNode();
     }
 
     /**
      * Create segment node with positional element keys (01, 02, 03...).
      */
-    private ObjectNode createSegmentNode(String[] elements) {
+    ObjectNode createSegmentNode(X12Tokenizer segment) {
         ObjectNode node = mapper.createObjectNode();
-        for (int i = 1; i < elements.length; i++) {
-            String position = String.format("%02d", i);
-            node.put(position, elements[i].trim());
+        int count = segment.elementCount();
+        for (int i = 1; i <= count; i++) {
+            node.put(positionKey(i), segment.element(i));
         }
         return node;
     }
@@ -110,27 +176,21 @@ public class X12ToJsonConverter {
     /**
      * Add segment to transaction, handling repeating segments as arrays.
      */
-    private void addSegmentToTransaction(ObjectNode transaction, String segmentId, ObjectNode segmentNode) {
-        if (transaction.has(segmentId)) {
-            JsonNode existing = transaction.get(segmentId);
-            if (existing.isArray()) {
-                ((ArrayNode) existing).add(segmentNode);
-            } else {
-                ArrayNode array = mapper.createArrayNode();
-                array.add(existing);
-                array.add(segmentNode);
-                transaction.set(segmentId, array);
-            }
-        } else {
+    void addSegmentToTransaction(ObjectNode transaction, String segmentId, ObjectNode segmentNode) {
+        JsonNode existing = transaction.get(segmentId);
+        if (existing == null) {
             transaction.set(segmentId, segmentNode);
+        } else if (existing.isArray()) {
+            ((ArrayNode) existing).add(segmentNode);
+        } else {
+            ArrayNode array = mapper.createArrayNode();
+            array.add(existing);
+            array.add(segmentNode);
+            transaction.set(segmentId, array);
         }
     }
 
-    /**
-     * EDI delimiters holder.
-     */
-    private record EdiDelimiters(String elementSeparator, String segmentTerminator) {
-        public String getElementSeparator() { return elementSeparator; }
-        public String getSegmentTerminator() { return segmentTerminator; }
+    static String positionKey(int position) {
+        return position < POSITION_KEYS.length ? POSITION_KEYS[position] : Integer.toString(position);
     }
 }
@@ -0,0 +1,188 @@
+package com.example.edicleanarch.common.parser;
+
+/**
+ * Single-pass X12 tokenizer.
+ *
+ * Walks the interchange once using the element/segment/component separators
+ * declared in the ISA segment. CR/LF are skipped in place, so no normalized
+ * copy of the content is made and no regex is involved.
+ *
+ * Usage (pull):
+ * <pre>
+ * X12Tokenizer tokenizer = new X12Tokenizer(content);
+ * while (tokenizer.next()) {
+ *     String id = tokenizer.segmentId();
+ *     String b403 = tokenizer.element(3);
+ * }
+ * </pre>
+ *
+ * Usage (push): {@link #tokenize(X12SegmentVisitor)}.
+ *
+ * The tokenizer is the current-segment view: element values are only valid
+ * until the next call to {@link #next()}. Not thread-safe.
+ */
+public final class X12Tokenizer {
+
+    private static final int ISA_ELEMENT_SEPARATOR_POS = 3;
+    private static final int ISA_COMPONENT_SEPARATOR_POS = 104;
+    private static final int ISA_SEGMENT_TERMINATOR_POS = 105;
+    private static final char DEFAULT_SEGMENT_TERMINATOR = '~';
+
+    private final CharSequence content;
+    private final int end;
+    private final char elementSeparator;
+    private final char segmentTerminator;
+    private final char componentSeparator;
+
+    private int position;
+    private String[] elements = new String[32];
+    private int elementCount;
+    private final StringBuilder buffer = new StringBuilder(64);
+
+    public X12Tokenizer(CharSequence content) {
+        this(content, 0, content.length());
+    }
+
+    /**
+     * Tokenize a window of the content. Separators are always read from the
+     * ISA segment at the start of {@code content}.
+     */
+    public X12Tokenizer(CharSequence content, int start, int end) {
+        if (content.length() <= ISA_ELEMENT_SEPARATOR_POS) {
+            throw new IllegalArgumentException("Content is too short to contain an ISA segment");
+        }
+        this.content = content;
+        this.position = start;
+        this.end = end;
+        this.elementSeparator = content.charAt(ISA_ELEMENT_SEPARATOR_POS);
+        this.segmentTerminator = content.length() > ISA_SEGMENT_TERMINATOR_POS
+                ? content.charAt(ISA_SEGMENT_TERMINATOR_POS) : DEFAULT_SEGMENT_TERMINATOR;
+        this.componentSeparator = content.length() > ISA_COMPONENT_SEPARATOR_POS
+                ? content.charAt(ISA_COMPONENT_SEPARATOR_POS) : 0;
+    }
+
+    public char elementSeparator() {
+        return elementSeparator;
+    }
+
+    public char segmentTerminator() {
+        return segmentTerminator;
+    }
+
+    public char componentSeparator() {
+        return componentSeparator;
+    }
+
+    /**
+     * Offset just past the last consumed segment terminator.
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Advance to the next non-blank segment.
+     *
+     * @return false when the content is exhausted
+     */
+    public boolean next() {
+        while (position < end) {
+            readSegment();
+            if (elementCount > 1 || !elements[0].isEmpty()) {
+                return true;
+            }
+        }
+        elementCount = 0;
+        return false;
+    }
+
+    /**
+     * Current segment id (e.g. "ISA", "B4", "R4").
+     */
+    public String segmentId() {
+        return elements[0];
+    }
+
+    /**
+     * Number of data elements after the segment id.
+     */
+    public int elementCount() {
+        return elementCount - 1;
+    }
+
+    /**
+     * Element value by 1-based position (trimmed), or null if absent.
+     */
+    public String element(int position) {
+        return position > 0 && position < elementCount ? elements[position] : null;
+    }
+
+    /**
+     * Push all remaining segments to the visitor.
+     */
+    public void tokenize(X12SegmentVisitor visitor) {
+        while (next()) {
+            visitor.visitSegment(this);
+        }
+    }
+
+    /**
+     * Read one segment starting at the current position. CR/LF are skipped
+     * unless one of them is the declared segment terminator.
+     */
+    private void readSegment() {
+        elementCount = 0;
+        int elementStart = position;
+        boolean sawLineBreak = false;
+
+        int i = position;
+        for (; i < end; i++) {
+            char c = content.charAt(i);
+            if (c == segmentTerminator) {
+                break;
+            }
+            if (c == elementSeparator) {
+                addElement(elementStart, i, sawLineBreak);
+                elementStart = i + 1;
+                sawLineBreak = false;
+            } else if (c == '\r' || c == '\n') {
+                sawLineBreak = true;
+            }
+        }
+        addElement(elementStart, i, sawLineBreak);
+        position = i + 1;
+    }
+
+    private void addElement(int start, int stop, boolean sawLineBreak) {
+        if (elementCount == elements.length) {
+            String[] grown = new String[elements.length * 2];
+            System.arraycopy(elements, 0, grown, 0, elementCount);
+            elements = grown;
+        }
+        elements[elementCount++] = sawLineBreak ? sliceSkippingLineBreaks(start, stop) : slice(start, stop);
+    }
+
+    /**
+     * Trimmed slice of the content (same semantics as String.trim()).
+     */
+    private String slice(int start, int stop) {
+        while (start < stop && content.charAt(start) <= ' ') start++;
+        while (stop > start && content.charAt(stop - 1) <= ' ') stop--;
+        return start == stop ? "" : content.subSequence(start, stop).toString();
+    }
+
+    private String sliceSkippingLineBreaks(int start, int stop) {
+        buffer.setLength(0);
+        for (int i = start; i < stop; i++) {
+            char c = content.charAt(i);
+            if (c != '\r' && c != '\n') {
+                buffer.append(c);
+            }
+        }
+        int from = 0;
+        int to = buffer.length();
+        while (from < to && buffer.charAt(from) <= ' ') from++;
+        while (to > from && buffer.charAt(to - 1) <= ' ') to--;
+        return from == to ? "" : buffer.substring(from, to);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.edicleanarch.common.port.in;
+
+import com.example.edicleanarch.common.model.ProcessingResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results and names shared by the {@link ProcessEdiBatchUseCase} implementations.
+ */
+public final class BatchResults {
+
+    private BatchResults() {
+    }
+
+    /**
+     * Results of a batch that was not committed: the failure of the file at failedIndex,
+     * a rollback error for every other file.
+     */
+    public static List<ProcessingResult> rolledBack(String messageType,
+                                                    List<? extends ProcessEdiFileCommand> commands,
+                                                    int failedIndex, ProcessingResult failure) {
+        return rolledBack(messageType, commands, failedIndex, failure,
+                "Batch rolled back: " + failure.getFileName() + " failed", failure.getDurationMs());
+    }
+
+    /**
+     * Results of a batch that was not committed: the failure of the file at failedIndex,
+     * the error message for every other file (all files if failedIndex is -1).
+     */
+    public static List<ProcessingResult> rolledBack(String messageType,
+                                                    List<? extends ProcessEdiFileCommand> commands,
+                                                    int failedIndex, ProcessingResult failure,
+                                                    String errorMessage, long durationMs) {
+        List<ProcessingResult> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            ProcessEdiFileCommand command = commands.get(i);
+            results.add(i == failedIndex ? failure : ProcessingResult.error(
+                    messageType, command.fileName(), command.partnerId(), errorMessage, durationMs));
+        }
+        return results;
+    }
+
+    /**
+     * Answer each file that repeats an earlier payload of the batch with that file's result.
+     *
+     * @param repeatOf Per file, the index of the first file with the same payload, or -1
+     */
+    public static void answerRepeats(ProcessingResult[] results, int[] repeatOf) {
+        for (int i = 0; i < results.length; i++) {
+            if (repeatOf[i] >= 0) results[i] = results[repeatOf[i]];
+        }
+    }
+
+    /**
+     * Name of a batch in logs and the writer: its first file name and how many files follow.
+     */
+    public static String batchName(List<? extends ProcessEdiFileCommand> commands) {
+        if (commands.isEmpty()) return "batch";
+        String first = commands.get(0).fileName();
+        return commands.size() == 1 ? first : first + " +" + (commands.size() - 1);
+    }
+}
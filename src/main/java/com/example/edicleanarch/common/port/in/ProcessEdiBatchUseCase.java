@@ -0,0 +1,25 @@
+package com.example.edicleanarch.common.port.in;
+
+import com.example.edicleanarch.common.model.ProcessingResult;
+
+import java.util.List;
+
+/**
+ * Common Input Port: Process a Batch of EDI Files
+ * Processes several files of one type with one combined write, e.g. a Kafka poll
+ * of small single-record messages.
+ *
+ * @param <C> The command type
+ */
+public interface ProcessEdiBatchUseCase<C extends ProcessEdiFileCommand> extends ProcessEdiFileUseCase<C> {
+
+    /**
+     * Process the files together. All or nothing: either every result is SUCCESS and the
+     * records of all files were committed, or nothing of the batch was committed and at least
+     * one result reports the failure (the others report the rollback).
+     *
+     * @param commands The processing commands
+     * @return One result per command, in command order
+     */
+    List<ProcessingResult> processFiles(List<C> commands);
+}
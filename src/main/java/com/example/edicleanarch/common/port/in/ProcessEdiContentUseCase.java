@@ -0,0 +1,22 @@
+package com.example.edicleanarch.common.port.in;
+
+import com.example.edicleanarch.common.model.ProcessingResult;
+
+/**
+ * Common Input Port: Process EDI Content already in memory
+ * The content is read in place (e.g. a memory-mapped file) and never copied into a String;
+ * large content is split at record boundaries and mapped in parallel.
+ */
+public interface ProcessEdiContentUseCase {
+
+    /**
+     * Process the content of one file.
+     *
+     * @param content     Raw file content
+     * @param contentHash SHA-256 of the raw bytes, lower-case hex (processed-file ledger)
+     * @param partnerId   Partner/sender identifier
+     * @param fileName    File name for tracking
+     * @return Processing result
+     */
+    ProcessingResult processContent(CharSequence content, String contentHash, String partnerId, String fileName);
+}
@@ -0,0 +1,37 @@
+package com.example.edicleanarch.common.port.in;
+
+import com.example.edicleanarch.common.model.ProcessingResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Common Input Port: Process an EDI File from a Stream
+ * Reads, maps and saves the file in batches without holding its content in memory,
+ * for files too large to pass around as a String.
+ */
+public interface ProcessEdiStreamUseCase {
+
+    /**
+     * Process the file read from the stream. The stream is read to the end and closed.
+     *
+     * @param content   Raw file content
+     * @param partnerId Partner/sender identifier
+     * @param fileName  File name for tracking
+     * @return Processing result
+     */
+    ProcessingResult processStream(InputStream content, String partnerId, String fileName);
+
+    /**
+     * Process a file on disk.
+     */
+    default ProcessingResult processPath(Path file, String partnerId) {
+        try (InputStream content = Files.newInputStream(file)) {
+            return processStream(content, partnerId, file.getFileName().toString());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + file, e);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.edicleanarch.common.port.out;
+
+import java.util.function.Supplier;
+
+/**
+ * Common Output Port: Database Permits
+ * Bounds concurrent database work (lookups, ledger, writer transactions) so callers
+ * wait for a permit instead of queueing inside the connection pool.
+ */
+public interface DatabasePermitPort {
+
+    /**
+     * Run one unit of database work (e.g. a query) under a permit.
+     *
+     * @param work Database work
+     * @return Result of the work
+     */
+    <T> T call(Supplier<T> work);
+
+    /**
+     * Take a writer transaction permit until the returned handle is closed.
+     *
+     * @return Held permit
+     * @throws RuntimeException if no permit becomes free in time
+     */
+    Permit acquire();
+
+    /**
+     * Number of writer transactions that may be open at the same time. Callers that run files
+     * concurrently (each opening a transaction) should not run more than this.
+     */
+    int transactionPermits();
+
+    /**
+     * Held permit; closing releases it.
+     */
+    @FunctionalInterface
+    interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.edicleanarch.common.port.out;
+
+import com.example.edicleanarch.common.model.FileFingerprint;
+import com.example.edicleanarch.common.model.ProcessingResult;
+
+import java.util.Optional;
+
+/**
+ * Common Output Port: Processed-File Ledger
+ * Remembers files whose records were committed, so redelivered payloads
+ * (e.g. after a Kafka rebalance) are answered without parsing or writing them again.
+ */
+public interface FileLedgerPort {
+
+    /**
+     * Result of an earlier successful run of the same payload.
+     *
+     * @param fingerprint Message type, content hash and control number
+     * @return The recorded result, or empty if the payload was not processed yet
+     */
+    Optional<ProcessingResult> findProcessed(FileFingerprint fingerprint);
+
+    /**
+     * Whether a file with this control number was committed, whatever its content. Lets a
+     * streamed file be checked as soon as its header is read, before its records are written.
+     *
+     * @param messageType   "315", "RAILINC_CLM", ...
+     * @param controlNumber Interchange control number
+     * @return true if the ledger has an entry for the control number
+     */
+    boolean hasControlNumber(String messageType, String controlNumber);
+
+    /**
+     * Record a processed file. Called in the transaction that writes its records
+     * ({@link RecordWriter#finish(java.util.function.Consumer)}), so the entry commits or rolls
+     * back with them. Failures are thrown and roll the records back.
+     *
+     * @param fingerprint Message type, content hash and control number
+     * @param result      Successful processing result
+     */
+    void recordProcessed(FileFingerprint fingerprint, ProcessingResult result);
+}
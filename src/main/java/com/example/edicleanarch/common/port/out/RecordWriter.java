@@ -0,0 +1,58 @@
+package com.example.edicleanarch.common.port.out;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Common Output Port: Streaming Record Writer
+ * Accepts mapped records of one file as they are produced and writes them in chunks,
+ * for every target table of the mapping.
+ *
+ * Usage:
+ * <pre>
+ * try (RecordWriter writer = saveEventsPort.openWriter(fileName, plan.getConfig().getTargets())) {
+ *     writer.write(mappingResult.getRecordsByTable());   // repeatedly
+ *     counts = writer.finish(insertCounts -> fileLedger.recordProcessed(...));  // or writer.abort()
+ * }
+ * </pre>
+ */
+public interface RecordWriter extends AutoCloseable {
+
+    /**
+     * Queue records for writing. Full chunks are written while the caller continues.
+     *
+     * @param recordsByTable Table name to records, where keys are column names from YAML mapping
+     */
+    void write(Map<String, List<Map<String, Object>>> recordsByTable);
+
+    /**
+     * Write remaining records and commit.
+     *
+     * @return Map of table name to insert count
+     */
+    default Map<String, Integer> finish() {
+        return finish(insertCounts -> { });
+    }
+
+    /**
+     * Write remaining records, run {@code beforeCommit} in the writer's transaction, then commit.
+     * Database work of the callback (e.g. the processed-file ledger row) commits or rolls back
+     * with the records; if the callback throws, nothing is committed.
+     *
+     * @param beforeCommit Receives the insert counts (table name to rows) once every record is written
+     * @return Map of table name to insert count
+     */
+    Map<String, Integer> finish(Consumer<Map<String, Integer>> beforeCommit);
+
+    /**
+     * Discard pending records and roll back what is not committed yet.
+     */
+    void abort();
+
+    /**
+     * Aborts unless {@link #finish()} was called.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,302 @@
+package com.example.edicleanarch.common.transform;
+
+import com.example.edicleanarch.common.mapping.FieldMapping;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FieldMapping compiled once at config load time.
+ *
+ * Holds the resolved TransformFunction, parsed source paths, qualified paths,
+ * ${...} templates and DateTimeFormatters, so mapping a record does no
+ * string parsing or registry lookups.
+ */
+@Slf4j
+@Getter
+public final class CompiledField {
+
+    private static final String DEFAULT_TRANSFORM = "DIRECT";
+    private static final String DEFAULT_DATE_FORMAT = "yyyyMMdd";
+    private static final String DEFAULT_DATETIME_FORMAT = "yyyyMMddHHmm";
+
+    private final FieldMapping field;
+    private final String name;
+    private final String transformName;
+    private final TransformFunction function;
+
+    // Source paths
+    private final SourcePath source;
+    private final QualifiedPath qualifiedSource;
+    private final SourcePath concatWith;
+    private final List<SourcePath> concatFields;
+    private final List<SourcePath> dateTimeParts;   // century, year, month, day, hour (nulls skipped)
+    private final SourcePath minute;
+    private final List<CompiledSource> sources;     // COALESCE
+
+    // LOOKUP templates
+    private final Template lookupKey;
+    private final LookupCondition lookupCondition;
+    private final LookupCondition lookupFallbackCondition;
+    private final LookupGroup lookupGroup;          // non-null if siblings share the lookup row
+
+    // Field condition like "${field} != ''" (null if always mapped)
+    private final Template condition;
+
+    // Type conversion
+    private final FieldType type;
+    private final DateTimeFormatter dateFormatter;
+    private final DateTimeFormatter dateTimeFormatter;
+
+    // Dependencies, before resolving references to earlier fields (see CompiledMappingPlan)
+    private final FieldScope sourceScope;
+    private final Set<String> fieldReferences;      // upper-cased names that may hit earlier fields
+
+    private CompiledField(FieldMapping field, TransformFunctions functions, LookupGroup lookupGroup) {
+        this.field = field;
+        this.name = field.getName();
+
+        String transform = field.getTransform();
+        this.transformName = transform == null || transform.isEmpty() ? DEFAULT_TRANSFORM : transform;
+        this.function = resolveFunction(functions, transformName);
+
+        this.source = SourcePath.of(field.getSource());
+        this.qualifiedSource = "QUALIFIED_SEGMENT".equals(transformName) ? QualifiedPath.of(field.getSource()) : null;
+        this.concatWith = SourcePath.of(field.getConcatWith());
+        this.concatFields = paths(field.getConcatFields());
+
+        Map<String, String> sourceFields = field.getSourceFields();
+        if (sourceFields != null) {
+            List<SourcePath> parts = new ArrayList<>();
+            for (String key : List.of("century", "year", "month", "day", "hour")) {
+                SourcePath part = SourcePath.of(sourceFields.get(key));
+                if (part != null) parts.add(part);
+            }
+            this.dateTimeParts = List.copyOf(parts);
+            this.minute = SourcePath.of(sourceFields.get("minute"));
+        } else {
+            this.dateTimeParts = null;
+            this.minute = null;
+        }
+
+        if (field.getSources() != null) {
+            List<CompiledSource> compiled = new ArrayList<>();
+            for (FieldMapping.SourceConfig sourceConfig : field.getSources()) {
+                compiled.add(CompiledSource.compile(sourceConfig));
+            }
+            this.sources = List.copyOf(compiled);
+        } else {
+            this.sources = null;
+        }
+
+        this.lookupKey = Template.of(field.getLookupKeyExpr());
+        this.lookupCondition = LookupCondition.of(field.getLookupCondition());
+        this.lookupFallbackCondition = LookupCondition.of(field.getLookupFallbackCondition());
+        this.lookupGroup = lookupGroup;
+
+        this.condition = condition(field.getCondition());
+
+        this.type = FieldType.of(field.getType());
+        String format = field.getFormat();
+        this.dateFormatter = formatter(format != null ? format : DEFAULT_DATE_FORMAT);
+        this.dateTimeFormatter = formatter(format != null ? format : DEFAULT_DATETIME_FORMAT);
+
+        Set<String> references = new HashSet<>();
+        this.sourceScope = analyzeScope(references);
+        this.fieldReferences = Set.copyOf(references);
+    }
+
+    /**
+     * Compile a field mapping.
+     *
+     * @param field     Field mapping from YAML
+     * @param functions Transform registry (null leaves the function unresolved)
+     */
+    public static CompiledField compile(FieldMapping field, TransformFunctions functions) {
+        return new CompiledField(field, functions, null);
+    }
+
+    /**
+     * Compile a LOOKUP field that fetches its column together with the other members of the group.
+     */
+    public static CompiledField compile(FieldMapping field, TransformFunctions functions, LookupGroup lookupGroup) {
+        return new CompiledField(field, functions, lookupGroup);
+    }
+
+    /**
+     * Compile a record condition; empty conditions always pass, so they compile to null.
+     */
+    public static Template condition(String condition) {
+        return condition == null || condition.isEmpty() ? null : Template.ofFieldReferences(condition);
+    }
+
+    /**
+     * Scope of the transform's inputs. Unknown transforms are treated as record-scoped.
+     */
+    private FieldScope analyzeScope(Set<String> references) {
+        if (condition != null) return FieldScope.RECORD;
+
+        return switch (transformName) {
+            case "CONSTANT" -> FieldScope.CONSTANT;
+            case "CURRENT_TIMESTAMP", "BOOKNO_FLAG" -> FieldScope.TRANSACTION;
+            case "DIRECT", "TRIM_OR_NULL", "UPPERCASE", "DIVIDE_100", "ID_MAP_FLAG" -> scope(source, references);
+            case "CONCAT" -> scope(source, references)
+                    .max(scope(concatWith, references))
+                    .max(scope(concatFields, references));
+            case "BUILD_DATETIME" -> scope(dateTimeParts, references).max(scope(minute, references));
+            case "LOOKUP" -> scope(lookupKey, references)
+                    .max(scope(lookupCondition, references))
+                    .max(scope(lookupFallbackCondition, references));
+            case "QUALIFIED_SEGMENT" -> scope(qualifiedSource);
+            case "COALESCE" -> {
+                FieldScope scope = FieldScope.CONSTANT;
+                if (sources != null) {
+                    for (CompiledSource compiled : sources) {
+                        scope = scope.max(scope(compiled.getConcatFields(), references));
+                        scope = scope.max(compiled.isQualifiedTransform()
+                                ? scope(compiled.getQualified())
+                                : scope(compiled.getSource(), references));
+                    }
+                }
+                yield scope;
+            }
+            default -> FieldScope.RECORD;
+        };
+    }
+
+    /**
+     * Scope of a source path, following {@link TransformContext#getStringValue(SourcePath)}.
+     *
+     * Segment paths and plain names can fall through to previously mapped fields, so their
+     * names are recorded as references. X12 loop elements only have positional keys
+     * ("01", "02", ...), so only all-digit names read the current record.
+     */
+    private static FieldScope scope(SourcePath path, Set<String> references) {
+        if (path == null || path.isLiteral()) return FieldScope.CONSTANT;
+        if (path.getContextKey() != null || path.getEnvelopePath() != null) return FieldScope.ENVELOPE;
+
+        references.add(path.getRaw().toUpperCase(Locale.ROOT));
+        if (path.getSegmentId() != null) return FieldScope.TRANSACTION;
+        return isPositional(path.getRaw()) ? FieldScope.RECORD : FieldScope.CONSTANT;
+    }
+
+    private static FieldScope scope(List<SourcePath> paths, Set<String> references) {
+        FieldScope scope = FieldScope.CONSTANT;
+        if (paths != null) {
+            for (SourcePath path : paths) {
+                scope = scope.max(scope(path, references));
+            }
+        }
+        return scope;
+    }
+
+    private static FieldScope scope(Template template, Set<String> references) {
+        return template != null ? scope(template.getVariables(), references) : FieldScope.CONSTANT;
+    }
+
+    private static FieldScope scope(LookupCondition condition, Set<String> references) {
+        return condition != null ? scope(condition.getVariables(), references) : FieldScope.CONSTANT;
+    }
+
+    private static FieldScope scope(QualifiedPath path) {
+        if (path == null) return FieldScope.CONSTANT;
+        return path.indexed() ? FieldScope.RECORD : FieldScope.TRANSACTION;
+    }
+
+    private static boolean isPositional(String name) {
+        if (name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static TransformFunction resolveFunction(TransformFunctions functions, String transformName) {
+        if (functions == null) return null;
+
+        TransformFunction function = functions.get(transformName);
+        if (function == null) {
+            log.warn("Unknown transform: {}, using DIRECT", transformName);
+            function = functions.get(DEFAULT_TRANSFORM);
+        }
+        return function;
+    }
+
+    private static List<SourcePath> paths(List<String> raw) {
+        if (raw == null) return null;
+        List<SourcePath> paths = new ArrayList<>(raw.size());
+        for (String path : raw) {
+            paths.add(SourcePath.of(path));
+        }
+        return paths;
+    }
+
+    /**
+     * Invalid patterns yield null, which callers treat like a failed parse.
+     */
+    private static DateTimeFormatter formatter(String pattern) {
+        try {
+            return DateTimeFormatter.ofPattern(pattern);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid date format pattern: {}", pattern);
+            return null;
+        }
+    }
+
+    /**
+     * Target type of the field.
+     */
+    public enum FieldType {
+        NONE, STRING, INTEGER, DECIMAL, DATE, DATETIME, OTHER;
+
+        static FieldType of(String type) {
+            if (type == null) return NONE;
+            return switch (type.toUpperCase()) {
+                case "STRING" -> STRING;
+                case "INTEGER" -> INTEGER;
+                case "DECIMAL" -> DECIMAL;
+                case "DATE" -> DATE;
+                case "DATETIME", "TIMESTAMP" -> DATETIME;
+                default -> OTHER;
+            };
+        }
+    }
+
+    /**
+     * Compiled COALESCE source.
+     */
+    @Getter
+    public static final class CompiledSource {
+        private final List<SourcePath> concatFields;  // non-null for concat-based source
+        private final QualifiedPath qualified;        // QUALIFIED_SEGMENT source (null if path is invalid)
+        private final boolean qualifiedTransform;
+        private final SourcePath source;
+
+        private CompiledSource(List<SourcePath> concatFields, QualifiedPath qualified,
+                               boolean qualifiedTransform, SourcePath source) {
+            this.concatFields = concatFields;
+            this.qualified = qualified;
+            this.qualifiedTransform = qualifiedTransform;
+            this.source = source;
+        }
+
+        static CompiledSource compile(FieldMapping.SourceConfig config) {
+            if (config.getConcatFields() != null && !config.getConcatFields().isEmpty()) {
+                return new CompiledSource(paths(config.getConcatFields()), null, false, null);
+            }
+            boolean qualifiedTransform = config.getSource() != null
+                    && "QUALIFIED_SEGMENT".equals(config.getTransform());
+            return new CompiledSource(null,
+                    qualifiedTransform ? QualifiedPath.of(config.getSource()) : null,
+                    qualifiedTransform,
+                    SourcePath.of(config.getSource()));
+        }
+    }
+}
@@ -1,31 +1,135 @@
 package com.example.edicleanarch.common.transform;
 
+import com.example.edicleanarch.common.port.out.DatabasePermitPort;
+import com.example.edicleanarch.config.EdiProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Database-backed LookupService implementation with caching.
  * Queries the database for lookup values and caches results to avoid repeated queries.
+ *
+ * Small tables listed in edi.lookup.preload are loaded completely at startup into an
+ * immutable {@link LookupTableSnapshot}, which is rebuilt and swapped on a schedule
+ * (edi.lookup.refresh-interval). Lookups against a loaded table never query the database;
+ * conditions must be equality predicates joined by AND, anything else falls back to SQL.
+ *
+ * Mapping lookups arrive as compiled {@link LookupCondition}s: the statement text is fixed
+ * per condition and EDI values are bound as parameters, so SQL Server reuses one plan.
+ *
+ * Other tables are cached per table in a bounded Caffeine cache (edi.lookup.cache, overridable
+ * per table under edi.lookup.tables): found rows and misses expire separately, hot keys are
+ * reloaded in the background, and concurrent misses on one key share a single query.
  */
 @Slf4j
 @Service
 public class DatabaseLookupService implements LookupService {
 
+    private static final List<String> KEY_PARAMETER = List.of("keyValue");
+
+    /**
+     * Cached "no matching row" entry.
+     */
+    private static final Map<String, Object> NO_ROW = Collections.emptyMap();
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EdiProperties.LookupProperties properties;
+    private final DatabasePermitPort databasePermits;
+
+    /**
+     * Preloaded tables; replaced as a whole, never modified.
+     */
+    private volatile LookupTableSnapshot snapshot = LookupTableSnapshot.EMPTY;
 
     /**
-     * Cache structure: tableName -> keyColumn -> keyValue -> columnName -> value
+     * Row caches by table: statement + parameter values -> row (or NO_ROW)
      */
-    private final Map<String, Map<String, Map<String, Map<String, Object>>>> cache = new ConcurrentHashMap<>();
+    private final Map<String, LoadingCache<LookupKey, Map<String, Object>>> caches = new ConcurrentHashMap<>();
 
-    public DatabaseLookupService(NamedParameterJdbcTemplate jdbcTemplate) {
+    public DatabaseLookupService(NamedParameterJdbcTemplate jdbcTemplate, EdiProperties ediProperties,
+                                 DatabasePermitPort databasePermits) {
         this.jdbcTemplate = jdbcTemplate;
+        this.properties = ediProperties.getLookup();
+        this.databasePermits = databasePermits;
+    }
+
+    /**
+     * Load preloaded tables on startup.
+     */
+    @PostConstruct
+    void init() {
+        refreshSnapshot();
+    }
+
+    /**
+     * Reload all preloaded tables and swap the snapshot.
+     * A table that fails to load keeps its previous rows (or is served from SQL if it has none).
+     */
+    @Scheduled(fixedDelayString = "${edi.lookup.refresh-interval:PT15M}",
+            initialDelayString = "${edi.lookup.refresh-interval:PT15M}")
+    public void refreshSnapshot() {
+        List<String> tables = properties.getPreload();
+        if (tables == null || tables.isEmpty()) return;
+
+        LookupTableSnapshot previous = snapshot;
+        Map<String, List<Map<String, Object>>> rowsByTable = new HashMap<>();
+
+        for (String table : tables) {
+            try {
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                        "SELECT * FROM " + table, new MapSqlParameterSource());
+                rowsByTable.put(table, rows);
+                log.info("Preloaded lookup table {}: {} rows", table, rows.size());
+            } catch (Exception e) {
+                List<Map<String, Object>> previousRows = previous.rows(table);
+                log.error("Failed to preload lookup table {}{}: {}", table,
+                        previousRows != null ? " (keeping previous snapshot)" : "", e.getMessage());
+                if (previousRows != null) {
+                    rowsByTable.put(table, previousRows);
+                }
+            }
+        }
+
+        snapshot = LookupTableSnapshot.of(rowsByTable);
+    }
+
+    /**
+     * Log cache counters of every table.
+     */
+    @Scheduled(fixedDelayString = "${edi.lookup.refresh-interval:PT15M}",
+            initialDelayString = "${edi.lookup.refresh-interval:PT15M}")
+    public void logCacheStats() {
+        getCacheStats().forEach((table, stats) -> log.info(
+                "Lookup cache {}: size={}, hits={}, misses={}, hitRate={}, evictions={}, loads={}, loadFailures={}, avgLoadMs={}",
+                table, caches.get(table).estimatedSize(), stats.hitCount(), stats.missCount(),
+                String.format("%.3f", stats.hitRate()), stats.evictionCount(), stats.loadSuccessCount(),
+                stats.loadFailureCount(), String.format("%.2f", stats.averageLoadPenalty() / 1_000_000)));
+    }
+
+    /**
+     * Cache counters by table (hits, misses, evictions, load count and time).
+     */
+    public Map<String, CacheStats> getCacheStats() {
+        Map<String, CacheStats> stats = new TreeMap<>();
+        caches.forEach((table, cache) -> stats.put(table, cache.stats()));
+        return stats;
     }
 
     @Override
@@ -39,78 +143,24 @@ public class DatabaseLookupService implements LookupService {
         // Trim key value to handle padded EDI fields
         keyValue = keyValue.trim();
 
-        // Check cache first
-        Object cachedValue = getCachedValue(tableName, keyColumn, keyValue, targetColumn);
-        if (cachedValue != null) {
-            log.trace("Cache hit: {}.{} where {}={}", tableName, targetColumn, keyColumn, keyValue);
-            return cachedValue;
+        // Preloaded table: answer from the snapshot only
+        LookupTableSnapshot current = snapshot;
+        if (current.contains(tableName)) {
+            Map<String, Object> row = current.find(tableName, List.of(keyColumn), List.of(keyValue));
+            return row != null ? row.get(LookupTableSnapshot.normalize(targetColumn)) : null;
         }
 
-        // Query database
-        try {
-            String sql = String.format("SELECT %s FROM %s WHERE %s = :keyValue",
-                    targetColumn, tableName, keyColumn);
-
-            MapSqlParameterSource params = new MapSqlParameterSource("keyValue", keyValue);
-
-            List<Map<String, Object>> results = jdbcTemplate.queryForList(sql, params);
-
-            if (results.isEmpty()) {
-                log.info("Lookup not found: {}.{} where {}='{}' (no matching row)", tableName, targetColumn, keyColumn, keyValue);
-                // Cache the miss as well to avoid repeated queries
-                cacheValue(tableName, keyColumn, keyValue, targetColumn, NullMarker.INSTANCE);
-                return null;
-            }
-
-            Object value = results.get(0).get(targetColumn);
-            log.info("Lookup found: {}.{} where {}='{}' => {}", tableName, targetColumn, keyColumn, keyValue, value);
-
-            // Cache the result
-            cacheValue(tableName, keyColumn, keyValue, targetColumn, value);
-
-            return value;
-
-        } catch (Exception e) {
-            log.error("Lookup failed: {}.{} where {}={}: {}",
-                    tableName, targetColumn, keyColumn, keyValue, e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * Get cached value if present.
-     */
-    private Object getCachedValue(String tableName, String keyColumn, String keyValue, String targetColumn) {
-        Map<String, Map<String, Map<String, Object>>> tableCache = cache.get(tableName);
-        if (tableCache == null) return null;
-
-        Map<String, Map<String, Object>> keyColumnCache = tableCache.get(keyColumn);
-        if (keyColumnCache == null) return null;
-
-        Map<String, Object> rowCache = keyColumnCache.get(keyValue);
-        if (rowCache == null) return null;
-
-        Object value = rowCache.get(targetColumn);
-        if (value instanceof NullMarker) return null;
-
-        return value;
-    }
-
-    /**
-     * Cache a lookup result.
-     */
-    private void cacheValue(String tableName, String keyColumn, String keyValue, String targetColumn, Object value) {
-        cache.computeIfAbsent(tableName, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(keyColumn, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(keyValue, k -> new ConcurrentHashMap<>())
-                .put(targetColumn, value != null ? value : NullMarker.INSTANCE);
+        Map<String, Object> row = cachedRow(
+                new RowStatement(tableName, keyColumn + " = :keyValue", KEY_PARAMETER, List.of(targetColumn)),
+                List.of(keyValue));
+        return row != null ? row.get(targetColumn) : null;
     }
 
     /**
      * Clear all cached lookup values.
      */
     public void clearCache() {
-        cache.clear();
+        caches.values().forEach(LoadingCache::invalidateAll);
         log.info("Lookup cache cleared");
     }
 
@@ -118,77 +168,164 @@ public class DatabaseLookupService implements LookupService {
      * Clear cached values for a specific table.
      */
     public void clearCache(String tableName) {
-        cache.remove(tableName);
+        LoadingCache<LookupKey, Map<String, Object>> cache = caches.get(LookupTableSnapshot.normalize(tableName));
+        if (cache != null) cache.invalidateAll();
         log.info("Lookup cache cleared for table: {}", tableName);
     }
 
-    /**
-     * Cache for condition-based lookups: tableName -> condition -> columnName -> value
-     */
-    private final Map<String, Map<String, Map<String, Object>>> conditionCache = new ConcurrentHashMap<>();
+    @Override
+    public Object lookupWithCondition(String tableName, LookupCondition condition, List<String> parameters,
+                                      String targetColumn) {
+        if (targetColumn == null) {
+            log.warn("Lookup skipped - null parameter: table={}, condition={}, targetColumn=null",
+                    tableName, condition);
+            return null;
+        }
+        Map<String, Object> row = lookupRow(tableName, condition, parameters, List.of(targetColumn));
+        return row != null ? row.get(targetColumn) : null;
+    }
 
     @Override
-    public Object lookupWithCondition(String tableName, String whereCondition, String targetColumn) {
-        if (tableName == null || whereCondition == null || targetColumn == null) {
-            log.warn("Lookup skipped - null parameter: table={}, condition={}, targetColumn={}",
-                    tableName, whereCondition, targetColumn);
+    public Map<String, Object> lookupRow(String tableName, LookupCondition condition, List<String> parameters,
+                                         List<String> columns) {
+        if (tableName == null || condition == null || parameters == null || columns == null || columns.isEmpty()) {
+            log.warn("Lookup skipped - null parameter: table={}, condition={}, columns={}",
+                    tableName, condition, columns);
             return null;
         }
 
-        // Check condition cache first
-        Object cachedValue = getConditionCachedValue(tableName, whereCondition, targetColumn);
-        if (cachedValue != null) {
-            if (cachedValue instanceof NullMarker) return null;
-            log.trace("Cache hit: {}.{} where {}", tableName, targetColumn, whereCondition);
-            return cachedValue;
+        // Preloaded table: answer from the snapshot if the condition is a simple conjunction
+        LookupTableSnapshot current = snapshot;
+        if (current.contains(tableName)) {
+            if (condition.getEqualities() != null) {
+                return findInSnapshot(current, tableName, condition, parameters, columns);
+            }
+            log.debug("Condition not supported by preloaded {}, querying: {}", tableName, condition);
         }
 
-        // Query database
+        // One statement text per (table, condition, columns); rows are cached by parameter values
+        return cachedRow(new RowStatement(tableName, condition.getSql(), condition.getParameterNames(), columns),
+                parameters);
+    }
+
+    /**
+     * Row from the table's cache, loading it on a miss. Failed loads are not cached.
+     */
+    private Map<String, Object> cachedRow(RowStatement statement, List<String> parameters) {
         try {
-            String sql = String.format("SELECT %s FROM %s WHERE %s",
-                    targetColumn, tableName, whereCondition);
+            Map<String, Object> row = cache(statement.tableName()).get(new LookupKey(statement, parameters));
+            return row == NO_ROW ? null : row;
+        } catch (Exception e) {
+            log.error("Lookup failed: {}{} where {} {}: {}", statement.tableName(), statement.columns(),
+                    statement.condition(), parameters, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Query one row (cache loader).
+     */
+    private Map<String, Object> load(LookupKey key) {
+        RowStatement statement = key.statement();
+        String sql = "SELECT " + String.join(", ", statement.columns()) + " FROM " + statement.tableName()
+                + " WHERE " + statement.condition();
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> names = statement.parameterNames();
+        for (int i = 0; i < names.size(); i++) {
+            params.addValue(names.get(i), key.parameters().get(i));
+        }
 
-            List<Map<String, Object>> results = jdbcTemplate.queryForList(sql, new MapSqlParameterSource());
+        List<Map<String, Object>> results = databasePermits.call(() -> jdbcTemplate.queryForList(sql, params));
 
-            if (results.isEmpty()) {
-                log.info("Lookup not found: {}.{} where {} (no matching row)", tableName, targetColumn, whereCondition);
-                cacheConditionValue(tableName, whereCondition, targetColumn, NullMarker.INSTANCE);
-                return null;
-            }
+        if (results.isEmpty()) {
+            log.info("Lookup not found: {}{} where {} {} (no matching row)", statement.tableName(),
+                    statement.columns(), statement.condition(), key.parameters());
+            return NO_ROW;
+        }
 
-            Object value = results.get(0).get(targetColumn);
-            log.info("Lookup found: {}.{} where {} => {}", tableName, targetColumn, whereCondition, value);
+        // Result maps are case-insensitive; key the cached row by the requested column names
+        Map<String, Object> result = results.get(0);
+        Map<String, Object> row = new HashMap<>();
+        for (String column : statement.columns()) {
+            row.put(column, result.get(column));
+        }
+        log.info("Lookup found: {}{} where {} {} => {}", statement.tableName(), statement.columns(),
+                statement.condition(), key.parameters(), row);
+        return Collections.unmodifiableMap(row);
+    }
 
-            cacheConditionValue(tableName, whereCondition, targetColumn, value);
-            return value;
+    private LoadingCache<LookupKey, Map<String, Object>> cache(String tableName) {
+        return caches.computeIfAbsent(LookupTableSnapshot.normalize(tableName), this::buildCache);
+    }
 
-        } catch (Exception e) {
-            log.error("Lookup failed: {}.{} where {}: {}",
-                    tableName, targetColumn, whereCondition, e.getMessage());
-            return null;
+    private LoadingCache<LookupKey, Map<String, Object>> buildCache(String tableName) {
+        EdiProperties.LookupProperties.CacheProperties spec = properties.cacheFor(tableName);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .recordStats();
+        Caffeine<LookupKey, Map<String, Object>> typed =
+                builder.expireAfter(new HitMissExpiry(spec.getExpireAfterWrite(), spec.getMissExpireAfterWrite()));
+        if (spec.getRefreshAfterWrite() != null && !spec.getRefreshAfterWrite().isZero()) {
+            typed.refreshAfterWrite(spec.getRefreshAfterWrite());
         }
+        return typed.build(this::load);
     }
 
-    private Object getConditionCachedValue(String tableName, String condition, String targetColumn) {
-        Map<String, Map<String, Object>> tableCache = conditionCache.get(tableName);
-        if (tableCache == null) return null;
+    private Map<String, Object> findInSnapshot(LookupTableSnapshot current, String tableName,
+                                               LookupCondition condition, List<String> parameters,
+                                               List<String> columns) {
+        List<String> keyColumns = new ArrayList<>(condition.getEqualities().size());
+        for (LookupCondition.Equality equality : condition.getEqualities()) {
+            keyColumns.add(equality.column());
+        }
+        Map<String, Object> snapshotRow = current.find(tableName, keyColumns, condition.equalityValues(parameters));
+        if (snapshotRow == null) return null;
 
-        Map<String, Object> condCache = tableCache.get(condition);
-        if (condCache == null) return null;
+        Map<String, Object> row = new HashMap<>();
+        for (String column : columns) {
+            row.put(column, snapshotRow.get(LookupTableSnapshot.normalize(column)));
+        }
+        return row;
+    }
 
-        return condCache.get(targetColumn);
+    /**
+     * Parameterized statement identity: the same text is prepared for every key.
+     */
+    private record RowStatement(String tableName, String condition, List<String> parameterNames,
+                                List<String> columns) {
     }
 
-    private void cacheConditionValue(String tableName, String condition, String targetColumn, Object value) {
-        conditionCache.computeIfAbsent(tableName, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(condition, k -> new ConcurrentHashMap<>())
-                .put(targetColumn, value != null ? value : NullMarker.INSTANCE);
+    private record LookupKey(RowStatement statement, List<String> parameters) {
     }
 
     /**
-     * Marker class to distinguish cached null values from cache misses.
+     * Found rows and misses expire after their own TTL; a refresh restarts the TTL.
      */
-    private static class NullMarker {
-        static final NullMarker INSTANCE = new NullMarker();
+    private static final class HitMissExpiry implements Expiry<LookupKey, Map<String, Object>> {
+        private final long hitNanos;
+        private final long missNanos;
+
+        HitMissExpiry(Duration hitTtl, Duration missTtl) {
+            this.hitNanos = hitTtl.toNanos();
+            this.missNanos = missTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(LookupKey key, Map<String, Object> row, long currentTime) {
+            return row == NO_ROW ? missNanos : hitNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(LookupKey key, Map<String, Object> row, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, row, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(LookupKey key, Map<String, Object> row, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
     }
 }
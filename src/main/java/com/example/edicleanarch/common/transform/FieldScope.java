@@ -0,0 +1,22 @@
+package com.example.edicleanarch.common.transform;
+
+/**
+ * What a compiled field's value depends on, from narrowest to widest.
+ *
+ * Fields below RECORD give the same value for every loop element of a
+ * transaction, so the engine evaluates them once per transaction.
+ */
+public enum FieldScope {
+    CONSTANT,     // literals, CONSTANT transform
+    ENVELOPE,     // envelope.* and context.* paths
+    TRANSACTION,  // transaction segments like B4.03, N9[01=BM].02
+    RECORD;       // current loop element, field conditions, [_index] paths
+
+    public FieldScope max(FieldScope other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+
+    public boolean isRecordInvariant() {
+        return this != RECORD;
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.edicleanarch.common.transform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup WHERE template compiled into a parameterized condition.
+ *
+ * "SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${B4.03}' AND DATE_TYPE = 'A'" becomes
+ * "SCAC_CD = :p0 AND PRTNR_EVENT_CD = :p1 AND DATE_TYPE = 'A'" with parameters
+ * [${scac}, ${B4.03}]. A quoted literal containing variables becomes one parameter
+ * (e.g. 'RRDC_${code}_A'); literals without variables stay in the SQL text, so the
+ * statement text is the same for every record and EDI content is never spliced into SQL.
+ *
+ * If the condition is only COL = value predicates joined by AND, the predicates are
+ * also kept as {@link Equality} entries so preloaded tables can answer it in memory.
+ *
+ * Compiled conditions from mapping configs are cached by template string.
+ */
+public final class LookupCondition {
+
+    private static final Map<String, LookupCondition> CACHE = new ConcurrentHashMap<>();
+
+    private final String raw;
+    private final String sql;
+    private final List<String> parameterNames;
+    private final List<Template> parameters;
+    private final List<Equality> equalities;   // null if not a pure conjunction of equalities
+
+    private LookupCondition(String raw, String sql, List<Template> parameters, List<Equality> equalities) {
+        this.raw = raw;
+        this.sql = sql;
+        this.parameters = List.copyOf(parameters);
+        List<String> names = new ArrayList<>(parameters.size());
+        for (int i = 0; i < parameters.size(); i++) {
+            names.add(parameterName(i));
+        }
+        this.parameterNames = List.copyOf(names);
+        this.equalities = equalities != null ? List.copyOf(equalities) : null;
+    }
+
+    /**
+     * Compile a condition template from a mapping config (cached), or null for null/empty.
+     */
+    public static LookupCondition of(String template) {
+        if (template == null || template.isEmpty()) return null;
+        return CACHE.computeIfAbsent(template, t -> new Parser(t).parse());
+    }
+
+    static String parameterName(int index) {
+        return "p" + index;
+    }
+
+    public String getRaw() {
+        return raw;
+    }
+
+    /**
+     * WHERE clause with :p0, :p1 ... placeholders.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    public List<Equality> getEqualities() {
+        return equalities;
+    }
+
+    /**
+     * Parameter values for the current record, in placeholder order.
+     */
+    public List<String> resolve(TransformContext ctx) {
+        if (parameters.isEmpty()) return List.of();
+
+        String[] values = new String[parameters.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parameters.get(i).render(ctx);
+        }
+        return List.of(values);
+    }
+
+    /**
+     * Variables referenced by the parameters.
+     */
+    public List<SourcePath> getVariables() {
+        List<SourcePath> variables = new ArrayList<>();
+        for (Template parameter : parameters) {
+            variables.addAll(parameter.getVariables());
+        }
+        return variables;
+    }
+
+    /**
+     * Equality values for the given parameter values, parallel to {@link #getEqualities()}.
+     */
+    public List<String> equalityValues(List<String> parameterValues) {
+        List<String> values = new ArrayList<>(equalities.size());
+        for (Equality equality : equalities) {
+            values.add(equality.constant() != null ? equality.constant() : parameterValues.get(equality.parameter()));
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+
+    /**
+     * COL = value predicate; the value is a constant or the parameter at the given index.
+     */
+    public record Equality(String column, String constant, int parameter) {
+    }
+
+    /**
+     * Single pass over the template: rewrites variables into placeholders and
+     * recognizes the COL = value [AND ...] form.
+     */
+    private static final class Parser {
+        private final String template;
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Template> parameters = new ArrayList<>();
+        private boolean malformed;
+        private int pos;
+
+        Parser(String template) {
+            this.template = template;
+        }
+
+        LookupCondition parse() {
+            List<Equality> equalities = new ArrayList<>();
+            boolean simple = true;
+            // Tokens seen since the last AND: column, '=', value
+            String column = null;
+            boolean equals = false;
+            Equality pending = null;
+
+            while (pos < template.length()) {
+                char c = template.charAt(pos);
+
+                if (c == '\'') {
+                    Equality value = literal(column, equals);
+                    if (pending != null || value == null) simple = false;
+                    pending = value;
+                } else if (c == '$' && template.startsWith("${", pos) && template.indexOf('}', pos) > 0) {
+                    int end = template.indexOf('}', pos);
+                    int index = addParameter(template.substring(pos, end + 1));
+                    pos = end + 1;
+                    if (pending != null || column == null || !equals) simple = false;
+                    pending = column != null && equals ? new Equality(column, null, index) : null;
+                } else if (Character.isWhitespace(c)) {
+                    sql.append(c);
+                    pos++;
+                } else if (c == '=') {
+                    if (column == null || equals) simple = false;
+                    equals = true;
+                    sql.append(c);
+                    pos++;
+                } else if (Character.isLetterOrDigit(c) || c == '_') {
+                    int start = pos;
+                    while (pos < template.length()
+                            && (Character.isLetterOrDigit(template.charAt(pos)) || template.charAt(pos) == '_')) {
+                        pos++;
+                    }
+                    String word = template.substring(start, pos);
+                    sql.append(word);
+
+                    if (word.equalsIgnoreCase("AND") && pending != null) {
+                        equalities.add(pending);
+                        column = null;
+                        equals = false;
+                        pending = null;
+                    } else if (column == null && !equals) {
+                        column = word;
+                    } else {
+                        simple = false;
+                    }
+                } else {
+                    simple = false;
+                    sql.append(c);
+                    pos++;
+                }
+            }
+
+            if (pending != null) {
+                equalities.add(pending);
+            } else {
+                simple = false;
+            }
+
+            return new LookupCondition(template, sql.toString(), parameters,
+                    simple && !malformed ? equalities : null);
+        }
+
+        /**
+         * Quoted literal at pos: kept as SQL text, or a parameter if it contains variables.
+         * Returns the equality it completes, or null if it does not complete COL =.
+         */
+        private Equality literal(String column, boolean equals) {
+            int start = pos;
+            StringBuilder content = new StringBuilder();
+            boolean closed = false;
+            pos++;
+            while (pos < template.length() && !closed) {
+                char c = template.charAt(pos++);
+                if (c == '\'') {
+                    if (pos < template.length() && template.charAt(pos) == '\'') {
+                        content.append('\'');
+                        pos++;
+                    } else {
+                        closed = true;
+                    }
+                } else {
+                    content.append(c);
+                }
+            }
+            String value = content.toString();
+
+            if (!closed) {
+                // Unterminated literal: keep the text as is, let the database report it
+                malformed = true;
+                sql.append(template, start, pos);
+                return null;
+            }
+            if (value.contains("${")) {
+                int index = addParameter(value);
+                return column != null && equals ? new Equality(column, null, index) : null;
+            }
+            sql.append(template, start, pos);
+            return column != null && equals ? new Equality(column, value, -1) : null;
+        }
+
+        private int addParameter(String expression) {
+            int index = parameters.size();
+            parameters.add(Template.of(expression));
+            sql.append(':').append(parameterName(index));
+            return index;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.edicleanarch.common.transform;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * LOOKUP fields of one target that share table, condition and fallback condition,
+ * e.g. EM2_EVENT_ID, OEC_EVENT_CD and EVENT_DESC from OEVENTCODE in the 315 mapping.
+ *
+ * The first field of the group fetches all columns in one query; its siblings read
+ * their column from the same row (see {@link TransformContext#getLookupRow}).
+ * Built by CompiledMappingPlan, immutable.
+ */
+@Getter
+public final class LookupGroup {
+
+    private final String tableName;
+    private final LookupCondition condition;
+    private final LookupCondition fallbackCondition;   // null if none
+    private final List<String> columns;                // lookupColumn of every member, in field order
+
+    public LookupGroup(String tableName, LookupCondition condition, LookupCondition fallbackCondition,
+                       List<String> columns) {
+        this.tableName = tableName;
+        this.condition = condition;
+        this.fallbackCondition = fallbackCondition;
+        this.columns = List.copyOf(columns);
+    }
+
+    @Override
+    public String toString() {
+        return tableName + columns + " where " + condition;
+    }
+}
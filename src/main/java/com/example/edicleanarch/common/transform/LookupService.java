@@ -1,5 +1,8 @@
 package com.example.edicleanarch.common.transform;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for database lookups during transformation.
@@ -18,12 +21,34 @@ public interface LookupService {
     Object lookup(String tableName, String keyColumn, String keyValue, String targetColumn);
 
     /**
-     * Lookup a value from a table using a WHERE condition.
+     * Lookup a value from a table using a compiled, parameterized WHERE condition.
+     * Implementations bind the parameter values; they are never spliced into the SQL text.
      *
-     * @param tableName      The lookup table name
-     * @param whereCondition The WHERE clause condition (already resolved, no placeholders)
-     * @param targetColumn   The column to return
+     * @param tableName    The lookup table name
+     * @param condition    The compiled condition (placeholders :p0, :p1 ...)
+     * @param parameters   Parameter values in placeholder order
+     * @param targetColumn The column to return
      * @return The looked up value or null
      */
-    Object lookupWithCondition(String tableName, String whereCondition, String targetColumn);
+    Object lookupWithCondition(String tableName, LookupCondition condition, List<String> parameters,
+                               String targetColumn);
+
+    /**
+     * Lookup several columns of the same row with a compiled WHERE condition.
+     * The default looks up each column separately.
+     *
+     * @param tableName  The lookup table name
+     * @param condition  The compiled condition (placeholders :p0, :p1 ...)
+     * @param parameters Parameter values in placeholder order
+     * @param columns    The columns to return
+     * @return column -> value (values may be null), or null if no row matches
+     */
+    default Map<String, Object> lookupRow(String tableName, LookupCondition condition, List<String> parameters,
+                                          List<String> columns) {
+        Map<String, Object> row = new HashMap<>();
+        for (String column : columns) {
+            row.put(column, lookupWithCondition(tableName, condition, parameters, column));
+        }
+        return row;
+    }
 }
\ No newline at end of file
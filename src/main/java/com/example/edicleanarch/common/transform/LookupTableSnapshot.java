@@ -0,0 +1,117 @@
+package com.example.edicleanarch.common.transform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fully loaded lookup tables, replaced as a whole on refresh.
+ *
+ * Rows are immutable with upper-cased column names. Key values are compared the way
+ * the database compares them (SQL Server, case-insensitive collation): trailing blanks
+ * are ignored, as for padded CHAR columns, and case is not significant; leading blanks
+ * are. Indexes per key column set are built on first use and belong to this snapshot only.
+ */
+final class LookupTableSnapshot {
+
+    static final LookupTableSnapshot EMPTY = new LookupTableSnapshot(Map.of());
+
+    private final Map<String, Table> tables;
+
+    private LookupTableSnapshot(Map<String, Table> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Snapshot with the given tables; rows are copied.
+     *
+     * @param rowsByTable table name -> rows as returned by JDBC
+     */
+    static LookupTableSnapshot of(Map<String, List<Map<String, Object>>> rowsByTable) {
+        Map<String, Table> tables = new HashMap<>();
+        rowsByTable.forEach((table, rows) -> tables.put(normalize(table), new Table(rows)));
+        return new LookupTableSnapshot(Collections.unmodifiableMap(tables));
+    }
+
+    /**
+     * Rows of a loaded table (upper-cased columns), or null if not loaded.
+     */
+    List<Map<String, Object>> rows(String tableName) {
+        Table table = tables.get(normalize(tableName));
+        return table != null ? table.rows : null;
+    }
+
+    boolean contains(String tableName) {
+        return tables.containsKey(normalize(tableName));
+    }
+
+    int size() {
+        return tables.size();
+    }
+
+    /**
+     * First row whose key columns equal the given values, or null.
+     * The table must be loaded (see {@link #contains(String)}).
+     */
+    Map<String, Object> find(String tableName, List<String> keyColumns, List<String> keyValues) {
+        List<String> columns = new ArrayList<>(keyColumns.size());
+        List<String> values = new ArrayList<>(keyValues.size());
+        for (int i = 0; i < keyColumns.size(); i++) {
+            columns.add(normalize(keyColumns.get(i)));
+            values.add(normalizeKey(keyValues.get(i)));
+        }
+        return tables.get(normalize(tableName)).index(columns).get(values);
+    }
+
+    static String normalize(String name) {
+        return name.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Key value as the database compares it: without trailing blanks, case-insensitive.
+     */
+    static String normalizeKey(String value) {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == ' ') end--;
+        return value.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Table {
+        private final List<Map<String, Object>> rows;
+        private final Map<List<String>, Map<List<String>, Map<String, Object>>> indexes = new ConcurrentHashMap<>();
+
+        Table(List<Map<String, Object>> source) {
+            List<Map<String, Object>> rows = new ArrayList<>(source.size());
+            for (Map<String, Object> row : source) {
+                Map<String, Object> copy = new HashMap<>();
+                row.forEach((column, value) -> copy.put(normalize(column), value));
+                rows.add(Collections.unmodifiableMap(copy));
+            }
+            this.rows = Collections.unmodifiableList(rows);
+        }
+
+        Map<List<String>, Map<String, Object>> index(List<String> columns) {
+            return indexes.computeIfAbsent(columns, this::buildIndex);
+        }
+
+        private Map<List<String>, Map<String, Object>> buildIndex(List<String> columns) {
+            Map<List<String>, Map<String, Object>> index = new HashMap<>();
+            for (Map<String, Object> row : rows) {
+                List<String> key = new ArrayList<>(columns.size());
+                for (String column : columns) {
+                    Object value = row.get(column);
+                    if (value == null) break;   // NULL never equals a value in SQL
+                    key.add(normalizeKey(value.toString()));
+                }
+                if (key.size() == columns.size()) {
+                    index.putIfAbsent(key, row);
+                }
+            }
+            return index;
+        }
+    }
+}
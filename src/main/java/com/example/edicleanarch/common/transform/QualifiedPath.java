@@ -0,0 +1,103 @@
+package com.example.edicleanarch.common.transform;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed qualified segment path like N9[01=BM].02 or R4[_index].03.
+ * Parsed paths are cached by path string and shared across threads.
+ *
+ * @param segmentId         Segment to search (e.g. "N9")
+ * @param qualifierPosition Element holding the qualifier (e.g. "01"), null for _index
+ * @param qualifierValue    Qualifier to match (e.g. "BM"), null for _index
+ * @param elementId         Element to return (e.g. "02")
+ * @param indexed           true for [_index] - pick the segment at the current loop index
+ */
+public record QualifiedPath(
+        String segmentId,
+        String qualifierPosition,
+        String qualifierValue,
+        String elementId,
+        boolean indexed
+) {
+
+    private static final Pattern PATTERN = Pattern.compile("(\\w+)\\[([^\\]]+)\\]\\.(\\d+)");
+    private static final QualifiedPath INVALID = new QualifiedPath(null, null, null, null, false);
+    private static final Map<String, QualifiedPath> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Parse a qualified path (cached), or null if it is not of the form SEG[qualifier].NN.
+     */
+    public static QualifiedPath of(String path) {
+        if (path == null) return null;
+
+        QualifiedPath parsed = CACHE.computeIfAbsent(path, QualifiedPath::parse);
+        return parsed != INVALID ? parsed : null;
+    }
+
+    private static QualifiedPath parse(String path) {
+        Matcher matcher = PATTERN.matcher(path);
+        if (!matcher.matches()) return INVALID;
+
+        String segmentId = matcher.group(1);
+        String qualifier = matcher.group(2);
+        String elementId = matcher.group(3);
+
+        if (qualifier.equals("_index")) {
+            return new QualifiedPath(segmentId, null, null, elementId, true);
+        }
+
+        String[] parts = qualifier.split("=");
+        if (parts.length != 2) return INVALID;
+
+        return new QualifiedPath(segmentId, parts[0], parts[1], elementId, false);
+    }
+
+    /**
+     * Extract the element value from the transaction.
+     */
+    public String extract(JsonNode transaction, int loopIndex) {
+        if (transaction == null) return null;
+
+        JsonNode segments = transaction.get(segmentId);
+        if (segments == null) return null;
+
+        // Handle _index for loop correlation
+        if (indexed) {
+            if (segments.isArray() && loopIndex >= 0 && loopIndex < segments.size()) {
+                return text(segments.get(loopIndex));
+            }
+            return null;
+        }
+
+        if (segments.isArray()) {
+            for (JsonNode segment : segments) {
+                if (matches(segment)) {
+                    return text(segment);
+                }
+            }
+            return null;
+        }
+        return matches(segments) ? text(segments) : null;
+    }
+
+    /**
+     * True if the segment carries this path's qualifier.
+     */
+    public boolean matches(JsonNode segment) {
+        JsonNode qualNode = segment.get(qualifierPosition);
+        return qualNode != null && qualifierValue.equals(qualNode.asText());
+    }
+
+    /**
+     * Element value of a matching segment.
+     */
+    public String text(JsonNode segment) {
+        JsonNode posNode = segment.get(elementId);
+        return posNode != null ? posNode.asText() : null;
+    }
+}
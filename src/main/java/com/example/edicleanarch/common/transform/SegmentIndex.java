@@ -0,0 +1,75 @@
+package com.example.edicleanarch.common.transform;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-transaction index of qualified segments, e.g. N9 by qualifier 01.
+ *
+ * The first lookup of a (segment id, qualifier position) pair scans that
+ * segment once and records the first segment for every qualifier value.
+ * All later QUALIFIED_SEGMENT, COALESCE and BOOKNO_FLAG lookups for the
+ * transaction are a map hit, regardless of how many loop records are mapped.
+ *
+ * Created per transaction by the mapping engine. Not thread-safe.
+ */
+public final class SegmentIndex {
+
+    private final JsonNode transaction;
+    // segment id -> qualifier position -> qualifier value -> first matching segment
+    private final Map<String, Map<String, Map<String, JsonNode>>> index = new HashMap<>();
+
+    public SegmentIndex(JsonNode transaction) {
+        this.transaction = transaction;
+    }
+
+    public JsonNode getTransaction() {
+        return transaction;
+    }
+
+    /**
+     * Element value for a qualifier path like N9[01=BM].02, same result as
+     * {@link QualifiedPath#extract(JsonNode, int)} on the indexed transaction.
+     */
+    public String extract(QualifiedPath path) {
+        JsonNode segment = find(path.segmentId(), path.qualifierPosition(), path.qualifierValue());
+        return segment != null ? path.text(segment) : null;
+    }
+
+    /**
+     * First segment whose qualifier element matches, or null.
+     */
+    public JsonNode find(String segmentId, String qualifierPosition, String qualifierValue) {
+        Map<String, Map<String, JsonNode>> byPosition = index.computeIfAbsent(segmentId, k -> new HashMap<>());
+        Map<String, JsonNode> byValue = byPosition.get(qualifierPosition);
+        if (byValue == null) {
+            byValue = build(segmentId, qualifierPosition);
+            byPosition.put(qualifierPosition, byValue);
+        }
+        return byValue.get(qualifierValue);
+    }
+
+    private Map<String, JsonNode> build(String segmentId, String qualifierPosition) {
+        JsonNode segments = transaction != null ? transaction.get(segmentId) : null;
+        if (segments == null) return Map.of();
+
+        Map<String, JsonNode> byValue = new HashMap<>();
+        if (segments.isArray()) {
+            for (JsonNode segment : segments) {
+                addSegment(byValue, segment, qualifierPosition);
+            }
+        } else {
+            addSegment(byValue, segments, qualifierPosition);
+        }
+        return byValue;
+    }
+
+    private void addSegment(Map<String, JsonNode> byValue, JsonNode segment, String qualifierPosition) {
+        JsonNode qualNode = segment.get(qualifierPosition);
+        if (qualNode != null) {
+            byValue.putIfAbsent(qualNode.asText(), segment);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.edicleanarch.common.transform;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-parsed source path (e.g. "B4.03", "envelope.ISA.06", "context.fileName", "'A'", "03").
+ *
+ * All prefixes and splits are worked out once, so resolving the path per record
+ * ({@link TransformContext#getStringValue(SourcePath)}) does no string parsing.
+ * The resolution order is the same as {@link TransformContext#getStringValue(String)}.
+ * Parsed paths are cached by path string and shared across threads.
+ */
+@Getter
+public final class SourcePath {
+
+    private static final Map<String, SourcePath> CACHE = new ConcurrentHashMap<>();
+
+    private final String raw;
+
+    private final String literal;       // 'literal' without quotes
+    private final String contextKey;    // context.<key>
+    private final String headerField;   // header.<field>
+    private final String[] envelopePath; // envelope.<seg>.<el>...
+    private final String segmentId;     // <seg>.<el> (first dot split)
+    private final String elementId;
+
+    private SourcePath(String raw) {
+        this.raw = raw;
+
+        this.literal = raw.length() >= 2 && raw.startsWith("'") && raw.endsWith("'")
+                ? raw.substring(1, raw.length() - 1) : null;
+        this.contextKey = raw.startsWith("context.") ? raw.substring(8) : null;
+        this.headerField = raw.startsWith("header.") ? raw.substring(7) : null;
+        this.envelopePath = raw.startsWith("envelope.") ? raw.substring(9).split("\\.") : null;
+
+        int dot = raw.indexOf('.');
+        this.segmentId = dot >= 0 ? raw.substring(0, dot) : null;
+        this.elementId = dot >= 0 ? raw.substring(dot + 1) : null;
+    }
+
+    /**
+     * Parse a source path (cached), or null for a null path.
+     */
+    public static SourcePath of(String raw) {
+        return raw != null ? CACHE.computeIfAbsent(raw, SourcePath::new) : null;
+    }
+
+    public boolean isLiteral() {
+        return literal != null;
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+}
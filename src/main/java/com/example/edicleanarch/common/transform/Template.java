@@ -0,0 +1,118 @@
+package com.example.edicleanarch.common.transform;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parsed ${...} expression such as "RRDC_${eventTypeCode}_A" or
+ * "SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${B4.03}'".
+ *
+ * Literal parts and variable paths are split once; rendering only appends.
+ * Unresolved variables render as "".
+ *
+ * Parsed templates are cached by expression string and shared across threads.
+ * Expressions come from mapping configs, so the caches stay small.
+ */
+public final class Template {
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$\\{([^}]+)\\}");
+    private static final Pattern FIELD_REFERENCE = Pattern.compile("\\$\\{(\\w+)\\}");
+
+    private static final Map<String, Template> CACHE = new ConcurrentHashMap<>();
+    private static final Map<String, Template> FIELD_REFERENCE_CACHE = new ConcurrentHashMap<>();
+
+    private final String raw;
+    private final String[] literals;     // literals[i] precedes variables[i]; last literal is the tail
+    private final SourcePath[] variables;
+
+    private Template(String raw, String[] literals, SourcePath[] variables) {
+        this.raw = raw;
+        this.literals = literals;
+        this.variables = variables;
+    }
+
+    /**
+     * Parse a ${path} template (cached), or null for a null expression.
+     */
+    public static Template of(String expression) {
+        if (expression == null) return null;
+        return CACHE.computeIfAbsent(expression, e -> parse(e, VARIABLE));
+    }
+
+    /**
+     * Parse a condition template whose variables are plain field names like ${scac} (cached).
+     * Render it with {@link #renderFields(JsonNode)}.
+     */
+    public static Template ofFieldReferences(String expression) {
+        if (expression == null) return null;
+        return FIELD_REFERENCE_CACHE.computeIfAbsent(expression, e -> parse(e, FIELD_REFERENCE));
+    }
+
+    private static Template parse(String expression, Pattern variable) {
+        List<String> literals = new ArrayList<>();
+        List<SourcePath> variables = new ArrayList<>();
+
+        Matcher matcher = variable.matcher(expression);
+        int last = 0;
+        while (matcher.find()) {
+            literals.add(expression.substring(last, matcher.start()));
+            variables.add(SourcePath.of(matcher.group(1)));
+            last = matcher.end();
+        }
+        literals.add(expression.substring(last));
+
+        return new Template(expression,
+                literals.toArray(new String[0]),
+                variables.toArray(new SourcePath[0]));
+    }
+
+    /**
+     * Resolve variables against the transform context.
+     */
+    public String render(TransformContext ctx) {
+        if (variables.length == 0) return raw;
+
+        StringBuilder sb = new StringBuilder(raw.length() + 16);
+        for (int i = 0; i < variables.length; i++) {
+            sb.append(literals[i]);
+            String value = ctx.getStringValue(variables[i]);
+            if (value != null) sb.append(value);
+        }
+        sb.append(literals[variables.length]);
+        return sb.toString();
+    }
+
+    /**
+     * Resolve variables as field names of a JSON record.
+     * Missing fields render as "", JSON nulls as "null".
+     */
+    public String renderFields(JsonNode record) {
+        if (variables.length == 0) return raw;
+
+        StringBuilder sb = new StringBuilder(raw.length() + 16);
+        for (int i = 0; i < variables.length; i++) {
+            sb.append(literals[i]);
+            JsonNode node = record.get(variables[i].getRaw());
+            if (node != null) {
+                sb.append(node.isNull() ? "null" : node.asText());
+            }
+        }
+        sb.append(literals[variables.length]);
+        return sb.toString();
+    }
+
+    public List<SourcePath> getVariables() {
+        return List.of(variables);
+    }
+
+    @Override
+    public String toString() {
+        return raw;
+    }
+}
@@ -4,21 +4,35 @@ package com.example.edicleanarch.common.transform;
 import com.example.edicleanarch.common.mapping.FieldMapping;
 import com.example.edicleanarch.common.mapping.ProcessingContext;
 import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Context for transform functions.
+ *
+ * The engine creates one context per output record and switches
+ * {@link #setCompiledField(CompiledField)} for each field it maps.
  */
 @Data
 public class TransformContext {
     private final JsonNode record;           // Current loop element (e.g., R4 element)
     private final JsonNode transaction;      // Current transaction (contains B4, N9, Q2, R4, etc.)
-    private final FieldMapping field;
     private final JsonNode fullJson;
     private final ProcessingContext processingContext;
     private final LookupService lookupService;
     private final int loopIndex;
     private final java.util.Map<String, Object> outputRecord;  // Current output record being built
+    private final SegmentIndex segmentIndex; // Qualified segments of the transaction (null if not indexed)
+    private CompiledField compiledField;     // Field currently being mapped
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<LookupRowKey, Map<String, Object>> lookupRows;  // Rows fetched for fused lookups
 
     public TransformContext(JsonNode record, JsonNode transaction, FieldMapping field, JsonNode fullJson,
                             ProcessingContext processingContext, LookupService lookupService, int loopIndex) {
@@ -28,14 +42,70 @@ public class TransformContext {
     public TransformContext(JsonNode record, JsonNode transaction, FieldMapping field, JsonNode fullJson,
                             ProcessingContext processingContext, LookupService lookupService, int loopIndex,
                             java.util.Map<String, Object> outputRecord) {
+        this(record, transaction, fullJson, processingContext, lookupService, loopIndex, outputRecord);
+        this.compiledField = field != null ? CompiledField.compile(field, null) : null;
+    }
+
+    public TransformContext(JsonNode record, JsonNode transaction, JsonNode fullJson,
+                            ProcessingContext processingContext, LookupService lookupService, int loopIndex,
+                            java.util.Map<String, Object> outputRecord) {
+        this(record, transaction, fullJson, processingContext, lookupService, loopIndex, outputRecord, null);
+    }
+
+    public TransformContext(JsonNode record, JsonNode transaction, JsonNode fullJson,
+                            ProcessingContext processingContext, LookupService lookupService, int loopIndex,
+                            java.util.Map<String, Object> outputRecord, SegmentIndex segmentIndex) {
         this.record = record;
         this.transaction = transaction;
-        this.field = field;
         this.fullJson = fullJson;
         this.processingContext = processingContext;
         this.lookupService = lookupService;
         this.loopIndex = loopIndex;
         this.outputRecord = outputRecord;
+        this.segmentIndex = segmentIndex;
+    }
+
+    /**
+     * Field mapping currently being mapped.
+     */
+    public FieldMapping getField() {
+        return compiledField != null ? compiledField.getField() : null;
+    }
+
+    /**
+     * Get value of a qualified segment path like N9[01=BM].02.
+     * Uses the transaction (not loop record) because N9, B4 etc. are at transaction level;
+     * falls back to the record if there is no transaction.
+     */
+    public String getQualifiedValue(QualifiedPath path) {
+        if (path == null) return null;
+
+        JsonNode searchNode = transaction != null ? transaction : record;
+        if (!path.indexed() && segmentIndex != null && segmentIndex.getTransaction() == searchNode) {
+            return segmentIndex.extract(path);
+        }
+        return path.extract(searchNode, loopIndex);
+    }
+
+    /**
+     * Row of a fused lookup for the current record, fetched once for all sibling fields.
+     * Siblings share the row as long as they resolve the condition to the same parameters.
+     *
+     * @return column -> value, or null if no row matches
+     */
+    public Map<String, Object> getLookupRow(String tableName, LookupCondition condition, List<String> columns) {
+        List<String> parameters = condition.resolve(this);
+        LookupRowKey key = new LookupRowKey(tableName, condition, parameters, columns);
+
+        if (lookupRows == null) {
+            lookupRows = new HashMap<>();
+        } else if (lookupRows.containsKey(key)) {
+            return lookupRows.get(key);
+        }
+
+        Map<String, Object> row = lookupService.lookupRow(tableName, condition, parameters, columns);
+        lookupRows.put(key, row);
+        return row;
     }
 
     /**
@@ -51,30 +121,36 @@ public class TransformContext {
      * - scac - previously mapped field value (case-insensitive)
      */
     public String getStringValue(String fieldName) {
-        if (fieldName == null) return null;
+        return getStringValue(SourcePath.of(fieldName));
+    }
+
+    /**
+     * Get string value for a pre-parsed source path.
+     * Same resolution order as {@link #getStringValue(String)}.
+     */
+    public String getStringValue(SourcePath path) {
+        if (path == null) return null;
 
         // Literal value
-        if (fieldName.startsWith("'") && fieldName.endsWith("'")) {
-            return fieldName.substring(1, fieldName.length() - 1);
+        if (path.getLiteral() != null) {
+            return path.getLiteral();
         }
 
         // Context value
-        if (fieldName.startsWith("context.")) {
-            Object val = processingContext.getValue(fieldName.substring(8));
+        if (path.getContextKey() != null) {
+            Object val = processingContext.getValue(path.getContextKey());
             return val != null ? val.toString() : null;
         }
 
         // Header value (for fixed-width)
-        if (fieldName.startsWith("header.") && fullJson.has("header")) {
-            String headerField = fieldName.substring(7);
-            return getJsonText(fullJson.get("header"), headerField);
+        if (path.getHeaderField() != null && fullJson != null && fullJson.has("header")) {
+            return getJsonText(fullJson.get("header"), path.getHeaderField());
         }
 
         // Envelope value (for X12)
-        if (fieldName.startsWith("envelope.") && fullJson.has("envelope")) {
-            String[] parts = fieldName.substring(9).split("\\.");
+        if (path.getEnvelopePath() != null && fullJson != null && fullJson.has("envelope")) {
             JsonNode node = fullJson.get("envelope");
-            for (String part : parts) {
+            for (String part : path.getEnvelopePath()) {
                 if (node == null) return null;
                 node = node.get(part);
             }
@@ -83,34 +159,30 @@ public class TransformContext {
 
         // Transaction segment value (e.g., B4.07, N9.01, Q2.13)
         // For X12, fields like "B4.07" should look in the transaction, not the loop element
-        if (fieldName.contains(".") && transaction != null) {
-            String[] parts = fieldName.split("\\.", 2);
-            String segmentId = parts[0];
-            String elementId = parts[1];
-
-            JsonNode segment = transaction.get(segmentId);
+        if (path.getSegmentId() != null && transaction != null) {
+            JsonNode segment = transaction.get(path.getSegmentId());
             if (segment != null) {
-                return getJsonText(segment, elementId);
+                return getJsonText(segment, path.getElementId());
             }
         }
 
         // Check output record for previously mapped field (case-insensitive)
         if (outputRecord != null) {
             // Try exact match first
-            Object val = outputRecord.get(fieldName);
+            Object val = outputRecord.get(path.getRaw());
             if (val != null) {
                 return val.toString();
             }
             // Try case-insensitive match (e.g., "scac" matches "SCAC")
             for (java.util.Map.Entry<String, Object> entry : outputRecord.entrySet()) {
-                if (entry.getKey().equalsIgnoreCase(fieldName) && entry.getValue() != null) {
+                if (entry.getKey().equalsIgnoreCase(path.getRaw()) && entry.getValue() != null) {
                     return entry.getValue().toString();
                 }
             }
         }
 
         // Record value (loop element field, e.g., "03" for R4.03)
-        return getJsonText(record, fieldName);
+        return getJsonText(record, path.getRaw());
     }
 
     /**
@@ -123,4 +195,8 @@ public class TransformContext {
         String text = value.asText();
         return text.isEmpty() ? null : text.trim();
     }
+
+    private record LookupRowKey(String tableName, LookupCondition condition, List<String> parameters,
+                                List<String> columns) {
+    }
 }
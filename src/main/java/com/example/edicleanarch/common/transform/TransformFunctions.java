@@ -2,7 +2,6 @@ package com.example.edicleanarch.common.transform;
 
 
 import com.example.edicleanarch.common.mapping.FieldMapping;
-import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -11,15 +10,19 @@ import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Registry of transform functions for config-driven mapping.
+ *
+ * Functions read their configuration from the context's {@link CompiledField},
+ * so paths and ${...} templates are parsed once per config, not per record.
  */
 @Component
 public class TransformFunctions {
 
+    private static final QualifiedPath N9_BM = QualifiedPath.of("N9[01=BM].02");
+    private static final QualifiedPath N9_BN = QualifiedPath.of("N9[01=BN].02");
+
     private final Map<String, TransformFunction> functions = new HashMap<>();
 
     public TransformFunctions() {
@@ -32,7 +35,7 @@ public class TransformFunctions {
 
     private void initFunctions() {
         // DIRECT - Direct value extraction (default)
-        functions.put("DIRECT", ctx -> ctx.getStringValue(ctx.getField().getSource()));
+        functions.put("DIRECT", ctx -> ctx.getStringValue(ctx.getCompiledField().getSource()));
 
         // CONSTANT - Return constant value
         functions.put("CONSTANT", ctx -> ctx.getField().getValue());
@@ -42,21 +45,22 @@ public class TransformFunctions {
 
         // CONCAT - Concatenate fields
         functions.put("CONCAT", ctx -> {
+            CompiledField field = ctx.getCompiledField();
             StringBuilder sb = new StringBuilder();
-            String baseValue = ctx.getStringValue(ctx.getField().getSource());
+            String baseValue = ctx.getStringValue(field.getSource());
             sb.append(baseValue != null ? baseValue : "");
 
             // Simple concat with concatWith
-            if (ctx.getField().getConcatWith() != null) {
-                String val2 = ctx.getStringValue(ctx.getField().getConcatWith());
+            if (field.getConcatWith() != null) {
+                String val2 = ctx.getStringValue(field.getConcatWith());
                 sb.append(val2 != null ? val2 : "");
             }
 
             // Multi-field concat
-            List<String> concatFields = ctx.getField().getConcatFields();
+            List<SourcePath> concatFields = field.getConcatFields();
             if (concatFields != null) {
-                for (String field : concatFields) {
-                    String val = ctx.getStringValue(field);
+                for (SourcePath path : concatFields) {
+                    String val = ctx.getStringValue(path);
                     sb.append(val != null ? val : "");
                 }
             }
@@ -66,29 +70,28 @@ public class TransformFunctions {
 
         // BUILD_DATETIME - Build datetime from component fields
         functions.put("BUILD_DATETIME", ctx -> {
-            Map<String, String> sourceFields = ctx.getField().getSourceFields();
-            if (sourceFields == null) return null;
+            CompiledField field = ctx.getCompiledField();
+            List<SourcePath> parts = field.getDateTimeParts();
+            if (parts == null) return null;
 
             StringBuilder dateStr = new StringBuilder();
 
-            appendIfPresent(dateStr, ctx, sourceFields.get("century"));
-            appendIfPresent(dateStr, ctx, sourceFields.get("year"));
-            appendIfPresent(dateStr, ctx, sourceFields.get("month"));
-            appendIfPresent(dateStr, ctx, sourceFields.get("day"));
-            appendIfPresent(dateStr, ctx, sourceFields.get("hour"));
+            // century, year, month, day, hour
+            for (SourcePath part : parts) {
+                String val = ctx.getStringValue(part);
+                dateStr.append(val != null ? val : "");
+            }
 
-            String minute = sourceFields.get("minute");
-            if (minute != null) {
-                String minValue = ctx.getStringValue(minute);
+            if (field.getMinute() != null) {
+                String minValue = ctx.getStringValue(field.getMinute());
                 dateStr.append(minValue != null ? minValue : "00");
             }
 
-            String format = ctx.getField().getFormat();
-            if (format == null) format = "yyyyMMddHHmm";
+            DateTimeFormatter formatter = field.getDateTimeFormatter();
+            if (formatter == null) return null;
 
             try {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-                return LocalDateTime.parse(dateStr.toString(), formatter);
+                return LocalDateTime.parse(dateStr, formatter);
             } catch (Exception e) {
                 return null;
             }
@@ -96,7 +99,7 @@ public class TransformFunctions {
 
         // DIVIDE_100 - Divide by 100 for implicit decimal
         functions.put("DIVIDE_100", ctx -> {
-            String value = ctx.getStringValue(ctx.getField().getSource());
+            String value = ctx.getStringValue(ctx.getCompiledField().getSource());
             if (value == null || value.isEmpty()) return null;
             try {
                 return new BigDecimal(value).divide(BigDecimal.valueOf(100));
@@ -107,7 +110,7 @@ public class TransformFunctions {
 
         // TRIM_OR_NULL - Trim and return null if empty
         functions.put("TRIM_OR_NULL", ctx -> {
-            String value = ctx.getStringValue(ctx.getField().getSource());
+            String value = ctx.getStringValue(ctx.getCompiledField().getSource());
             if (value == null) return null;
             value = value.trim();
             return value.isEmpty() ? null : value;
@@ -115,7 +118,7 @@ public class TransformFunctions {
 
         // UPPERCASE - Convert to uppercase
         functions.put("UPPERCASE", ctx -> {
-            String value = ctx.getStringValue(ctx.getField().getSource());
+            String value = ctx.getStringValue(ctx.getCompiledField().getSource());
             return value != null ? value.toUpperCase() : null;
         });
 
@@ -123,36 +126,45 @@ public class TransformFunctions {
         functions.put("LOOKUP", ctx -> {
             if (ctx.getLookupService() == null) return null;
 
-            String lookupCondition = ctx.getField().getLookupCondition();
+            CompiledField field = ctx.getCompiledField();
+            FieldMapping mapping = field.getField();
             Object result = null;
 
-            if (lookupCondition != null && !lookupCondition.isEmpty()) {
-                // Multi-column lookup using WHERE condition
-                String resolvedCondition = resolveExpression(lookupCondition, ctx);
+            if (field.getLookupGroup() != null) {
+                // Fused lookup: one row shared with sibling fields of the same table and condition
+                LookupGroup group = field.getLookupGroup();
+                result = lookupColumn(ctx, group, group.getCondition(), mapping.getLookupColumn());
+                if (result == null && group.getFallbackCondition() != null) {
+                    result = lookupColumn(ctx, group, group.getFallbackCondition(), mapping.getLookupColumn());
+                }
+            } else if (field.getLookupCondition() != null) {
+                // Multi-column lookup using parameterized WHERE condition
+                LookupCondition condition = field.getLookupCondition();
                 result = ctx.getLookupService().lookupWithCondition(
-                        ctx.getField().getLookupTable(),
-                        resolvedCondition,
-                        ctx.getField().getLookupColumn()
+                        mapping.getLookupTable(),
+                        condition,
+                        condition.resolve(ctx),
+                        mapping.getLookupColumn()
                 );
 
                 // Try fallback condition if primary lookup returns null
-                if (result == null && ctx.getField().getLookupFallbackCondition() != null) {
-                    String fallbackCondition = resolveExpression(ctx.getField().getLookupFallbackCondition(), ctx);
+                LookupCondition fallback = field.getLookupFallbackCondition();
+                if (result == null && fallback != null) {
                     result = ctx.getLookupService().lookupWithCondition(
-                            ctx.getField().getLookupTable(),
-                            fallbackCondition,
-                            ctx.getField().getLookupColumn()
+                            mapping.getLookupTable(),
+                            fallback,
+                            fallback.resolve(ctx),
+                            mapping.getLookupColumn()
                     );
                 }
             } else {
                 // Single-column lookup using key expression
-                String keyExpr = ctx.getField().getLookupKeyExpr();
-                String resolvedKey = resolveExpression(keyExpr, ctx);
+                String resolvedKey = render(field.getLookupKey(), ctx);
                 result = ctx.getLookupService().lookup(
-                        ctx.getField().getLookupTable(),
-                        ctx.getField().getLookupKeyColumn(),
+                        mapping.getLookupTable(),
+                        mapping.getLookupKeyColumn(),
                         resolvedKey,
-                        ctx.getField().getLookupColumn()
+                        mapping.getLookupColumn()
                 );
             }
             return result;
@@ -160,37 +172,30 @@ public class TransformFunctions {
 
         // QUALIFIED_SEGMENT - Extract from qualified segment like N9[01=BM].02
         // Uses transaction (not loop record) because N9, B4 etc. are at transaction level
-        functions.put("QUALIFIED_SEGMENT", ctx -> {
-            String source = ctx.getField().getSource();
-            // Use transaction for X12 segments like N9, B4; fall back to record if transaction is null
-            JsonNode searchNode = ctx.getTransaction() != null ? ctx.getTransaction() : ctx.getRecord();
-            return extractQualifiedValue(source, searchNode, ctx.getLoopIndex());
-        });
+        functions.put("QUALIFIED_SEGMENT", ctx -> ctx.getQualifiedValue(ctx.getCompiledField().getQualifiedSource()));
 
         // COALESCE - Return first non-empty value from multiple sources
         functions.put("COALESCE", ctx -> {
-            List<FieldMapping.SourceConfig> sources = ctx.getField().getSources();
+            List<CompiledField.CompiledSource> sources = ctx.getCompiledField().getSources();
             if (sources == null || sources.isEmpty()) return null;
 
-            JsonNode searchNode = ctx.getTransaction() != null ? ctx.getTransaction() : ctx.getRecord();
-
-            for (FieldMapping.SourceConfig sourceConfig : sources) {
+            for (CompiledField.CompiledSource source : sources) {
                 Object value = null;
 
-                if (sourceConfig.getConcatFields() != null && !sourceConfig.getConcatFields().isEmpty()) {
+                if (source.getConcatFields() != null) {
                     // Concat multiple fields
                     StringBuilder sb = new StringBuilder();
-                    for (String field : sourceConfig.getConcatFields()) {
-                        String val = ctx.getStringValue(field);
+                    for (SourcePath path : source.getConcatFields()) {
+                        String val = ctx.getStringValue(path);
                         if (val != null) sb.append(val);
                     }
                     value = sb.length() > 0 ? sb.toString() : null;
-                } else if (sourceConfig.getSource() != null) {
+                } else if (source.getSource() != null) {
                     // Apply transform if specified
-                    if ("QUALIFIED_SEGMENT".equals(sourceConfig.getTransform())) {
-                        value = extractQualifiedValue(sourceConfig.getSource(), searchNode, ctx.getLoopIndex());
+                    if (source.isQualifiedTransform()) {
+                        value = ctx.getQualifiedValue(source.getQualified());
                     } else {
-                        value = ctx.getStringValue(sourceConfig.getSource());
+                        value = ctx.getStringValue(source.getSource());
                     }
                 }
 
@@ -203,13 +208,12 @@ public class TransformFunctions {
 
         // BOOKNO_FLAG - "" if N9_BM exists, "X" if only N9_BN exists
         functions.put("BOOKNO_FLAG", ctx -> {
-            JsonNode searchNode = ctx.getTransaction() != null ? ctx.getTransaction() : ctx.getRecord();
-            Object bmValue = extractQualifiedValue("N9[01=BM].02", searchNode, ctx.getLoopIndex());
-            if (bmValue != null && !bmValue.toString().isEmpty()) {
+            String bmValue = ctx.getQualifiedValue(N9_BM);
+            if (bmValue != null && !bmValue.isEmpty()) {
                 return "";  // N9_BM exists
             }
-            Object bnValue = extractQualifiedValue("N9[01=BN].02", searchNode, ctx.getLoopIndex());
-            if (bnValue != null && !bnValue.toString().isEmpty()) {
+            String bnValue = ctx.getQualifiedValue(N9_BN);
+            if (bnValue != null && !bnValue.isEmpty()) {
                 return "X";  // Only N9_BN exists
             }
             return null;  // Neither exists
@@ -217,7 +221,7 @@ public class TransformFunctions {
 
         // ID_MAP_FLAG - From R4.01: "D" if "1", "T" if "Y" or null, else R4.01
         functions.put("ID_MAP_FLAG", ctx -> {
-            String r401 = ctx.getStringValue(ctx.getField().getSource());
+            String r401 = ctx.getStringValue(ctx.getCompiledField().getSource());
             if (r401 == null || r401.isEmpty()) {
                 return "T";
             }
@@ -231,83 +235,13 @@ public class TransformFunctions {
         });
     }
 
-    private void appendIfPresent(StringBuilder sb, TransformContext ctx, String field) {
-        if (field != null) {
-            String val = ctx.getStringValue(field);
-            sb.append(val != null ? val : "");
-        }
+    private static Object lookupColumn(TransformContext ctx, LookupGroup group, LookupCondition condition,
+                                       String column) {
+        Map<String, Object> row = ctx.getLookupRow(group.getTableName(), condition, group.getColumns());
+        return row != null ? row.get(column) : null;
     }
 
-    /**
-     * Resolve ${path} expressions in string.
-     * Supports dot-notation paths like ${envelope.ISA.06}, ${B4.03}, ${context.fileName}
-     */
-    private String resolveExpression(String expr, TransformContext ctx) {
-        if (expr == null) return null;
-
-        // Match ${...} including dot-notation paths
-        Pattern pattern = Pattern.compile("\\$\\{([^}]+)\\}");
-        Matcher matcher = pattern.matcher(expr);
-        StringBuffer result = new StringBuffer();
-
-        while (matcher.find()) {
-            String fieldPath = matcher.group(1);
-            String value = ctx.getStringValue(fieldPath);
-            matcher.appendReplacement(result, Matcher.quoteReplacement(value != null ? value : ""));
-        }
-        matcher.appendTail(result);
-
-        return result.toString();
-    }
-
-    /**
-     * Extract value from qualified segment path like N1[01=SH].02
-     */
-    private Object extractQualifiedValue(String sourcePath, JsonNode transaction, int loopIndex) {
-        Pattern pattern = Pattern.compile("(\\w+)\\[([^\\]]+)\\]\\.(\\d+)");
-        Matcher matcher = pattern.matcher(sourcePath);
-
-        if (!matcher.matches()) return null;
-
-        String segmentId = matcher.group(1);
-        String qualifier = matcher.group(2);
-        String position = matcher.group(3);
-
-        JsonNode segments = transaction.get(segmentId);
-        if (segments == null) return null;
-
-        // Handle _index for loop correlation
-        if (qualifier.equals("_index")) {
-            if (segments.isArray() && loopIndex < segments.size()) {
-                JsonNode posNode = segments.get(loopIndex).get(position);
-                return posNode != null ? posNode.asText() : null;
-            }
-            return null;
-        }
-
-        // Handle qualifier match: 01=SH
-        String[] parts = qualifier.split("=");
-        if (parts.length != 2) return null;
-
-        String qualPos = parts[0];
-        String qualValue = parts[1];
-
-        if (segments.isArray()) {
-            for (JsonNode segment : segments) {
-                JsonNode qualNode = segment.get(qualPos);
-                if (qualNode != null && qualValue.equals(qualNode.asText())) {
-                    JsonNode posNode = segment.get(position);
-                    return posNode != null ? posNode.asText() : null;
-                }
-            }
-        } else {
-            JsonNode qualNode = segments.get(qualPos);
-            if (qualNode != null && qualValue.equals(qualNode.asText())) {
-                JsonNode posNode = segments.get(position);
-                return posNode != null ? posNode.asText() : null;
-            }
-        }
-
-        return null;
+    private static String render(Template template, TransformContext ctx) {
+        return template != null ? template.render(ctx) : null;
     }
 }
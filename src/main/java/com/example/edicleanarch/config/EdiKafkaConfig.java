@@ -1,10 +1,12 @@
 package com.example.edicleanarch.config;
 
+import com.example.edicleanarch.common.adapter.in.kafka.OrderedParallelDispatcher;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
@@ -27,21 +29,66 @@ public class EdiKafkaConfig {
 
     @Bean
     public ConsumerFactory<String, String> ediConsumerFactory() {
-        Map<String, Object> props = new HashMap<>();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, enableAutoCommit);
-        return new DefaultKafkaConsumerFactory<>(props);
+        return new DefaultKafkaConsumerFactory<>(consumerProperties());
     }
 
+    /**
+     * Listener factory for record listeners; ordered-parallel listeners drain revoked partitions
+     * through the dispatcher.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> ediKafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, String> ediKafkaListenerContainerFactory(
+            EdiProperties properties, OrderedParallelDispatcher parallelDispatcher) {
         ConcurrentKafkaListenerContainerFactory<String, String> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(ediConsumerFactory());
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setConsumerRebalanceListener(parallelDispatcher);
+        applyExecution(factory, properties);
+        return factory;
+    }
+
+    /**
+     * Listener factory for batch listeners (edi.kafka.batch): one acknowledgment per poll.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> ediBatchKafkaListenerContainerFactory(
+            EdiProperties properties) {
+        EdiProperties.KafkaProperties.BatchProperties batch = properties.getKafka().getBatch();
+        Map<String, Object> props = consumerProperties();
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batch.getMaxRecords());
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) batch.getMaxWait().toMillis());
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, batch.getMinBytes());
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        applyExecution(factory, properties);
         return factory;
     }
+
+    /**
+     * Run consumer threads (and the parse/map/persist work they do) on virtual threads
+     * when edi.execution.virtual-threads is on.
+     */
+    private void applyExecution(ConcurrentKafkaListenerContainerFactory<String, String> factory,
+                                EdiProperties properties) {
+        if (properties.getExecution().isVirtualThreads()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("edi-kafka-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
+
+    private Map<String, Object> consumerProperties() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, enableAutoCommit);
+        return props;
+    }
 }
@@ -4,6 +4,12 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @Configuration
 @ConfigurationProperties(prefix = "edi")
@@ -12,10 +18,17 @@ public class EdiProperties {
     private RailincProperties railinc = new RailincProperties();
     private Edi315Properties edi315 = new Edi315Properties();
     private KafkaProperties kafka = new KafkaProperties();
+    private LookupProperties lookup = new LookupProperties();
+    private PersistenceProperties persistence = new PersistenceProperties();
+    private LedgerProperties ledger = new LedgerProperties();
+    private ExecutionProperties execution = new ExecutionProperties();
+    private FileDropProperties fileDrop = new FileDropProperties();
+    private MappingProperties mapping = new MappingProperties();
 
     @Data
     public static class RailincProperties {
         private boolean enabled = true;
+        private WriteMode writeMode = WriteMode.BATCH;
         private KafkaTopicProperties kafka = new KafkaTopicProperties();
 
         @Data
@@ -23,12 +36,15 @@ public class EdiProperties {
             private String topic = "railinc-inbound";
             private String groupId = "railinc-processor-group";
             private int concurrency = 1;
+            private boolean batchListener = false;  // Receive polls as batches (edi.kafka.batch)
+            private boolean orderedParallel = false; // Process records in parallel per key (edi.kafka.parallel)
         }
     }
 
     @Data
     public static class Edi315Properties {
         private boolean enabled = true;
+        private WriteMode writeMode = WriteMode.BATCH;
         private KafkaTopicProperties kafka = new KafkaTopicProperties();
 
         @Data
@@ -36,6 +52,8 @@ public class EdiProperties {
             private String topic = "edi315-inbound";
             private String groupId = "edi315-processor-group";
             private int concurrency = 1;
+            private boolean batchListener = false;  // Receive polls as batches (edi.kafka.batch)
+            private boolean orderedParallel = false; // Process records in parallel per key (edi.kafka.parallel)
         }
     }
 
@@ -43,5 +61,167 @@ public class EdiProperties {
     public static class KafkaProperties {
         private String autoOffsetReset = "earliest";
         private boolean enableAutoCommit = false;
+        private BatchProperties batch = new BatchProperties();
+        private ParallelProperties parallel = new ParallelProperties();
+        private ClaimCheckProperties claimCheck = new ClaimCheckProperties();
+
+        /**
+         * Batch listeners: a poll returns up to max-records messages; the broker holds a fetch
+         * for up to max-wait until min-bytes are available, so small messages arrive together.
+         */
+        @Data
+        public static class BatchProperties {
+            private int maxRecords = 500;
+            private Duration maxWait = Duration.ofMillis(500);
+            private int minBytes = 64 * 1024;
+            private Duration nackSleep = Duration.ofSeconds(1);   // Before a failed message is redelivered
+            private int maxAttempts = 3;                          // Deliveries of a failed message, then skipped
+        }
+
+        /**
+         * Ordered-parallel listeners: records run concurrently on virtual threads, in order per key shard.
+         */
+        @Data
+        public static class ParallelProperties {
+            private int shards = 64;          // Key shards, each processes its records in order
+            private int maxInFlight = 256;    // Pause the container above this many unfinished records
+            private Duration revokeTimeout = Duration.ofSeconds(10);   // Drain of revoked partitions
+        }
+
+        /**
+         * Claim-check messages: the record references a file in store-dir instead of carrying it.
+         */
+        @Data
+        public static class ClaimCheckProperties {
+            private boolean enabled = false;
+            private String storeDir = "/data/edi/claim-check";
+            private long maxBytes = 512L * 1024 * 1024;   // Larger payloads are rejected
+        }
+    }
+
+    @Data
+    public static class LookupProperties {
+        private List<String> preload = new ArrayList<>();   // Small tables loaded fully into memory
+        private Duration refreshInterval = Duration.ofMinutes(15);
+        private CacheProperties cache = CacheProperties.defaults();         // Defaults for other tables
+        private Map<String, CacheProperties> tables = new HashMap<>();       // Per-table overrides of the defaults
+
+        /**
+         * Cache settings of a table (case-insensitive name): its overrides over the defaults.
+         */
+        public CacheProperties cacheFor(String tableName) {
+            for (Map.Entry<String, CacheProperties> entry : tables.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(tableName.trim())) {
+                    return entry.getValue().over(cache);
+                }
+            }
+            return cache;
+        }
+
+        /**
+         * Unset (null) settings are taken from the defaults; a zero refresh disables refreshing.
+         */
+        @Data
+        public static class CacheProperties {
+            private Long maximumSize;
+            private Duration expireAfterWrite;      // Found rows
+            private Duration missExpireAfterWrite;  // No matching row
+            private Duration refreshAfterWrite;     // Background reload of hot keys
+
+            static CacheProperties defaults() {
+                CacheProperties defaults = new CacheProperties();
+                defaults.setMaximumSize(10_000L);
+                defaults.setExpireAfterWrite(Duration.ofHours(1));
+                defaults.setMissExpireAfterWrite(Duration.ofMinutes(5));
+                defaults.setRefreshAfterWrite(Duration.ofMinutes(30));
+                return defaults;
+            }
+
+            /**
+             * These settings with unset ones taken from the defaults.
+             */
+            public CacheProperties over(CacheProperties defaults) {
+                CacheProperties merged = new CacheProperties();
+                merged.setMaximumSize(maximumSize != null ? maximumSize : defaults.getMaximumSize());
+                merged.setExpireAfterWrite(expireAfterWrite != null
+                        ? expireAfterWrite : defaults.getExpireAfterWrite());
+                merged.setMissExpireAfterWrite(missExpireAfterWrite != null
+                        ? missExpireAfterWrite : defaults.getMissExpireAfterWrite());
+                merged.setRefreshAfterWrite(refreshAfterWrite != null
+                        ? refreshAfterWrite : defaults.getRefreshAfterWrite());
+                return merged;
+            }
+        }
+    }
+
+    /**
+     * How a message type writes its events.
+     */
+    public enum WriteMode {
+        BATCH,  // JDBC batched INSERT
+        BULK    // SQL Server bulk copy / PostgreSQL COPY; batched INSERT on other databases
+    }
+
+    @Data
+    public static class PersistenceProperties {
+        private int batchSize = 1000;   // Rows per executeBatch
+        private int commitEvery = 0;    // Commit after this many chunks; 0 = one transaction per file
+        private boolean parallelLanes = true;   // Independent tables on own connections; false = one atomic transaction
+        private DedupProperties dedup = new DedupProperties();
+
+        @Data
+        public static class DedupProperties {
+            private boolean enabled = false;
+            private Map<String, List<String>> naturalKeys = new HashMap<>();  // Table -> key columns
+            private long recentKeys = 100_000;                      // Committed keys remembered in memory
+            private Duration recentKeyTtl = Duration.ofHours(24);
+        }
+    }
+
+    /**
+     * Processed-file ledger: redelivered files are answered from it without reprocessing.
+     * Opt-in: needs the EDI_FILE_LEDGER table (DDL in FileLedgerPersistenceAdapter).
+     */
+    @Data
+    public static class LedgerProperties {
+        private boolean enabled = false;
+        private long cacheSize = 10_000;                   // Processed files remembered in memory
+        private Duration cacheTtl = Duration.ofHours(24);
+    }
+
+    /**
+     * Threading of Kafka listeners, writer lanes and (via spring.threads.virtual.enabled) web requests.
+     */
+    @Data
+    public static class ExecutionProperties {
+        private boolean virtualThreads = false;
+        private int dbPermits = 0;                                  // Concurrent DB work; 0 = connection pool size
+        private int dbQueryPermits = 0;                             // Kept from writer transactions; 0 = a quarter
+        private Duration dbPermitTimeout = Duration.ofSeconds(30);  // Fail instead of waiting longer for a permit
+    }
+
+    /**
+     * Landing directory polled for files: {directory}/{edi315|railinc}/{partnerId}/{file}.
+     * Files are memory-mapped; large ones are split and mapped on several cores.
+     */
+    @Data
+    public static class FileDropProperties {
+        private boolean enabled = false;
+        private String directory = "/data/edi/landing";
+        private Duration pollInterval = Duration.ofMinutes(1);
+        private Duration minAge = Duration.ofSeconds(30);   // Skip files still being written
+        private int partSize = 8 * 1024 * 1024;             // Bytes per part mapped in parallel
+        private int parallelism = 0;                        // Mapping threads; 0 = available processors
+        private int maxAttempts = 3;                        // Polls that retry a file failing with an error
+    }
+
+    /**
+     * Parallel mapping of the transactions/records of one file (EdiMappingEngine on the ParallelMappingExecutor).
+     */
+    @Data
+    public static class MappingProperties {
+        private boolean parallel = false;
+        private int parallelThreshold = 2000;   // Smaller files (and streamed batches) map sequentially
+        private int partitionSize = 500;        // Transactions/records per task (threads: edi.file-drop.parallelism)
     }
 }
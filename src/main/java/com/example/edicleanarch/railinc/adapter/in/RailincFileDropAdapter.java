@@ -0,0 +1,50 @@
+package com.example.edicleanarch.railinc.adapter.in;
+
+import com.example.edicleanarch.common.adapter.in.file.AbstractFileDropAdapter;
+import com.example.edicleanarch.common.annotation.FileAdapter;
+import com.example.edicleanarch.common.port.in.ProcessEdiContentUseCase;
+import com.example.edicleanarch.config.EdiProperties;
+import com.example.edicleanarch.railinc.domain.service.inbound.ProcessRailincService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Inbound Adapter: File Drop for Railinc CLM files
+ *
+ * Polls {edi.file-drop.directory}/railinc/{partnerId}/ and delegates to ProcessRailincService.
+ */
+@FileAdapter
+@ConditionalOnProperty(name = "edi.file-drop.enabled", havingValue = "true")
+@RequiredArgsConstructor
+class RailincFileDropAdapter extends AbstractFileDropAdapter {
+
+    private final ProcessRailincService processRailincService;
+    private final EdiProperties properties;
+
+    @Scheduled(fixedDelayString = "${edi.file-drop.poll-interval:PT1M}")
+    @Override
+    protected void poll() {
+        super.poll();
+    }
+
+    @Override
+    protected ProcessEdiContentUseCase getUseCase() {
+        return processRailincService;
+    }
+
+    @Override
+    protected String getMessageType() {
+        return "RAILINC_CLM";
+    }
+
+    @Override
+    protected String getSubdirectory() {
+        return "railinc";
+    }
+
+    @Override
+    protected EdiProperties getProperties() {
+        return properties;
+    }
+}
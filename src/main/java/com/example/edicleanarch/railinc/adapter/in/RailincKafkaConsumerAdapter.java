@@ -1,9 +1,14 @@
 package com.example.edicleanarch.railinc.adapter.in;
 
 import com.example.edicleanarch.common.adapter.in.kafka.AbstractKafkaConsumerAdapter;
+import com.example.edicleanarch.common.adapter.in.kafka.ClaimCheckStore;
 import com.example.edicleanarch.common.adapter.in.kafka.KafkaMessageParser;
+import com.example.edicleanarch.common.adapter.in.kafka.OrderedParallelDispatcher;
 import com.example.edicleanarch.common.annotation.KafkaAdapter;
+import com.example.edicleanarch.common.model.ProcessingResult;
 import com.example.edicleanarch.common.port.in.ProcessEdiFileUseCase;
+import com.example.edicleanarch.common.port.in.ProcessEdiStreamUseCase;
+import com.example.edicleanarch.config.EdiProperties;
 import com.example.edicleanarch.railinc.domain.service.ProcessRailincFileCommand;
 import com.example.edicleanarch.railinc.domain.service.ProcessRailincFileService;
 import lombok.RequiredArgsConstructor;
@@ -11,25 +16,56 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Inbound Adapter: Kafka Consumer for Railinc CLM files
+ *
+ * Receives Railinc messages from Kafka topic and delegates to ProcessRailincFileService.
+ * Claim-check messages are streamed from the store into the streaming use case, verified by
+ * size and SHA-256 as they are read, so large files are never held as a String.
+ */
 @KafkaAdapter
 @RequiredArgsConstructor
 class RailincKafkaConsumerAdapter extends AbstractKafkaConsumerAdapter<ProcessRailincFileCommand> {
 
+    private static final String LISTENER_ID = "railinc-records";
     private static final String MESSAGE_TYPE = "RAILINC_CLM";
 
     private final ProcessRailincFileService processRailincFileService;
+    private final ProcessEdiStreamUseCase processRailincStreamService;
     private final KafkaMessageParser messageParser;
+    private final ClaimCheckStore claimCheckStore;
+    private final OrderedParallelDispatcher parallelDispatcher;
+    private final EdiProperties properties;
 
     @KafkaListener(
+            id = LISTENER_ID,
             topics = "${edi.railinc.kafka.topic:railinc-inbound}",
             groupId = "${edi.railinc.kafka.group-id:railinc-processor-group}",
-            concurrency = "${edi.railinc.kafka.concurrency:1}"
+            concurrency = "${edi.railinc.kafka.concurrency:1}",
+            containerFactory = "ediKafkaListenerContainerFactory",
+            autoStartup = "#{!${edi.railinc.kafka.batch-listener:false}}"
     )
     @Override
     protected void handleMessage(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
         super.handleMessage(record, acknowledgment);
     }
 
+    @KafkaListener(
+            id = "railinc-batch",
+            topics = "${edi.railinc.kafka.topic:railinc-inbound}",
+            groupId = "${edi.railinc.kafka.group-id:railinc-processor-group}",
+            concurrency = "${edi.railinc.kafka.concurrency:1}",
+            containerFactory = "ediBatchKafkaListenerContainerFactory",
+            autoStartup = "${edi.railinc.kafka.batch-listener:false}"
+    )
+    @Override
+    protected void handleBatch(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        super.handleBatch(records, acknowledgment);
+    }
+
     @Override
     protected ProcessEdiFileUseCase<ProcessRailincFileCommand> getUseCase() {
         return processRailincFileService;
@@ -41,8 +77,55 @@ class RailincKafkaConsumerAdapter extends AbstractKafkaConsumerAdapter<ProcessRa
         return new ProcessRailincFileCommand(parsed.content(), parsed.partnerId(), parsed.fileName());
     }
 
+    @Override
+    protected boolean isBatchable(ConsumerRecord<String, String> record) {
+        return claimCheck(record) == null;
+    }
+
+    @Override
+    protected ProcessingResult processMessage(ConsumerRecord<String, String> record) {
+        var claimCheck = claimCheck(record);
+        if (claimCheck == null) {
+            return super.processMessage(record);
+        }
+        return processRailincStreamService.processStream(
+                claimCheckStore.open(claimCheck.contentRef(), claimCheck.sha256()),
+                claimCheck.partnerId(), claimCheck.fileName());
+    }
+
+    /**
+     * Claim check of the record, or null (also for malformed messages, which {@link #parseMessage} reports).
+     */
+    private KafkaMessageParser.ClaimCheck claimCheck(ConsumerRecord<String, String> record) {
+        try {
+            return messageParser.parseClaimCheck(record, MESSAGE_TYPE);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     @Override
     protected String getMessageType() {
         return MESSAGE_TYPE;
     }
+
+    @Override
+    protected OrderedParallelDispatcher getParallelDispatcher() {
+        return properties.getRailinc().getKafka().isOrderedParallel() ? parallelDispatcher : null;
+    }
+
+    @Override
+    protected Duration getNackSleep() {
+        return properties.getKafka().getBatch().getNackSleep();
+    }
+
+    @Override
+    protected int getMaxAttempts() {
+        return properties.getKafka().getBatch().getMaxAttempts();
+    }
+
+    @Override
+    protected String getListenerId() {
+        return LISTENER_ID;
+    }
 }
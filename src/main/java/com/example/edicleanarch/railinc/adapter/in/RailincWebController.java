@@ -2,6 +2,7 @@ package com.example.edicleanarch.railinc.adapter.in;
 
 import com.example.edicleanarch.common.annotation.WebAdapter;
 import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.common.port.in.ProcessEdiStreamUseCase;
 import com.example.edicleanarch.railinc.domain.service.ProcessRailincFileCommand;
 import com.example.edicleanarch.railinc.domain.service.ProcessRailincFileService;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 @RequiredArgsConstructor
 public class RailincWebController {
     private final ProcessRailincFileService processRailincFileService;
+    private final ProcessEdiStreamUseCase processRailincStreamService;
 
     @PostMapping("/process")
     ResponseEntity<ProcessingResult> processFile(
@@ -38,4 +40,16 @@ public class RailincWebController {
         return ResponseEntity.ok(processRailincFileService.processFile(command));
     }
 
+    /**
+     * Large CLM files: read from the upload stream, mapped and saved in batches.
+     */
+    @PostMapping("/process/stream")
+    ResponseEntity<ProcessingResult> processFileStream(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("partnerId") String partnerId) throws IOException {
+
+        return ResponseEntity.ok(processRailincStreamService.processStream(
+                file.getInputStream(), partnerId, file.getOriginalFilename()));
+    }
+
 }
@@ -1,6 +1,10 @@
 package com.example.edicleanarch.railinc.adapter.out;
 
+import com.example.edicleanarch.common.adapter.out.persistence.ChunkedBatchWriter;
 import com.example.edicleanarch.common.annotation.PersistenceAdapter;
+import com.example.edicleanarch.common.mapping.TargetTableConfig;
+import com.example.edicleanarch.common.port.out.RecordWriter;
+import com.example.edicleanarch.config.EdiProperties;
 import com.example.edicleanarch.railinc.domain.model.ContainerEvent;
 import com.example.edicleanarch.railinc.port.out.SaveRailincEventsPort;
 import lombok.RequiredArgsConstructor;
@@ -8,14 +12,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 
 
@@ -35,7 +36,10 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 class RailincPersistenceAdapter implements SaveRailincEventsPort {
 
-    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private static final String TABLE_NAME = "CDB_EVENT";
+
+    private final ChunkedBatchWriter batchWriter;
+    private final EdiProperties properties;
 
     /**
      * Save records dynamically using config-driven approach.
@@ -44,7 +48,9 @@ class RailincPersistenceAdapter implements SaveRailincEventsPort {
      * Flow:
      * 1. railinc-mapping.yml defines: name: MBL_NO, source: mblNo
      * 2. EdiMappingEngine transforms: {MBL_NO: "value", CNTR_NO: "ABCD1234567", ...}
-     * 3. This method builds: INSERT INTO CDB_EVENT (MBL_NO, CNTR_NO, ...) VALUES (:MBL_NO, :CNTR_NO, ...)
+     * 3. ChunkedBatchWriter builds (once per column list): INSERT INTO CDB_EVENT (MBL_NO, CNTR_NO, ...) VALUES (?, ?, ...)
+     *    and writes the records in chunks of edi.persistence.batch-size
+     *    (or bulk loads each chunk when write-mode is BULK)
      *
      * @param records  List of records where keys are column names from YAML mapping
      * @param fileName Source file name for logging
@@ -52,56 +58,26 @@ class RailincPersistenceAdapter implements SaveRailincEventsPort {
      */
     @Override
     public Map<String, Integer> saveRecords(List<Map<String, Object>> records, String fileName) {
-        Map<String, Integer> insertCounts = new LinkedHashMap<>();
-
-        if (records == null || records.isEmpty()) {
-            insertCounts.put("CDB_EVENT", 0);
-            return insertCounts;
-        }
-
-        try {
-            // Build dynamic INSERT statement from first record's keys
-            Map<String, Object> firstRecord = records.get(0);
-            String sql = buildInsertSql("CDB_EVENT", firstRecord.keySet());
-
-            log.debug("Dynamic SQL: {}", sql);
-
-            // Batch insert all records
-            MapSqlParameterSource[] batchParams = records.stream()
-                    .map(MapSqlParameterSource::new)
-                    .toArray(MapSqlParameterSource[]::new);
-
-            int[] results = jdbcTemplate.batchUpdate(sql, batchParams);
-            int totalInserted = results.length;
-
-            insertCounts.put("CDB_EVENT", totalInserted);
-            log.info("Inserted {} records into CDB_EVENT from {}", totalInserted, fileName);
+        return saveRecords(records, fileName, insertCounts -> { });
+    }
 
-        } catch (Exception e) {
-            log.error("Error saving records to CDB_EVENT: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to save records: " + e.getMessage(), e);
+    @Override
+    public Map<String, Integer> saveRecords(List<Map<String, Object>> records, String fileName,
+                                            Consumer<Map<String, Integer>> beforeCommit) {
+        try (RecordWriter writer = batchWriter.open(TABLE_NAME, fileName, properties.getRailinc().getWriteMode())) {
+            if (records != null) {
+                writer.write(Map.of(TABLE_NAME, records));
+            }
+            return writer.finish(beforeCommit);
         }
-
-        return insertCounts;
     }
 
     /**
-     * Build dynamic INSERT SQL from column names.
-     *
-     * Example output:
-     * INSERT INTO CDB_EVENT (MBL_NO, CNTR_NO, EVENT_CODE, EVENT_DATE, ...)
-     * VALUES (:MBL_NO, :CNTR_NO, :EVENT_CODE, :EVENT_DATE, ...)
-     *
-     * @param tableName Target table name
-     * @param columns   Column names from mapping config
-     * @return Dynamic INSERT SQL statement
+     * Open a writer for all target tables of the mapping; INSERTs are built per table
+     * and column set from the records, so new tables only need a target in the YAML.
      */
-    private String buildInsertSql(String tableName, java.util.Set<String> columns) {
-        String columnList = String.join(", ", columns);
-        String paramList = columns.stream()
-                .map(col -> ":" + col)
-                .collect(Collectors.joining(", "));
-
-        return String.format("INSERT INTO %s (%s) VALUES (%s)", tableName, columnList, paramList);
+    @Override
+    public RecordWriter openWriter(String fileName, List<TargetTableConfig> targets) {
+        return batchWriter.open(targets, fileName, properties.getRailinc().getWriteMode());
     }
 }
@@ -0,0 +1,69 @@
+package com.example.edicleanarch.railinc.domain.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Field names of the data records of a schema, shared by every record parsed with it.
+ *
+ * A {@link RailincRecord} holds only its values, at the index of the field name here,
+ * so the names (and the name lookup) exist once per schema instead of once per record.
+ * Immutable and safe to share across threads.
+ */
+public final class RailincFieldTable {
+
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+    private final Set<String> nameSet;
+
+    private RailincFieldTable(List<String> names) {
+        this.names = names.toArray(String[]::new);
+        this.indexes = new HashMap<>(names.size() * 2);
+        for (int i = 0; i < this.names.length; i++) {
+            indexes.put(this.names[i], i);
+        }
+        this.nameSet = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+    }
+
+    public static RailincFieldTable of(List<String> names) {
+        return new RailincFieldTable(names);
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * Index of the field, -1 if the schema has no such field.
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Field names in schema order.
+     */
+    public Set<String> names() {
+        return nameSet;
+    }
+
+    /**
+     * Whether the names are those of this table, in the same order.
+     */
+    boolean matches(List<String> fieldNames) {
+        if (fieldNames.size() != names.length) return false;
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].equals(fieldNames.get(i))) return false;
+        }
+        return true;
+    }
+}
@@ -16,7 +16,7 @@ import java.util.List;
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class RailincFile implements EdiFile {
 
-    private static final String MESSAGE_TYPE = "RAILINC_CLM";
+    public static final String MESSAGE_TYPE = "RAILINC_CLM";   // Also the ledger key of CLM files on every entry path
 
     @Getter
     private final RailincFileId id;
@@ -2,7 +2,11 @@ package com.example.edicleanarch.railinc.domain.model;
 
 import lombok.Getter;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -19,6 +23,7 @@ import java.util.Map;
  * - Metadata (record count, parse timestamp)
  *
  * All fields are dynamic - no hardcoded structure.
+ * Records share one {@link RailincFieldTable}; the JsonNode form is only built when asked for.
  */
 @Getter
 public class RailincParseResult {
@@ -27,7 +32,7 @@ public class RailincParseResult {
     private final List<RailincRecord> records;
     private final Map<String, String> trailer;
     private final Map<String, Object> metadata;
-    private final JsonNode sourceJson;
+    private JsonNode sourceJson;   // Built on first use when parsed from content
 
     private RailincParseResult(
             Map<String, String> header,
@@ -42,6 +47,49 @@ public class RailincParseResult {
         this.sourceJson = sourceJson;
     }
 
+    /**
+     * Create from records parsed directly from the fixed-width content.
+     *
+     * @param header  Header fields, empty if the file has no CLM record
+     * @param records Data records, sharing one field table
+     * @param trailer Trailer fields, empty if the file has no EOM record
+     */
+    public static RailincParseResult of(Map<String, String> header, List<RailincRecord> records,
+                                        Map<String, String> trailer) {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("recordCount", records.size());
+        metadata.put("parseTimestamp", LocalDateTime.now().toString());
+        return new RailincParseResult(header, records, trailer, metadata, null);
+    }
+
+    /**
+     * Parsed file as JsonNode in the FixedWidthToJsonConverter shape
+     * ({"header", "records", "trailer", "_metadata"}), built on first use for the mapping engine.
+     */
+    public JsonNode getSourceJson() {
+        if (sourceJson == null) {
+            JsonNodeFactory nodes = JsonNodeFactory.instance;
+            ObjectNode root = nodes.objectNode();
+            root.set("header", header.isEmpty() ? nodes.nullNode() : section(header));
+            ArrayNode recordNodes = root.putArray("records");
+            records.forEach(record -> recordNodes.add(record.getSourceNode()));
+            root.set("trailer", trailer.isEmpty() ? nodes.nullNode() : section(trailer));
+            ObjectNode metaNode = root.putObject("_metadata");
+            metaNode.put("recordCount", getRecordCount());
+            if (metadata.get("parseTimestamp") != null) {
+                metaNode.put("parseTimestamp", metadata.get("parseTimestamp").toString());
+            }
+            sourceJson = root;
+        }
+        return sourceJson;
+    }
+
+    private static ObjectNode section(Map<String, String> fields) {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        fields.forEach(node::put);
+        return node;
+    }
+
     /**
      * Get header field value.
      */
@@ -94,7 +142,12 @@ public class RailincParseResult {
         List<RailincRecord> records = new ArrayList<>();
         JsonNode recordsNode = jsonNode.get("records");
         if (recordsNode != null && recordsNode.isArray()) {
-            for (JsonNode recordNode : recordsNode) records.add(RailincRecord.fromJsonNode(recordNode));
+            RailincFieldTable fieldTable = null;
+            for (JsonNode recordNode : recordsNode) {
+                RailincRecord record = RailincRecord.fromJsonNode(recordNode, fieldTable);
+                fieldTable = record.getFieldTable();
+                records.add(record);
+            }
         }
 
         // Parse trailer
@@ -1,52 +1,62 @@
 package com.example.edicleanarch.railinc.domain.model;
 
 
-import lombok.Getter;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Dynamic Railinc record that holds all fields from schema.
  *
- * No hardcoded fields - all data stored in a Map.
+ * No hardcoded fields - values are stored by schema index, the names live in a
+ * {@link RailincFieldTable} shared by all records of the schema.
  * New fields can be added to schema YAML without code changes.
+ *
+ * Parsing, validation and persistence all read the same values: {@link #getFields()},
+ * {@link #getSourceNode()} and {@link #asColumns(Map)} are views, nothing is copied per record.
  */
-@Getter
 public class RailincRecord {
 
-    /**
-     * Dynamic fields parsed from fixed-width data.
-     * Key = field name from schema (e.g., "equipmentInitial", "mblNo")
-     * Value = parsed value (trimmed string)
-     */
-    private final Map<String, String> fields;
+    private final RailincFieldTable fieldTable;
 
     /**
-     * Original JsonNode for advanced access.
+     * Parsed values (trimmed strings), indexed like the field table.
      */
-    private final JsonNode sourceNode;
+    private final String[] values;
+
+    public RailincRecord(RailincFieldTable fieldTable, String[] values) {
+        this.fieldTable = fieldTable;
+        this.values = values;
+    }
 
-    public RailincRecord(Map<String, String> fields, JsonNode sourceNode) {
-        this.fields = new LinkedHashMap<>(fields);
-        this.sourceNode = sourceNode;
+    public RailincFieldTable getFieldTable() {
+        return fieldTable;
     }
 
     /**
      * Get field value by name (from schema).
      */
     public String get(String fieldName) {
-        return fields.getOrDefault(fieldName, "");
+        int index = fieldTable.indexOf(fieldName);
+        return index >= 0 ? values[index] : "";
     }
 
     /**
      * Get field value with default.
      */
     public String get(String fieldName, String defaultValue) {
-        String value = fields.get(fieldName);
+        int index = fieldTable.indexOf(fieldName);
+        String value = index >= 0 ? values[index] : null;
         return (value != null && !value.isEmpty()) ? value : defaultValue;
     }
 
@@ -54,39 +64,151 @@ public class RailincRecord {
      * Check if field exists in the record.
      */
     public boolean hasField(String fieldName) {
-        return fields.containsKey(fieldName);
+        return fieldTable.indexOf(fieldName) >= 0;
     }
 
     /**
      * Check if field exists and has non-empty value.
      */
     public boolean hasValue(String fieldName) {
-        String value = fields.get(fieldName);
-        return value != null && !value.isEmpty();
+        int index = fieldTable.indexOf(fieldName);
+        return index >= 0 && values[index] != null && !values[index].isEmpty();
     }
 
     /**
      * Get all field names.
      */
-    public java.util.Set<String> fieldNames() {
-        return fields.keySet();
+    public Set<String> fieldNames() {
+        return fieldTable.names();
+    }
+
+    /**
+     * Fields as a read-only map view (field name -> value), in schema order.
+     */
+    public Map<String, String> getFields() {
+        return new ColumnView<>(Map.of());
+    }
+
+    /**
+     * Fields plus extra columns (e.g. file name, partner) as a read-only map view for the
+     * record writers. Extra columns replace fields of the same name.
+     */
+    public Map<String, Object> asColumns(Map<String, Object> extraColumns) {
+        return new ColumnView<>(extraColumns);
+    }
+
+    /**
+     * Record as JsonNode, built on each call (for advanced access and the mapping engine).
+     */
+    public JsonNode getSourceNode() {
+        ObjectNode node = JsonNodeFactory.instance.objectNode();
+        for (int i = 0; i < values.length; i++) {
+            node.put(fieldTable.name(i), values[i]);
+        }
+        return node;
     }
 
     /**
      * Create from JsonNode (parsed by FixedWidthToJsonConverter).
      */
     public static RailincRecord fromJsonNode(JsonNode node) {
-        Map<String, String> fields = new LinkedHashMap<>();
+        return fromJsonNode(node, null);
+    }
+
+    /**
+     * Create from JsonNode, sharing the given field table when the node has the same fields.
+     */
+    static RailincRecord fromJsonNode(JsonNode node, RailincFieldTable fieldTable) {
+        List<String> names = new ArrayList<>();
+        List<String> fieldValues = new ArrayList<>();
 
         if (node != null && node.isObject()) {
             Iterator<Map.Entry<String, JsonNode>> it = node.fields();
             while (it.hasNext()) {
                 Map.Entry<String, JsonNode> entry = it.next();
-                String value = entry.getValue().isNull() ? "" : entry.getValue().asText();
-                fields.put(entry.getKey(), value);
+                names.add(entry.getKey());
+                fieldValues.add(entry.getValue().isNull() ? "" : entry.getValue().asText());
+            }
+        }
+
+        RailincFieldTable table = fieldTable != null && fieldTable.matches(names)
+                ? fieldTable : RailincFieldTable.of(names);
+        return new RailincRecord(table, fieldValues.toArray(String[]::new));
+    }
+
+    /**
+     * Read-only map over the values and optional extra columns; lookups go through the field table.
+     */
+    private final class ColumnView<V> extends AbstractMap<String, V> {
+
+        private final Map<String, ? extends V> extraColumns;
+
+        private ColumnView(Map<String, ? extends V> extraColumns) {
+            this.extraColumns = extraColumns;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            if (extraColumns.containsKey(key)) return extraColumns.get(key);
+            int index = key instanceof String name ? fieldTable.indexOf(name) : -1;
+            return index >= 0 ? (V) values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return extraColumns.containsKey(key) || (key instanceof String name && fieldTable.indexOf(name) >= 0);
+        }
+
+        @Override
+        public int size() {
+            int size = values.length + extraColumns.size();
+            for (String column : extraColumns.keySet()) {
+                if (fieldTable.indexOf(column) >= 0) size--;
             }
+            return size;
         }
 
-        return new RailincRecord(fields, node);
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    Iterator<? extends Entry<String, ? extends V>> extra = extraColumns.entrySet().iterator();
+                    return new Iterator<>() {
+                        private int index = skipReplaced(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < values.length || extra.hasNext();
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Entry<String, V> next() {
+                            if (index < values.length) {
+                                Entry<String, V> entry = new SimpleImmutableEntry<>(
+                                        fieldTable.name(index), (V) values[index]);
+                                index = skipReplaced(index + 1);
+                                return entry;
+                            }
+                            if (!extra.hasNext()) throw new NoSuchElementException();
+                            Entry<String, ? extends V> entry = extra.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return ColumnView.this.size();
+                }
+            };
+        }
+
+        private int skipReplaced(int index) {
+            while (index < values.length && extraColumns.containsKey(fieldTable.name(index))) index++;
+            return index;
+        }
     }
 }
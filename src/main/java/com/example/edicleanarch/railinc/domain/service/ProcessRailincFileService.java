@@ -1,40 +1,51 @@
 package com.example.edicleanarch.railinc.domain.service;
 
 import com.example.edicleanarch.common.annotation.UseCase;
+import com.example.edicleanarch.common.model.FileFingerprint;
 import com.example.edicleanarch.common.model.ProcessingResult;
-import com.example.edicleanarch.common.port.in.ProcessEdiFileUseCase;
+import com.example.edicleanarch.common.parser.FixedWidthSlicer;
+import com.example.edicleanarch.common.port.in.BatchResults;
+import com.example.edicleanarch.common.port.in.ProcessEdiBatchUseCase;
 import com.example.edicleanarch.common.port.in.ValidateEdiFileUseCase;
+import com.example.edicleanarch.common.port.out.FileLedgerPort;
+import com.example.edicleanarch.railinc.domain.model.RailincFile;
 import com.example.edicleanarch.railinc.domain.model.RailincParseResult;
 import com.example.edicleanarch.railinc.port.out.SaveRailincEventsPort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Domain Service: Process Railinc CLM File
  *
  * Flow:
+ * 0. Skip files already committed (processed-file ledger, keyed by content hash + CLM header)
  * 1. Parse fixed-width content to RailincParseResult (dynamic records)
  * 2. Validate the parse result
- * 3. Save records via outbound adapter
+ * 3. Save records via outbound adapter, with the ledger entry in the same transaction
+ *
+ * A batch of files (Kafka batch listener) is saved with one write.
  */
 @Slf4j
 @RequiredArgsConstructor
 @UseCase
-@Transactional
 public class ProcessRailincFileService implements
-        ProcessEdiFileUseCase<ProcessRailincFileCommand>,
+        ProcessEdiBatchUseCase<ProcessRailincFileCommand>,
         ValidateEdiFileUseCase<ValidateRailincFileCommand> {
 
-    private static final String MESSAGE_TYPE = "RAILINC_CLM";
+    private static final String MESSAGE_TYPE = RailincFile.MESSAGE_TYPE;
 
     private final RailincFileParser parser;
     private final RailincFileValidator validator;
     private final SaveRailincEventsPort saveEventsPort;
+    private final FileLedgerPort fileLedger;
 
     @Override
     public ProcessingResult processFile(ProcessRailincFileCommand command) {
@@ -44,6 +55,11 @@ public class ProcessRailincFileService implements
         long startTime = System.currentTimeMillis();
 
         try {
+            // 0. Redelivered file or reused control number: answered from the ledger
+            FileFingerprint fingerprint = fingerprint(command);
+            ProcessingResult processed = answerFromLedger(fingerprint, command, startTime);
+            if (processed != null) return processed;
+
             // 1. Parse to dynamic result
             RailincParseResult parseResult = parser.parse(command.content());
             log.debug("Parsed {} records from CLM file", parseResult.getRecordCount());
@@ -57,23 +73,18 @@ public class ProcessRailincFileService implements
             }
 
             // 3. Convert records to maps for saving
-            List<Map<String, Object>> recordMaps = new ArrayList<>();
-            parseResult.getRecords().forEach(record -> {
-                Map<String, Object> recordMap = new java.util.LinkedHashMap<>();
-                record.getFields().forEach(recordMap::put);
-                recordMap.put("fileName", command.fileName());
-                recordMap.put("partnerId", command.partnerId());
-                recordMaps.add(recordMap);
-            });
+            List<Map<String, Object>> recordMaps = toRecordMaps(parseResult, command);
 
-            // 4. Save
-            Map<String, Integer> insertCounts = saveEventsPort.saveRecords(
-                    recordMaps, command.fileName());
-
-            return ProcessingResult.success(
-                    MESSAGE_TYPE, command.fileName(), command.partnerId(),
-                    parseResult.getRecordCount(), insertCounts,
-                    System.currentTimeMillis() - startTime);
+            // 4. Save, committed with the ledger entry
+            ProcessingResult[] result = new ProcessingResult[1];
+            saveEventsPort.saveRecords(recordMaps, command.fileName(), insertCounts -> {
+                result[0] = ProcessingResult.success(
+                        MESSAGE_TYPE, command.fileName(), command.partnerId(),
+                        parseResult.getRecordCount(), insertCounts,
+                        System.currentTimeMillis() - startTime);
+                fileLedger.recordProcessed(fingerprint, result[0]);
+            });
+            return result[0];
 
         } catch (Exception e) {
             log.error("Error processing Railinc file: {}", command.fileName(), e);
@@ -83,6 +94,79 @@ public class ProcessRailincFileService implements
         }
     }
 
+    /**
+     * Parse and validate every file, then save the records of all files with one write.
+     * Files the ledger already has are answered from it and not saved again.
+     * Each result carries its own record count and the rows it wrote; rows skipped as
+     * duplicates in dedup mode are only known for the whole batch (logged by the writer).
+     * A payload repeated within the batch is saved once and answered with the first one's result.
+     */
+    @Override
+    public List<ProcessingResult> processFiles(List<ProcessRailincFileCommand> commands) {
+        log.info("Processing batch of {} Railinc files", commands.size());
+
+        long startTime = System.currentTimeMillis();
+        List<Map<String, Object>> recordMaps = new ArrayList<>();
+        ProcessingResult[] results = new ProcessingResult[commands.size()];
+        FileFingerprint[] fingerprints = new FileFingerprint[commands.size()];
+        int[] recordCounts = new int[commands.size()];
+        int[] repeatOf = new int[commands.size()];   // Index of the first file with the same payload, or -1
+        Arrays.fill(repeatOf, -1);
+        Map<FileFingerprint, Integer> firstIndexes = new HashMap<>();
+
+        try {
+            for (int i = 0; i < commands.size(); i++) {
+                ProcessRailincFileCommand command = commands.get(i);
+                fingerprints[i] = fingerprint(command);
+                Integer first = firstIndexes.putIfAbsent(fingerprints[i], i);
+                if (first != null) {
+                    repeatOf[i] = first;
+                    continue;
+                }
+                ProcessingResult processed = answerFromLedger(fingerprints[i], command, startTime);
+                if (processed != null && !processed.isSuccess()) {
+                    return BatchResults.rolledBack(MESSAGE_TYPE, commands, i, processed);
+                }
+                if (processed != null) {
+                    results[i] = processed;
+                    continue;
+                }
+
+                RailincParseResult parseResult = parser.parse(command.content());
+
+                List<String> errors = validator.validate(parseResult);
+                if (!errors.isEmpty()) {
+                    return BatchResults.rolledBack(MESSAGE_TYPE, commands, i, ProcessingResult.validationFailed(
+                            MESSAGE_TYPE, command.fileName(), command.partnerId(),
+                            errors, System.currentTimeMillis() - startTime));
+                }
+                recordMaps.addAll(toRecordMaps(parseResult, command));
+                recordCounts[i] = parseResult.getRecordCount();
+            }
+
+            // Ledger entries of the new files commit with the batch
+            saveEventsPort.saveRecords(recordMaps, BatchResults.batchName(commands), insertCounts -> {
+                long durationMs = System.currentTimeMillis() - startTime;
+                for (int i = 0; i < commands.size(); i++) {
+                    if (results[i] != null || repeatOf[i] >= 0) continue;
+                    ProcessRailincFileCommand command = commands.get(i);
+                    results[i] = ProcessingResult.success(
+                            MESSAGE_TYPE, command.fileName(), command.partnerId(),
+                            recordCounts[i], fileInsertCounts(insertCounts, recordCounts[i]), durationMs);
+                    fileLedger.recordProcessed(fingerprints[i], results[i]);
+                }
+            });
+            BatchResults.answerRepeats(results, repeatOf);
+            log.info("Processed batch of {} Railinc files: {} records saved", commands.size(), recordMaps.size());
+            return List.of(results);
+
+        } catch (Exception e) {
+            log.error("Error processing batch of {} Railinc files", commands.size(), e);
+            return BatchResults.rolledBack(MESSAGE_TYPE, commands, -1, null, e.getMessage(),
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
     @Override
     public ProcessingResult validateFile(ValidateRailincFileCommand command) {
         long startTime = System.currentTimeMillis();
@@ -108,4 +192,57 @@ public class ProcessRailincFileService implements
                     e.getMessage(), System.currentTimeMillis() - startTime);
         }
     }
+
+    /**
+     * Parsed records as column maps tagged with file name and partner (views of the records, not copies).
+     */
+    private static List<Map<String, Object>> toRecordMaps(RailincParseResult parseResult,
+                                                          ProcessRailincFileCommand command) {
+        Map<String, Object> fileColumns = new LinkedHashMap<>();
+        fileColumns.put("fileName", command.fileName());
+        fileColumns.put("partnerId", command.partnerId());
+
+        List<Map<String, Object>> recordMaps = new ArrayList<>(parseResult.getRecords().size());
+        parseResult.getRecords().forEach(record -> recordMaps.add(record.asColumns(fileColumns)));
+        return recordMaps;
+    }
+
+    /**
+     * Insert counts of one file of a batch: its own records, in the table(s) the batch wrote.
+     */
+    private static Map<String, Integer> fileInsertCounts(Map<String, Integer> batchCounts, int records) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        batchCounts.keySet().forEach(table -> counts.put(table, records));
+        return counts;
+    }
+
+    /**
+     * Same rule as the stream and content paths: a file the ledger has is answered with the
+     * committed result; a committed control number with other content is rejected.
+     *
+     * @return the answer, or null if the file is new
+     */
+    private ProcessingResult answerFromLedger(FileFingerprint fingerprint, ProcessRailincFileCommand command,
+                                              long startTime) {
+        Optional<ProcessingResult> processed = fileLedger.findProcessed(fingerprint);
+        if (processed.isPresent()) {
+            log.info("Railinc file {} already processed as {}, skipping",
+                    command.fileName(), processed.get().getFileName());
+            return processed.get();
+        }
+        if (fileLedger.hasControlNumber(MESSAGE_TYPE, fingerprint.controlNumber())) {
+            log.warn("Railinc file {} reuses control number {} with different content, skipping",
+                    command.fileName(), fingerprint.controlNumber());
+            return ProcessingResult.validationFailed(MESSAGE_TYPE, command.fileName(), command.partnerId(),
+                    List.of("Control number already processed with different content: "
+                            + fingerprint.controlNumber()),
+                    System.currentTimeMillis() - startTime);
+        }
+        return null;
+    }
+
+    private static FileFingerprint fingerprint(ProcessRailincFileCommand command) {
+        return FileFingerprint.of(MESSAGE_TYPE, command.content(),
+                FixedWidthSlicer.headerLine(command.content()));
+    }
 }
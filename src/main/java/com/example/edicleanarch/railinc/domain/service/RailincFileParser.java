@@ -1,17 +1,21 @@
 package com.example.edicleanarch.railinc.domain.service;
 
+import com.example.edicleanarch.common.parser.FixedWidthSlicer;
 import com.example.edicleanarch.common.parser.FixedWidthToJsonConverter;
 import com.example.edicleanarch.common.schema.FixedWidthSchema;
 import com.example.edicleanarch.railinc.domain.model.ContainerEvent;
 import com.example.edicleanarch.railinc.domain.model.RailincFile;
+import com.example.edicleanarch.railinc.domain.model.RailincFieldTable;
 import com.example.edicleanarch.railinc.domain.model.RailincParseResult;
+import com.example.edicleanarch.railinc.domain.model.RailincRecord;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
-import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Domain Service: Railinc File Parser
@@ -29,8 +33,9 @@ import java.util.List;
  *
  * Flow:
  * 1. Load schema from YAML (field positions)
- * 2. Parse fixed-width content to JsonNode using schema
- * 3. Convert JsonNode to RailincParseResult (dynamic records)
+ * 2. Slice each line at the schema positions straight into a compact record
+ *    (String[] of values + field table shared by all records of the schema)
+ * 3. Collect them into a RailincParseResult (JsonNode form built only on demand)
  *
  * Adding a new field:
  * 1. Add field definition to railinc-schema.yml (name, start, end)
@@ -45,6 +50,8 @@ public class RailincFileParser {
     private final FixedWidthToJsonConverter jsonConverter;
     private final RailincSchemaLoader schemaLoader;
 
+    private volatile CompiledSchema compiled;
+
     /**
      * Parse Railinc CLM content using schema configuration.
      *
@@ -56,11 +63,8 @@ public class RailincFileParser {
         FixedWidthSchema schema = schemaLoader.loadSchema();
         log.debug("Loaded schema: {} v{}", schema.getName(), schema.getVersion());
 
-        // 2. Convert to JsonNode using schema positions
-        JsonNode jsonNode = jsonConverter.convert(content, schema);
-
-        // 3. Convert to dynamic result
-        RailincParseResult result = RailincParseResult.fromJsonNode(jsonNode);
+        // 2-3. Slice records using schema positions (compiled once per loaded schema)
+        RailincParseResult result = parse(content, compiled(schema));
 
         log.debug("Parsed {} records from CLM file", result.getRecordCount());
         return result;
@@ -74,8 +78,51 @@ public class RailincFileParser {
      * @return RailincParseResult with dynamic records
      */
     public RailincParseResult parse(String content, FixedWidthSchema schema) {
-        JsonNode jsonNode = jsonConverter.convert(content, schema);
-        return RailincParseResult.fromJsonNode(jsonNode);
+        return parse(content, compile(schema));
+    }
+
+    private static RailincParseResult parse(CharSequence content, CompiledSchema schema) {
+        Map<String, String> header = new LinkedHashMap<>();
+        List<RailincRecord> records = new ArrayList<>();
+        Map<String, String> trailer = new LinkedHashMap<>();
+
+        FixedWidthSlicer.Cursor line = schema.slicer().cursor(content);
+        while (line.next()) {
+            switch (line.kind()) {
+                case HEADER -> section(line, header);
+                case TRAILER -> section(line, trailer);
+                case DATA -> {
+                    String[] values = new String[line.fieldCount()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = line.value(i);
+                    }
+                    records.add(new RailincRecord(schema.dataFields(), values));
+                }
+            }
+        }
+        return RailincParseResult.of(header, records, trailer);
+    }
+
+    private static void section(FixedWidthSlicer.Cursor line, Map<String, String> fields) {
+        fields.clear();
+        for (int i = 0; i < line.fieldCount(); i++) {
+            fields.put(line.name(i), line.value(i));
+        }
+    }
+
+    private CompiledSchema compiled(FixedWidthSchema schema) {
+        CompiledSchema current = compiled;
+        if (current == null || current.schema() != schema) {
+            current = compile(schema);
+            compiled = current;
+        }
+        return current;
+    }
+
+    private CompiledSchema compile(FixedWidthSchema schema) {
+        FixedWidthSlicer slicer = jsonConverter.compile(schema);
+        return new CompiledSchema(schema, slicer,
+                RailincFieldTable.of(slicer.fieldNames(FixedWidthSlicer.RecordKind.DATA)));
     }
 
     /**
@@ -92,4 +139,6 @@ public class RailincFileParser {
         schemaLoader.reloadSchema();
         log.info("Schema reloaded");
     }
+
+    private record CompiledSchema(FixedWidthSchema schema, FixedWidthSlicer slicer, RailincFieldTable dataFields) {}
 }
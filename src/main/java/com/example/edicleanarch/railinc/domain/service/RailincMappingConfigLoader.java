@@ -1,10 +1,13 @@
 package com.example.edicleanarch.railinc.domain.service;
 
 
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
 import com.example.edicleanarch.common.mapping.FieldMapping;
 import com.example.edicleanarch.common.mapping.MappingConfig;
 import com.example.edicleanarch.common.mapping.TargetTableConfig;
+import com.example.edicleanarch.common.transform.TransformFunctions;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
@@ -24,17 +27,22 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class RailincMappingConfigLoader {
 
     @Value("${app.edi.railinc.mapping-path:classpath:config/mappings/inbound/railinc-mapping.yml}")
     private Resource mappingResource;
 
+    private final TransformFunctions transformFunctions;
+
     private MappingConfig cachedConfig;
+    private CompiledMappingPlan cachedPlan;
 
     @PostConstruct
     void init() {
         try {
             cachedConfig = loadConfigFromYaml();
+            cachedPlan = CompiledMappingPlan.compile(cachedConfig, transformFunctions);
             log.info("Loaded Railinc mapping config: {} v{}",
                     cachedConfig.getEdiType(), cachedConfig.getVersion());
         } catch (Exception e) {
@@ -49,8 +57,19 @@ public class RailincMappingConfigLoader {
         return cachedConfig;
     }
 
+    /**
+     * Mapping config compiled into an executable plan (built once, reused per file).
+     */
+    public CompiledMappingPlan loadPlan() {
+        if (cachedPlan == null) {
+            cachedPlan = CompiledMappingPlan.compile(loadConfig(), transformFunctions);
+        }
+        return cachedPlan;
+    }
+
     public MappingConfig reloadConfig() {
         cachedConfig = loadConfigFromYaml();
+        cachedPlan = CompiledMappingPlan.compile(cachedConfig, transformFunctions);
         log.info("Reloaded Railinc mapping config");
         return cachedConfig;
     }
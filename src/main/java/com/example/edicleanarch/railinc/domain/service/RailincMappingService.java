@@ -1,8 +1,8 @@
 package com.example.edicleanarch.railinc.domain.service;
 
 
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
 import com.example.edicleanarch.common.mapping.EdiMappingEngine;
-import com.example.edicleanarch.common.mapping.MappingConfig;
 import com.example.edicleanarch.common.mapping.MappingResult;
 import com.example.edicleanarch.common.mapping.ProcessingContext;
 import com.example.edicleanarch.railinc.domain.model.RailincParseResult;
@@ -69,8 +69,8 @@ public class RailincMappingService {
             ));
         }
 
-        // 3. Load mapping config (transformations from YAML)
-        MappingConfig mappingConfig = mappingConfigLoader.loadConfig();
+        // 3. Load compiled mapping plan (transformations from YAML)
+        CompiledMappingPlan mappingPlan = mappingConfigLoader.loadPlan();
 
         // 4. Create processing context
         ProcessingContext context = ProcessingContext.builder()
@@ -82,7 +82,7 @@ public class RailincMappingService {
 
         // 5. Transform to database records using mapping engine
         JsonNode sourceJson = parseResult.getSourceJson();
-        MappingResult result = mappingEngine.transform(sourceJson, mappingConfig, partnerId, context);
+        MappingResult result = mappingEngine.transform(sourceJson, mappingPlan, partnerId, context);
 
         log.info("Processed {} records from {}", parseResult.getRecordCount(), fileName);
         return result;
@@ -2,54 +2,79 @@ package com.example.edicleanarch.railinc.domain.service.inbound;
 
 
 import com.example.edicleanarch.common.annotation.UseCase;
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
 import com.example.edicleanarch.common.mapping.EdiMappingEngine;
 import com.example.edicleanarch.common.mapping.MappingConfig;
 import com.example.edicleanarch.common.mapping.MappingResult;
+import com.example.edicleanarch.common.mapping.ParallelMappingExecutor;
 import com.example.edicleanarch.common.mapping.ProcessingContext;
+import com.example.edicleanarch.common.model.FileFingerprint;
 import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.common.parser.FixedWidthRecordReader;
+import com.example.edicleanarch.common.parser.FixedWidthSlicer;
 import com.example.edicleanarch.common.parser.FixedWidthToJsonConverter;
+import com.example.edicleanarch.common.port.in.ProcessEdiContentUseCase;
 import com.example.edicleanarch.common.port.in.ProcessEdiFileUseCase;
+import com.example.edicleanarch.common.port.in.ProcessEdiStreamUseCase;
+import com.example.edicleanarch.common.port.out.FileLedgerPort;
+import com.example.edicleanarch.common.port.out.RecordWriter;
 import com.example.edicleanarch.common.schema.FixedWidthSchema;
+import com.example.edicleanarch.railinc.domain.model.RailincFile;
 import com.example.edicleanarch.railinc.port.out.SaveRailincEventsPort;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Domain Service: Process Railinc CLM File using config-driven approach.
  *
  * Flow:
+ * 0. Skip files already committed (processed-file ledger, keyed by content hash + CLM header)
  * 1. Load fixed-width schema configuration
  * 2. Convert fixed-width content to JsonNode (intermediate format)
  * 3. Load mapping configuration (YAML or DB)
  * 4. Transform JsonNode to database records using EdiMappingEngine
- * 5. Save records via outbound adapter
+ * 5. Save records via outbound adapter (chunked, transaction owned by the writer)
+ *
+ * Large files can be streamed instead ({@link #processStream}): records are read, mapped and
+ * saved in batches of STREAM_BATCH_SIZE and the EOM record count is checked before commit.
+ * Content read in place (file drop, {@link #processContent}) is split at line breaks and the
+ * parts are mapped on several cores; one writer saves them in file order.
  */
 @Slf4j
 @UseCase
 @RequiredArgsConstructor
-@Transactional
-public class ProcessRailincService implements ProcessEdiFileUseCase<ProcessRailincCommand> {
+public class ProcessRailincService implements ProcessEdiFileUseCase<ProcessRailincCommand>,
+        ProcessEdiStreamUseCase, ProcessEdiContentUseCase {
 
     private static final String MESSAGE_TYPE = "RAILINC";
+    private static final String LEDGER_TYPE = RailincFile.MESSAGE_TYPE;   // Same ledger key as the Kafka path
+    private static final int STREAM_BATCH_SIZE = 1000;   // Records read and mapped at a time
 
     private final FixedWidthToJsonConverter fixedWidthConverter;
     private final EdiMappingEngine mappingEngine;
     private final SaveRailincEventsPort saveEventsPort;
+    private final FileLedgerPort fileLedger;
+    private final ParallelMappingExecutor parallelMapping;
 
     private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
-    private final Map<String, FixedWidthSchema> schemaCache = new ConcurrentHashMap<>();
-    private final Map<String, MappingConfig> configCache = new ConcurrentHashMap<>();
+    private final Map<String, FixedWidthSlicer> schemaCache = new ConcurrentHashMap<>();
+    private final Map<String, CompiledMappingPlan> planCache = new ConcurrentHashMap<>();
 
     @Override
     public ProcessingResult processFile(ProcessRailincCommand command) {
@@ -59,16 +84,23 @@ public class ProcessRailincService implements ProcessEdiFileUseCase<ProcessRaili
         long startTime = System.currentTimeMillis();
 
         try {
-            // 1. Load fixed-width schema
-            FixedWidthSchema schema = loadSchema(command.partnerId());
+            // 0. Redelivered file or reused control number: answered from the ledger
+            FileFingerprint fingerprint = FileFingerprint.of(LEDGER_TYPE, command.content(),
+                    FixedWidthSlicer.headerLine(command.content()));
+            ProcessingResult processed = answerFromLedger(fingerprint, command.partnerId(), command.fileName(),
+                    startTime);
+            if (processed != null) return processed;
+
+            // 1. Load fixed-width schema (compiled column slicer)
+            FixedWidthSlicer slicer = loadSchema(command.partnerId());
 
             // 2. Convert fixed-width to JsonNode
-            JsonNode railincJson = fixedWidthConverter.convert(command.content(), schema);
+            JsonNode railincJson = fixedWidthConverter.convert(command.content(), slicer);
             int recordCount = railincJson.get("_metadata").get("recordCount").asInt();
             log.debug("Converted Railinc to JsonNode: {} records", recordCount);
 
-            // 3. Load mapping configuration
-            MappingConfig config = loadMappingConfig(command.partnerId());
+            // 3. Load compiled mapping plan
+            CompiledMappingPlan plan = loadMappingPlan(command.partnerId());
 
             // 4. Create processing context
             ProcessingContext context = ProcessingContext.builder()
@@ -79,7 +111,7 @@ public class ProcessRailincService implements ProcessEdiFileUseCase<ProcessRaili
 
             // 5. Transform using mapping engine
             MappingResult mappingResult = mappingEngine.transform(
-                    railincJson, config, command.partnerId(), context);
+                    railincJson, plan, command.partnerId(), context);
 
             if (!mappingResult.isSuccess()) {
                 return ProcessingResult.validationFailed(MESSAGE_TYPE, command.fileName(),
@@ -87,16 +119,23 @@ public class ProcessRailincService implements ProcessEdiFileUseCase<ProcessRaili
                         System.currentTimeMillis() - startTime);
             }
 
-            // 6. Save to database
-            List<Map<String, Object>> cdbEvents = mappingResult.getRecords("CDB_EVENT");
-            Map<String, Integer> insertCounts = saveEventsPort.saveRecords(cdbEvents, command.fileName());
+            // 6. Save every target table to database in chunks (edi.persistence.batch-size),
+            //    committed with the ledger entry
+            ProcessingResult[] result = new ProcessingResult[1];
+            try (RecordWriter writer = saveEventsPort.openWriter(command.fileName(),
+                    plan.getConfig().getTargets())) {
+                writer.write(mappingResult.getRecordsByTable());
+                writer.finish(insertCounts -> {
+                    result[0] = ProcessingResult.success(MESSAGE_TYPE, command.fileName(),
+                            command.partnerId(), mappingResult.getTotalRecords(), insertCounts,
+                            System.currentTimeMillis() - startTime);
+                    fileLedger.recordProcessed(fingerprint, result[0]);
+                });
+            }
 
             log.info("Processed Railinc file {}: {} records saved",
                     command.fileName(), mappingResult.getTotalRecords());
-
-            return ProcessingResult.success(MESSAGE_TYPE, command.fileName(),
-                    command.partnerId(), mappingResult.getTotalRecords(), insertCounts,
-                    System.currentTimeMillis() - startTime);
+            return result[0];
 
         } catch (Exception e) {
             log.error("Error processing Railinc file: {}", command.fileName(), e);
@@ -107,16 +146,226 @@ public class ProcessRailincService implements ProcessEdiFileUseCase<ProcessRaili
     }
 
     /**
-     * Load fixed-width schema (with partner override support).
+     * Stream a CLM file: only one batch of records is held at a time. The content is hashed
+     * while it is read. The ledger is checked once the CLM header is read: a control number it
+     * already has is only hashed to the end, not mapped or written, and answered with the
+     * committed result. The stream is closed when processing ends.
+     */
+    @Override
+    public ProcessingResult processStream(InputStream content, String partnerId, String fileName) {
+        log.info("Streaming Railinc file: {} for partner: {}", fileName, partnerId);
+
+        long startTime = System.currentTimeMillis();
+        DigestInputStream hashed = new DigestInputStream(content, FileFingerprint.newDigest());
+
+        try (FixedWidthRecordReader reader = fixedWidthConverter.stream(hashed, loadSchema(partnerId))) {
+            // 0. Redelivered file: the header (control number) precedes the first batch
+            ArrayNode records = reader.readRecords(STREAM_BATCH_SIZE);
+            String controlNumber = reader.getHeaderLine();
+            if (fileLedger.hasControlNumber(LEDGER_TYPE, controlNumber)) {
+                return skipProcessed(hashed, controlNumber, partnerId, fileName, startTime);
+            }
+
+            CompiledMappingPlan plan = mappingEngine.applyPartnerOverrides(loadMappingPlan(partnerId), partnerId);
+            ProcessingContext context = ProcessingContext.builder()
+                    .partnerId(partnerId)
+                    .fileName(fileName)
+                    .timestamp(LocalDateTime.now())
+                    .build();
+
+            try (RecordWriter writer = saveEventsPort.openWriter(fileName, plan.getConfig().getTargets())) {
+                // 1. Read, map and queue batches; after the first error only read on to the trailer
+                List<String> errors = new ArrayList<>();
+                int totalRecords = 0;
+                for (; !records.isEmpty(); records = reader.readRecords(STREAM_BATCH_SIZE)) {
+                    if (!errors.isEmpty()) continue;
+
+                    MappingResult mappingResult = mappingEngine.transformRecords(reader.chunk(records), plan,
+                            context, reader.getRecordCount() - records.size());
+                    if (!mappingResult.isSuccess()) {
+                        errors.addAll(mappingResult.getErrors());
+                        continue;
+                    }
+                    writer.write(mappingResult.getRecordsByTable());
+                    totalRecords += mappingResult.getTotalRecords();
+                }
+
+                // 2. Header, trailer and EOM record count
+                errors.addAll(mappingEngine.validate(reader.summary(), plan));
+                if (!errors.isEmpty()) {
+                    writer.abort();
+                    return ProcessingResult.validationFailed(MESSAGE_TYPE, fileName, partnerId, errors,
+                            System.currentTimeMillis() - startTime);
+                }
+
+                // 3. Save remaining records and commit them with the ledger entry
+                //    (a concurrent run of the same file fails on the ledger key and rolls back)
+                FileFingerprint fingerprint = FileFingerprint.of(LEDGER_TYPE, hashed.getMessageDigest(),
+                        controlNumber);
+                int savedRecords = totalRecords;
+                ProcessingResult[] result = new ProcessingResult[1];
+                writer.finish(insertCounts -> {
+                    result[0] = ProcessingResult.success(MESSAGE_TYPE, fileName, partnerId,
+                            savedRecords, insertCounts, System.currentTimeMillis() - startTime);
+                    fileLedger.recordProcessed(fingerprint, result[0]);
+                });
+                log.info("Streamed Railinc file {}: {} records read, {} saved",
+                        fileName, reader.getRecordCount(), totalRecords);
+                return result[0];
+            }
+
+        } catch (Exception e) {
+            log.error("Error streaming Railinc file: {}", fileName, e);
+            return ProcessingResult.error(MESSAGE_TYPE, fileName, partnerId, e.getMessage(),
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Answer a streamed file whose control number the ledger has: hash the rest of the stream
+     * (nothing is parsed or written) and answer it from the ledger.
+     */
+    private ProcessingResult skipProcessed(DigestInputStream hashed, String controlNumber, String partnerId,
+                                           String fileName, long startTime) throws IOException {
+        hashed.transferTo(OutputStream.nullOutputStream());
+        FileFingerprint fingerprint = FileFingerprint.of(LEDGER_TYPE, hashed.getMessageDigest(), controlNumber);
+        ProcessingResult processed = answerFromLedger(fingerprint, partnerId, fileName, startTime);
+        return processed != null ? processed : reusedControlNumber(controlNumber, partnerId, fileName, startTime);
+    }
+
+    /**
+     * The same rule on every path: a file the ledger has is answered with the committed result;
+     * a committed control number with other content is rejected, not run a second time.
+     *
+     * @return the answer, or null if the file is new
+     */
+    private ProcessingResult answerFromLedger(FileFingerprint fingerprint, String partnerId, String fileName,
+                                              long startTime) {
+        Optional<ProcessingResult> processed = fileLedger.findProcessed(fingerprint);
+        if (processed.isPresent()) {
+            log.info("Railinc file {} already processed as {}, skipping",
+                    fileName, processed.get().getFileName());
+            return processed.get();
+        }
+        if (fileLedger.hasControlNumber(LEDGER_TYPE, fingerprint.controlNumber())) {
+            return reusedControlNumber(fingerprint.controlNumber(), partnerId, fileName, startTime);
+        }
+        return null;
+    }
+
+    private ProcessingResult reusedControlNumber(String controlNumber, String partnerId, String fileName,
+                                                 long startTime) {
+        log.warn("Railinc file {} reuses control number {} with different content, skipping",
+                fileName, controlNumber);
+        return ProcessingResult.validationFailed(MESSAGE_TYPE, fileName, partnerId,
+                List.of("Control number already processed with different content: " + controlNumber),
+                System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Process a CLM file read in place, e.g. a memory-mapped file. Parts of about
+     * edi.file-drop.part-size are mapped in parallel and written in file order; header,
+     * trailer and EOM record count are checked for the whole file before commit.
+     */
+    @Override
+    public ProcessingResult processContent(CharSequence content, String contentHash, String partnerId,
+                                           String fileName) {
+        log.info("Processing Railinc content: {} for partner: {}", fileName, partnerId);
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            // 0. Redelivered file or reused control number: answered from the ledger
+            FileFingerprint fingerprint = FileFingerprint.ofHash(LEDGER_TYPE, contentHash,
+                    FixedWidthSlicer.headerLine(content));
+            ProcessingResult processed = answerFromLedger(fingerprint, partnerId, fileName, startTime);
+            if (processed != null) return processed;
+
+            CompiledMappingPlan plan = mappingEngine.applyPartnerOverrides(loadMappingPlan(partnerId), partnerId);
+            List<FixedWidthRecordReader> parts = fixedWidthConverter.split(content, loadSchema(partnerId),
+                    parallelMapping.partsFor(content.length()));
+            ProcessingContext context = ProcessingContext.builder()
+                    .partnerId(partnerId)
+                    .fileName(fileName)
+                    .timestamp(LocalDateTime.now())
+                    .build();
+
+            try (RecordWriter writer = saveEventsPort.openWriter(fileName, plan.getConfig().getTargets())) {
+                // 1. Map parts in parallel, write them in order; after the first error stop writing
+                List<String> errors = new ArrayList<>();
+                int[] totalRecords = new int[1];
+                parallelMapping.mapInOrder(parts, part -> mapPart(part, plan, context), mappingResult -> {
+                    if (!mappingResult.isSuccess()) {
+                        errors.addAll(mappingResult.getErrors());
+                    } else if (errors.isEmpty()) {
+                        writer.write(mappingResult.getRecordsByTable());
+                        totalRecords[0] += mappingResult.getTotalRecords();
+                    }
+                });
+
+                // 2. Header, trailer and EOM record count of the whole file
+                errors.addAll(mappingEngine.validate(FixedWidthRecordReader.summaryOf(parts), plan));
+                if (!errors.isEmpty()) {
+                    writer.abort();
+                    return ProcessingResult.validationFailed(MESSAGE_TYPE, fileName, partnerId, errors,
+                            System.currentTimeMillis() - startTime);
+                }
+
+                // 3. Save remaining records and commit them with the ledger entry
+                ProcessingResult[] result = new ProcessingResult[1];
+                writer.finish(insertCounts -> {
+                    result[0] = ProcessingResult.success(MESSAGE_TYPE, fileName, partnerId,
+                            totalRecords[0], insertCounts, System.currentTimeMillis() - startTime);
+                    fileLedger.recordProcessed(fingerprint, result[0]);
+                });
+                log.info("Processed Railinc file {} in {} parts: {} records saved",
+                        fileName, parts.size(), totalRecords[0]);
+                return result[0];
+            }
+
+        } catch (Exception e) {
+            log.error("Error processing Railinc file: {}", fileName, e);
+            return ProcessingResult.error(MESSAGE_TYPE, fileName, partnerId, e.getMessage(),
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Map the records of one part in batches of STREAM_BATCH_SIZE into a single result
+     * (runs on a mapping thread). Record indexes in error messages are relative to the part.
+     */
+    private MappingResult mapPart(FixedWidthRecordReader part, CompiledMappingPlan plan,
+                                  ProcessingContext context) {
+        MappingResult partResult = new MappingResult();
+        List<String> errors = new ArrayList<>();
+        try {
+            for (ArrayNode records = part.readRecords(STREAM_BATCH_SIZE); !records.isEmpty();
+                 records = part.readRecords(STREAM_BATCH_SIZE)) {
+                MappingResult mappingResult = mappingEngine.transformRecords(part.chunk(records), plan,
+                        context, part.getRecordCount() - records.size());
+                if (!mappingResult.isSuccess()) {
+                    errors.addAll(mappingResult.getErrors());
+                } else if (errors.isEmpty()) {
+                    mappingResult.getRecordsByTable().forEach(partResult::addRecords);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read Railinc records", e);
+        }
+        return errors.isEmpty() ? partResult : MappingResult.failed(errors);
+    }
+
+    /**
+     * Load fixed-width schema compiled into a slicer (with partner override support).
      */
-    private FixedWidthSchema loadSchema(String partnerId) {
+    private FixedWidthSlicer loadSchema(String partnerId) {
         String cacheKey = "RAILINC_CLM_" + (partnerId != null ? partnerId : "DEFAULT");
 
         return schemaCache.computeIfAbsent(cacheKey, k -> {
             try {
                 ClassPathResource resource = new ClassPathResource("edi/config/mappings/inbound/railinc-schema.yml");
                 try (InputStream is = resource.getInputStream()) {
-                    return yamlMapper.readValue(is, FixedWidthSchema.class);
+                    return fixedWidthConverter.compile(yamlMapper.readValue(is, FixedWidthSchema.class));
                 }
             } catch (Exception e) {
                 throw new RuntimeException("Failed to load Railinc schema", e);
@@ -125,16 +374,16 @@ public class ProcessRailincService implements ProcessEdiFileUseCase<ProcessRaili
     }
 
     /**
-     * Load mapping configuration (with partner override support).
+     * Load mapping configuration compiled into a plan (with partner override support).
      */
-    private MappingConfig loadMappingConfig(String partnerId) {
+    private CompiledMappingPlan loadMappingPlan(String partnerId) {
         String cacheKey = "RAILINC_" + (partnerId != null ? partnerId : "DEFAULT");
 
-        return configCache.computeIfAbsent(cacheKey, k -> {
+        return planCache.computeIfAbsent(cacheKey, k -> {
             try {
                 ClassPathResource resource = new ClassPathResource("edi/config/mappings/inbound/railinc-mapping.yml");
                 try (InputStream is = resource.getInputStream()) {
-                    return yamlMapper.readValue(is, MappingConfig.class);
+                    return mappingEngine.compile(yamlMapper.readValue(is, MappingConfig.class));
                 }
             } catch (Exception e) {
                 throw new RuntimeException("Failed to load Railinc mapping config", e);
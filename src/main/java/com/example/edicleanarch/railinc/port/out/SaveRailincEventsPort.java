@@ -1,9 +1,12 @@
 package com.example.edicleanarch.railinc.port.out;
 
+import com.example.edicleanarch.common.mapping.TargetTableConfig;
+import com.example.edicleanarch.common.port.out.RecordWriter;
 import com.example.edicleanarch.railinc.domain.model.ContainerEvent;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Output Port: Save Railinc Events
@@ -24,4 +27,26 @@ public interface SaveRailincEventsPort {
      * @return Map of table name to insert count
      */
     Map<String, Integer> saveRecords(List<Map<String, Object>> records, String fileName);
+
+    /**
+     * Save records like {@link #saveRecords(List, String)} and run beforeCommit in the same
+     * transaction (e.g. the processed-file ledger entry); if it throws, nothing is saved.
+     *
+     * @param records      List of records where keys are column names from YAML mapping
+     * @param fileName     Source file name for tracking
+     * @param beforeCommit Receives the insert counts before the records are committed
+     * @return Map of table name to insert count
+     */
+    Map<String, Integer> saveRecords(List<Map<String, Object>> records, String fileName,
+                                     Consumer<Map<String, Integer>> beforeCommit);
+
+    /**
+     * Open a writer that saves records of every target table in chunks while the caller keeps mapping.
+     * HEADER tables are written before their DETAIL tables; independent tables in parallel.
+     *
+     * @param fileName Source file name for tracking
+     * @param targets  Target tables from railinc-mapping.yml
+     * @return Writer; call finish() to commit, close() without finish() rolls back
+     */
+    RecordWriter openWriter(String fileName, List<TargetTableConfig> targets);
 }
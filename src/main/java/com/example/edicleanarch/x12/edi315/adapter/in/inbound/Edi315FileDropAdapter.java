@@ -0,0 +1,53 @@
+package com.example.edicleanarch.x12.edi315.adapter.in.inbound;
+
+import com.example.edicleanarch.common.adapter.in.file.AbstractFileDropAdapter;
+import com.example.edicleanarch.common.annotation.FileAdapter;
+import com.example.edicleanarch.common.port.in.ProcessEdiContentUseCase;
+import com.example.edicleanarch.config.EdiProperties;
+import com.example.edicleanarch.x12.edi315.domain.service.inbound.ProcessEdi315Service;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Inbound Adapter: File Drop for EDI 315 files
+ *
+ * Polls {edi.file-drop.directory}/edi315/{partnerId}/ and delegates to ProcessEdi315Service.
+ *
+ * Flow:
+ * Landing directory -> This Adapter (memory-mapped) -> ProcessEdi315Service -> SaveEdi315EventsPort -> Database
+ */
+@FileAdapter
+@ConditionalOnProperty(name = "edi.file-drop.enabled", havingValue = "true")
+@RequiredArgsConstructor
+class Edi315FileDropAdapter extends AbstractFileDropAdapter {
+
+    private final ProcessEdi315Service processEdi315Service;
+    private final EdiProperties properties;
+
+    @Scheduled(fixedDelayString = "${edi.file-drop.poll-interval:PT1M}")
+    @Override
+    protected void poll() {
+        super.poll();
+    }
+
+    @Override
+    protected ProcessEdiContentUseCase getUseCase() {
+        return processEdi315Service;
+    }
+
+    @Override
+    protected String getMessageType() {
+        return "EDI_315";
+    }
+
+    @Override
+    protected String getSubdirectory() {
+        return "edi315";
+    }
+
+    @Override
+    protected EdiProperties getProperties() {
+        return properties;
+    }
+}
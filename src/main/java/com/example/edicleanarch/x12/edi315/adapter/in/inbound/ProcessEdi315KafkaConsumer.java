@@ -2,8 +2,10 @@ package com.example.edicleanarch.x12.edi315.adapter.in.inbound;
 
 import com.example.edicleanarch.common.adapter.in.kafka.AbstractKafkaConsumerAdapter;
 import com.example.edicleanarch.common.adapter.in.kafka.KafkaMessageParser;
+import com.example.edicleanarch.common.adapter.in.kafka.OrderedParallelDispatcher;
 import com.example.edicleanarch.common.annotation.KafkaAdapter;
 import com.example.edicleanarch.common.port.in.ProcessEdiFileUseCase;
+import com.example.edicleanarch.config.EdiProperties;
 import com.example.edicleanarch.x12.edi315.domain.service.inbound.ProcessEdi315Command;
 import com.example.edicleanarch.x12.edi315.domain.service.inbound.ProcessEdi315Service;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +13,9 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Inbound Adapter: Kafka Consumer for EDI 315 files
  *
@@ -23,21 +28,40 @@ import org.springframework.kafka.support.Acknowledgment;
 @RequiredArgsConstructor
 class ProcessEdi315KafkaConsumer extends AbstractKafkaConsumerAdapter<ProcessEdi315Command> {
 
+    private static final String LISTENER_ID = "edi315-records";
     private static final String MESSAGE_TYPE = "EDI_315";
 
     private final ProcessEdi315Service processEdi315Service;
     private final KafkaMessageParser messageParser;
+    private final OrderedParallelDispatcher parallelDispatcher;
+    private final EdiProperties properties;
 
     @KafkaListener(
+            id = LISTENER_ID,
             topics = "${edi.edi315.kafka.topic:edi315-inbound}",
             groupId = "${edi.edi315.kafka.group-id:edi315-processor-group}",
-            concurrency = "${edi.edi315.kafka.concurrency:1}"
+            concurrency = "${edi.edi315.kafka.concurrency:1}",
+            containerFactory = "ediKafkaListenerContainerFactory",
+            autoStartup = "#{!${edi.edi315.kafka.batch-listener:false}}"
     )
     @Override
     protected void handleMessage(ConsumerRecord<String, String> record, Acknowledgment acknowledgment) {
         super.handleMessage(record, acknowledgment);
     }
 
+    @KafkaListener(
+            id = "edi315-batch",
+            topics = "${edi.edi315.kafka.topic:edi315-inbound}",
+            groupId = "${edi.edi315.kafka.group-id:edi315-processor-group}",
+            concurrency = "${edi.edi315.kafka.concurrency:1}",
+            containerFactory = "ediBatchKafkaListenerContainerFactory",
+            autoStartup = "${edi.edi315.kafka.batch-listener:false}"
+    )
+    @Override
+    protected void handleBatch(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        super.handleBatch(records, acknowledgment);
+    }
+
     @Override
     protected ProcessEdiFileUseCase<ProcessEdi315Command> getUseCase() {
         return processEdi315Service;
@@ -53,4 +77,24 @@ class ProcessEdi315KafkaConsumer extends AbstractKafkaConsumerAdapter<ProcessEdi
     protected String getMessageType() {
         return MESSAGE_TYPE;
     }
+
+    @Override
+    protected OrderedParallelDispatcher getParallelDispatcher() {
+        return properties.getEdi315().getKafka().isOrderedParallel() ? parallelDispatcher : null;
+    }
+
+    @Override
+    protected Duration getNackSleep() {
+        return properties.getKafka().getBatch().getNackSleep();
+    }
+
+    @Override
+    protected int getMaxAttempts() {
+        return properties.getKafka().getBatch().getMaxAttempts();
+    }
+
+    @Override
+    protected String getListenerId() {
+        return LISTENER_ID;
+    }
 }
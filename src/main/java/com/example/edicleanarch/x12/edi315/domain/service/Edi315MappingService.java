@@ -1,7 +1,7 @@
 package com.example.edicleanarch.x12.edi315.domain.service;
 
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
 import com.example.edicleanarch.common.mapping.EdiMappingEngine;
-import com.example.edicleanarch.common.mapping.MappingConfig;
 import com.example.edicleanarch.common.mapping.MappingResult;
 import com.example.edicleanarch.common.mapping.ProcessingContext;
 import com.example.edicleanarch.common.parser.X12ToJsonConverter;
@@ -47,8 +47,8 @@ public class Edi315MappingService {
         // 1. Parse X12 content to JsonNode
         JsonNode ediJson = x12Converter.convert(content);
 
-        // 2. Load mapping config
-        MappingConfig mappingConfig = mappingConfigLoader.loadConfig();
+        // 2. Load compiled mapping plan
+        CompiledMappingPlan mappingPlan = mappingConfigLoader.loadPlan();
 
         // 3. Create processing context
         ProcessingContext context = ProcessingContext.builder()
@@ -59,7 +59,7 @@ public class Edi315MappingService {
                 .build();
 
         // 4. Transform to database records using mapping engine
-        MappingResult result = mappingEngine.transform(ediJson, mappingConfig, partnerId, context);
+        MappingResult result = mappingEngine.transform(ediJson, mappingPlan, partnerId, context);
 
         log.info("Processed EDI 315 file {} - {} records", fileName, result.getTotalRecords());
         return result;
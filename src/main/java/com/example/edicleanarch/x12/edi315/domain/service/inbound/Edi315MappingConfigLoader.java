@@ -1,9 +1,12 @@
 package com.example.edicleanarch.x12.edi315.domain.service.inbound;
 
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
 import com.example.edicleanarch.common.mapping.FieldMapping;
 import com.example.edicleanarch.common.mapping.MappingConfig;
 import com.example.edicleanarch.common.mapping.TargetTableConfig;
+import com.example.edicleanarch.common.transform.TransformFunctions;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
@@ -26,17 +29,22 @@ import java.util.Map;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class Edi315MappingConfigLoader {
 
     @Value("${app.edi.edi315.mapping-path:classpath:config/mappings/inbound/edi315-mapping.yml}")
     private Resource mappingResource;
 
+    private final TransformFunctions transformFunctions;
+
     private MappingConfig cachedConfig;
+    private CompiledMappingPlan cachedPlan;
 
     @PostConstruct
     void init() {
         try {
             cachedConfig = loadConfigFromYaml();
+            cachedPlan = CompiledMappingPlan.compile(cachedConfig, transformFunctions);
             log.info("Loaded EDI 315 mapping config: {} v{}",
                     cachedConfig.getEdiType(), cachedConfig.getVersion());
         } catch (Exception e) {
@@ -51,8 +59,19 @@ public class Edi315MappingConfigLoader {
         return cachedConfig;
     }
 
+    /**
+     * Mapping config compiled into an executable plan (built once, reused per file).
+     */
+    public CompiledMappingPlan loadPlan() {
+        if (cachedPlan == null) {
+            cachedPlan = CompiledMappingPlan.compile(loadConfig(), transformFunctions);
+        }
+        return cachedPlan;
+    }
+
     public MappingConfig reloadConfig() {
         cachedConfig = loadConfigFromYaml();
+        cachedPlan = CompiledMappingPlan.compile(cachedConfig, transformFunctions);
         log.info("Reloaded EDI 315 mapping config");
         return cachedConfig;
     }
@@ -1,21 +1,32 @@
 package com.example.edicleanarch.x12.edi315.domain.service.inbound;
 
 import com.example.edicleanarch.common.annotation.UseCase;
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
 import com.example.edicleanarch.common.mapping.EdiMappingEngine;
-import com.example.edicleanarch.common.mapping.MappingConfig;
 import com.example.edicleanarch.common.mapping.MappingResult;
+import com.example.edicleanarch.common.mapping.ParallelMappingExecutor;
 import com.example.edicleanarch.common.mapping.ProcessingContext;
+import com.example.edicleanarch.common.model.FileFingerprint;
 import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.common.parser.X12InterchangeReader;
 import com.example.edicleanarch.common.parser.X12ToJsonConverter;
-import com.example.edicleanarch.common.port.in.ProcessEdiFileUseCase;
+import com.example.edicleanarch.common.parser.X12Tokenizer;
+import com.example.edicleanarch.common.port.in.BatchResults;
+import com.example.edicleanarch.common.port.in.ProcessEdiBatchUseCase;
+import com.example.edicleanarch.common.port.in.ProcessEdiContentUseCase;
+import com.example.edicleanarch.common.port.out.FileLedgerPort;
+import com.example.edicleanarch.common.port.out.RecordWriter;
 import com.example.edicleanarch.x12.edi315.port.out.SaveEdi315EventsPort;
-import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Domain Service: Process EDI 315 File (Fully Dynamic / Config-Driven)
@@ -24,10 +35,18 @@ import java.util.Map;
  * All field definitions come from edi315-mapping.yml.
  *
  * Flow:
- * 1. Convert X12 EDI to JsonNode (intermediate format)
- * 2. Load mapping configuration from YAML
- * 3. Transform JsonNode to database records using EdiMappingEngine
- * 4. Save records via dynamic outbound adapter
+ * 0. Skip files already committed (processed-file ledger, keyed by content hash + ISA13)
+ * 1. Load compiled mapping plan (YAML compiled once at startup)
+ * 2. Stream X12 EDI one transaction set at a time (X12InterchangeReader)
+ * 3. Transform each transaction to database records using EdiMappingEngine
+ * 4. Save records in chunks via dynamic outbound adapter (RecordWriter)
+ *
+ * Only one transaction plus two chunks (one filling, one in flight) are held
+ * in memory, so heap usage does not grow with file size. The writer owns the
+ * database transaction (edi.persistence.*); validation errors abort it.
+ * A batch of files (Kafka batch listener) shares one writer and one commit.
+ * Content read in place (file drop, {@link #processContent}) is split before ST segments
+ * and the parts are mapped on several cores; one writer saves them in file order.
  *
  * Adding a new field:
  * 1. Add to edi315-mapping.yml (field transformation)
@@ -36,8 +55,8 @@ import java.util.Map;
 @Slf4j
 @UseCase
 @RequiredArgsConstructor
-@Transactional
-public class ProcessEdi315Service implements ProcessEdiFileUseCase<ProcessEdi315Command> {
+public class ProcessEdi315Service implements ProcessEdiBatchUseCase<ProcessEdi315Command>,
+        ProcessEdiContentUseCase {
 
     private static final String MESSAGE_TYPE = "315";
 
@@ -45,6 +64,8 @@ public class ProcessEdi315Service implements ProcessEdiFileUseCase<ProcessEdi315
     private final EdiMappingEngine mappingEngine;
     private final Edi315MappingConfigLoader mappingConfigLoader;
     private final SaveEdi315EventsPort saveEventsPort;
+    private final FileLedgerPort fileLedger;
+    private final ParallelMappingExecutor parallelMapping;
 
     @Override
     public ProcessingResult processFile(ProcessEdi315Command command) {
@@ -54,46 +75,264 @@ public class ProcessEdi315Service implements ProcessEdiFileUseCase<ProcessEdi315
         long startTime = System.currentTimeMillis();
 
         try {
-            // 1. Convert X12 EDI to JsonNode
-            JsonNode ediJson = x12Converter.convert(command.content());
-            int transactionCount = ediJson.get("transactions").size();
-            log.debug("Converted EDI 315 to JsonNode: {} transactions", transactionCount);
+            // 0. Redelivered file: answer with the result of the committed run
+            FileFingerprint fingerprint = fingerprint(command);
+            Optional<ProcessingResult> processed = fileLedger.findProcessed(fingerprint);
+            if (processed.isPresent()) {
+                log.info("EDI 315 file {} already processed as {}, skipping",
+                        command.fileName(), processed.get().getFileName());
+                return processed.get();
+            }
 
-            // 2. Load mapping configuration from YAML
-            MappingConfig config = mappingConfigLoader.loadConfig();
+            // 1. Load compiled mapping plan (built from YAML at startup)
+            CompiledMappingPlan plan = mappingConfigLoader.loadPlan();
 
-            // 3. Create processing context
-            ProcessingContext context = new ProcessingContext();
-            context.setPartnerId(command.partnerId());
-            context.setFileName(command.fileName());
-            context.setEdiType("EDI_315");
+            try (RecordWriter writer = saveEventsPort.openWriter(command.fileName(),
+                    plan.getConfig().getTargets())) {
+                // 2-3. Stream and map transactions, the writer saves full chunks in the background
+                List<String> errors = new ArrayList<>();
+                int totalRecords = mapFile(command, plan, writer, errors, new HashMap<>());
 
-            // 4. Transform using mapping engine
-            MappingResult mappingResult = mappingEngine.transform(
-                    ediJson, config, command.partnerId(), context);
+                if (!errors.isEmpty()) {
+                    // Undo chunks already written for this file
+                    writer.abort();
+                    return ProcessingResult.validationFailed(MESSAGE_TYPE, command.fileName(),
+                            command.partnerId(), errors,
+                            System.currentTimeMillis() - startTime);
+                }
 
-            if (!mappingResult.isSuccess()) {
-                return ProcessingResult.validationFailed(MESSAGE_TYPE, command.fileName(),
-                        command.partnerId(), mappingResult.getErrors(),
-                        System.currentTimeMillis() - startTime);
+                // 4. Save remaining records and commit them with the ledger entry
+                ProcessingResult[] result = new ProcessingResult[1];
+                writer.finish(insertCounts -> {
+                    result[0] = ProcessingResult.success(MESSAGE_TYPE, command.fileName(),
+                            command.partnerId(), totalRecords, insertCounts,
+                            System.currentTimeMillis() - startTime);
+                    fileLedger.recordProcessed(fingerprint, result[0]);
+                });
+
+                log.info("Processed EDI 315 file {}: {} records saved",
+                        command.fileName(), totalRecords);
+                return result[0];
             }
 
-            // 5. Save to database (fully dynamic)
-            List<Map<String, Object>> cdbEvents = mappingResult.getRecords("CDB_EVENT");
-            Map<String, Integer> insertCounts = saveEventsPort.saveRecords(cdbEvents, command.fileName());
+        } catch (Exception e) {
+            log.error("Error processing EDI 315 file: {}", command.fileName(), e);
+            return ProcessingResult.error(MESSAGE_TYPE, command.fileName(),
+                    command.partnerId(), e.getMessage(),
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Map every file into one writer and commit them together.
+     * Each result carries its own record count and the rows it wrote per table; rows skipped
+     * as duplicates in dedup mode are only known for the whole batch (logged by the writer).
+     * A payload repeated within the batch is mapped once and answered with the first one's result.
+     */
+    @Override
+    public List<ProcessingResult> processFiles(List<ProcessEdi315Command> commands) {
+        log.info("Processing batch of {} EDI 315 files", commands.size());
+
+        long startTime = System.currentTimeMillis();
+        ProcessingResult[] results = new ProcessingResult[commands.size()];
+        FileFingerprint[] fingerprints = new FileFingerprint[commands.size()];
+        int[] recordCounts = new int[commands.size()];
+        List<Map<String, Integer>> tableCounts = new ArrayList<>(commands.size());
+        int[] repeatOf = new int[commands.size()];   // Index of the first file with the same payload, or -1
+        Arrays.fill(repeatOf, -1);
+        Map<FileFingerprint, Integer> firstIndexes = new HashMap<>();
+
+        try {
+            CompiledMappingPlan plan = mappingConfigLoader.loadPlan();
+
+            try (RecordWriter writer = saveEventsPort.openWriter(BatchResults.batchName(commands),
+                    plan.getConfig().getTargets())) {
+                for (int i = 0; i < commands.size(); i++) {
+                    ProcessEdi315Command command = commands.get(i);
+                    tableCounts.add(new LinkedHashMap<>());
+                    fingerprints[i] = fingerprint(command);
+                    Integer first = firstIndexes.putIfAbsent(fingerprints[i], i);
+                    if (first != null) {
+                        repeatOf[i] = first;
+                        continue;
+                    }
+                    Optional<ProcessingResult> processed = fileLedger.findProcessed(fingerprints[i]);
+                    if (processed.isPresent()) {
+                        results[i] = processed.get();
+                        continue;
+                    }
+
+                    List<String> errors = new ArrayList<>();
+                    recordCounts[i] = mapFile(command, plan, writer, errors, tableCounts.get(i));
+                    if (!errors.isEmpty()) {
+                        writer.abort();
+                        return BatchResults.rolledBack(MESSAGE_TYPE, commands, i,
+                                ProcessingResult.validationFailed(MESSAGE_TYPE, command.fileName(),
+                                        command.partnerId(), errors, System.currentTimeMillis() - startTime));
+                    }
+                }
 
-            log.info("Processed EDI 315 file {}: {} records saved",
-                    command.fileName(), mappingResult.getTotalRecords());
+                // Ledger entries of the new files commit with the batch
+                writer.finish(insertCounts -> {
+                    long durationMs = System.currentTimeMillis() - startTime;
+                    for (int i = 0; i < commands.size(); i++) {
+                        if (results[i] != null || repeatOf[i] >= 0) continue;
+                        ProcessEdi315Command command = commands.get(i);
+                        results[i] = ProcessingResult.success(MESSAGE_TYPE, command.fileName(),
+                                command.partnerId(), recordCounts[i], tableCounts.get(i), durationMs);
+                        fileLedger.recordProcessed(fingerprints[i], results[i]);
+                    }
+                });
+                BatchResults.answerRepeats(results, repeatOf);
+                log.info("Processed batch of {} EDI 315 files: {} records saved",
+                        commands.size(), Arrays.stream(recordCounts).sum());
+                return List.of(results);
+            }
 
-            return ProcessingResult.success(MESSAGE_TYPE, command.fileName(),
-                    command.partnerId(), mappingResult.getTotalRecords(), insertCounts,
+        } catch (Exception e) {
+            log.error("Error processing batch of {} EDI 315 files", commands.size(), e);
+            return BatchResults.rolledBack(MESSAGE_TYPE, commands, -1, null, e.getMessage(),
                     System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Process an interchange read in place, e.g. a memory-mapped file. Parts of about
+     * edi.file-drop.part-size are mapped in parallel; their records are written in file order.
+     */
+    @Override
+    public ProcessingResult processContent(CharSequence content, String contentHash, String partnerId,
+                                           String fileName) {
+        log.info("Processing EDI 315 content: {} for partner: {}", fileName, partnerId);
+
+        long startTime = System.currentTimeMillis();
+
+        try {
+            // 0. Redelivered file: answer with the result of the committed run
+            FileFingerprint fingerprint = FileFingerprint.ofHash(MESSAGE_TYPE, contentHash,
+                    interchangeControlNumber(content));
+            Optional<ProcessingResult> processed = fileLedger.findProcessed(fingerprint);
+            if (processed.isPresent()) {
+                log.info("EDI 315 file {} already processed as {}, skipping",
+                        fileName, processed.get().getFileName());
+                return processed.get();
+            }
+
+            CompiledMappingPlan plan = mappingEngine.applyPartnerOverrides(mappingConfigLoader.loadPlan(), partnerId);
+            List<X12InterchangeReader> parts = x12Converter.split(content,
+                    parallelMapping.partsFor(content.length()));
+
+            try (RecordWriter writer = saveEventsPort.openWriter(fileName, plan.getConfig().getTargets())) {
+                // 1. Map parts in parallel, write them in order; after the first error stop writing
+                List<String> errors = new ArrayList<>();
+                int[] totalRecords = new int[1];
+                parallelMapping.mapInOrder(parts, part -> mapPart(part, plan, partnerId, fileName), mappingResult -> {
+                    if (!mappingResult.isSuccess()) {
+                        errors.addAll(mappingResult.getErrors());
+                    } else if (errors.isEmpty()) {
+                        writer.write(mappingResult.getRecordsByTable());
+                        totalRecords[0] += mappingResult.getTotalRecords();
+                    }
+                });
+
+                if (!errors.isEmpty()) {
+                    writer.abort();
+                    return ProcessingResult.validationFailed(MESSAGE_TYPE, fileName, partnerId, errors,
+                            System.currentTimeMillis() - startTime);
+                }
+
+                // 2. Save remaining records and commit them with the ledger entry
+                ProcessingResult[] result = new ProcessingResult[1];
+                writer.finish(insertCounts -> {
+                    result[0] = ProcessingResult.success(MESSAGE_TYPE, fileName, partnerId,
+                            totalRecords[0], insertCounts, System.currentTimeMillis() - startTime);
+                    fileLedger.recordProcessed(fingerprint, result[0]);
+                });
+                log.info("Processed EDI 315 file {} in {} parts: {} records saved",
+                        fileName, parts.size(), totalRecords[0]);
+                return result[0];
+            }
 
         } catch (Exception e) {
-            log.error("Error processing EDI 315 file: {}", command.fileName(), e);
-            return ProcessingResult.error(MESSAGE_TYPE, command.fileName(),
-                    command.partnerId(), e.getMessage(),
+            log.error("Error processing EDI 315 file: {}", fileName, e);
+            return ProcessingResult.error(MESSAGE_TYPE, fileName, partnerId, e.getMessage(),
                     System.currentTimeMillis() - startTime);
         }
     }
+
+    /**
+     * Map the transactions of one part into a single result (runs on a mapping thread).
+     * A failed result carries the errors of every transaction in the part.
+     */
+    private MappingResult mapPart(X12InterchangeReader part, CompiledMappingPlan plan, String partnerId,
+                                  String fileName) {
+        ProcessingContext context = new ProcessingContext();
+        context.setPartnerId(partnerId);
+        context.setFileName(fileName);
+        context.setEdiType("EDI_315");
+
+        MappingResult partResult = new MappingResult();
+        List<String> errors = new ArrayList<>();
+        while (part.hasNext()) {
+            MappingResult mappingResult = mappingEngine.transformTransaction(part.next(), plan, context);
+            if (!mappingResult.isSuccess()) {
+                errors.addAll(mappingResult.getErrors());
+            } else if (errors.isEmpty()) {
+                mappingResult.getRecordsByTable().forEach(partResult::addRecords);
+            }
+        }
+        return errors.isEmpty() ? partResult : MappingResult.failed(errors);
+    }
+
+    /**
+     * Stream the interchange one transaction set at a time and queue the mapped records.
+     * After the first mapping error, the remaining transactions are only mapped to report their errors.
+     *
+     * @return Number of records written
+     */
+    private int mapFile(ProcessEdi315Command command, CompiledMappingPlan plan, RecordWriter writer,
+                        List<String> errors, Map<String, Integer> tableCounts) {
+        ProcessingContext context = new ProcessingContext();
+        context.setPartnerId(command.partnerId());
+        context.setFileName(command.fileName());
+        context.setEdiType("EDI_315");
+
+        X12InterchangeReader reader = x12Converter.stream(command.content());
+        CompiledMappingPlan partnerPlan = mappingEngine.applyPartnerOverrides(plan, command.partnerId());
+        int totalRecords = 0;
+
+        while (reader.hasNext()) {
+            MappingResult mappingResult = mappingEngine.transformTransaction(reader.next(), partnerPlan, context);
+
+            if (!mappingResult.isSuccess()) {
+                // Keep reading to report every error, but stop writing
+                errors.addAll(mappingResult.getErrors());
+                continue;
+            }
+            if (!errors.isEmpty()) continue;
+
+            writer.write(mappingResult.getRecordsByTable());
+            mappingResult.getRecordsByTable().forEach((table, records) ->
+                    tableCounts.merge(table, records.size(), Integer::sum));
+            totalRecords += mappingResult.getTotalRecords();
+        }
+        log.debug("Streamed EDI 315 {}: {} transactions", command.fileName(), reader.getTransactionCount());
+        return totalRecords;
+    }
+
+    private static FileFingerprint fingerprint(ProcessEdi315Command command) {
+        return FileFingerprint.of(MESSAGE_TYPE, command.content(), interchangeControlNumber(command.content()));
+    }
+
+    /**
+     * ISA13 of the interchange, or null if the content does not start with an ISA segment.
+     */
+    private static String interchangeControlNumber(CharSequence content) {
+        try {
+            X12Tokenizer tokenizer = new X12Tokenizer(content);
+            return tokenizer.next() && "ISA".equals(tokenizer.segmentId()) ? tokenizer.element(13) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.edicleanarch.x12.edi315.port.out;
 
+import com.example.edicleanarch.common.mapping.TargetTableConfig;
+import com.example.edicleanarch.common.port.out.RecordWriter;
 
 import java.util.List;
 import java.util.Map;
@@ -25,4 +27,14 @@ public interface SaveEdi315EventsPort {
      * @return Map of table name to insert count
      */
     Map<String, Integer> saveRecords(List<Map<String, Object>> records, String fileName);
+
+    /**
+     * Open a writer that saves records of every target table in chunks while the caller keeps mapping.
+     * HEADER tables are written before their DETAIL tables; independent tables in parallel.
+     *
+     * @param fileName Source file name for tracking
+     * @param targets  Target tables from edi315-mapping.yml
+     * @return Writer; call finish() to commit, close() without finish() rolls back
+     */
+    RecordWriter openWriter(String fileName, List<TargetTableConfig> targets);
 }
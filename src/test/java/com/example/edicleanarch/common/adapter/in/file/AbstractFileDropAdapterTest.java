@@ -0,0 +1,147 @@
+package com.example.edicleanarch.common.adapter.in.file;
+
+import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.common.port.in.ProcessEdiContentUseCase;
+import com.example.edicleanarch.config.EdiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Landing-directory poller on a temporary directory: processed, invalid and failing files.
+ */
+@DisplayName("File Drop Adapter Tests")
+class AbstractFileDropAdapterTest {
+
+    private Path directory;
+    private EdiProperties properties;
+    private ProcessingResult nextResult;
+    private TestFileDropAdapter adapter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("landing");
+        properties = new EdiProperties();
+        properties.getFileDrop().setDirectory(directory.toString());
+        properties.getFileDrop().setMinAge(Duration.ZERO);
+        properties.getFileDrop().setMaxAttempts(3);
+        adapter = new TestFileDropAdapter();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Processed file moves to processed/ without replacing an earlier file of the same name")
+    void shouldKeepEarlierFileOfSameName() throws IOException {
+        nextResult = ProcessingResult.success("TEST", "CLM.txt", "ACME", 1, Map.of(), 1);
+
+        drop("CLM.txt", "first");
+        poll();
+        drop("CLM.txt", "second");
+        poll();
+
+        Path processed = directory.resolve("test/ACME/processed");
+        assertEquals("first", Files.readString(processed.resolve("CLM.txt")));
+        assertEquals("second", Files.readString(processed.resolve("CLM.1.txt")));
+    }
+
+    @Test
+    @DisplayName("Invalid file moves to failed/ at once")
+    void shouldMoveInvalidFileToFailed() throws IOException {
+        nextResult = ProcessingResult.validationFailed("TEST", "CLM.txt", "ACME", List.of("bad"), 1);
+
+        drop("CLM.txt", "content");
+        poll();
+
+        assertTrue(Files.exists(directory.resolve("test/ACME/failed/CLM.txt")));
+    }
+
+    @Test
+    @DisplayName("File failing with an error stays in place until max-attempts")
+    void shouldRetryFileFailingWithError() throws IOException {
+        nextResult = ProcessingResult.error("TEST", "CLM.txt", "ACME", "database unavailable", 1);
+        Path file = drop("CLM.txt", "content");
+
+        poll();
+        poll();
+        assertTrue(Files.exists(file));
+
+        poll();
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(directory.resolve("test/ACME/failed/CLM.txt")));
+    }
+
+    @Test
+    @DisplayName("File failing with an error is processed once the error clears")
+    void shouldProcessFileAfterTransientError() throws IOException {
+        nextResult = ProcessingResult.error("TEST", "CLM.txt", "ACME", "database unavailable", 1);
+        Path file = drop("CLM.txt", "content");
+        poll();
+
+        nextResult = ProcessingResult.success("TEST", "CLM.txt", "ACME", 1, Map.of(), 1);
+        poll();
+
+        assertFalse(Files.exists(file));
+        assertTrue(Files.exists(directory.resolve("test/ACME/processed/CLM.txt")));
+    }
+
+    @Test
+    @DisplayName("Copy names keep the extension")
+    void shouldNameCopies() {
+        assertEquals("CLM.txt", AbstractFileDropAdapter.copyName("CLM.txt", 0));
+        assertEquals("CLM.2.txt", AbstractFileDropAdapter.copyName("CLM.txt", 2));
+        assertEquals("CLM.1", AbstractFileDropAdapter.copyName("CLM", 1));
+        assertEquals(".hidden.1", AbstractFileDropAdapter.copyName(".hidden", 1));
+    }
+
+    private Path drop(String fileName, String content) throws IOException {
+        Path partner = Files.createDirectories(directory.resolve("test/ACME"));
+        return Files.writeString(partner.resolve(fileName), content);
+    }
+
+    private void poll() {
+        adapter.poll();
+    }
+
+    private class TestFileDropAdapter extends AbstractFileDropAdapter {
+
+        @Override
+        protected ProcessEdiContentUseCase getUseCase() {
+            return (content, contentHash, partnerId, fileName) -> nextResult;
+        }
+
+        @Override
+        protected String getMessageType() {
+            return "TEST";
+        }
+
+        @Override
+        protected String getSubdirectory() {
+            return "test";
+        }
+
+        @Override
+        protected EdiProperties getProperties() {
+            return properties;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.edicleanarch.common.adapter.in.kafka;
+
+import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.common.port.in.ProcessEdiBatchUseCase;
+import com.example.edicleanarch.common.port.in.ProcessEdiFileCommand;
+import com.example.edicleanarch.common.port.in.ProcessEdiFileUseCase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch listener path: combined write, one-by-one fallback, acknowledgment up to the first failure
+ * and bounded redelivery.
+ */
+@DisplayName("Abstract Kafka Consumer Adapter Tests")
+class AbstractKafkaConsumerAdapterTest {
+
+    private static final Duration NACK_SLEEP = Duration.ofMillis(250);
+
+    private final List<String> processed = new ArrayList<>();
+    private final List<String> acknowledgments = new ArrayList<>();
+
+    private final Acknowledgment acknowledgment = new Acknowledgment() {
+        @Override
+        public void acknowledge() {
+            acknowledgments.add("ack");
+        }
+
+        @Override
+        public void nack(int index, Duration sleep) {
+            acknowledgments.add("nack " + index + " " + sleep.toMillis());
+        }
+    };
+
+    @Test
+    @DisplayName("Committed batch is acknowledged as a whole")
+    void shouldAcknowledgeCommittedBatch() {
+        TestAdapter adapter = new TestAdapter(new BatchUseCase(false, Set.of()));
+
+        adapter.handleBatch(records("A", "B", "C"), acknowledgment);
+
+        assertEquals(List.of("batch [A, B, C]"), processed);
+        assertEquals(List.of("ack"), acknowledgments);
+    }
+
+    @Test
+    @DisplayName("Rolled back batch is processed one by one and acknowledged when every message succeeds")
+    void shouldAcknowledgeFallbackWhenEveryMessageSucceeds() {
+        TestAdapter adapter = new TestAdapter(new BatchUseCase(true, Set.of()));
+
+        adapter.handleBatch(records("A", "B", "C"), acknowledgment);
+
+        assertEquals(List.of("batch [A, B, C]", "A", "B", "C"), processed);
+        assertEquals(List.of("ack"), acknowledgments);
+    }
+
+    @Test
+    @DisplayName("Fallback stops at the first failed message and redelivers it and the rest")
+    void shouldNackFromFirstFailedMessage() {
+        TestAdapter adapter = new TestAdapter(new BatchUseCase(true, Set.of("B")));
+
+        adapter.handleBatch(records("A", "B", "C"), acknowledgment);
+
+        assertEquals(List.of("batch [A, B, C]", "A", "B"), processed);
+        assertEquals(List.of("nack 1 250"), acknowledgments);
+    }
+
+    @Test
+    @DisplayName("Nack index counts messages that could not be parsed")
+    void shouldNackAtIndexInPoll() {
+        TestAdapter adapter = new TestAdapter(new BatchUseCase(true, Set.of("C")));
+
+        adapter.handleBatch(records("A", "unparseable", "C", "D"), acknowledgment);
+
+        assertEquals(List.of("batch [A, C, D]", "A", "C"), processed);
+        assertEquals(List.of("nack 2 250"), acknowledgments);
+    }
+
+    @Test
+    @DisplayName("Message failing validation is skipped, not redelivered")
+    void shouldSkipRejectedMessage() {
+        TestAdapter adapter = new TestAdapter(new BatchUseCase(true, Set.of()));
+
+        adapter.handleBatch(records("A", "invalid", "C"), acknowledgment);
+
+        assertEquals(List.of("batch [A, invalid, C]", "A", "invalid", "C"), processed);
+        assertEquals(List.of("ack"), acknowledgments);
+    }
+
+    @Test
+    @DisplayName("Failed message is skipped after the maximum number of deliveries")
+    void shouldSkipFailedMessageAfterMaxAttempts() {
+        TestAdapter adapter = new TestAdapter(new BatchUseCase(true, Set.of("B")));
+
+        adapter.handleBatch(records("A", "B", "C"), acknowledgment);
+        adapter.handleBatch(records(1, "B", "C"), acknowledgment);
+        adapter.handleBatch(records(1, "B", "C"), acknowledgment);
+
+        assertEquals(List.of("nack 1 250", "nack 0 250", "ack"), acknowledgments);
+        assertEquals("C", processed.get(processed.size() - 1));
+
+        // A later failure of the same partition starts counting again
+        acknowledgments.clear();
+        adapter.handleBatch(records(3, "B"), acknowledgment);
+        assertEquals(List.of("nack 0 250"), acknowledgments);
+    }
+
+    @Test
+    @DisplayName("Poll with a message that cannot join the batch is processed one by one")
+    void shouldProcessOneByOneWithUnbatchableMessage() {
+        TestAdapter adapter = new TestAdapter(new BatchUseCase(false, Set.of()));
+
+        adapter.handleBatch(records("A", "stream:B", "C"), acknowledgment);
+
+        assertEquals(List.of("A", "streamed B", "C"), processed);
+        assertEquals(List.of("ack"), acknowledgments);
+    }
+
+    @Test
+    @DisplayName("Use case without batches processes one by one")
+    void shouldProcessOneByOneWithoutBatchUseCase() {
+        BatchUseCase batchUseCase = new BatchUseCase(false, Set.of("B"));
+        TestAdapter adapter = new TestAdapter(batchUseCase::processFile);
+
+        adapter.handleBatch(records("A", "B", "C"), acknowledgment);
+
+        assertEquals(List.of("A", "B"), processed);
+        assertEquals(List.of("nack 1 250"), acknowledgments);
+    }
+
+    private static List<ConsumerRecord<String, String>> records(String... values) {
+        return records(0, values);
+    }
+
+    /**
+     * Records of partition 0 from offset 100 + first on.
+     */
+    private static List<ConsumerRecord<String, String>> records(int first, String... values) {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            records.add(new ConsumerRecord<>("edi-test", 0, 100 + first + i, "key-" + (first + i), values[i]));
+        }
+        return records;
+    }
+
+    private record TestCommand(String content, String partnerId, String fileName) implements ProcessEdiFileCommand {
+    }
+
+    /**
+     * Batches fail (rolled back) if batchFails, messages whose content is in failing fail on their own,
+     * "invalid" fails validation.
+     */
+    private final class BatchUseCase implements ProcessEdiBatchUseCase<TestCommand> {
+        private final boolean batchFails;
+        private final Set<String> failing;
+
+        private BatchUseCase(boolean batchFails, Set<String> failing) {
+            this.batchFails = batchFails;
+            this.failing = failing;
+        }
+
+        @Override
+        public ProcessingResult processFile(TestCommand command) {
+            processed.add(command.content());
+            if (command.content().equals("invalid")) {
+                return ProcessingResult.validationFailed("TEST", command.fileName(), "P1", List.of("invalid"), 1);
+            }
+            return failing.contains(command.content())
+                    ? ProcessingResult.error("TEST", command.fileName(), "P1", "failed", 1)
+                    : ProcessingResult.success("TEST", command.fileName(), "P1", 1, Map.of("T", 1), 1);
+        }
+
+        @Override
+        public List<ProcessingResult> processFiles(List<TestCommand> commands) {
+            processed.add("batch " + commands.stream().map(TestCommand::content).toList());
+            List<ProcessingResult> results = new ArrayList<>();
+            for (TestCommand command : commands) {
+                results.add(batchFails
+                        ? ProcessingResult.error("TEST", command.fileName(), "P1", "rolled back", 1)
+                        : ProcessingResult.success("TEST", command.fileName(), "P1", 1, Map.of("T", 1), 1));
+            }
+            return results;
+        }
+    }
+
+    private final class TestAdapter extends AbstractKafkaConsumerAdapter<TestCommand> {
+        private final ProcessEdiFileUseCase<TestCommand> useCase;
+
+        private TestAdapter(ProcessEdiFileUseCase<TestCommand> useCase) {
+            this.useCase = useCase;
+        }
+
+        @Override
+        protected ProcessEdiFileUseCase<TestCommand> getUseCase() {
+            return useCase;
+        }
+
+        @Override
+        protected TestCommand parseMessage(ConsumerRecord<String, String> record) {
+            if (record.value().equals("unparseable")) throw new IllegalArgumentException("Not an EDI message");
+            return new TestCommand(record.value(), "P1", record.key() + ".txt");
+        }
+
+        @Override
+        protected boolean isBatchable(ConsumerRecord<String, String> record) {
+            return !record.value().startsWith("stream:");
+        }
+
+        @Override
+        protected ProcessingResult processMessage(ConsumerRecord<String, String> record) {
+            if (isBatchable(record)) return super.processMessage(record);
+            processed.add("streamed " + record.value().substring("stream:".length()));
+            return ProcessingResult.success("TEST", record.key() + ".txt", "P1", 1, Map.of("T", 1), 1);
+        }
+
+        @Override
+        protected String getMessageType() {
+            return "TEST";
+        }
+
+        @Override
+        protected Duration getNackSleep() {
+            return NACK_SLEEP;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.edicleanarch.common.adapter.in.kafka;
+
+import com.example.edicleanarch.config.EdiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Claim-check payloads on a temporary store: checksum required and verified, references kept inside the store.
+ */
+@DisplayName("Claim Check Store Tests")
+class ClaimCheckStoreTest {
+
+    private static final String CONTENT = "ISA*00*...~";
+
+    private Path root;
+    private Path store;
+    private EdiProperties properties;
+    private ClaimCheckStore claimCheckStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = Files.createTempDirectory("claim-check");
+        store = Files.createDirectory(root.resolve("store"));
+        Files.writeString(store.resolve("file.txt"), CONTENT);
+        Files.writeString(root.resolve("secret.txt"), CONTENT);
+
+        properties = new EdiProperties();
+        properties.getKafka().getClaimCheck().setEnabled(true);
+        properties.getKafka().getClaimCheck().setStoreDir(store.toString());
+        claimCheckStore = new ClaimCheckStore(properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Payload with a matching checksum is read")
+    void shouldReadVerifiedPayload() {
+        assertEquals(CONTENT, claimCheckStore.read("file.txt", sha256(CONTENT)));
+        assertEquals(CONTENT, claimCheckStore.read("file.txt", sha256(CONTENT).toUpperCase()));
+    }
+
+    @Test
+    @DisplayName("Opened payload is verified when the stream reaches its end")
+    void shouldVerifyStreamAtEnd() throws IOException {
+        try (InputStream in = claimCheckStore.open("file.txt", sha256(CONTENT))) {
+            assertEquals(CONTENT, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        try (InputStream in = claimCheckStore.open("file.txt", sha256("other"))) {
+            assertEquals('I', in.read());
+            IOException e = assertThrows(IOException.class, in::readAllBytes);
+            assertTrue(e.getMessage().startsWith("Checksum mismatch for file.txt"));
+        }
+    }
+
+    @Test
+    @DisplayName("Missing or wrong checksum is rejected")
+    void shouldRejectMissingOrWrongChecksum() {
+        assertThrows(IllegalArgumentException.class, () -> claimCheckStore.read("file.txt", null));
+        assertThrows(IllegalArgumentException.class, () -> claimCheckStore.read("file.txt", " "));
+        assertThrows(IllegalArgumentException.class, () -> claimCheckStore.read("file.txt", sha256("other")));
+    }
+
+    @Test
+    @DisplayName("References outside the store are rejected")
+    void shouldRejectReferencesOutsideStore() {
+        assertThrows(IllegalArgumentException.class, () -> claimCheckStore.read("../secret.txt", sha256(CONTENT)));
+        assertThrows(IllegalArgumentException.class,
+                () -> claimCheckStore.read(root.resolve("secret.txt").toString(), sha256(CONTENT)));
+        assertThrows(IllegalArgumentException.class, () -> claimCheckStore.read(".", sha256(CONTENT)));
+        assertThrows(IllegalArgumentException.class, () -> claimCheckStore.read("missing.txt", sha256(CONTENT)));
+    }
+
+    @Test
+    @DisplayName("Symbolic link inside the store to a file outside it is rejected")
+    void shouldRejectLinkLeavingStore() throws IOException {
+        Files.createSymbolicLink(store.resolve("link.txt"), root.resolve("secret.txt"));
+
+        assertThrows(IllegalArgumentException.class, () -> claimCheckStore.read("link.txt", sha256(CONTENT)));
+    }
+
+    @Test
+    @DisplayName("Disabled claim-check rejects every reference")
+    void shouldRejectWhenDisabled() {
+        properties.getKafka().getClaimCheck().setEnabled(false);
+
+        assertThrows(IllegalArgumentException.class, () -> claimCheckStore.read("file.txt", sha256(CONTENT)));
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
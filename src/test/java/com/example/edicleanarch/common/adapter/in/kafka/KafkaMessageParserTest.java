@@ -0,0 +1,101 @@
+package com.example.edicleanarch.common.adapter.in.kafka;
+
+import com.example.edicleanarch.config.EdiProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JSON messages with inline content and claim checks: error messages and claim-check references.
+ */
+@DisplayName("Kafka Message Parser Tests")
+class KafkaMessageParserTest {
+
+    private static final String CONTENT = "CLM...";
+    // SHA-256 of CONTENT
+    private static final String SHA256 = "953237a8e76e75d39fa5bb2c4b9cdf1302b009d97ca31fb0a6830cea4bb11e89";
+
+    private Path store;
+    private KafkaMessageParser parser;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = Files.createTempDirectory("claim-check");
+        Files.writeString(store.resolve("file.txt"), CONTENT);
+
+        EdiProperties properties = new EdiProperties();
+        properties.getKafka().getClaimCheck().setEnabled(true);
+        properties.getKafka().getClaimCheck().setStoreDir(store.toString());
+        parser = new KafkaMessageParser(new ObjectMapper(), new ClaimCheckStore(properties));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(store)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Inline content is parsed and is not a claim check")
+    void shouldParseInlineContent() {
+        ConsumerRecord<String, String> record = record("""
+                {"content": "CLM...", "partnerId": "RAIL", "fileName": "a.txt"}""");
+
+        assertEquals(new KafkaMessageParser.ParsedMessage(CONTENT, "RAIL", "a.txt"), parser.parse(record, "TEST"));
+        assertNull(parser.parseClaimCheck(record, "TEST"));
+    }
+
+    @Test
+    @DisplayName("Claim check is returned as a reference without reading the payload")
+    void shouldReturnClaimCheckReference() {
+        ConsumerRecord<String, String> record = record("""
+                {"contentRef": "file.txt", "sha256": "%s", "partnerId": "RAIL", "fileName": "a.txt"}"""
+                .formatted(SHA256));
+
+        assertEquals(new KafkaMessageParser.ClaimCheck("file.txt", SHA256, "RAIL", "a.txt"),
+                parser.parseClaimCheck(record, "TEST"));
+    }
+
+    @Test
+    @DisplayName("Claim-check failures keep their own message")
+    void shouldKeepClaimCheckErrorMessage() {
+        ConsumerRecord<String, String> outside = record("""
+                {"contentRef": ".", "sha256": "%s", "partnerId": "RAIL"}""".formatted(SHA256));
+        ConsumerRecord<String, String> noChecksum = record("""
+                {"contentRef": "file.txt", "partnerId": "RAIL"}""");
+
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> parser.parse(outside, "TEST"))
+                .getMessage().startsWith("Claim-check reference outside the store"));
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> parser.parse(noChecksum, "TEST"))
+                .getMessage().startsWith("Claim-check message without sha256"));
+    }
+
+    @Test
+    @DisplayName("Malformed JSON and missing fields are reported")
+    void shouldReportMalformedMessages() {
+        assertEquals("Invalid JSON message format", assertThrows(IllegalArgumentException.class,
+                () -> parser.parse(record("{\"content\": "), "TEST")).getMessage());
+        assertEquals("Missing required field: partnerId", assertThrows(IllegalArgumentException.class,
+                () -> parser.parse(record("{\"content\": \"CLM...\"}"), "TEST")).getMessage());
+        assertEquals("Missing required field: content", assertThrows(IllegalArgumentException.class,
+                () -> parser.parse(record("{\"partnerId\": \"RAIL\"}"), "TEST")).getMessage());
+    }
+
+    private static ConsumerRecord<String, String> record(String value) {
+        return new ConsumerRecord<>("edi-test", 0, 0, "key", value);
+    }
+}
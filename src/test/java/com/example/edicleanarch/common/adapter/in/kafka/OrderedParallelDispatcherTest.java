@@ -0,0 +1,231 @@
+package com.example.edicleanarch.common.adapter.in.kafka;
+
+import com.example.edicleanarch.common.adapter.out.persistence.DatabasePermits;
+import com.example.edicleanarch.config.EdiProperties;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ordered-parallel dispatch: order per key, acknowledged prefix, failures, back-pressure and rebalance.
+ */
+@DisplayName("Ordered Parallel Dispatcher Tests")
+class OrderedParallelDispatcherTest {
+
+    private static final String LISTENER_ID = "test-listener";
+    private static final String TOPIC = "edi-test";
+
+    private EdiProperties properties;
+    private OrderedParallelDispatcher dispatcher;
+    private final List<String> containerCalls = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong acknowledged = new AtomicLong(-1);
+
+    @BeforeEach
+    void setUp() {
+        properties = new EdiProperties();
+        properties.getKafka().getParallel().setShards(8);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Records of one key run in offset order, the partition is acknowledged to the end")
+    void shouldKeepOrderPerKey() {
+        Map<String, List<Long>> processed = new ConcurrentHashMap<>();
+        start();
+
+        for (long offset = 0; offset < 200; offset++) {
+            String key = "PARTNER-" + (offset % 5);
+            dispatch(record(0, offset, key), record -> {
+                sleep((int) (record.offset() % 3));
+                processed.computeIfAbsent(record.key(), k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(record.offset());
+                return true;
+            });
+        }
+
+        awaitTrue(() -> acknowledged.get() == 199);
+        assertEquals(5, processed.size());
+        processed.forEach((key, offsets) -> {
+            assertEquals(40, offsets.size());
+            List<Long> sorted = new ArrayList<>(offsets);
+            Collections.sort(sorted);
+            assertEquals(sorted, offsets, "order of " + key);
+        });
+    }
+
+    @Test
+    @DisplayName("A failing record does not stop the records queued behind it")
+    void shouldContinueAfterFailingRecord() {
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        start();
+
+        dispatch(record(0, 0, "PARTNER"), record -> {
+            throw new IllegalStateException("Processing failed");
+        });
+        dispatch(record(0, 1, "PARTNER"), record -> {
+            throw new AssertionError("Processing failed hard");
+        });
+        dispatch(record(0, 2, "PARTNER"), record -> processed.add(record.offset()));
+
+        awaitTrue(() -> acknowledged.get() == 2);
+        assertEquals(List.of(2L), processed);
+    }
+
+    @Test
+    @DisplayName("Container is paused above max-in-flight and resumed below half of it")
+    void shouldPauseAndResume() {
+        properties.getKafka().getParallel().setMaxInFlight(4);
+        CountDownLatch release = new CountDownLatch(1);
+        start();
+
+        for (long offset = 0; offset < 6; offset++) {
+            dispatch(record(0, offset, "PARTNER"), record -> await(release));
+        }
+        assertEquals(List.of("pause"), containerCalls);
+
+        release.countDown();
+        awaitTrue(() -> acknowledged.get() == 5);
+        assertEquals(List.of("pause", "resume"), containerCalls);
+    }
+
+    @Test
+    @DisplayName("Records run at most as many at a time as there are writer transaction permits")
+    void shouldBoundConcurrencyByDatabasePermits() {
+        properties.getExecution().setDbPermits(4);   // 1 kept for queries, 3 for writer transactions
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        start();
+
+        for (long offset = 0; offset < 24; offset++) {
+            dispatch(record(0, offset, "PARTNER-" + offset), record -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(10);
+                running.decrementAndGet();
+                return true;
+            });
+        }
+
+        awaitTrue(() -> acknowledged.get() == 23);
+        assertTrue(maxRunning.get() <= 3, "max running " + maxRunning.get());
+    }
+
+    @Test
+    @DisplayName("Revoked partition gets its running record finished and skips the queued ones")
+    void shouldDrainRevokedPartition() {
+        properties.getKafka().getParallel().setRevokeTimeout(Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        start();
+
+        dispatch(record(0, 0, "PARTNER"), record -> {
+            started.countDown();
+            await(release);
+            return processed.add(record.offset());
+        });
+        dispatch(record(0, 1, "PARTNER"), record -> processed.add(record.offset()));
+        await(started);
+
+        dispatcher.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition(TOPIC, 0)));
+        release.countDown();
+
+        // Reassigned partition: records are dispatched and acknowledged again
+        dispatch(record(0, 1, "PARTNER"), record -> processed.add(record.offset()));
+        awaitTrue(() -> acknowledged.get() == 1);
+        assertEquals(List.of(0L, 1L), processed);
+    }
+
+    @Test
+    @DisplayName("Revoked partition is acknowledged when its records finish within revoke-timeout")
+    void shouldAcknowledgeDrainedPartition() {
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        start();
+
+        for (long offset = 0; offset < 10; offset++) {
+            dispatch(record(0, offset, "PARTNER"), record -> {
+                sleep(2);
+                return processed.add(record.offset());
+            });
+        }
+        dispatcher.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition(TOPIC, 0)));
+
+        assertEquals(9, acknowledged.get());
+        assertEquals(10, processed.size());
+    }
+
+    private void start() {
+        MessageListenerContainer container = (MessageListenerContainer) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{MessageListenerContainer.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("pause") || method.getName().equals("resume")) {
+                        containerCalls.add(method.getName());
+                    }
+                    return null;
+                });
+        KafkaListenerEndpointRegistry registry = new KafkaListenerEndpointRegistry() {
+            @Override
+            public MessageListenerContainer getListenerContainer(String id) {
+                return LISTENER_ID.equals(id) ? container : null;
+            }
+        };
+        dispatcher = new OrderedParallelDispatcher(registry, properties, new DatabasePermits(properties, 10));
+    }
+
+    private void dispatch(ConsumerRecord<String, String> record, Predicate<ConsumerRecord<String, String>> processor) {
+        dispatcher.dispatch(LISTENER_ID, record, () -> acknowledged.set(record.offset()), processor);
+    }
+
+    private static ConsumerRecord<String, String> record(int partition, long offset, String key) {
+        return new ConsumerRecord<>(TOPIC, partition, offset, key, "payload-" + offset);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            sleep(5);
+        }
+    }
+
+    private static void sleep(int millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
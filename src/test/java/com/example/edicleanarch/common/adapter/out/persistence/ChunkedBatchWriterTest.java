@@ -0,0 +1,210 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.example.edicleanarch.common.mapping.TargetTableConfig;
+import com.example.edicleanarch.common.port.out.RecordWriter;
+import com.example.edicleanarch.config.EdiProperties;
+import com.example.edicleanarch.config.EdiProperties.WriteMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChunkedBatchWriter against an in-memory H2 database: lanes, two-phase finish and rollback.
+ */
+@DisplayName("Chunked Batch Writer Tests")
+class ChunkedBatchWriterTest {
+
+    private EmbeddedDatabase dataSource;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private EdiProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE EVENT_A (FILE_NO VARCHAR(20), SEQ INT)");
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE EVENT_B (FILE_NO VARCHAR(20), CODE VARCHAR(2))");
+        jdbcTemplate.getJdbcTemplate().execute(
+                "CREATE TABLE EVENT_C (SEQ INT, FILE_NO VARCHAR(20), CODE VARCHAR(2), NOTE VARCHAR(20))");
+
+        properties = new EdiProperties();
+        properties.getPersistence().setBatchSize(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("Independent tables get one lane each")
+    void shouldPlaceIndependentTablesInOwnLanes() {
+        assertEquals(List.of(List.of("EVENT_A"), List.of("EVENT_B")),
+                ChunkedBatchWriter.lanes(List.of(target("EVENT_A"), target("EVENT_B"))));
+    }
+
+    @Test
+    @DisplayName("Finish commits every lane and reports rows per table")
+    void shouldCommitEveryLane() {
+        Map<String, Integer> insertCounts;
+        try (RecordWriter writer = open()) {
+            writer.write(Map.of("EVENT_A", eventA(3)));
+            writer.write(Map.of("EVENT_B", List.of(eventB("OK"))));
+            insertCounts = writer.finish();
+        }
+
+        assertEquals(Map.of("EVENT_A", 3, "EVENT_B", 1), insertCounts);
+        assertEquals(3, count("EVENT_A"));
+        assertEquals(1, count("EVENT_B"));
+    }
+
+    @Test
+    @DisplayName("A failing lane rolls back the lanes that succeeded")
+    void shouldRollBackAllLanesWhenOneLaneFails() {
+        try (RecordWriter writer = open()) {
+            // EVENT_A writes a full chunk while the file is still being mapped
+            writer.write(Map.of("EVENT_A", eventA(3)));
+            // CODE is VARCHAR(2): the last chunk of EVENT_B fails in finish()
+            writer.write(Map.of("EVENT_B", List.of(eventB("TOO_LONG"))));
+
+            assertThrows(RuntimeException.class, writer::finish);
+        }
+
+        assertEquals(0, count("EVENT_A"));
+        assertEquals(0, count("EVENT_B"));
+    }
+
+    @Test
+    @DisplayName("A failing finish callback rolls back every lane")
+    void shouldRollBackAllLanesWhenCallbackFails() {
+        List<Map<String, Integer>> seen = new ArrayList<>();
+        try (RecordWriter writer = open()) {
+            writer.write(Map.of("EVENT_A", eventA(3)));
+            writer.write(Map.of("EVENT_B", List.of(eventB("OK"))));
+
+            assertThrows(RuntimeException.class, () -> writer.finish(insertCounts -> {
+                seen.add(Map.copyOf(insertCounts));
+                throw new IllegalStateException("Ledger insert failed");
+            }));
+        }
+
+        assertEquals(List.of(Map.of("EVENT_A", 3, "EVENT_B", 1)), seen);
+        assertEquals(0, count("EVENT_A"));
+        assertEquals(0, count("EVENT_B"));
+    }
+
+    @Test
+    @DisplayName("Without parallel lanes a failing table rolls back the whole file")
+    void shouldRollBackSingleLaneWhenOneTableFails() {
+        properties.getPersistence().setParallelLanes(false);
+
+        try (RecordWriter writer = open()) {
+            writer.write(Map.of("EVENT_A", eventA(3)));
+            writer.write(Map.of("EVENT_B", List.of(eventB("TOO_LONG"))));
+
+            assertThrows(RuntimeException.class, writer::finish);
+        }
+
+        assertEquals(0, count("EVENT_A"));
+        assertEquals(0, count("EVENT_B"));
+    }
+
+    @Test
+    @DisplayName("Records with different or reordered columns in one chunk keep every value in its column")
+    void shouldBindMixedColumnLayouts() {
+        properties.getPersistence().setBatchSize(10);
+        List<Map<String, Object>> records = List.of(
+                record("SEQ", 1, "FILE_NO", "F1", "CODE", "AE"),
+                record("CODE", "VD", "SEQ", 2, "FILE_NO", "F2"),          // same columns, other order
+                record("SEQ", 3, "NOTE", "late"),                         // subset plus another column
+                record("SEQ", 4, "FILE_NO", "F4", "CODE", "UV"),          // first layout again
+                record("NOTE", "gate", "SEQ", 5, "CODE", "OA", "FILE_NO", "F5"),
+                record("FILE_NO", "F6", "CODE", "D", "SEQ", 6));
+
+        Map<String, Integer> insertCounts;
+        try (RecordWriter writer = open(target("EVENT_C"))) {
+            writer.write(Map.of("EVENT_C", records));
+            insertCounts = writer.finish();
+        }
+
+        assertEquals(Map.of("EVENT_C", 6), insertCounts);
+        List<Map<String, Object>> rows = jdbcTemplate.getJdbcTemplate().queryForList(
+                "SELECT SEQ, FILE_NO, CODE, NOTE FROM EVENT_C ORDER BY SEQ");
+        assertEquals(records.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> expected = new LinkedHashMap<>();
+            for (String column : List.of("SEQ", "FILE_NO", "CODE", "NOTE")) {
+                expected.put(column, records.get(i).get(column));
+            }
+            assertEquals(expected, new LinkedHashMap<>(rows.get(i)), "row " + (i + 1));
+        }
+    }
+
+    private RecordWriter open() {
+        return open(target("EVENT_A"), target("EVENT_B"));
+    }
+
+    private RecordWriter open(TargetTableConfig... targets) {
+        ChunkedBatchWriter batchWriter = new ChunkedBatchWriter(jdbcTemplate,
+                new DataSourceTransactionManager(dataSource), properties, new DatabasePermits(properties, 10));
+        batchWriter.init();
+        return batchWriter.open(List.of(targets), "TEST.txt", WriteMode.BATCH);
+    }
+
+    private int count(String table) {
+        Integer rows = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+        return rows != null ? rows : 0;
+    }
+
+    private static TargetTableConfig target(String table) {
+        TargetTableConfig target = new TargetTableConfig();
+        target.setTable(table);
+        target.setType("DETAIL");
+        return target;
+    }
+
+    private static List<Map<String, Object>> eventA(int count) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("FILE_NO", "F1");
+            record.put("SEQ", i);
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Record with the columns in the given order: column, value, column, value, ...
+     */
+    private static Map<String, Object> record(Object... columnsAndValues) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        for (int i = 0; i < columnsAndValues.length; i += 2) {
+            record.put((String) columnsAndValues[i], columnsAndValues[i + 1]);
+        }
+        return record;
+    }
+
+    private static Map<String, Object> eventB(String code) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("FILE_NO", "F1");
+        record.put("CODE", code);
+        return record;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dedup INSERT statements per database, and the insert against an in-memory H2 database.
+ */
+@DisplayName("Dedup Insert Loader Tests")
+class DedupInsertLoaderTest {
+
+    private static final List<String> COLUMNS = List.of("CNTR_NO", "SEQ");
+    private static final List<String> KEY = List.of("CNTR_NO");
+
+    @Nested
+    @DisplayName("Statements")
+    class Statements {
+
+        @Test
+        @DisplayName("Generic statement inserts rows whose key is not in the table")
+        void shouldBuildNotExistsInsert() {
+            assertEquals("INSERT INTO CDB_EVENT (CNTR_NO, SEQ) SELECT v.CNTR_NO, v.SEQ"
+                            + " FROM (VALUES (?, ?), (?, ?)) AS v (CNTR_NO, SEQ)"
+                            + " WHERE NOT EXISTS (SELECT 1 FROM CDB_EVENT t WHERE"
+                            + " (t.CNTR_NO = v.CNTR_NO OR (t.CNTR_NO IS NULL AND v.CNTR_NO IS NULL)))",
+                    DedupInsertLoader.buildSql("CDB_EVENT", COLUMNS, KEY, 2, DatabaseDialect.OTHER,
+                            Arrays.asList(null, null)));
+        }
+
+        @Test
+        @DisplayName("SQL Server keeps the key range locked until commit")
+        void shouldLockKeyRangeOnSqlServer() {
+            String sql = DedupInsertLoader.buildSql("CDB_EVENT", COLUMNS, KEY, 1, DatabaseDialect.SQL_SERVER,
+                    Arrays.asList(null, null));
+
+            assertTrue(sql.contains("SELECT 1 FROM CDB_EVENT t WITH (UPDLOCK, HOLDLOCK) WHERE"), sql);
+            assertFalse(sql.contains("ON CONFLICT"), sql);
+        }
+
+        @Test
+        @DisplayName("PostgreSQL casts every placeholder and skips conflicting rows")
+        void shouldCastValuesAndSkipConflictsOnPostgres() {
+            String sql = DedupInsertLoader.buildSql("CDB_EVENT", COLUMNS, KEY, 2, DatabaseDialect.POSTGRESQL,
+                    List.of("varchar", "int4"));
+
+            assertTrue(sql.contains("FROM (VALUES (CAST(? AS varchar), CAST(? AS int4)),"
+                    + " (CAST(? AS varchar), CAST(? AS int4))) AS v (CNTR_NO, SEQ)"), sql);
+            assertTrue(sql.endsWith(") ON CONFLICT DO NOTHING"), sql);
+            assertFalse(sql.contains("UPDLOCK"), sql);
+        }
+
+        @Test
+        @DisplayName("Key columns that are not mapped must be NULL in the table")
+        void shouldMatchUnmappedKeyColumnsAsNull() {
+            String sql = DedupInsertLoader.buildSql("CDB_EVENT", COLUMNS, List.of("CNTR_NO", "EVENT_LOC"), 1,
+                    DatabaseDialect.OTHER, Arrays.asList(null, null));
+
+            assertTrue(sql.endsWith(" AND t.EVENT_LOC IS NULL)"), sql);
+        }
+    }
+
+    @Nested
+    @DisplayName("Insert")
+    class Insert {
+
+        private EmbeddedDatabase dataSource;
+        private JdbcTemplate jdbcTemplate;
+
+        @BeforeEach
+        void setUp() {
+            dataSource = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .build();
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE TABLE CDB_EVENT (CNTR_NO VARCHAR(11), SEQ INT)");
+            jdbcTemplate.execute("CREATE UNIQUE INDEX UX_CDB_EVENT_NATURAL_KEY ON CDB_EVENT (CNTR_NO)");
+            jdbcTemplate.execute("INSERT INTO CDB_EVENT VALUES ('CMAU0000001', 1)");
+        }
+
+        @AfterEach
+        void tearDown() {
+            dataSource.shutdown();
+        }
+
+        @Test
+        @DisplayName("Rows with a stored key are skipped, the others inserted")
+        void shouldInsertNewKeysOnly() {
+            DedupInsertLoader loader = newLoader();
+
+            int rows = loader.load("CDB_EVENT", List.of(event("CMAU0000001", 2), event("CMAU0000002", 3),
+                    event(null, 4)));
+
+            assertEquals(2, rows);
+            assertEquals(3, count());
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT SEQ FROM CDB_EVENT WHERE CNTR_NO = 'CMAU0000001'", Integer.class));
+        }
+
+        @Test
+        @DisplayName("Loading the same rows again inserts nothing, NULL keys included")
+        void shouldSkipReloadedRows() {
+            DedupInsertLoader loader = newLoader();
+            List<Map<String, Object>> chunk = List.of(event("CMAU0000002", 3), event(null, 4));
+            loader.load("CDB_EVENT", chunk);
+
+            assertEquals(0, loader.load("CDB_EVENT", chunk));
+            assertEquals(3, count());
+        }
+
+        private DedupInsertLoader newLoader() {
+            return new DedupInsertLoader(jdbcTemplate, table -> KEY, () -> DatabaseDialect.OTHER);
+        }
+
+        private int count() {
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CDB_EVENT", Integer.class);
+            return rows != null ? rows : 0;
+        }
+    }
+
+    private static Map<String, Object> event(String containerNumber, int seq) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("CNTR_NO", containerNumber);
+        record.put("SEQ", seq);
+        return record;
+    }
+}
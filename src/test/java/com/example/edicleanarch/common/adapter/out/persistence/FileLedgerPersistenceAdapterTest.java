@@ -0,0 +1,174 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.example.edicleanarch.common.model.FileFingerprint;
+import com.example.edicleanarch.common.model.ProcessingResult;
+import com.example.edicleanarch.config.EdiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Processed-file ledger against an in-memory H2 database: hits, misses, failed inserts and the cache.
+ */
+@DisplayName("File Ledger Persistence Adapter Tests")
+class FileLedgerPersistenceAdapterTest {
+
+    private static final String CREATE_TABLE = "CREATE TABLE EDI_FILE_LEDGER ("
+            + " MESSAGE_TYPE VARCHAR(20) NOT NULL, CONTENT_HASH CHAR(64) NOT NULL, CONTROL_NO VARCHAR(100) NOT NULL,"
+            + " FILE_NAME VARCHAR(255), PARTNER_ID VARCHAR(50), RECORD_COUNT INT, INSERT_COUNTS VARCHAR(4000),"
+            + " DURATION_MS BIGINT, PROCESSED_AT TIMESTAMP,"
+            + " PRIMARY KEY (MESSAGE_TYPE, CONTENT_HASH, CONTROL_NO))";
+
+    private static final FileFingerprint FINGERPRINT = FileFingerprint.of("315", "ISA*00*...~", "000000001");
+
+    private EmbeddedDatabase dataSource;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private EdiProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_TABLE);
+        properties = new EdiProperties();
+        properties.getLedger().setEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("Unknown file is a miss")
+    void shouldMissUnknownFile() {
+        assertTrue(newAdapter().findProcessed(FINGERPRINT).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Recorded file is found by another instance")
+    void shouldFindRecordedFileInDatabase() {
+        newAdapter().recordProcessed(FINGERPRINT, result());
+
+        Optional<ProcessingResult> found = newAdapter().findProcessed(FINGERPRINT);
+
+        assertTrue(found.isPresent());
+        assertEquals("CMA-CGM_1109643418.txt", found.get().getFileName());
+        assertEquals("CMDU", found.get().getPartnerId());
+        assertEquals(42, found.get().getRecordCount());
+        assertEquals(Map.of("CDB_EVENT", 42), found.get().getInsertCounts());
+        assertTrue(newAdapter().findProcessed(FileFingerprint.of("315", "other content", "000000001")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Control number is known whatever the content")
+    void shouldFindRecordedControlNumber() {
+        FileLedgerPersistenceAdapter adapter = newAdapter();
+        assertFalse(adapter.hasControlNumber("315", "000000001"));
+
+        adapter.recordProcessed(FINGERPRINT, result());
+
+        assertTrue(newAdapter().hasControlNumber("315", "000000001"));
+        assertFalse(newAdapter().hasControlNumber("315", "000000002"));
+        assertFalse(newAdapter().hasControlNumber("RAILINC", "000000001"));
+        assertFalse(newAdapter().hasControlNumber("315", null));
+    }
+
+    @Test
+    @DisplayName("Found entries are served from the cache")
+    void shouldServeRecordedFileFromCache() {
+        FileLedgerPersistenceAdapter adapter = newAdapter();
+        adapter.recordProcessed(FINGERPRINT, result());
+        jdbcTemplate.getJdbcTemplate().execute("DELETE FROM EDI_FILE_LEDGER");
+
+        assertTrue(adapter.findProcessed(FINGERPRINT).isPresent());
+        assertTrue(newAdapter().findProcessed(FINGERPRINT).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Failed insert is thrown and not cached")
+    void shouldThrowAndNotCacheFailedInsert() {
+        FileLedgerPersistenceAdapter adapter = newAdapter();
+        jdbcTemplate.getJdbcTemplate().execute("DROP TABLE EDI_FILE_LEDGER");
+
+        assertThrows(RuntimeException.class, () -> adapter.recordProcessed(FINGERPRINT, result()));
+
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_TABLE);
+        assertTrue(adapter.findProcessed(FINGERPRINT).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Duplicate entry is thrown so the second run rolls back")
+    void shouldThrowOnDuplicateEntry() {
+        newAdapter().recordProcessed(FINGERPRINT, result());
+
+        assertThrows(RuntimeException.class, () -> newAdapter().recordProcessed(FINGERPRINT, result()));
+    }
+
+    @Test
+    @DisplayName("Entry of a rolled-back transaction is neither stored nor cached")
+    void shouldNotCacheRolledBackEntry() {
+        FileLedgerPersistenceAdapter adapter = newAdapter();
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transaction.executeWithoutResult(status -> {
+            adapter.recordProcessed(FINGERPRINT, result());
+            status.setRollbackOnly();
+        });
+
+        assertTrue(adapter.findProcessed(FINGERPRINT).isEmpty());
+        assertTrue(newAdapter().findProcessed(FINGERPRINT).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Entry of a committed transaction is cached")
+    void shouldCacheCommittedEntry() {
+        FileLedgerPersistenceAdapter adapter = newAdapter();
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transaction.executeWithoutResult(status -> adapter.recordProcessed(FINGERPRINT, result()));
+        jdbcTemplate.getJdbcTemplate().execute("DELETE FROM EDI_FILE_LEDGER");
+
+        assertTrue(adapter.findProcessed(FINGERPRINT).isPresent());
+    }
+
+    @Test
+    @DisplayName("Disabled ledger neither records nor finds files")
+    void shouldIgnoreDisabledLedger() {
+        properties.getLedger().setEnabled(false);
+        FileLedgerPersistenceAdapter adapter = newAdapter();
+
+        adapter.recordProcessed(FINGERPRINT, result());
+
+        assertTrue(adapter.findProcessed(FINGERPRINT).isEmpty());
+        assertEquals(0, jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT COUNT(*) FROM EDI_FILE_LEDGER", Integer.class));
+    }
+
+    private FileLedgerPersistenceAdapter newAdapter() {
+        FileLedgerPersistenceAdapter adapter = new FileLedgerPersistenceAdapter(jdbcTemplate, properties,
+                new DatabasePermits(properties, 10));
+        adapter.init();
+        return adapter;
+    }
+
+    private static ProcessingResult result() {
+        return ProcessingResult.success("315", "CMA-CGM_1109643418.txt", "CMDU", 42,
+                Map.of("CDB_EVENT", 42), 120);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk copy source: column types inferred per chunk and row values converted to them.
+ */
+@DisplayName("Map Bulk Data Tests")
+class MapBulkDataTest {
+
+    @Test
+    @DisplayName("Column types, precision and scale follow the values of the chunk")
+    void shouldInferTypesFromValues() {
+        MapBulkData data = new MapBulkData(List.of("CODE", "SEQ", "TOTAL", "AMOUNT", "EVENT_AT", "EVENT_ON", "FLAG"),
+                List.of(
+                        Map.of("CODE", "AE", "SEQ", 1, "TOTAL", 10L, "AMOUNT", new BigDecimal("1.5"),
+                                "EVENT_AT", LocalDateTime.of(2024, 1, 1, 10, 0),
+                                "EVENT_ON", LocalDate.of(2024, 1, 1), "FLAG", true),
+                        Map.of("CODE", "VDX", "SEQ", 2, "AMOUNT", new BigDecimal("12.125"))));
+
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), List.copyOf(data.getColumnOrdinals()));
+        assertColumn(data, 1, Types.NVARCHAR, 3, 0);
+        assertColumn(data, 2, Types.INTEGER, 10, 0);
+        assertColumn(data, 3, Types.BIGINT, 19, 0);
+        assertColumn(data, 4, Types.DECIMAL, 38, 3);
+        assertColumn(data, 5, Types.TIMESTAMP, 27, 7);
+        assertColumn(data, 6, Types.DATE, 10, 0);
+        assertColumn(data, 7, Types.BIT, 1, 0);
+    }
+
+    @Test
+    @DisplayName("Mixed value types fall back to NVARCHAR and are sent as strings")
+    void shouldSendMixedColumnsAsStrings() {
+        MapBulkData data = new MapBulkData(List.of("REF"),
+                List.of(Map.of("REF", 12345), Map.of("REF", "AB"), Map.of("REF", new BigDecimal("1.50"))));
+
+        assertColumn(data, 1, Types.NVARCHAR, 5, 0);
+        assertEquals(List.of("12345", "AB", "1.50"), column(data));
+    }
+
+    @Test
+    @DisplayName("All-null and missing columns are NVARCHAR and send NULL")
+    void shouldSendNullColumns() {
+        Map<String, Object> record = new HashMap<>();
+        record.put("NOTE", null);
+        MapBulkData data = new MapBulkData(List.of("NOTE"), List.of(record, Map.of("OTHER", "X")));
+
+        assertColumn(data, 1, Types.NVARCHAR, 1, 0);
+        assertEquals(Arrays.asList(null, null), column(data));
+    }
+
+    @Test
+    @DisplayName("Types are inferred per chunk")
+    void shouldInferTypesPerChunk() {
+        MapBulkData numbers = new MapBulkData(List.of("SEQ"), List.of(Map.of("SEQ", 1)));
+        MapBulkData mixed = new MapBulkData(List.of("SEQ"), List.of(Map.of("SEQ", 1), Map.of("SEQ", "2a")));
+
+        assertEquals(Types.INTEGER, numbers.getColumnType(1));
+        assertEquals(Types.NVARCHAR, mixed.getColumnType(1));
+    }
+
+    @Test
+    @DisplayName("Dates are sent as JDBC timestamps and dates")
+    void shouldConvertDates() {
+        LocalDateTime eventAt = LocalDateTime.of(2024, 3, 1, 8, 30, 15);
+        MapBulkData data = new MapBulkData(List.of("EVENT_AT", "EVENT_ON"),
+                List.of(Map.of("EVENT_AT", eventAt, "EVENT_ON", LocalDate.of(2024, 3, 1))));
+
+        assertTrue(data.next());
+        Object[] row = data.getRowData();
+        assertEquals(Timestamp.valueOf(eventAt), row[0]);
+        assertEquals(java.sql.Date.valueOf(LocalDate.of(2024, 3, 1)), row[1]);
+        assertFalse(data.next());
+    }
+
+    private static void assertColumn(MapBulkData data, int column, int type, int precision, int scale) {
+        String name = data.getColumnName(column);
+        assertEquals(type, data.getColumnType(column), name + " type");
+        assertEquals(precision, data.getPrecision(column), name + " precision");
+        assertEquals(scale, data.getScale(column), name + " scale");
+    }
+
+    private static List<Object> column(MapBulkData data) {
+        List<Object> values = new ArrayList<>();
+        while (data.next()) {
+            values.add(data.getRowData()[0]);
+        }
+        return values;
+    }
+}
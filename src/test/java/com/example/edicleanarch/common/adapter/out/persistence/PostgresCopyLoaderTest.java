@@ -0,0 +1,50 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * COPY rows as CSV: NULL unquoted and empty, every value quoted, quotes doubled.
+ */
+@DisplayName("Postgres Copy Loader Tests")
+class PostgresCopyLoaderTest {
+
+    private static final List<String> COLUMNS = List.of("CODE", "NOTE", "AMOUNT", "EVENT_ON");
+
+    @Test
+    @DisplayName("NULL is an empty unquoted field, an empty string is quoted")
+    void shouldTellNullFromEmptyString() {
+        Map<String, Object> record = new HashMap<>();
+        record.put("CODE", "");
+        record.put("NOTE", null);
+
+        assertEquals("\"\",,,\n", row(record));
+    }
+
+    @Test
+    @DisplayName("Quotes are doubled, separators and line breaks stay inside the quotes")
+    void shouldEscapeQuotes() {
+        assertEquals("\"say \"\"hi\"\"\",\"a,b\nc\",,\n", row(Map.of("CODE", "say \"hi\"", "NOTE", "a,b\nc")));
+    }
+
+    @Test
+    @DisplayName("Decimals are written without exponent, other values with toString")
+    void shouldWritePlainDecimals() {
+        assertEquals("\"7\",,\"1200\",\"2024-01-31\"\n",
+                row(Map.of("CODE", 7, "AMOUNT", new BigDecimal("1.2E+3"), "EVENT_ON", LocalDate.of(2024, 1, 31))));
+    }
+
+    private static String row(Map<String, Object> record) {
+        StringBuilder line = new StringBuilder();
+        PostgresCopyLoader.appendRow(line, COLUMNS, record);
+        return line.toString();
+    }
+}
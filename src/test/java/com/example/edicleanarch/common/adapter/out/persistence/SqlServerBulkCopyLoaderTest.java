@@ -0,0 +1,51 @@
+package com.example.edicleanarch.common.adapter.out.persistence;
+
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bulk copy options and the source built for a chunk whose records have different columns.
+ */
+@DisplayName("SQL Server Bulk Copy Loader Tests")
+class SqlServerBulkCopyLoaderTest {
+
+    @Test
+    @DisplayName("Chunk is copied in one batch in the caller's transaction, like INSERT")
+    void shouldCopyLikeInsert() throws SQLServerException {
+        SQLServerBulkCopyOptions options = SqlServerBulkCopyLoader.options(500);
+
+        assertEquals(500, options.getBatchSize());
+        assertFalse(options.isUseInternalTransaction());
+        assertTrue(options.isCheckConstraints());
+        assertTrue(options.isFireTriggers());
+        assertEquals(0, options.getBulkCopyTimeout());
+    }
+
+    @Test
+    @DisplayName("Columns are the union of the chunk, records without a column send NULL")
+    void shouldCopyUnionOfColumns() {
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("NOTE", "late");
+        second.put("SEQ", 2);
+        List<Map<String, Object>> chunk = List.of(Map.of("SEQ", 1), second);
+
+        List<String> columns = ChunkLoader.columnsOf(chunk);
+        MapBulkData data = new MapBulkData(columns, chunk);
+
+        assertEquals(List.of("SEQ", "NOTE"), columns);
+        assertEquals(Types.INTEGER, data.getColumnType(1));
+        assertTrue(data.next());
+        assertArrayEquals(new Object[]{1, null}, data.getRowData());
+        assertTrue(data.next());
+        assertArrayEquals(new Object[]{2, "late"}, data.getRowData());
+    }
+}
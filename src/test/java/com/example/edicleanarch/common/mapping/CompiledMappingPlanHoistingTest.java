@@ -0,0 +1,164 @@
+package com.example.edicleanarch.common.mapping;
+
+import com.example.edicleanarch.common.parser.X12ToJsonConverter;
+import com.example.edicleanarch.common.transform.FieldScope;
+import com.example.edicleanarch.common.transform.LookupCondition;
+import com.example.edicleanarch.common.transform.LookupService;
+import com.example.edicleanarch.common.transform.TransformFunctions;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hoisted record-invariant fields: same records as evaluating every field per loop element.
+ */
+@DisplayName("Mapping Plan Hoisting Tests")
+class CompiledMappingPlanHoistingTest {
+
+    private static final String EDI_315_FIXTURES = "classpath:edi315/**/*.txt";
+    private static final String EDI_315_MAPPING_PATH = "config/mappings/inbound/edi315-mapping.yml";
+
+    private final LookupService lookupService = new LookupService() {
+        @Override
+        public Object lookup(String tableName, String keyColumn, String keyValue, String targetColumn) {
+            return tableName + ":" + keyValue;
+        }
+
+        @Override
+        public Object lookupWithCondition(String tableName, LookupCondition condition, List<String> parameters,
+                                          String targetColumn) {
+            return tableName + ":" + targetColumn + ":" + parameters;
+        }
+    };
+
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final TransformFunctions functions = new TransformFunctions();
+    private final EdiMappingEngine engine = new EdiMappingEngine(functions, lookupService);
+
+    @Test
+    @DisplayName("EDI 315 fixtures map to the same records with and without hoisting")
+    void shouldMatchUnhoistedX12Mapping() throws IOException {
+        MappingConfig config = mapping(EDI_315_MAPPING_PATH);
+        CompiledMappingPlan hoisted = CompiledMappingPlan.compile(config, functions, true);
+        CompiledMappingPlan unhoisted = CompiledMappingPlan.compile(config, functions, false);
+        assertTrue(hoisted.getTargets().stream().anyMatch(CompiledMappingPlan.CompiledTarget::isHoisted));
+        assertTrue(unhoisted.getTargets().stream().noneMatch(CompiledMappingPlan.CompiledTarget::isHoisted));
+
+        Resource[] fixtures = new PathMatchingResourcePatternResolver().getResources(EDI_315_FIXTURES);
+        assertTrue(fixtures.length > 0);
+
+        for (Resource fixture : fixtures) {
+            JsonNode ediJson = new X12ToJsonConverter().convert(read(fixture));
+
+            MappingResult expected = engine.transform(ediJson, unhoisted, "CMDU", context(fixture.getFilename()));
+            MappingResult actual = engine.transform(ediJson, hoisted, "CMDU", context(fixture.getFilename()));
+
+            assertTrue(expected.getTotalRecords() > 0, fixture.getFilename());
+            assertEquals(expected.getRecordsByTable(), actual.getRecordsByTable(), fixture.getFilename());
+        }
+    }
+
+    @Test
+    @DisplayName("Fields reading earlier record-scoped fields by name are not hoisted")
+    void shouldMatchUnhoistedFieldReferences() throws IOException {
+        // LOCATION reads the loop element; the fields after it reach it only through the output record
+        MappingConfig config = yamlMapper.readValue("""
+                sourceFormat: X12
+                targets:
+                  - table: EVENT
+                    type: DETAIL
+                    loopPath: R4
+                    fields:
+                      - name: STATUS
+                        source: "B4.03"
+                      - name: LOCATION
+                        source: "02"
+                      - name: N9.02
+                        source: "02"
+                      - name: LOCATION_COPY
+                        source: "location"
+                      - name: STATUS_AT
+                        transform: CONCAT
+                        source: "STATUS"
+                        concatFields: ["LOCATION"]
+                      - name: PORT_NAME
+                        transform: LOOKUP
+                        lookupTable: PORT
+                        lookupColumn: PORT_NAME
+                        lookupCondition: "UNLOC = '${Location}'"
+                      - name: MISSING_SEGMENT
+                        source: "N9.02"
+                      - name: STATUS_COPY
+                        source: "STATUS"
+                """, MappingConfig.class);
+        JsonNode ediJson = new ObjectMapper().readTree("""
+                {"envelope": {}, "transactions": [
+                  {"B4": {"03": "AE"}, "R4": [{"01": "L", "02": "USNYC"}, {"01": "D", "02": "CNSHA"}]},
+                  {"B4": {"03": "VD"}, "R4": [{"01": "L", "02": "NLRTM"}]}
+                ]}
+                """);
+        CompiledMappingPlan hoisted = CompiledMappingPlan.compile(config, functions, true);
+        CompiledMappingPlan unhoisted = CompiledMappingPlan.compile(config, functions, false);
+
+        MappingResult expected = engine.transform(ediJson, unhoisted, "TEST", context("TEST.txt"));
+        MappingResult actual = engine.transform(ediJson, hoisted, "TEST", context("TEST.txt"));
+
+        assertEquals(expected.getRecordsByTable(), actual.getRecordsByTable());
+        List<Map<String, Object>> events = actual.getRecordsByTable().get("EVENT");
+        assertEquals(3, events.size());
+        assertEquals("CNSHA", events.get(1).get("LOCATION_COPY"));
+        assertEquals("CNSHA", events.get(1).get("MISSING_SEGMENT"));
+        assertEquals("PORT:PORT_NAME:[CNSHA]", events.get(1).get("PORT_NAME"));
+
+        List<FieldScope> scopes = hoisted.getTargets().get(0).getScopes();
+        assertEquals(List.of(FieldScope.TRANSACTION, FieldScope.RECORD, FieldScope.RECORD, FieldScope.RECORD,
+                FieldScope.RECORD, FieldScope.RECORD, FieldScope.RECORD, FieldScope.TRANSACTION), scopes);
+    }
+
+    /**
+     * Mapping config with CURRENT_TIMESTAMP columns made constant, so two runs can be compared.
+     */
+    private MappingConfig mapping(String path) throws IOException {
+        MappingConfig config;
+        try (InputStream is = new ClassPathResource(path).getInputStream()) {
+            config = yamlMapper.readValue(is, MappingConfig.class);
+        }
+        for (TargetTableConfig target : config.getTargets()) {
+            for (FieldMapping field : target.getFields()) {
+                if ("CURRENT_TIMESTAMP".equals(field.getTransform())) {
+                    field.setTransform("CONSTANT");
+                    field.setValue("2024-01-01T00:00");
+                }
+            }
+        }
+        return config;
+    }
+
+    private static ProcessingContext context(String fileName) {
+        ProcessingContext context = new ProcessingContext();
+        context.setFileName(fileName);
+        return context;
+    }
+
+    private static String read(Resource resource) throws IOException {
+        try (InputStream is = resource.getInputStream()) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
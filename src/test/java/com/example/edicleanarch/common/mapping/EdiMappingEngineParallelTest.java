@@ -0,0 +1,159 @@
+package com.example.edicleanarch.common.mapping;
+
+import com.example.edicleanarch.common.parser.FixedWidthToJsonConverter;
+import com.example.edicleanarch.common.parser.X12ToJsonConverter;
+import com.example.edicleanarch.common.schema.FixedWidthSchema;
+import com.example.edicleanarch.common.transform.LookupCondition;
+import com.example.edicleanarch.common.transform.LookupService;
+import com.example.edicleanarch.common.transform.TransformFunctions;
+import com.example.edicleanarch.config.EdiProperties;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Partitioned mapping on the shared executor: same records in the same order as sequential mapping.
+ */
+@DisplayName("Parallel Mapping Engine Tests")
+class EdiMappingEngineParallelTest {
+
+    private static final String EDI_315_PATH = "edi315/CMDU/CMA-CGM_1109643418.txt";
+    private static final String EDI_315_MAPPING_PATH = "config/mappings/inbound/edi315-mapping.yml";
+    private static final String RAILINC_PATH = "railinc/OECGROUP_CLM.multiple_records.txt";
+    private static final String RAILINC_SCHEMA_PATH = "config/mappings/inbound/railinc-schema.yml";
+    private static final String RAILINC_MAPPING_PATH = "config/mappings/inbound/railinc-mapping.yml";
+
+    private final LookupService lookupService = new LookupService() {
+        @Override
+        public Object lookup(String tableName, String keyColumn, String keyValue, String targetColumn) {
+            return tableName + ":" + keyValue;
+        }
+
+        @Override
+        public Object lookupWithCondition(String tableName, LookupCondition condition, List<String> parameters,
+                                          String targetColumn) {
+            return tableName + ":" + parameters;
+        }
+    };
+
+    private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private ParallelMappingExecutor executor;
+    private EdiMappingEngine sequential;
+    private EdiMappingEngine parallel;
+
+    @BeforeEach
+    void setUp() {
+        EdiProperties properties = new EdiProperties();
+        properties.getFileDrop().setParallelism(3);
+        properties.getMapping().setParallel(true);
+        properties.getMapping().setParallelThreshold(1);
+        properties.getMapping().setPartitionSize(7);
+        executor = new ParallelMappingExecutor(properties);
+
+        sequential = new EdiMappingEngine(new TransformFunctions(), lookupService);
+        parallel = new EdiMappingEngine(new TransformFunctions(), lookupService, properties, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("EDI 315 transactions map to the same records in the same order")
+    void shouldMatchSequentialX12Mapping() throws IOException {
+        JsonNode ediJson = new X12ToJsonConverter().convert(read(EDI_315_PATH));
+        CompiledMappingPlan plan = sequential.compile(mapping(EDI_315_MAPPING_PATH));
+        assertTrue(ediJson.get("transactions").size() > 7, "needs several partitions");
+
+        MappingResult expected = sequential.transform(ediJson, plan, "CMDU", context("CMA-CGM_1109643418.txt"));
+        MappingResult actual = parallel.transform(ediJson, plan, "CMDU", context("CMA-CGM_1109643418.txt"));
+
+        assertTrue(expected.getTotalRecords() > 0);
+        assertEquals(expected.getRecordsByTable(), actual.getRecordsByTable());
+    }
+
+    @Test
+    @DisplayName("Railinc records map to the same records in the same order")
+    void shouldMatchSequentialFixedWidthMapping() throws IOException {
+        JsonNode railincJson = new FixedWidthToJsonConverter().convert(read(RAILINC_PATH),
+                load(RAILINC_SCHEMA_PATH, FixedWidthSchema.class));
+        CompiledMappingPlan plan = sequential.compile(mapping(RAILINC_MAPPING_PATH));
+
+        MappingResult expected = sequential.transform(railincJson, plan, "OECGROUP", context(RAILINC_PATH));
+        MappingResult actual = parallel.transform(railincJson, plan, "OECGROUP", context(RAILINC_PATH));
+
+        assertTrue(expected.getTotalRecords() > 7, "needs several partitions");
+        assertEquals(expected.getRecordsByTable(), actual.getRecordsByTable());
+    }
+
+    @Test
+    @DisplayName("Partitions of a file part map on the part's thread")
+    void shouldMapPartitionsInsideFileParts() throws IOException {
+        JsonNode ediJson = new X12ToJsonConverter().convert(read(EDI_315_PATH));
+        CompiledMappingPlan plan = sequential.compile(mapping(EDI_315_MAPPING_PATH));
+        MappingResult expected = sequential.transform(ediJson, plan, "CMDU", context("CMA-CGM_1109643418.txt"));
+
+        // More parts than mapping threads, each part partitioned again
+        List<MappingResult> results = new ArrayList<>();
+        executor.mapInOrder(List.of(1, 2, 3, 4, 5, 6),
+                part -> parallel.transform(ediJson, plan, "CMDU", context("CMA-CGM_1109643418.txt")),
+                results::add);
+
+        assertEquals(6, results.size());
+        for (MappingResult result : results) {
+            assertEquals(expected.getRecordsByTable(), result.getRecordsByTable());
+        }
+    }
+
+    /**
+     * Mapping config with CURRENT_TIMESTAMP columns made constant, so two runs can be compared.
+     */
+    private MappingConfig mapping(String path) throws IOException {
+        MappingConfig config = load(path, MappingConfig.class);
+        for (TargetTableConfig target : config.getTargets()) {
+            for (FieldMapping field : target.getFields()) {
+                if ("CURRENT_TIMESTAMP".equals(field.getTransform())) {
+                    field.setTransform("CONSTANT");
+                    field.setValue("2024-01-01T00:00");
+                }
+            }
+        }
+        return config;
+    }
+
+    private static ProcessingContext context(String fileName) {
+        ProcessingContext context = new ProcessingContext();
+        context.setFileName(fileName);
+        return context;
+    }
+
+    private <T> T load(String path, Class<T> type) throws IOException {
+        try (InputStream is = new ClassPathResource(path).getInputStream()) {
+            return yamlMapper.readValue(is, type);
+        }
+    }
+
+    private static String read(String path) throws IOException {
+        try (InputStream is = new ClassPathResource(path).getInputStream()) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.edicleanarch.common.mapping;
+
+import com.example.edicleanarch.config.EdiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parallel mapping of file parts: results in part order, same output as sequential mapping, failures.
+ */
+@DisplayName("Parallel Mapping Executor Tests")
+class ParallelMappingExecutorTest {
+
+    private EdiProperties properties;
+    private ParallelMappingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EdiProperties();
+        properties.getFileDrop().setParallelism(4);
+        properties.getFileDrop().setPartSize(100);
+        executor = new ParallelMappingExecutor(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("One part per part-size of content")
+    void shouldCountParts() {
+        assertEquals(1, executor.partsFor(0));
+        assertEquals(1, executor.partsFor(100));
+        assertEquals(2, executor.partsFor(101));
+        assertEquals(21474837, executor.partsFor(Integer.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("Parallel output equals sequential output, in part order")
+    void shouldMatchSequentialMapping() {
+        List<Integer> parts = IntStream.range(0, 50).boxed().toList();
+        Function<Integer, MappingResult> mapper = part -> {
+            // Parts finish out of order
+            sleep(ThreadLocalRandom.current().nextInt(5));
+            return result(part);
+        };
+
+        List<Map<String, List<Map<String, Object>>>> sequential = new ArrayList<>();
+        parts.forEach(part -> sequential.add(result(part).getRecordsByTable()));
+
+        List<Map<String, List<Map<String, Object>>>> parallel = new ArrayList<>();
+        List<String> threads = new ArrayList<>();
+        executor.mapInOrder(parts, mapper, mappingResult -> {
+            parallel.add(mappingResult.getRecordsByTable());
+            threads.add(Thread.currentThread().getName());
+        });
+
+        assertEquals(sequential, parallel);
+        // The consumer (the file's writer) runs on the calling thread
+        assertTrue(threads.stream().allMatch(Thread.currentThread().getName()::equals));
+    }
+
+    @Test
+    @DisplayName("A failing part stops the run")
+    void shouldStopOnFailingPart() {
+        List<Integer> consumed = new ArrayList<>();
+
+        RuntimeException failure = assertThrows(RuntimeException.class, () -> executor.mapInOrder(
+                IntStream.range(0, 20).boxed().toList(),
+                part -> {
+                    if (part == 5) throw new IllegalStateException("bad part");
+                    return result(part);
+                },
+                mappingResult -> consumed.add((Integer) mappingResult.getRecords("EVENT").get(0).get("PART"))));
+
+        assertTrue(failure.getMessage().contains("bad part"));
+        assertEquals(List.of(0, 1, 2, 3, 4), consumed);
+    }
+
+    private static MappingResult result(int part) {
+        MappingResult result = new MappingResult();
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            records.add(Map.of("PART", part, "SEQ", i));
+        }
+        result.addRecords("EVENT", records);
+        return result;
+    }
+
+    private static void sleep(int millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
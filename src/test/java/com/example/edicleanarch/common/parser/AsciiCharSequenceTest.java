@@ -0,0 +1,86 @@
+package com.example.edicleanarch.common.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ASCII view of a byte buffer: characters, sub-sequences, bounds and memory-mapped files.
+ */
+@DisplayName("ASCII Char Sequence Tests")
+class AsciiCharSequenceTest {
+
+    private static final String CONTENT = "ISA*00*~GS*QO~ST*315*0001~";
+
+    @Test
+    @DisplayName("Reads the same characters as the String")
+    void shouldReadSameCharactersAsString() {
+        AsciiCharSequence sequence = of(CONTENT);
+
+        assertEquals(CONTENT.length(), sequence.length());
+        for (int i = 0; i < CONTENT.length(); i++) {
+            assertEquals(CONTENT.charAt(i), sequence.charAt(i));
+        }
+        assertEquals(CONTENT, sequence.toString());
+    }
+
+    @Test
+    @DisplayName("Sub-sequences are views with their own offset")
+    void shouldViewSubSequences() {
+        AsciiCharSequence sequence = of(CONTENT);
+
+        AsciiCharSequence group = sequence.subSequence(8, 14);
+        assertEquals("GS*QO~", group.toString());
+        assertEquals('G', group.charAt(0));
+        assertEquals("QO", group.subSequence(3, 5).toString());
+        assertEquals("", sequence.subSequence(5, 5).toString());
+        assertEquals(6, group.bytes().remaining());
+    }
+
+    @Test
+    @DisplayName("Reads outside the view are rejected")
+    void shouldRejectOutOfBounds() {
+        AsciiCharSequence group = of(CONTENT).subSequence(8, 14);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> group.charAt(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> group.charAt(6));
+        assertThrows(IndexOutOfBoundsException.class, () -> group.subSequence(2, 7));
+        assertThrows(IndexOutOfBoundsException.class, () -> group.subSequence(4, 3));
+    }
+
+    @Test
+    @DisplayName("Bytes above 127 are read as ISO-8859-1")
+    void shouldReadHighBytesAsLatin1() {
+        AsciiCharSequence sequence = new AsciiCharSequence(ByteBuffer.wrap(new byte[]{'A', (byte) 0xE9}));
+
+        assertEquals('é', sequence.charAt(1));
+        assertEquals("Aé", sequence.toString());
+    }
+
+    @Test
+    @DisplayName("Mapped file has the content of the file")
+    void shouldMapFile() throws IOException {
+        Path file = Files.createTempFile("ascii", ".txt");
+        try {
+            Files.writeString(file, CONTENT, StandardCharsets.US_ASCII);
+
+            AsciiCharSequence mapped = AsciiCharSequence.map(file);
+
+            assertEquals(CONTENT, mapped.toString());
+            assertEquals(CONTENT.length(), mapped.bytes().remaining());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static AsciiCharSequence of(String content) {
+        return new AsciiCharSequence(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
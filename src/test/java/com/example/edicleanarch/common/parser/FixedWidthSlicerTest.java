@@ -0,0 +1,152 @@
+package com.example.edicleanarch.common.parser;
+
+import com.example.edicleanarch.common.schema.FieldDefinition;
+import com.example.edicleanarch.common.schema.FixedWidthSchema;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Slicer-based conversion against the line-splitting conversion it replaced, on the Railinc fixtures.
+ */
+@DisplayName("Fixed Width Slicer Tests")
+class FixedWidthSlicerTest {
+
+    private static final String CLM_PATH = "railinc/OECGROUP_CLM.multiple_records.txt";
+    private static final String SCHEMA_PATH = "config/mappings/inbound/railinc-schema.yml";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private FixedWidthToJsonConverter converter;
+    private FixedWidthSchema schema;
+    private String content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        converter = new FixedWidthToJsonConverter();
+        try (InputStream is = new ClassPathResource(SCHEMA_PATH).getInputStream()) {
+            schema = new ObjectMapper(new YAMLFactory()).readValue(is, FixedWidthSchema.class);
+        }
+        try (InputStream is = new ClassPathResource(CLM_PATH).getInputStream()) {
+            content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Converted files equal the previous conversion")
+    void shouldMatchPreviousConversion() throws IOException {
+        for (Map.Entry<String, String> variant : variants().entrySet()) {
+            JsonNode expected = legacyConvert(variant.getValue());
+            JsonNode actual = converter.convert(variant.getValue(), schema);
+
+            assertTrue(expected.get("records").size() > 0, variant.getKey());
+            assertEquals(expected.get("header"), actual.get("header"), variant.getKey());
+            assertEquals(expected.get("records"), actual.get("records"), variant.getKey());
+            assertEquals(expected.get("trailer"), actual.get("trailer"), variant.getKey());
+            assertEquals(expected.get("records").size(), actual.get("_metadata").get("recordCount").asInt(),
+                    variant.getKey());
+        }
+    }
+
+    @Test
+    @DisplayName("Streamed and split files equal the previous conversion")
+    void shouldMatchPreviousConversionWhenStreamedOrSplit() throws IOException {
+        FixedWidthSlicer slicer = converter.compile(schema);
+
+        for (Map.Entry<String, String> variant : variants().entrySet()) {
+            JsonNode expected = legacyConvert(variant.getValue());
+
+            try (FixedWidthRecordReader reader = converter.stream(new StringReader(variant.getValue()), slicer)) {
+                ArrayNode records = mapper.createArrayNode();
+                for (ArrayNode batch = reader.readRecords(3); !batch.isEmpty(); batch = reader.readRecords(3)) {
+                    records.addAll(batch);
+                }
+                assertEquals(expected.get("records"), records, variant.getKey());
+                assertEquals(expected.get("header"), reader.summary().get("header"), variant.getKey());
+                assertEquals(expected.get("trailer"), reader.summary().get("trailer"), variant.getKey());
+            }
+
+            List<FixedWidthRecordReader> readers = converter.split(variant.getValue(), slicer, 4);
+            ArrayNode records = mapper.createArrayNode();
+            for (FixedWidthRecordReader reader : readers) {
+                records.addAll(reader.readRecords(Integer.MAX_VALUE));
+            }
+            assertEquals(expected.get("records"), records, variant.getKey());
+            assertEquals(expected.get("trailer"), FixedWidthRecordReader.summaryOf(readers).get("trailer"),
+                    variant.getKey());
+        }
+    }
+
+    /**
+     * The fixture as is and rewritten the ways files arrive from partners.
+     */
+    private Map<String, String> variants() {
+        List<String> lines = content.lines().toList();
+        Map<String, String> variants = new LinkedHashMap<>();
+        variants.put("LF", String.join("\n", lines) + "\n");
+        variants.put("CRLF", String.join("\r\n", lines) + "\r\n");
+        variants.put("no final line break", String.join("\n", lines));
+        variants.put("blank lines", "\n" + String.join("\n\n   \n", lines) + "\n\n");
+        variants.put("trailing blanks", String.join("   \n", lines) + "   \n");
+
+        List<String> truncated = new ArrayList<>(lines);
+        truncated.set(1, lines.get(1).substring(0, 20));
+        truncated.set(2, lines.get(2).substring(0, 1));
+        variants.put("short lines", String.join("\n", truncated) + "\n");
+        return variants;
+    }
+
+    /**
+     * Conversion before the slicer: regex line split, substring and trim per field.
+     */
+    private JsonNode legacyConvert(String text) {
+        ObjectNode root = mapper.createObjectNode();
+        ObjectNode header = null;
+        ArrayNode records = mapper.createArrayNode();
+        ObjectNode trailer = null;
+
+        for (String line : text.split("\\r?\\n")) {
+            if (line.isBlank()) continue;
+
+            if (line.startsWith("CLM")) {
+                header = legacyLine(line, schema.getHeaderFields());
+            } else if (line.startsWith("EOM")) {
+                trailer = legacyLine(line, schema.getTrailerFields());
+            } else {
+                records.add(legacyLine(line, schema.getDataFields()));
+            }
+        }
+        root.set("header", header);
+        root.set("records", records);
+        root.set("trailer", trailer);
+        return root;
+    }
+
+    private ObjectNode legacyLine(String line, List<FieldDefinition> fields) {
+        ObjectNode node = mapper.createObjectNode();
+        if (fields == null) return node;
+
+        for (FieldDefinition field : fields) {
+            String value = field.getStart() >= line.length()
+                    ? "" : line.substring(field.getStart(), Math.min(field.getEnd(), line.length()));
+            node.put(field.getName(), field.isTrim() ? value.trim() : value);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.edicleanarch.common.transform;
+
+import com.example.edicleanarch.common.adapter.out.persistence.DatabasePermits;
+import com.example.edicleanarch.config.EdiProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Database lookups against an in-memory H2 database in SQL Server mode (case-insensitive):
+ * preloaded snapshot versus SQL, cache expiry and per-table cache settings.
+ */
+@DisplayName("Database Lookup Service Tests")
+class DatabaseLookupServiceTest {
+
+    private EmbeddedDatabase dataSource;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("lookup-" + UUID.randomUUID() + ";MODE=MSSQLServer;IGNORECASE=TRUE")
+                .build();
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        jdbcTemplate.getJdbcTemplate().execute(
+                "CREATE TABLE SCAC_MAP (SCAC_CD VARCHAR(10), EVENT_CD VARCHAR(3), ID VARCHAR(5))");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO SCAC_MAP VALUES ('CMDU', 'EVT', '1')");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO SCAC_MAP VALUES ('maeu', 'EVT', '2')");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO SCAC_MAP VALUES (' ONEY', 'EVT', '4')");
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO SCAC_MAP VALUES (NULL, 'EVT', '5')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    @DisplayName("Preloaded table answers key lookups like the database")
+    void shouldMatchDatabaseForKeyLookups() {
+        DatabaseLookupService preloaded = newService(List.of("SCAC_MAP"));
+        DatabaseLookupService database = newService(List.of());
+
+        for (String key : List.of("CMDU", "cmdu", "Cmdu ", "MAEU", "maeu", "ONEY", " ONEY", "HLCU", "")) {
+            assertEquals(database.lookup("SCAC_MAP", "SCAC_CD", key, "ID"),
+                    preloaded.lookup("SCAC_MAP", "SCAC_CD", key, "ID"), "key '" + key + "'");
+        }
+        assertEquals("1", preloaded.lookup("SCAC_MAP", "SCAC_CD", "cmdu", "ID"));
+        assertNull(preloaded.lookup("SCAC_MAP", "SCAC_CD", "ONEY", "ID"));
+    }
+
+    @Test
+    @DisplayName("Preloaded table answers compiled conditions like the database")
+    void shouldMatchDatabaseForConditions() {
+        DatabaseLookupService preloaded = newService(List.of("SCAC_MAP"));
+        DatabaseLookupService database = newService(List.of());
+        LookupCondition condition = LookupCondition.of("SCAC_CD = '${scac}' AND EVENT_CD = 'evt'");
+
+        // Condition parameters are not trimmed; H2 compares trailing blanks unlike SQL Server, so none here
+        for (String key : List.of("CMDU", "cmdu", "MAEU", "maeu", "ONEY", " ONEY", "HLCU", "")) {
+            assertEquals(database.lookupRow("SCAC_MAP", condition, List.of(key), List.of("ID")),
+                    preloaded.lookupRow("SCAC_MAP", condition, List.of(key), List.of("ID")), "key '" + key + "'");
+        }
+        assertEquals(Map.of("ID", "4"), preloaded.lookupRow("SCAC_MAP", condition, List.of(" ONEY"), List.of("ID")));
+        assertEquals(Map.of("ID", "2"), preloaded.lookupRow("SCAC_MAP", condition, List.of("MAEU"), List.of("ID")));
+    }
+
+    @Test
+    @DisplayName("Per-table cache settings override only what they set")
+    void shouldMergeTableCacheSettingsOverDefaults() {
+        EdiProperties.LookupProperties lookup = new EdiProperties().getLookup();
+        EdiProperties.LookupProperties.CacheProperties override = new EdiProperties.LookupProperties.CacheProperties();
+        override.setMissExpireAfterWrite(Duration.ofSeconds(30));
+        lookup.getTables().put("scac_map", override);
+
+        EdiProperties.LookupProperties.CacheProperties spec = lookup.cacheFor("SCAC_MAP ");
+
+        assertEquals(Duration.ofSeconds(30), spec.getMissExpireAfterWrite());
+        assertEquals(lookup.getCache().getMaximumSize(), spec.getMaximumSize());
+        assertEquals(lookup.getCache().getExpireAfterWrite(), spec.getExpireAfterWrite());
+        assertEquals(lookup.getCache().getRefreshAfterWrite(), spec.getRefreshAfterWrite());
+        assertSame(lookup.getCache(), lookup.cacheFor("OTHER_MAP"));
+        assertNull(override.getMaximumSize());
+    }
+
+    @Test
+    @DisplayName("Misses expire after the table's miss TTL, found rows after the default TTL")
+    void shouldExpireMissesBeforeFoundRows() throws InterruptedException {
+        EdiProperties properties = new EdiProperties();
+        EdiProperties.LookupProperties.CacheProperties override = new EdiProperties.LookupProperties.CacheProperties();
+        override.setMissExpireAfterWrite(Duration.ofMillis(200));
+        properties.getLookup().getTables().put("SCAC_MAP", override);
+        DatabaseLookupService service = newService(properties);
+
+        assertNull(service.lookup("SCAC_MAP", "SCAC_CD", "HLCU", "ID"));
+        assertEquals("1", service.lookup("SCAC_MAP", "SCAC_CD", "CMDU", "ID"));
+        jdbcTemplate.getJdbcTemplate().execute("INSERT INTO SCAC_MAP VALUES ('HLCU', 'EVT', '6')");
+        jdbcTemplate.getJdbcTemplate().execute("UPDATE SCAC_MAP SET ID = '7' WHERE SCAC_CD = 'CMDU'");
+
+        // Both answered from the cache until the miss expires
+        assertNull(service.lookup("SCAC_MAP", "SCAC_CD", "HLCU", "ID"));
+        assertEquals("1", service.lookup("SCAC_MAP", "SCAC_CD", "CMDU", "ID"));
+        Thread.sleep(400);
+
+        assertEquals("6", service.lookup("SCAC_MAP", "SCAC_CD", "HLCU", "ID"));
+        assertEquals("1", service.lookup("SCAC_MAP", "SCAC_CD", "CMDU", "ID"));
+    }
+
+    private DatabaseLookupService newService(List<String> preload) {
+        EdiProperties properties = new EdiProperties();
+        properties.getLookup().setPreload(preload);
+        return newService(properties);
+    }
+
+    private DatabaseLookupService newService(EdiProperties properties) {
+        DatabaseLookupService service = new DatabaseLookupService(jdbcTemplate, properties,
+                new DatabasePermits(properties, 10));
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.edicleanarch.common.transform;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Preloaded lookup tables: key values compare like the database (case-insensitive, trailing blanks ignored).
+ */
+@DisplayName("Lookup Table Snapshot Tests")
+class LookupTableSnapshotTest {
+
+    private final LookupTableSnapshot snapshot = LookupTableSnapshot.of(Map.of("scac_map", List.of(
+            row("CMDU", "EVT", "1"),
+            row("maeu", "EVT", "2"),
+            row("HLCU      ", "EVT", "3"),
+            row(" ONEY", "EVT", "4"),
+            row(null, "EVT", "5"),
+            row("CMDU", "EVT", "6"))));
+
+    @Test
+    @DisplayName("Table and column names are case-insensitive")
+    void shouldMatchNamesIgnoringCase() {
+        assertTrue(snapshot.contains("SCAC_MAP"));
+        assertEquals("1", id(find("Scac_Cd", "CMDU")));
+    }
+
+    @Test
+    @DisplayName("Key values are case-insensitive")
+    void shouldMatchKeysIgnoringCase() {
+        assertEquals("1", id(find("SCAC_CD", "cmdu")));
+        assertEquals("2", id(find("SCAC_CD", "MAEU")));
+    }
+
+    @Test
+    @DisplayName("Trailing blanks are ignored, leading blanks are not")
+    void shouldIgnoreTrailingBlanksOnly() {
+        assertEquals("3", id(find("SCAC_CD", "HLCU")));
+        assertEquals("2", id(find("SCAC_CD", "maeu  ")));
+        assertEquals("4", id(find("SCAC_CD", " ONEY")));
+        assertNull(find("SCAC_CD", "ONEY"));
+    }
+
+    @Test
+    @DisplayName("NULL never matches and the first matching row wins")
+    void shouldSkipNullsAndKeepFirstRow() {
+        assertNull(find("SCAC_CD", ""));
+        assertEquals("1", id(snapshot.find("SCAC_MAP", List.of("SCAC_CD", "EVENT_CD"), List.of("CMDU", "evt"))));
+    }
+
+    private Map<String, Object> find(String column, String value) {
+        return snapshot.find("SCAC_MAP", List.of(column), List.of(value));
+    }
+
+    private static Object id(Map<String, Object> row) {
+        return row != null ? row.get("ID") : null;
+    }
+
+    private static Map<String, Object> row(String scac, String event, String id) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("scac_cd", scac);
+        row.put("event_cd", event);
+        row.put("id", id);
+        return row;
+    }
+}
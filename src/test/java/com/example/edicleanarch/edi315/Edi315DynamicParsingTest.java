@@ -1,6 +1,23 @@
 package com.example.edicleanarch.edi315;
 
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
+import com.example.edicleanarch.common.mapping.FieldMapping;
+import com.example.edicleanarch.common.mapping.MappingConfig;
+import com.example.edicleanarch.common.mapping.ProcessingContext;
+import com.example.edicleanarch.common.mapping.TargetTableConfig;
+import com.example.edicleanarch.common.parser.X12InterchangeReader;
 import com.example.edicleanarch.common.parser.X12ToJsonConverter;
+import com.example.edicleanarch.common.parser.X12Tokenizer;
+import com.example.edicleanarch.common.transform.FieldScope;
+import com.example.edicleanarch.common.transform.CompiledField;
+import com.example.edicleanarch.common.transform.LookupCondition;
+import com.example.edicleanarch.common.transform.LookupGroup;
+import com.example.edicleanarch.common.transform.QualifiedPath;
+import com.example.edicleanarch.common.transform.SegmentIndex;
+import com.example.edicleanarch.common.transform.SourcePath;
+import com.example.edicleanarch.common.transform.Template;
+import com.example.edicleanarch.common.transform.TransformContext;
+import com.example.edicleanarch.common.transform.TransformFunctions;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -10,7 +27,9 @@ import tools.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -114,4 +133,224 @@ class Edi315DynamicParsingTest {
         JsonNode tx2 = transactions.get(1);
         assertEquals("AE", tx2.get("B4").get("03").asText());
     }
+
+    @Test
+    @DisplayName("Should ignore CR/LF between and inside segments")
+    void testLineBreaksAreIgnored() {
+        JsonNode expected = x12Converter.convert(sampleEdi315);
+        JsonNode withLineBreaks = x12Converter.convert(sampleEdi315.replace("~", "~\r\n"));
+        assertEquals(expected, withLineBreaks);
+    }
+
+    @Test
+    @DisplayName("Tokenizer should stream segments without building a tree")
+    void testTokenizerVisitor() {
+        List<String> b4Codes = new ArrayList<>();
+        int[] segmentCount = new int[1];
+
+        x12Converter.tokenize(sampleEdi315, segment -> {
+            segmentCount[0]++;
+            if ("B4".equals(segment.segmentId())) {
+                b4Codes.add(segment.element(3));
+            }
+        });
+
+        assertTrue(segmentCount[0] > 0);
+        assertEquals("VD", b4Codes.get(0));
+        assertEquals("AE", b4Codes.get(1));
+        assertEquals(x12Converter.convert(sampleEdi315).get("transactions").size(), b4Codes.size());
+    }
+
+    @Test
+    @DisplayName("Tokenizer should read separators from ISA")
+    void testTokenizerSeparators() {
+        X12Tokenizer tokenizer = new X12Tokenizer(sampleEdi315);
+        assertEquals('*', tokenizer.elementSeparator());
+        assertEquals('~', tokenizer.segmentTerminator());
+        assertEquals('>', tokenizer.componentSeparator());
+
+        assertTrue(tokenizer.next());
+        assertEquals("ISA", tokenizer.segmentId());
+        assertEquals(16, tokenizer.elementCount());
+        assertEquals("CMACGM", tokenizer.element(6));
+        assertNull(tokenizer.element(17));
+    }
+
+    @Test
+    @DisplayName("Streaming reader should yield the same transactions as convert")
+    void testStreamingReader() {
+        JsonNode full = x12Converter.convert(sampleEdi315);
+        JsonNode transactions = full.get("transactions");
+
+        X12InterchangeReader reader = x12Converter.stream(sampleEdi315);
+        int count = 0;
+        while (reader.hasNext()) {
+            X12InterchangeReader.X12TransactionSet tx = reader.next();
+            assertEquals(count, tx.index());
+            assertEquals(transactions.get(count), tx.transaction());
+            assertEquals("CMACGM", tx.envelope().get("ISA").get("06").asText());
+            count++;
+        }
+
+        assertEquals(transactions.size(), count);
+        assertEquals(full.get("envelope"), reader.getInterchange().get("envelope"));
+    }
+
+    @Test
+    @DisplayName("Split readers should yield the stream's transactions with their own interchange")
+    void testSplitMultipleInterchanges() {
+        String secondInterchange = sampleEdi315.replace("12250", "12251");
+        String content = sampleEdi315 + "\n" + secondInterchange;
+
+        List<X12InterchangeReader.X12TransactionSet> streamed = new ArrayList<>();
+        x12Converter.stream(content).forEachRemaining(streamed::add);
+        assertEquals(2 * 233, streamed.size());
+
+        List<X12InterchangeReader> parts = x12Converter.split(content, 16);
+        assertTrue(parts.size() > 2);
+
+        int count = 0;
+        for (X12InterchangeReader part : parts) {
+            while (part.hasNext()) {
+                X12InterchangeReader.X12TransactionSet tx = part.next();
+                X12InterchangeReader.X12TransactionSet expected = streamed.get(count);
+                assertEquals(expected.transaction(), tx.transaction());
+                assertEquals(expected.envelope().get("ISA"), tx.envelope().get("ISA"));
+                assertEquals(expected.envelope().get("GS"), tx.envelope().get("GS"));
+                assertEquals(count < 233 ? "000012250" : "000012251",
+                        tx.envelope().get("ISA").get("13").asText());
+                count++;
+            }
+        }
+        assertEquals(streamed.size(), count);
+    }
+
+    @Test
+    @DisplayName("Compiled paths should resolve the same values as string paths")
+    void testCompiledPaths() {
+        JsonNode ediJson = x12Converter.convert(sampleEdi315);
+        JsonNode transaction = ediJson.get("transactions").get(0);
+        JsonNode r4 = transaction.get("R4").get(0);
+
+        ProcessingContext processingContext = new ProcessingContext();
+        processingContext.setFileName("CMA-CGM_1109643418.txt");
+        Map<String, Object> output = new LinkedHashMap<>();
+        output.put("SCAC", "CMDU");
+        TransformContext ctx = new TransformContext(r4, transaction, ediJson, processingContext, null, 0, output);
+
+        for (String path : List.of("B4.03", "envelope.ISA.06", "context.fileName", "'A'", "03", "scac", "N9.01")) {
+            assertEquals(ctx.getStringValue(path), ctx.getStringValue(SourcePath.of(path)), path);
+        }
+
+        assertEquals("CMACGM", ctx.getStringValue(SourcePath.of("envelope.ISA.06")));
+        assertEquals("YGOC010284", QualifiedPath.of("N9[01=BN].02").extract(transaction, 0));
+        assertNull(QualifiedPath.of("N9[01=ZZ].02").extract(transaction, 0));
+        assertNull(QualifiedPath.of("N9.02"));
+
+        Template template = Template.of("SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${B4.03}' AND X = '${missing}'");
+        assertEquals("SCAC_CD = 'CMDU' AND PRTNR_EVENT_CD = 'VD' AND X = ''", template.render(ctx));
+    }
+
+    @Test
+    @DisplayName("SegmentIndex should resolve qualified paths like a segment scan")
+    void testSegmentIndex() {
+        JsonNode ediJson = x12Converter.convert(sampleEdi315);
+
+        for (JsonNode transaction : ediJson.get("transactions")) {
+            SegmentIndex index = new SegmentIndex(transaction);
+            for (String raw : List.of("N9[01=BM].02", "N9[01=BN].02", "N9[01=ZZ].02", "R4[01=5].02", "Q2[01=X].01")) {
+                QualifiedPath path = QualifiedPath.of(raw);
+                assertEquals(path.extract(transaction, 0), index.extract(path), raw);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Fields that do not read the loop element should be evaluated per transaction")
+    void testFieldScopes() {
+        TargetTableConfig target = new TargetTableConfig();
+        target.setTable("CDB_EVENT");
+        target.setType("DETAIL");
+        target.setLoopPath("R4");
+        target.setFields(List.of(
+                field("PRTNR_EVENT_CD", "B4.03", null),
+                field("EVENT_LOC", "03", null),
+                field("EDI_ISA_CTRL_NO", "envelope.ISA.13", null),
+                field("DATA_SOURCE", null, "CONSTANT"),
+                lookup("SCAC", "SCAC_CD = '${envelope.ISA.06}'"),
+                lookup("ID", "SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${PRTNR_EVENT_CD}'"),
+                lookup("LOC_ID", "LOC_CD = '${event_loc}'"),
+                field("ID_MAP_FLAG", "01", "ID_MAP_FLAG")));
+        MappingConfig config = new MappingConfig();
+        config.setTargets(List.of(target));
+
+        List<FieldScope> scopes = CompiledMappingPlan.compile(config, new TransformFunctions())
+                .getTargets().get(0).getScopes();
+
+        assertEquals(List.of(FieldScope.TRANSACTION, FieldScope.RECORD, FieldScope.ENVELOPE, FieldScope.CONSTANT,
+                FieldScope.ENVELOPE, FieldScope.TRANSACTION, FieldScope.RECORD, FieldScope.RECORD), scopes);
+    }
+
+    @Test
+    @DisplayName("Lookup conditions should compile into parameterized SQL")
+    void testLookupCondition() {
+        LookupCondition condition = LookupCondition.of(
+                "SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${PRTNR_EVENT_CD}' AND DATE_TYPE = 'A'");
+
+        assertEquals("SCAC_CD = :p0 AND PRTNR_EVENT_CD = :p1 AND DATE_TYPE = 'A'", condition.getSql());
+        assertEquals(List.of("p0", "p1"), condition.getParameterNames());
+        assertEquals(List.of("CMDU", "VD", "A"), condition.equalityValues(List.of("CMDU", "VD")));
+
+        assertEquals("CODE = :p0", LookupCondition.of("CODE = 'RRDC_${eventTypeCode}_A'").getSql());
+        assertNull(LookupCondition.of("A = 'x' OR B = '${b}'").getEqualities());
+
+        LookupCondition literal = LookupCondition.of("CODE = 'O''B'");
+        assertEquals("CODE = 'O''B'", literal.getSql());
+        assertEquals(List.of("O'B"), literal.equalityValues(List.of()));
+    }
+
+    @Test
+    @DisplayName("LOOKUPs with the same table and condition should share one row")
+    void testLookupGroups() {
+        String condition = "SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${PRTNR_EVENT_CD}' AND DATE_TYPE = 'A'";
+        TargetTableConfig target = new TargetTableConfig();
+        target.setType("DETAIL");
+        target.setFields(List.of(
+                lookup("ID", condition, "EM2_EVENT_ID"),
+                lookup("EVENT_CODE", condition, "OEC_EVENT_CD"),
+                lookup("EVENT_DESCP", condition, "EVENT_DESC"),
+                lookup("LOC_ID", "LOC_CD = '${event_loc}'", "ID")));
+        MappingConfig config = new MappingConfig();
+        config.setTargets(List.of(target));
+
+        List<CompiledField> fields = CompiledMappingPlan.compile(config, new TransformFunctions())
+                .getTargets().get(0).getFields();
+
+        LookupGroup group = fields.get(0).getLookupGroup();
+        assertNotNull(group);
+        assertSame(group, fields.get(1).getLookupGroup());
+        assertSame(group, fields.get(2).getLookupGroup());
+        assertEquals(List.of("EM2_EVENT_ID", "OEC_EVENT_CD", "EVENT_DESC"), group.getColumns());
+        assertNull(fields.get(3).getLookupGroup());
+    }
+
+    private FieldMapping field(String name, String source, String transform) {
+        FieldMapping field = new FieldMapping();
+        field.setName(name);
+        field.setSource(source);
+        field.setTransform(transform);
+        return field;
+    }
+
+    private FieldMapping lookup(String name, String condition) {
+        return lookup(name, condition, "C");
+    }
+
+    private FieldMapping lookup(String name, String condition, String column) {
+        FieldMapping field = field(name, null, "LOOKUP");
+        field.setLookupTable("T");
+        field.setLookupColumn(column);
+        field.setLookupCondition(condition);
+        return field;
+    }
 }
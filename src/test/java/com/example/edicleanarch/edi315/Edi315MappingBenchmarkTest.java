@@ -0,0 +1,186 @@
+package com.example.edicleanarch.edi315;
+
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
+import com.example.edicleanarch.common.mapping.EdiMappingEngine;
+import com.example.edicleanarch.common.mapping.MappingConfig;
+import com.example.edicleanarch.common.mapping.MappingResult;
+import com.example.edicleanarch.common.mapping.ProcessingContext;
+import com.example.edicleanarch.common.parser.X12ToJsonConverter;
+import com.example.edicleanarch.common.transform.LookupCondition;
+import com.example.edicleanarch.common.transform.LookupService;
+import com.example.edicleanarch.common.transform.Template;
+import com.example.edicleanarch.common.transform.TransformContext;
+import com.example.edicleanarch.common.transform.TransformFunctions;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Micro benchmark: allocation per mapped R4 record on the CMA-CGM sample.
+ *
+ * Disabled by default. Run with:
+ *   ./gradlew test --tests '*Edi315MappingBenchmarkTest' -Dedi.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "edi.benchmark", matches = "true")
+@DisplayName("EDI 315 Mapping Benchmark")
+class Edi315MappingBenchmarkTest {
+
+    private static final String EDI_FILE_PATH = "edi315/CMDU/CMA-CGM_1109643418.txt";
+    private static final String MAPPING_PATH = "config/mappings/inbound/edi315-mapping.yml";
+    private static final int ITERATIONS = 50;
+
+    // The three OEVENTCODE conditions plus the SCAC key, as resolved for every R4 element
+    private static final List<String> EXPRESSIONS = List.of(
+            "${envelope.ISA.06}",
+            "SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${PRTNR_EVENT_CD}' AND DATE_TYPE = 'A'",
+            "SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${PRTNR_EVENT_CD}' AND DATE_TYPE = 'A'",
+            "SCAC_CD = '${scac}' AND PRTNR_EVENT_CD = '${PRTNR_EVENT_CD}' AND DATE_TYPE = 'A'");
+
+    private final LookupService lookupService = new LookupService() {
+        @Override
+        public Object lookup(String tableName, String keyColumn, String keyValue, String targetColumn) {
+            return keyValue;
+        }
+
+        @Override
+        public Object lookupWithCondition(String tableName, LookupCondition condition, List<String> parameters,
+                                          String targetColumn) {
+            return targetColumn;
+        }
+    };
+
+    private JsonNode ediJson;
+    private MappingConfig mappingConfig;
+    private EdiMappingEngine mappingEngine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ediJson = new X12ToJsonConverter().convert(read(EDI_FILE_PATH));
+
+        ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        try (InputStream is = new ClassPathResource(MAPPING_PATH).getInputStream()) {
+            mappingConfig = yamlMapper.readValue(is, MappingConfig.class);
+        }
+
+        mappingEngine = new EdiMappingEngine(new TransformFunctions(), lookupService);
+    }
+
+    private String read(String path) throws IOException {
+        try (InputStream is = new ClassPathResource(path).getInputStream()) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Cached templates should allocate less per record than regex resolution")
+    void benchmarkExpressionResolution() {
+        List<TransformContext> contexts = recordContexts();
+
+        long before = measure(() -> {
+            for (TransformContext ctx : contexts) {
+                for (String expression : EXPRESSIONS) {
+                    regexResolve(expression, ctx);
+                }
+            }
+        });
+        long after = measure(() -> {
+            for (TransformContext ctx : contexts) {
+                for (String expression : EXPRESSIONS) {
+                    Template.of(expression).render(ctx);
+                }
+            }
+        });
+
+        long records = (long) contexts.size() * ITERATIONS;
+        System.out.printf("Expression resolution: regex %d B/record, template %d B/record%n",
+                before / records, after / records);
+        assertTrue(after < before);
+    }
+
+    @Test
+    @DisplayName("Report allocation per record for the full 315 mapping")
+    void benchmarkFullMapping() {
+        CompiledMappingPlan plan = mappingEngine.compile(mappingConfig);
+        ProcessingContext context = new ProcessingContext();
+        context.setFileName("CMA-CGM_1109643418.txt");
+
+        int records = mappingEngine.transform(ediJson, plan, null, context).getTotalRecords();
+
+        long perConfig = measure(() -> mappingEngine.transform(ediJson, mappingConfig, null, context));
+        long perPlan = measure(() -> {
+            MappingResult result = mappingEngine.transform(ediJson, plan, null, context);
+            assertEquals(records, result.getTotalRecords());
+        });
+
+        long total = (long) records * ITERATIONS;
+        System.out.printf("Full mapping: compile per call %d B/record, compiled plan %d B/record%n",
+                perConfig / total, perPlan / total);
+    }
+
+    private List<TransformContext> recordContexts() {
+        ProcessingContext context = new ProcessingContext();
+        List<TransformContext> contexts = new ArrayList<>();
+        for (JsonNode transaction : ediJson.get("transactions")) {
+            for (JsonNode r4 : transaction.get("R4")) {
+                Map<String, Object> output = new LinkedHashMap<>();
+                output.put("PRTNR_EVENT_CD", transaction.get("B4").get("03").asText());
+                output.put("SCAC", "CMDU");
+                contexts.add(new TransformContext(r4, transaction, ediJson, context, lookupService, 0, output));
+            }
+        }
+        return contexts;
+    }
+
+    /**
+     * Bytes allocated by the current thread over ITERATIONS runs (after one warm-up run).
+     */
+    private long measure(Runnable work) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        work.run();
+
+        long start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            work.run();
+        }
+        return threads.getCurrentThreadAllocatedBytes() - start;
+    }
+
+    /**
+     * Expression resolution as it was before templates were cached:
+     * a fresh Pattern and StringBuffer per call.
+     */
+    private String regexResolve(String expr, TransformContext ctx) {
+        Pattern pattern = Pattern.compile("\\$\\{([^}]+)\\}");
+        Matcher matcher = pattern.matcher(expr);
+        StringBuffer result = new StringBuffer();
+
+        while (matcher.find()) {
+            String value = ctx.getStringValue(matcher.group(1));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value != null ? value : ""));
+        }
+        matcher.appendTail(result);
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.edicleanarch.edi315;
+
+import com.example.edicleanarch.common.adapter.out.persistence.DatabasePermits;
+import com.example.edicleanarch.common.mapping.CompiledMappingPlan;
+import com.example.edicleanarch.common.mapping.EdiMappingEngine;
+import com.example.edicleanarch.common.mapping.MappingConfig;
+import com.example.edicleanarch.common.mapping.ProcessingContext;
+import com.example.edicleanarch.common.parser.X12ToJsonConverter;
+import com.example.edicleanarch.common.port.out.DatabasePermitPort;
+import com.example.edicleanarch.common.transform.LookupCondition;
+import com.example.edicleanarch.common.transform.LookupService;
+import com.example.edicleanarch.common.transform.TransformFunctions;
+import com.example.edicleanarch.config.EdiProperties;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark: file throughput and p99 latency of parse -> map -> persist on platform threads
+ * versus virtual threads, with the same connection pool size.
+ *
+ * The database is simulated: a semaphore of POOL_SIZE connections and a fixed round trip per
+ * lookup miss and per write. Like a ChunkedBatchWriter lane, each file holds a writer
+ * transaction permit and a connection from its first chunk until commit, while its lookup
+ * misses take permits and connections of their own. Platform mode runs POOL_SIZE worker threads
+ * (one per connection, like listener concurrency sized to the pool); virtual mode runs one
+ * virtual thread per file. Both bound database work with {@link DatabasePermits}.
+ *
+ * Disabled by default. Run with:
+ *   ./gradlew test --tests '*VirtualThreadBenchmarkTest' -Dedi.benchmark=true
+ */
+@EnabledIfSystemProperty(named = "edi.benchmark", matches = "true")
+@DisplayName("Virtual Thread Pipeline Benchmark")
+class VirtualThreadBenchmarkTest {
+
+    private static final String EDI_FILE_PATH = "edi315/CMDU/CMA-CGM_1109643418.txt";
+    private static final String MAPPING_PATH = "config/mappings/inbound/edi315-mapping.yml";
+
+    private static final int POOL_SIZE = 10;
+    private static final int FILES = 400;
+    private static final int LOOKUP_MISSES_PER_FILE = 4;
+    private static final long LOOKUP_MILLIS = 2;
+    private static final long WRITE_MILLIS = 10;
+
+    private final Semaphore connectionPool = new Semaphore(POOL_SIZE, true);
+
+    private final LookupService lookupService = new LookupService() {
+        @Override
+        public Object lookup(String tableName, String keyColumn, String keyValue, String targetColumn) {
+            return keyValue;
+        }
+
+        @Override
+        public Object lookupWithCondition(String tableName, LookupCondition condition, List<String> parameters,
+                                          String targetColumn) {
+            return targetColumn;
+        }
+    };
+
+    private String content;
+    private CompiledMappingPlan plan;
+    private EdiMappingEngine mappingEngine;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream is = new ClassPathResource(EDI_FILE_PATH).getInputStream()) {
+            content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        try (InputStream is = new ClassPathResource(MAPPING_PATH).getInputStream()) {
+            mappingEngine = new EdiMappingEngine(new TransformFunctions(), lookupService);
+            plan = mappingEngine.compile(yamlMapper.readValue(is, MappingConfig.class));
+        }
+    }
+
+    @Test
+    @DisplayName("Report throughput and p99 latency for platform and virtual threads")
+    void benchmarkExecutionModes() throws Exception {
+        // Warm-up (JIT) with both modes
+        run(false, FILES / 4);
+        run(true, FILES / 4);
+
+        Result platform = run(false, FILES);
+        Result virtual = run(true, FILES);
+
+        System.out.printf("Platform threads (%d workers): %.1f files/s, p50 %d ms, p99 %d ms%n",
+                POOL_SIZE, platform.throughput(), platform.p50(), platform.p99());
+        System.out.printf("Virtual threads (%d DB permits): %.1f files/s, p50 %d ms, p99 %d ms%n",
+                POOL_SIZE, virtual.throughput(), virtual.p50(), virtual.p99());
+
+        assertEquals(FILES, platform.latencies().length);
+        assertEquals(FILES, virtual.latencies().length);
+    }
+
+    /**
+     * Submit all files at once and wait for them; latency is submit to completion.
+     */
+    private Result run(boolean virtualThreads, int files) throws Exception {
+        DatabasePermits permits = new DatabasePermits(new EdiProperties(), POOL_SIZE);
+
+        ExecutorService executor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(POOL_SIZE);
+
+        long start = System.nanoTime();
+        List<Future<Long>> futures = new ArrayList<>(files);
+        try {
+            for (int i = 0; i < files; i++) {
+                long submitted = System.nanoTime();
+                futures.add(executor.submit(() -> {
+                    processFile(permits);
+                    return (System.nanoTime() - submitted) / 1_000_000;
+                }));
+            }
+
+            long[] latencies = new long[files];
+            for (int i = 0; i < files; i++) {
+                latencies[i] = futures.get(i).get();
+            }
+            return new Result(latencies, System.nanoTime() - start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Parse, look up (cache misses), map and write one file. The writer transaction is open from
+     * the first chunk to the commit, so the lookups run while it holds its connection.
+     */
+    private void processFile(DatabasePermits permits) {
+        JsonNode json = new X12ToJsonConverter().convert(content);
+
+        try (DatabasePermitPort.Permit transaction = permits.acquire()) {
+            acquireConnection();
+            try {
+                sleep(WRITE_MILLIS / 2);   // First chunk
+
+                for (int i = 0; i < LOOKUP_MISSES_PER_FILE; i++) {
+                    permits.call(() -> databaseRoundTrip(LOOKUP_MILLIS));
+                }
+
+                ProcessingContext context = new ProcessingContext();
+                context.setFileName("CMA-CGM_1109643418.txt");
+                int records = mappingEngine.transform(json, plan, null, context).getTotalRecords();
+                assertTrue(records > 0);
+
+                sleep(WRITE_MILLIS / 2);   // Last chunk and commit
+            } finally {
+                connectionPool.release();
+            }
+        }
+    }
+
+    /**
+     * Hold a connection of the simulated pool for the given time.
+     */
+    private Void databaseRoundTrip(long millis) {
+        acquireConnection();
+        try {
+            sleep(millis);
+        } finally {
+            connectionPool.release();
+        }
+        return null;
+    }
+
+    private void acquireConnection() {
+        try {
+            connectionPool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Result(long[] latencies, long elapsedNanos) {
+
+        double throughput() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        long p50() {
+            return percentile(0.50);
+        }
+
+        long p99() {
+            return percentile(0.99);
+        }
+
+        private long percentile(double p) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+    }
+}
@@ -74,6 +74,13 @@ class Edi315SqlServerIntegrationTest {
             if (deleted > 0) {
                 System.out.println("[Setup] Cleaned up " + deleted + " existing records for file: " + FILE_NAME);
             }
+
+            // Forget the earlier run, otherwise the processed-file ledger short-circuits it
+            try {
+                stmt.executeUpdate("DELETE FROM EDI_FILE_LEDGER WHERE FILE_NAME = '" + FILE_NAME + "'");
+            } catch (SQLException e) {
+                System.out.println("[Setup] Ledger cleanup skipped (table may not exist): " + e.getMessage());
+            }
         }
     }
 
@@ -1,10 +1,13 @@
 package com.example.edicleanarch.railinc;
 
+import com.example.edicleanarch.common.parser.FixedWidthRecordReader;
+import com.example.edicleanarch.common.parser.FixedWidthSlicer;
 import com.example.edicleanarch.common.parser.FixedWidthToJsonConverter;
 import com.example.edicleanarch.common.schema.FieldDefinition;
 import com.example.edicleanarch.common.schema.FixedWidthSchema;
 import com.example.edicleanarch.railinc.domain.model.RailincParseResult;
 import com.example.edicleanarch.railinc.domain.model.RailincRecord;
+import com.example.edicleanarch.railinc.domain.service.RailincFileParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
@@ -14,10 +17,13 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.io.ClassPathResource;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -332,6 +338,23 @@ class RailincDynamicParsingTest {
             assertTrue(result.getHeader().containsKey("sequenceNumber"));
             assertEquals("2312282200001", result.getHeaderField("sequenceNumber"));
         }
+
+        @Test
+        @DisplayName("Content and stream read the same CLM control number")
+        void shouldReadSameControlNumberFromContentAndStream() throws IOException {
+            String content = "\r\n" + testFileContent.replace("\n", "\r\n");
+            FixedWidthSlicer slicer = jsonConverter.compile(schema);
+
+            String controlNumber = FixedWidthSlicer.headerLine(content);
+            try (FixedWidthRecordReader reader = jsonConverter.stream(
+                    new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), slicer)) {
+                reader.readRecords(1);
+                assertEquals(reader.getHeaderLine(), controlNumber);
+            }
+            assertTrue(controlNumber.startsWith("CLM"));
+            assertTrue(controlNumber.endsWith("2312282200001"));
+            assertNull(FixedWidthSlicer.headerLine("EOM00000000\n"));
+        }
     }
 
     @Nested
@@ -490,6 +513,50 @@ class RailincDynamicParsingTest {
         }
     }
 
+    @Nested
+    @DisplayName("Compact Record Tests")
+    class CompactRecordTests {
+
+        private RailincParseResult parseCompact() {
+            // Schema passed explicitly, the schema loader is not used
+            return new RailincFileParser(jsonConverter, null).parse(testFileContent, schema);
+        }
+
+        @Test
+        @DisplayName("Should match the JsonNode parse and share one field table")
+        void shouldMatchJsonNodeParseAndShareFieldTable() {
+            RailincParseResult expected = parseTestFile();
+            RailincParseResult result = parseCompact();
+
+            assertEquals(expected.getHeader(), result.getHeader());
+            assertEquals(expected.getTrailer(), result.getTrailer());
+            assertEquals(expected.getRecords().size(), result.getRecords().size());
+            for (int i = 0; i < result.getRecords().size(); i++) {
+                RailincRecord record = result.getRecords().get(i);
+                assertEquals(expected.getRecords().get(i).getFields(), record.getFields());
+                assertSame(result.getRecords().get(0).getFieldTable(), record.getFieldTable());
+            }
+            assertEquals(expected.getSourceJson().get("records"), result.getSourceJson().get("records"));
+        }
+
+        @Test
+        @DisplayName("Should expose records with extra columns without copying")
+        void shouldExposeRecordsWithExtraColumns() {
+            RailincRecord record = parseCompact().getRecords().get(0);
+            Map<String, Object> fileColumns = new LinkedHashMap<>();
+            fileColumns.put("fileName", "OECGROUP_CLM.txt");
+            fileColumns.put("partnerId", "OECGROUP");
+
+            Map<String, Object> columns = record.asColumns(fileColumns);
+
+            assertEquals(record.fieldNames().size() + 2, columns.size());
+            assertEquals("BMOU", columns.get("equipmentInitial"));
+            assertEquals("OECGROUP", columns.get("partnerId"));
+            assertEquals(List.of("fileName", "partnerId"),
+                    List.copyOf(columns.keySet()).subList(columns.size() - 2, columns.size()));
+        }
+    }
+
     // Helper method to create field definition for test customizations
 
     private FieldDefinition createField(String name, int start, int end) {